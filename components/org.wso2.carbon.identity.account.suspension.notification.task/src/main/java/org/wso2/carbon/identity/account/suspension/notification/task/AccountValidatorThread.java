@@ -17,7 +17,7 @@
  */
 package org.wso2.carbon.identity.account.suspension.notification.task;
 
-import org.apache.commons.collections.CollectionUtils;
+import org.apache.axis2.clustering.ClusteringAgent;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -27,7 +27,8 @@ import org.wso2.carbon.identity.account.suspension.notification.task.internal.No
 import org.wso2.carbon.identity.account.suspension.notification.task.util.EmailUtil;
 import org.wso2.carbon.identity.account.suspension.notification.task.util.NotificationConstants;
 import org.wso2.carbon.identity.account.suspension.notification.task.util.NotificationReceiver;
-import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.account.suspension.notification.task.util.NotificationReceiversRetrievalUtil;
+import org.wso2.carbon.identity.account.suspension.notification.task.util.TenantShardResolver;
 import org.wso2.carbon.identity.application.common.model.User;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
@@ -36,7 +37,9 @@ import org.wso2.carbon.identity.event.IdentityEventConstants;
 import org.wso2.carbon.identity.event.IdentityEventException;
 import org.wso2.carbon.identity.event.event.Event;
 import org.wso2.carbon.identity.governance.IdentityGovernanceException;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
 import org.wso2.carbon.identity.governance.IdentityMgtConstants;
+import org.wso2.carbon.identity.governance.model.GovernanceConfigSnapshot;
 import org.wso2.carbon.user.api.Tenant;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.UserCoreConstants;
@@ -46,14 +49,29 @@ import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class AccountValidatorThread implements Runnable {
 
     private static final Log log = LogFactory.getLog(AccountValidatorThread.class);
 
+    private volatile ExecutorService userOperationExecutor;
+    private volatile int perTenantConcurrency = NotificationConstants.DEFAULT_PER_TENANT_CONCURRENCY;
+
     public AccountValidatorThread() {
 
     }
@@ -65,36 +83,138 @@ public class AccountValidatorThread implements Runnable {
             log.debug("Idle account suspension task started.");
         }
 
-        RealmService realmService = NotificationTaskDataHolder.getInstance().getRealmService();
+        long startTime = System.currentTimeMillis();
+        List<String> tenantDomains = getTenantDomainsToProcess();
+        if (tenantDomains.isEmpty()) {
+            return;
+        }
 
-        Tenant[] tenants = new Tenant[0];
+        int workerPoolSize = IdentityGovernanceUtil.getPositiveIntProperty(
+                NotificationConstants.TENANT_WORKER_POOL_SIZE, NotificationConstants.DEFAULT_TENANT_WORKER_POOL_SIZE);
+        int taskQueueSize = IdentityGovernanceUtil.getPositiveIntProperty(
+                NotificationConstants.TENANT_TASK_QUEUE_SIZE, NotificationConstants.DEFAULT_TENANT_TASK_QUEUE_SIZE);
+        perTenantConcurrency = IdentityGovernanceUtil.getPositiveIntProperty(
+                NotificationConstants.PER_TENANT_CONCURRENCY, NotificationConstants.DEFAULT_PER_TENANT_CONCURRENCY);
+
+        // When the queue is full the tenant is processed in the submitting thread, which holds back the submission
+        // of further tenants until the workers catch up.
+        ThreadPoolExecutor tenantExecutor = new ThreadPoolExecutor(workerPoolSize, workerPoolSize, 0L,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(taskQueueSize),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        userOperationExecutor = perTenantConcurrency > 1 ?
+                Executors.newFixedThreadPool(workerPoolSize * perTenantConcurrency) : null;
+
+        AtomicInteger processedTenants = new AtomicInteger();
+        AtomicInteger failedTenants = new AtomicInteger();
+        try {
+            for (String tenantDomain : tenantDomains) {
+                tenantExecutor.execute(() -> {
+                    boolean successful;
+                    try {
+                        successful = handleTask(tenantDomain);
+                    } catch (RuntimeException e) {
+                        log.error("Error occurred while handling idle account suspension task for tenant: " +
+                                tenantDomain, e);
+                        successful = false;
+                    }
+                    (successful ? processedTenants : failedTenants).incrementAndGet();
+                });
+            }
+            tenantExecutor.shutdown();
+            while (!tenantExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Idle account suspension task is in progress. Processed tenants: " +
+                        (processedTenants.get() + failedTenants.get()) + " of " + tenantDomains.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Idle account suspension task was interrupted.", e);
+        } finally {
+            tenantExecutor.shutdownNow();
+            if (userOperationExecutor != null) {
+                userOperationExecutor.shutdownNow();
+                userOperationExecutor = null;
+            }
+        }
+
+        log.info("Idle account suspension task completed for " + processedTenants.get() + " tenants in " +
+                (System.currentTimeMillis() - startTime) + " ms. Failed tenants: " + failedTenants.get());
+    }
 
+    /**
+     * Get the domains of the tenants to be processed by this node. When shard members are configured, the tenants
+     * are distributed among the members with consistent hashing. If fewer members are alive in the cluster than the
+     * shard members, all the tenants are processed by the master node until the missing members join back.
+     * Otherwise, all the tenants are processed, unless the task is configured to run only in the master node and
+     * this node is not the master node.
+     *
+     * @return Domains of the tenants to be processed.
+     */
+    private List<String> getTenantDomainsToProcess() {
+
+        List<String> tenantDomains = new ArrayList<>();
+        TenantShardResolver shardResolver = null;
+        String memberId = IdentityUtil.getProperty(NotificationConstants.SHARD_MEMBER_ID);
+        String shardMembers = IdentityUtil.getProperty(NotificationConstants.SHARD_MEMBERS);
+        if (StringUtils.isNotBlank(shardMembers)) {
+            shardResolver = new TenantShardResolver(Arrays.asList(shardMembers.split(",")));
+            if (!shardResolver.isMember(memberId)) {
+                log.warn("Member id: " + memberId + " is not one of the shard members: " + shardMembers +
+                        ". Idle account suspension task will not run in this node.");
+                return tenantDomains;
+            }
+        } else if (isMasterNodeExclusiveExecutionEnabled() && !isHazelcastMasterNode()) {
+            // Run the task only from master node in cluster setup.
+            return tenantDomains;
+        }
+
+        RealmService realmService = NotificationTaskDataHolder.getInstance().getRealmService();
+        Tenant[] tenants = new Tenant[0];
         try {
             tenants = realmService.getTenantManager().getAllTenants();
         } catch (UserStoreException e) {
             log.error("Error occurred while retrieving tenants", e);
         }
 
-        handleTask(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-
+        tenantDomains.add(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
         for (Tenant tenant : tenants) {
-            handleTask(tenant.getDomain());
+            tenantDomains.add(tenant.getDomain());
         }
-
+        if (shardResolver != null) {
+            ClusteringAgent clusteringAgent = NotificationTaskDataHolder.getInstance().getClusteringAgent();
+            // Without clustering, the shard members can not be checked for liveness.
+            int aliveMemberCount = clusteringAgent != null ? clusteringAgent.getAliveMemberCount() :
+                    shardResolver.getMemberCount();
+            boolean coordinator = clusteringAgent == null || clusteringAgent.isCoordinator();
+            if (aliveMemberCount < shardResolver.getMemberCount()) {
+                log.warn("Only " + aliveMemberCount + " of the " + shardResolver.getMemberCount() + " shard " +
+                        "members are alive. Idle account suspension task is run only in the master node.");
+            }
+            tenantDomains = shardResolver.getTenantsToProcess(memberId, tenantDomains, aliveMemberCount,
+                    coordinator);
+            if (log.isDebugEnabled()) {
+                log.debug("Idle account suspension task is assigned " + tenantDomains.size() + " tenants in member: " +
+                        memberId.trim());
+            }
+        }
+        return tenantDomains;
     }
 
-    private void handleTask(String tenantDomain) {
+    /**
+     * Handle the idle account suspension task of a tenant.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return True if the task was completed without errors.
+     */
+    private boolean handleTask(String tenantDomain) {
 
         if (log.isDebugEnabled()) {
             log.debug("Handling idle account suspension task for tenant: " + tenantDomain);
         }
 
-        // Run the task only from master node in cluster setup.
-        if (isMasterNodeExclusiveExecutionEnabled() && !isHazelcastMasterNode()) {
-            return;
-        }
-
-        Property[] identityProperties;
+        long startTime = System.currentTimeMillis();
+        AtomicLong notifiedUsers = new AtomicLong();
+        AtomicLong lockedUsers = new AtomicLong();
+        GovernanceConfigSnapshot identityProperties;
         try {
             // Start Tenant flow
             PrivilegedCarbonContext.startTenantFlow();
@@ -103,74 +223,61 @@ public class AccountValidatorThread implements Runnable {
             privilegedCarbonContext.setTenantDomain(tenantDomain);
 
             identityProperties = NotificationTaskDataHolder.getInstance().getIdentityGovernanceService()
-                    .getConfiguration(getPropertyNames(), tenantDomain);
-            boolean isEnabled = false;
-            long suspensionDelay = 0;
-            long[] notificationDelays = null;
-            for (Property identityProperty : identityProperties) {
-
-                if (identityProperty == null) {
-                    continue;
+                    .getConfigurationSnapshot(tenantDomain);
+            boolean isEnabled = identityProperties.getBoolean(NotificationConstants.SUSPENSION_NOTIFICATION_ENABLED,
+                    false);
+            if (!isEnabled) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Account suspension task is not enabled for : " + tenantDomain);
                 }
+                return true;
+            }
 
-                if (NotificationConstants.SUSPENSION_NOTIFICATION_ENABLED.equals(identityProperty.getName())) {
-                    isEnabled = Boolean.parseBoolean(identityProperty.getValue());
-
-                    if (!isEnabled) {
-                        return;
-                    }
-                }
+            long suspensionDelay = identityProperties.getLong(
+                    NotificationConstants.SUSPENSION_NOTIFICATION_ACCOUNT_DISABLE_DELAY, 0);
+            if (identityProperties.contains(NotificationConstants.SUSPENSION_NOTIFICATION_ACCOUNT_DISABLE_DELAY) &&
+                    !identityProperties.isLong(NotificationConstants.SUSPENSION_NOTIFICATION_ACCOUNT_DISABLE_DELAY)) {
+                log.error("Error occurred while reading account suspension delay for tenant: " + tenantDomain);
+            }
 
-                if (NotificationConstants.SUSPENSION_NOTIFICATION_ACCOUNT_DISABLE_DELAY.
-                        equals(identityProperty.getName())) {
+            long[] notificationDelays = null;
+            String notificationDelaysValue =
+                    identityProperties.getValue(NotificationConstants.SUSPENSION_NOTIFICATION_DELAYS);
+            if (notificationDelaysValue != null) {
+                String[] parts = notificationDelaysValue.split(",");
+                notificationDelays = new long[parts.length];
+                for (int i = 0; i < parts.length; i++) {
                     try {
-                        suspensionDelay = Long.parseLong(identityProperty.getValue());
+                        notificationDelays[i] = Long.parseLong(parts[i]);
                     } catch (NumberFormatException e) {
-                        log.error("Error occurred while reading account suspension delay for tenant: " + tenantDomain,
-                                e);
-                    }
-                }
-
-                if (NotificationConstants.SUSPENSION_NOTIFICATION_DELAYS.equals(identityProperty.getName())) {
-
-                    if (identityProperty.getValue() != null) {
-                        String[] parts = identityProperty.getValue().split(",");
-                        notificationDelays = new long[parts.length];
-                        for (int i = 0; i < parts.length; i++) {
-                            try {
-                                notificationDelays[i] = Long.parseLong(parts[i]);
-                            } catch (NumberFormatException e) {
-                                log.error("Error occurred while reading account suspension notification delays for "
-                                        + "tenant: " + tenantDomain, e);
-                            }
-                        }
+                        log.error("Error occurred while reading account suspension notification delays for "
+                                + "tenant: " + tenantDomain, e);
                     }
                 }
             }
 
             if (log.isDebugEnabled()) {
-                if (isEnabled) {
-                    log.debug("Account suspension task is enabled for : " + tenantDomain);
-                } else {
-                    log.debug("Account suspension task is not enabled for : " + tenantDomain);
-                }
+                log.debug("Account suspension task is enabled for : " + tenantDomain);
             }
 
-            if (!isEnabled) {
-                return;
-            }
-
-            notifyUsers(tenantDomain, suspensionDelay, notificationDelays);
+            notifyUsers(tenantDomain, suspensionDelay, notificationDelays, notifiedUsers);
 
-            lockAccounts(tenantDomain, suspensionDelay);
+            lockAccounts(tenantDomain, suspensionDelay, lockedUsers);
 
+            return true;
         } catch (IdentityGovernanceException e) {
             log.error("Error occurred while loading governance configuration for tenants", e);
         } catch (IdentityException e) {
             log.error("Unable to disable user accounts", e);
         } finally {
             PrivilegedCarbonContext.endTenantFlow();
+            if (log.isDebugEnabled()) {
+                log.debug("Idle account suspension task for tenant: " + tenantDomain + " took " +
+                        (System.currentTimeMillis() - startTime) + " ms. Notified users: " + notifiedUsers.get() +
+                        ", locked users: " + lockedUsers.get());
+            }
         }
+        return false;
     }
 
     /**
@@ -195,97 +302,172 @@ public class AccountValidatorThread implements Runnable {
     }
 
     /**
-     * Notify users about account inactivity via Email.
+     * Notify users about account inactivity via Email. The users are notified page by page.
      */
-    private void notifyUsers(String tenantDomain, long suspensionDelay, long[] notificationDelays) {
+    private void notifyUsers(String tenantDomain, long suspensionDelay, long[] notificationDelays,
+                             AtomicLong notifiedUsers) {
         EmailUtil util = new EmailUtil();
         for (long delay : notificationDelays) {
-            List<NotificationReceiver> receivers = null;
             try {
-                receivers = NotificationReceiversRetrievalManager.getReceivers(delay, tenantDomain, suspensionDelay);
+                NotificationReceiversRetrievalManager.processReceivers(delay, tenantDomain, suspensionDelay,
+                        receivers -> processReceivers(receivers, tenantDomain, receiver -> {
+                            if (log.isDebugEnabled()) {
+                                log.debug("Sending notification to: " + IdentityUtil.addDomainToName(
+                                        receiver.getUsername(), receiver.getUserStoreDomain()) + "@" +
+                                        tenantDomain);
+                            }
+                            util.sendEmail(receiver);
+                            notifiedUsers.incrementAndGet();
+                        }));
             } catch (AccountSuspensionNotificationException e) {
                 log.error("Error occurred while retrieving notification receivers", e);
             }
-            if (CollectionUtils.isNotEmpty(receivers)) {
-                for (NotificationReceiver receiver : receivers) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Sending notification to: " + IdentityUtil.addDomainToName(receiver.getUsername(),
-                                receiver.getUserStoreDomain()) + "@" + tenantDomain);
-                    }
-                    util.sendEmail(receiver);
-                }
-            }
         }
     }
 
     /**
-     * Disable user accounts which exceeds max inactivity timeout.
+     * Disable user accounts which exceeds max inactivity timeout. The accounts are disabled page by page.
      *
      * @throws IdentityException
      */
-    private void lockAccounts(String tenantDomain, long suspensionDelay) throws IdentityException {
-        List<NotificationReceiver> receivers = null;
+    private void lockAccounts(String tenantDomain, long suspensionDelay, AtomicLong lockedUsers)
+            throws IdentityException {
+
+        RealmService realmService = NotificationTaskDataHolder.getInstance().getRealmService();
+        int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+
+        UserRealm userRealm;
         try {
-            receivers = NotificationReceiversRetrievalManager.getReceivers(suspensionDelay, tenantDomain,
-                    suspensionDelay);
+            userRealm = (UserRealm) realmService.getTenantUserRealm(tenantId);
+        } catch (UserStoreException e) {
+            throw new IdentityException("Failed retrieve the user realm for tenant: " + tenantDomain, e);
+        }
 
+        UserStoreManager userStoreManager;
+        try {
+            userStoreManager = userRealm.getUserStoreManager();
+        } catch (org.wso2.carbon.user.core.UserStoreException e) {
+            throw new IdentityException("Failed retrieve the user store manager for tenant: " + tenantDomain,
+                    e);
+        }
+
+        try {
+            NotificationReceiversRetrievalManager.processReceivers(suspensionDelay, tenantDomain, suspensionDelay,
+                    receivers -> processReceivers(receivers, tenantDomain, receiver -> {
+                        lockAccount(receiver, tenantDomain, userStoreManager);
+                        lockedUsers.incrementAndGet();
+                    }));
         } catch (AccountSuspensionNotificationException e) {
+            if (e.getCause() instanceof IdentityException) {
+                throw (IdentityException) e.getCause();
+            }
             throw IdentityException.error("Error occurred while retrieving users for account disable", e);
         }
-        if (receivers.size() > 0) {
-            for (NotificationReceiver receiver : receivers) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Locking idle account: " + IdentityUtil.addDomainToName(receiver.getUsername(),
-                            receiver.getUserStoreDomain()) + "@" + tenantDomain);
-                }
-                RealmService realmService = NotificationTaskDataHolder.getInstance().getRealmService();
-                int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+    }
 
-                UserRealm userRealm;
-                try {
-                    userRealm = (UserRealm) realmService.getTenantUserRealm(tenantId);
-                } catch (UserStoreException e) {
-                    throw new IdentityException("Failed retrieve the user realm for tenant: " + tenantDomain, e);
-                }
+    /**
+     * Apply an operation to each receiver of a page. When the per tenant concurrency is more than one, the
+     * operations are run concurrently, with at most the configured number of operations of the tenant in progress
+     * at a time. The method returns once the operations of all the receivers of the page are completed.
+     *
+     * @param receivers    Receivers of the page.
+     * @param tenantDomain Tenant domain of the receivers.
+     * @param operation    Operation to apply to each receiver.
+     * @throws AccountSuspensionNotificationException If the operation fails for a receiver.
+     */
+    private void processReceivers(List<NotificationReceiver> receivers, String tenantDomain,
+                                  ReceiverOperation operation) throws AccountSuspensionNotificationException {
 
-                UserStoreManager userStoreManager;
+        ExecutorService executor = userOperationExecutor;
+        if (executor == null || receivers.size() < 2) {
+            for (NotificationReceiver receiver : receivers) {
                 try {
-                    userStoreManager = userRealm.getUserStoreManager();
-                } catch (org.wso2.carbon.user.core.UserStoreException e) {
-                    throw new IdentityException("Failed retrieve the user store manager for tenant: " + tenantDomain,
-                            e);
+                    operation.apply(receiver);
+                } catch (IdentityException e) {
+                    throw new AccountSuspensionNotificationException(e.getMessage(), e);
                 }
+            }
+            return;
+        }
 
-                Map<String, String> updatedClaims = new HashMap<>();
-                updatedClaims.put(NotificationConstants.ACCOUNT_LOCKED_CLAIM, Boolean.TRUE.toString());
-                updatedClaims.put(NotificationConstants.ACCOUNT_LOCKED_REASON_CLAIM,
-                        IdentityMgtConstants.LockedReason.IDLE_ACCOUNT.toString());
-                updatedClaims.put(NotificationConstants.PASSWORD_RESET_FAIL_ATTEMPTS_CLAIM, "0");
+        Semaphore permits = new Semaphore(perTenantConcurrency);
+        List<Future<?>> futures = new ArrayList<>(receivers.size());
+        try {
+            for (NotificationReceiver receiver : receivers) {
+                permits.acquire();
                 try {
-                    userStoreManager.setUserClaimValues(IdentityUtil.addDomainToName(receiver.getUsername(),
-                            receiver.getUserStoreDomain()), updatedClaims, UserCoreConstants.DEFAULT_PROFILE);
-                } catch (org.wso2.carbon.user.core.UserStoreException e) {
-                    throw new IdentityException("Failed to update claim values for user: " + IdentityUtil
-                            .addDomainToName(receiver.getUsername(), receiver.getUserStoreDomain()) + " in tenant: " +
-                            tenantDomain);
+                    futures.add(executor.submit(() -> {
+                        try {
+                            applyInTenantFlow(operation, receiver, tenantDomain);
+                            return null;
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    throw new AccountSuspensionNotificationException("Idle account suspension task was stopped " +
+                            "while processing tenant: " + tenantDomain, e);
                 }
-
-                User user = new User();
-                user.setUserName(receiver.getUsername());
-                user.setTenantDomain(tenantDomain);
-                user.setUserStoreDomain(receiver.getUserStoreDomain());
-                triggerNotification(user);
             }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountSuspensionNotificationException("Interrupted while processing users of tenant: " +
+                    tenantDomain, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new AccountSuspensionNotificationException(cause.getMessage(), cause);
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void applyInTenantFlow(ReceiverOperation operation, NotificationReceiver receiver, String tenantDomain)
+            throws IdentityException {
+
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext privilegedCarbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            privilegedCarbonContext.setTenantId(IdentityTenantUtil.getTenantId(tenantDomain));
+            privilegedCarbonContext.setTenantDomain(tenantDomain);
+            operation.apply(receiver);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
         }
     }
 
-    private String[] getPropertyNames() {
+    private void lockAccount(NotificationReceiver receiver, String tenantDomain, UserStoreManager userStoreManager)
+            throws IdentityException {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Locking idle account: " + IdentityUtil.addDomainToName(receiver.getUsername(),
+                    receiver.getUserStoreDomain()) + "@" + tenantDomain);
+        }
+
+        Map<String, String> updatedClaims = new HashMap<>();
+        updatedClaims.put(NotificationConstants.ACCOUNT_LOCKED_CLAIM, Boolean.TRUE.toString());
+        updatedClaims.put(NotificationConstants.ACCOUNT_LOCKED_REASON_CLAIM,
+                IdentityMgtConstants.LockedReason.IDLE_ACCOUNT.toString());
+        updatedClaims.put(NotificationConstants.PASSWORD_RESET_FAIL_ATTEMPTS_CLAIM, "0");
+        try {
+            userStoreManager.setUserClaimValues(IdentityUtil.addDomainToName(receiver.getUsername(),
+                    receiver.getUserStoreDomain()), updatedClaims, UserCoreConstants.DEFAULT_PROFILE);
+        } catch (org.wso2.carbon.user.core.UserStoreException e) {
+            throw new IdentityException("Failed to update claim values for user: " + IdentityUtil
+                    .addDomainToName(receiver.getUsername(), receiver.getUserStoreDomain()) + " in tenant: " +
+                    tenantDomain);
+        }
 
-        List<String> properties = new ArrayList<>();
-        properties.add(NotificationConstants.SUSPENSION_NOTIFICATION_ENABLED);
-        properties.add(NotificationConstants.SUSPENSION_NOTIFICATION_ACCOUNT_DISABLE_DELAY);
-        properties.add(NotificationConstants.SUSPENSION_NOTIFICATION_DELAYS);
-        return properties.toArray(new String[0]);
+        User user = new User();
+        user.setUserName(receiver.getUsername());
+        user.setTenantDomain(tenantDomain);
+        user.setUserStoreDomain(receiver.getUserStoreDomain());
+        triggerNotification(user);
     }
 
     private void triggerNotification(User user) throws IdentityException {
@@ -303,4 +485,13 @@ public class AccountValidatorThread implements Runnable {
                     user.toFullQualifiedUsername(), e);
         }
     }
+
+    /**
+     * Operation applied to a notification receiver.
+     */
+    @FunctionalInterface
+    private interface ReceiverOperation {
+
+        void apply(NotificationReceiver receiver) throws IdentityException;
+    }
 }
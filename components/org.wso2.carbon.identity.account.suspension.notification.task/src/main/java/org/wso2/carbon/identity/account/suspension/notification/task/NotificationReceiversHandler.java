@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.account.suspension.notification.task;
+
+import org.wso2.carbon.identity.account.suspension.notification.task.exception.AccountSuspensionNotificationException;
+import org.wso2.carbon.identity.account.suspension.notification.task.util.NotificationReceiver;
+
+import java.util.List;
+
+/**
+ * Handles a page of notification receivers retrieved by a {@link NotificationReceiversRetrieval}.
+ */
+@FunctionalInterface
+public interface NotificationReceiversHandler {
+
+    /**
+     * Handle a page of notification receivers. The page is not retained by the retrieval once handled.
+     *
+     * @param receivers Notification receivers of the page.
+     * @throws AccountSuspensionNotificationException If the receivers cannot be handled. The retrieval is stopped.
+     */
+    void handle(List<NotificationReceiver> receivers) throws AccountSuspensionNotificationException;
+}
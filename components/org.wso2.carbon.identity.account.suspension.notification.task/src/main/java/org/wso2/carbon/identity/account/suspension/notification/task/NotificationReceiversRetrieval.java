@@ -28,6 +28,30 @@ public interface NotificationReceiversRetrieval {
     public List<NotificationReceiver> getNotificationReceivers(long lookupMin, long lookupMax,
             long delayForSuspension, String tenantDomain) throws AccountSuspensionNotificationException;
 
+    /**
+     * Retrieve the notification receivers page by page, so that only a page of receivers is held in memory at a
+     * time. Implementations which cannot page the underlying user store hand over the full list of receivers in
+     * pages.
+     *
+     * @param lookupMin          Lookup minimum timestamp.
+     * @param lookupMax          Lookup maximum timestamp.
+     * @param delayForSuspension Allowed account suspension delay.
+     * @param tenantDomain       Tenant domain.
+     * @param pageSize           Maximum number of receivers in a page.
+     * @param handler            Handler of the pages of receivers.
+     * @throws AccountSuspensionNotificationException If an error occurs while retrieving or handling the receivers.
+     */
+    default void processNotificationReceivers(long lookupMin, long lookupMax, long delayForSuspension,
+                                              String tenantDomain, int pageSize, NotificationReceiversHandler handler)
+            throws AccountSuspensionNotificationException {
+
+        List<NotificationReceiver> receivers = getNotificationReceivers(lookupMin, lookupMax, delayForSuspension,
+                tenantDomain);
+        for (int i = 0; i < receivers.size(); i += pageSize) {
+            handler.handle(receivers.subList(i, Math.min(i + pageSize, receivers.size())));
+        }
+    }
+
     void init(RealmConfiguration realmConfiguration);
 
 
@@ -21,6 +21,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.account.suspension.notification.task.exception.AccountSuspensionNotificationException;
 import org.wso2.carbon.identity.account.suspension.notification.task.internal.NotificationTaskDataHolder;
+import org.wso2.carbon.identity.account.suspension.notification.task.util.NotificationConstants;
 import org.wso2.carbon.identity.account.suspension.notification.task.util.NotificationReceiver;
 import org.wso2.carbon.identity.account.suspension.notification.task.util.NotificationReceiversRetrievalUtil;
 
@@ -39,10 +40,28 @@ public class NotificationReceiversRetrievalManager {
     public static List<NotificationReceiver> getReceivers(long delay, String tenantDomain, long delayForSuspension)
             throws AccountSuspensionNotificationException {
 
+        List<NotificationReceiver> receivers = new ArrayList<>();
+        processReceivers(delay, tenantDomain, delayForSuspension, receivers::addAll);
+        return receivers;
+    }
+
+    /**
+     * Pass the notification receivers of all the notification enabled user stores of a tenant to the handler, page
+     * by page. The page size is configured with {@link NotificationConstants#NOTIFICATION_RECEIVERS_PAGE_SIZE}.
+     *
+     * @param delay              Number of idle days of the receivers.
+     * @param tenantDomain       Tenant domain.
+     * @param delayForSuspension Allowed account suspension delay.
+     * @param handler            Handler of the pages of receivers.
+     * @throws AccountSuspensionNotificationException If an error occurs while retrieving or handling the receivers.
+     */
+    public static void processReceivers(long delay, String tenantDomain, long delayForSuspension,
+                                        NotificationReceiversHandler handler)
+            throws AccountSuspensionNotificationException {
+
         Set<String> userStoreDomains = NotificationReceiversRetrievalUtil.
                 getSuspensionNotificationEnabledUserStores(tenantDomain);
-
-        List<NotificationReceiver> receivers = new ArrayList<>();
+        int pageSize = NotificationReceiversRetrievalUtil.getNotificationReceiversPageSize();
 
         for (String userStoreDomain : userStoreDomains) {
             if (log.isDebugEnabled()) {
@@ -61,13 +80,10 @@ public class NotificationReceiversRetrievalManager {
                             + "trigger time", e);
                 }
                 long lookupMax = lookupMin + TimeUnit.DAYS.toMillis(1);
-                List<NotificationReceiver> newReceivers = notificationReceiversRetrieval
-                        .getNotificationReceivers(lookupMin, lookupMax, delayForSuspension, tenantDomain);
-                receivers.addAll(newReceivers);
+                notificationReceiversRetrieval.processNotificationReceivers(lookupMin, lookupMax,
+                        delayForSuspension, tenantDomain, pageSize, handler);
             }
         }
-
-        return receivers;
     }
 
     private static Calendar getCurrentExecutionTime(Date triggerTime) {
@@ -20,6 +20,7 @@ package org.wso2.carbon.identity.account.suspension.notification.task.jdbc;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.account.suspension.notification.task.NotificationReceiversHandler;
 import org.wso2.carbon.identity.account.suspension.notification.task.NotificationReceiversRetrieval;
 import org.wso2.carbon.identity.account.suspension.notification.task.exception.AccountSuspensionNotificationException;
 import org.wso2.carbon.identity.account.suspension.notification.task.internal.NotificationTaskDataHolder;
@@ -42,12 +43,11 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
 import javax.sql.DataSource;
 
 public class JDBCNotificationReceiversRetrieval implements NotificationReceiversRetrieval {
@@ -66,11 +66,21 @@ public class JDBCNotificationReceiversRetrieval implements NotificationReceivers
             throws AccountSuspensionNotificationException {
 
         List<NotificationReceiver> users = new ArrayList<>();
+        processNotificationReceivers(lookupMin, lookupMax, delayForSuspension, tenantDomain,
+                NotificationReceiversRetrievalUtil.getNotificationReceiversPageSize(), users::addAll);
+        return users;
+    }
+
+    @Override
+    public void processNotificationReceivers(long lookupMin, long lookupMax, long delayForSuspension,
+                                             String tenantDomain, int pageSize, NotificationReceiversHandler handler)
+            throws AccountSuspensionNotificationException {
+
         RealmService realmService = NotificationTaskDataHolder.getInstance().getRealmService();
 
         try {
-            ClaimManager claimManager = (ClaimManager) realmService.getTenantUserRealm(IdentityTenantUtil.
-                    getTenantId(tenantDomain)).getClaimManager();
+            int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+            ClaimManager claimManager = (ClaimManager) realmService.getTenantUserRealm(tenantId).getClaimManager();
             String userStoreDomain = realmConfiguration.getUserStoreProperty(UserCoreConstants.RealmConfig.
                     PROPERTY_DOMAIN_NAME);
 
@@ -88,76 +98,86 @@ public class JDBCNotificationReceiversRetrieval implements NotificationReceivers
                     log.debug("Property " + NotificationConstants.USE_IDENTITY_CLAIM_FOR_LAST_LOGIN_TIME +
                             " is enabled in identity.xml file. Hence treating last login time as identity claim.");
                 }
-                return NotificationReceiversRetrievalUtil.getNotificationReceiversFromIdentityClaim(lookupMin,
-                        lookupMax, delayForSuspension, realmService, tenantDomain, userStoreDomain);
+                NotificationReceiversRetrievalUtil.processNotificationReceiversFromIdentityClaim(lookupMin,
+                        lookupMax, delayForSuspension, realmService, tenantDomain, userStoreDomain, pageSize,
+                        handler);
+                return;
             }
 
             String lastLoginClaim = NotificationConstants.LAST_LOGIN_TIME;
             String lastLoginTimeAttribute = claimManager.getAttributeName(userStoreDomain, lastLoginClaim);
-
-            try (Connection dbConnection = getDBConnection(realmConfiguration)) {
-                String sqlStmt = NotificationConstants.GET_USERS_FILTERED_BY_LAST_LOGIN_TIME;
-                try (PreparedStatement prepStmt = dbConnection.prepareStatement(sqlStmt)) {
-
-                    prepStmt.setString(1, lastLoginTimeAttribute);
-                    prepStmt.setString(2, String.valueOf(lookupMin));
-                    prepStmt.setString(3, String.valueOf(lookupMax));
-                    // As UM_TENANT_ID is integer, this has to be set as an int to work with postgres.
-                    prepStmt.setInt(4, IdentityTenantUtil.getTenantId(tenantDomain));
-                    prepStmt.setInt(5, IdentityTenantUtil.getTenantId(tenantDomain));
-
-                    try (ResultSet resultSet = prepStmt.executeQuery()) {
-
-                        while (resultSet.next()) {
-                            String userName = resultSet.getString(1);
-
-                            if (StringUtils.isNotBlank(userName)) {
-
-                                String[] claims = new String[3];
-                                claims[0] = NotificationConstants.FIRST_NAME_CLAIM;
-                                claims[1] = NotificationConstants.EMAIL_CLAIM;
-                                claims[2] = lastLoginClaim;
-
-                                UserStoreManager userStoreManager =
-                                        (UserStoreManager) realmService.getTenantUserRealm(IdentityTenantUtil
-                                                .getTenantId(tenantDomain)).getUserStoreManager();
-
-                                Map<String, String> map =
-                                        userStoreManager.getUserClaimValues(IdentityUtil.addDomainToName
-                                                (userName, userStoreDomain), claims, null);
-
-                                NotificationReceiver receiver = new NotificationReceiver();
-                                receiver.setEmail(map.get(NotificationConstants.EMAIL_CLAIM));
-                                receiver.setUsername(userName);
-                                receiver.setFirstName(map.get(NotificationConstants.FIRST_NAME_CLAIM));
-                                receiver.setUserStoreDomain(userStoreDomain);
-
-                                long lastLoginTime = Long.parseLong(map.get(lastLoginClaim));
-                                long expireDate = lastLoginTime + TimeUnit.DAYS.toMillis(delayForSuspension);
-                                receiver.setExpireDate(new SimpleDateFormat("dd-MM-yyyy").format(new Date(expireDate)));
-                                users.add(receiver);
+            String[] claims = {NotificationConstants.FIRST_NAME_CLAIM, NotificationConstants.EMAIL_CLAIM,
+                    lastLoginClaim};
+            UserStoreManager userStoreManager = (UserStoreManager) realmService.getTenantUserRealm(tenantId)
+                    .getUserStoreManager();
+
+            // Users are read in pages ordered by the user name. Each page starts after the last user of the
+            // previous page, and the connection is released before the page is handled.
+            DataSource dataSource = DatabaseUtil.createUserStoreDataSource(realmConfiguration);
+            String lastUserName = null;
+            int rowCount;
+            do {
+                Set<String> userNames = new LinkedHashSet<>();
+                rowCount = 0;
+                String sqlStmt = NotificationConstants.GET_USERS_FILTERED_BY_LAST_LOGIN_TIME +
+                        (lastUserName == null ? "" : NotificationConstants.USER_NAME_AFTER_CONDITION) +
+                        NotificationConstants.ORDER_BY_USER_NAME;
+                try (Connection dbConnection = getDBConnection(dataSource, realmConfiguration)) {
+                    try (PreparedStatement prepStmt = dbConnection.prepareStatement(sqlStmt)) {
+
+                        prepStmt.setString(1, lastLoginTimeAttribute);
+                        prepStmt.setString(2, String.valueOf(lookupMin));
+                        prepStmt.setString(3, String.valueOf(lookupMax));
+                        // As UM_TENANT_ID is integer, this has to be set as an int to work with postgres.
+                        prepStmt.setInt(4, tenantId);
+                        prepStmt.setInt(5, tenantId);
+                        if (lastUserName != null) {
+                            prepStmt.setString(6, lastUserName);
+                        }
+                        prepStmt.setMaxRows(pageSize);
+
+                        try (ResultSet resultSet = prepStmt.executeQuery()) {
+                            while (rowCount < pageSize && resultSet.next()) {
+                                rowCount++;
+                                String userName = resultSet.getString(1);
+                                if (StringUtils.isNotBlank(userName)) {
+                                    lastUserName = userName;
+                                    userNames.add(userName);
+                                }
                             }
                         }
+                        dbConnection.commit();
+                    } catch (SQLException e) {
+                        DatabaseUtil.rollBack(dbConnection);
+                        if (log.isDebugEnabled()) {
+                            log.debug("Using sql : " + sqlStmt);
+                        }
+                        throw new AccountSuspensionNotificationException(e.getMessage(), e);
                     }
-                    dbConnection.commit();
-                } catch (SQLException e) {
-                    DatabaseUtil.rollBack(dbConnection);
-                    if (log.isDebugEnabled()) {
-                        log.debug("Using sql : " + sqlStmt);
+                }
+
+                if (!userNames.isEmpty()) {
+                    Map<String, Map<String, String>> usersClaimValues = NotificationReceiversRetrievalUtil
+                            .getUsersClaimValues(userStoreManager, userNames, userStoreDomain, claims);
+                    List<NotificationReceiver> receivers = new ArrayList<>(userNames.size());
+                    for (String userName : userNames) {
+                        Map<String, String> claimValues = usersClaimValues.get(userName);
+                        long lastLoginTime = Long.parseLong(claimValues.get(lastLoginClaim));
+                        receivers.add(NotificationReceiversRetrievalUtil.buildNotificationReceiver(userName,
+                                userStoreDomain, claimValues, lastLoginTime, delayForSuspension));
                     }
-                    throw new AccountSuspensionNotificationException(e.getMessage(), e);
+                    handler.handle(receivers);
                 }
-            }
+            } while (rowCount == pageSize && lastUserName != null);
         } catch (IdentityRuntimeException | SQLException | NumberFormatException | UserStoreException e) {
             throw new AccountSuspensionNotificationException(e.getMessage(), e);
         }
-        return users;
     }
 
-    private Connection getDBConnection(RealmConfiguration realmConfiguration) throws SQLException, UserStoreException {
+    private Connection getDBConnection(DataSource dataSource, RealmConfiguration realmConfiguration)
+            throws SQLException, UserStoreException {
 
         Connection dbConnection = null;
-        DataSource dataSource = DatabaseUtil.createUserStoreDataSource(realmConfiguration);
 
         if (dataSource != null) {
             dbConnection = DatabaseUtil.getDBConnection(dataSource);
@@ -20,6 +20,7 @@ package org.wso2.carbon.identity.account.suspension.notification.task.ldap;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.account.suspension.notification.task.NotificationReceiversHandler;
 import org.wso2.carbon.identity.account.suspension.notification.task.NotificationReceiversRetrieval;
 import org.wso2.carbon.identity.account.suspension.notification.task.exception.AccountSuspensionNotificationException;
 import org.wso2.carbon.identity.account.suspension.notification.task.internal.NotificationTaskDataHolder;
@@ -36,12 +37,18 @@ import org.wso2.carbon.user.core.claim.ClaimManager;
 import org.wso2.carbon.user.core.ldap.LDAPConnectionContext;
 import org.wso2.carbon.user.core.ldap.LDAPConstants;
 import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.util.JNDIUtil;
 
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 import javax.naming.directory.DirContext;
 import javax.naming.directory.SearchControls;
 import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.OffsetDateTime;
@@ -66,11 +73,22 @@ public class LDAPNotificationReceiversRetrieval implements NotificationReceivers
             long delayForSuspension, String tenantDomain) throws AccountSuspensionNotificationException {
 
         List<NotificationReceiver> users = new ArrayList<NotificationReceiver>();
+        processNotificationReceivers(lookupMin, lookupMax, delayForSuspension, tenantDomain,
+                NotificationReceiversRetrievalUtil.getNotificationReceiversPageSize(), users::addAll);
+        return users;
+    }
+
+    @Override
+    public void processNotificationReceivers(long lookupMin, long lookupMax, long delayForSuspension,
+                                             String tenantDomain, int pageSize, NotificationReceiversHandler handler)
+            throws AccountSuspensionNotificationException {
 
         if (realmConfiguration != null) {
             String ldapSearchBase = realmConfiguration.getUserStoreProperty(LDAPConstants.USER_SEARCH_BASE);
             RealmService realmService = NotificationTaskDataHolder.getInstance().getRealmService();
 
+            DirContext ctx = null;
+            NamingEnumeration<SearchResult> results = null;
             try {
                 ClaimManager claimManager = (ClaimManager) realmService.getTenantUserRealm(IdentityTenantUtil.
                         getTenantId(tenantDomain)).getClaimManager();
@@ -90,8 +108,10 @@ public class LDAPNotificationReceiversRetrieval implements NotificationReceivers
                         log.debug("Property " + NotificationConstants.USE_IDENTITY_CLAIM_FOR_LAST_LOGIN_TIME +
                                 " is enabled in identity.xml file. Hence treating last login time as identity claim.");
                     }
-                    return NotificationReceiversRetrievalUtil.getNotificationReceiversFromIdentityClaim(lookupMin,
-                            lookupMax, delayForSuspension, realmService, tenantDomain, userStoreDomain);
+                    NotificationReceiversRetrievalUtil.processNotificationReceiversFromIdentityClaim(lookupMin,
+                            lookupMax, delayForSuspension, realmService, tenantDomain, userStoreDomain, pageSize,
+                            handler);
+                    return;
                 }
 
                 String lastLoginClaim = NotificationConstants.LAST_LOGIN_TIME;
@@ -107,7 +127,7 @@ public class LDAPNotificationReceiversRetrieval implements NotificationReceivers
                 String[] returnedAttrs = {emailMapAttribute, usernameMapAttribute, firstNameMapAttribute, lastLoginTimeAttribute};
 
                 LDAPConnectionContext ldapConnectionContext = new LDAPConnectionContext(realmConfiguration);
-                DirContext ctx = ldapConnectionContext.getContext();
+                ctx = ldapConnectionContext.getContext();
 
                 //carLicense is the mapped LDAP attribute for LastLoginTime claim
                 String searchFilter = getSearchFilter(lookupMin, lookupMax,lastLoginTimeAttribute);
@@ -116,41 +136,87 @@ public class LDAPNotificationReceiversRetrieval implements NotificationReceivers
                 searchControls.setSearchScope(SearchControls.SUBTREE_SCOPE);
                 searchControls.setReturningAttributes(returnedAttrs);
 
-                NamingEnumeration<SearchResult> results = ctx.search(ldapSearchBase, searchFilter, searchControls);
-
-                if (log.isDebugEnabled()) {
-                    log.debug("LDAP user list retrieved.");
-                }
+                // The search is paged with the paged results control, when supported by the context. The control is
+                // not critical, so servers which do not support it return all the results in a single page.
+                LdapContext ldapContext = ctx instanceof LdapContext ? (LdapContext) ctx : null;
+                byte[] cookie = null;
+                do {
+                    if (ldapContext != null) {
+                        ldapContext.setRequestControls(new Control[]{
+                                new PagedResultsControl(pageSize, cookie, Control.NONCRITICAL)});
+                    }
+                    results = ctx.search(ldapSearchBase, searchFilter, searchControls);
 
-                while (results.hasMoreElements()) {
-                    SearchResult result = results.nextElement();
+                    List<NotificationReceiver> receivers = new ArrayList<>();
+                    while (results.hasMoreElements()) {
+                        SearchResult result = results.nextElement();
 
-                    NotificationReceiver receiver = new NotificationReceiver();
-                    receiver.setEmail((String) result.getAttributes().get(emailMapAttribute).get());
-                    receiver.setUsername((String) result.getAttributes().get(usernameMapAttribute).get());
-                    receiver.setFirstName((String) result.getAttributes().get(firstNameMapAttribute).get());
-                    receiver.setUserStoreDomain(userStoreDomain);
+                        NotificationReceiver receiver = new NotificationReceiver();
+                        receiver.setEmail((String) result.getAttributes().get(emailMapAttribute).get());
+                        receiver.setUsername((String) result.getAttributes().get(usernameMapAttribute).get());
+                        receiver.setFirstName((String) result.getAttributes().get(firstNameMapAttribute).get());
+                        receiver.setUserStoreDomain(userStoreDomain);
 
-                    String lastLoginTimeValue = result.getAttributes().get(lastLoginTimeAttribute).get().toString();
-                    long lastLoginTime = convertToWSO2DateFormat(lastLoginTimeValue);
-                    long expireDate = lastLoginTime + TimeUnit.DAYS.toMillis(delayForSuspension);
-                    receiver.setExpireDate(new SimpleDateFormat("dd-MM-yyyy").format(new Date(expireDate)));
+                        String lastLoginTimeValue = result.getAttributes().get(lastLoginTimeAttribute).get().toString();
+                        long lastLoginTime = convertToWSO2DateFormat(lastLoginTimeValue);
+                        long expireDate = lastLoginTime + TimeUnit.DAYS.toMillis(delayForSuspension);
+                        receiver.setExpireDate(new SimpleDateFormat("dd-MM-yyyy").format(new Date(expireDate)));
 
-                    if (log.isDebugEnabled()) {
-                        log.debug("Expire date was set to: " + receiver.getExpireDate());
+                        if (log.isDebugEnabled()) {
+                            log.debug("Expire date was set to: " + receiver.getExpireDate());
+                        }
+                        receivers.add(receiver);
+                        if (receivers.size() >= pageSize) {
+                            handler.handle(receivers);
+                            receivers = new ArrayList<>();
+                        }
+                    }
+                    if (!receivers.isEmpty()) {
+                        handler.handle(receivers);
                     }
-                    users.add(receiver);
+                    cookie = ldapContext == null ? null : getPagedResultsCookie(ldapContext);
+                    JNDIUtil.closeNamingEnumeration(results);
+                    results = null;
+                } while (cookie != null && cookie.length > 0);
+
+                if (log.isDebugEnabled()) {
+                    log.debug("LDAP user list retrieved.");
                 }
             } catch (NamingException e) {
                 throw new AccountSuspensionNotificationException("Failed to filter users from LDAP user store.", e);
+            } catch (IOException e) {
+                throw new AccountSuspensionNotificationException("Failed to create the LDAP paged results control.",
+                        e);
             } catch (UserStoreException e) {
                 throw new AccountSuspensionNotificationException("Failed to load LDAP connection context.", e);
             } catch (org.wso2.carbon.user.api.UserStoreException e) {
                 throw new AccountSuspensionNotificationException("Error occurred while getting tenant user realm for "
                         + "tenant:" + tenantDomain, e);
+            } finally {
+                JNDIUtil.closeNamingEnumeration(results);
+                JNDIUtil.closeContext(ctx);
             }
         }
-        return users;
+    }
+
+    /**
+     * Get the cookie of the next page of a paged search.
+     *
+     * @param ldapContext LDAP context of the search.
+     * @return Cookie of the next page, or null if there are no more pages.
+     * @throws NamingException If the response controls cannot be read.
+     */
+    private byte[] getPagedResultsCookie(LdapContext ldapContext) throws NamingException {
+
+        Control[] responseControls = ldapContext.getResponseControls();
+        if (responseControls != null) {
+            for (Control responseControl : responseControls) {
+                if (responseControl instanceof PagedResultsResponseControl) {
+                    return ((PagedResultsResponseControl) responseControl).getCookie();
+                }
+            }
+        }
+        return null;
     }
 
     /**
@@ -31,6 +31,16 @@ public class NotificationConstants {
     public static final String TRIGGER_TIME_FORMAT = "HH:mm:ss";
     public static final long SCHEDULER_DELAY = 24; // In hours
     public static final String SUSPENSION_NOTIFICATION_THREAD_POOL_SIZE = "suspension.notification.thread.pool.size";
+    public static final String NOTIFICATION_RECEIVERS_PAGE_SIZE = "AccountSuspension.NotificationReceiversPageSize";
+    public static final int DEFAULT_NOTIFICATION_RECEIVERS_PAGE_SIZE = 1000;
+    public static final String TENANT_WORKER_POOL_SIZE = "AccountSuspension.TenantWorkerPoolSize";
+    public static final int DEFAULT_TENANT_WORKER_POOL_SIZE = 4;
+    public static final String TENANT_TASK_QUEUE_SIZE = "AccountSuspension.TenantTaskQueueSize";
+    public static final int DEFAULT_TENANT_TASK_QUEUE_SIZE = 100;
+    public static final String PER_TENANT_CONCURRENCY = "AccountSuspension.PerTenantConcurrency";
+    public static final int DEFAULT_PER_TENANT_CONCURRENCY = 1;
+    public static final String SHARD_MEMBERS = "AccountSuspension.ShardMembers";
+    public static final String SHARD_MEMBER_ID = "AccountSuspension.ShardMemberId";
 
     public static final String GET_USERS_FILTERED_BY_LAST_LOGIN_TIME = "SELECT UM_USER.UM_USER_NAME FROM "
     + "UM_USER, UM_USER_ATTRIBUTE WHERE UM_USER_ATTRIBUTE.UM_USER_ID = UM_USER.UM_ID AND UM_USER_ATTRIBUTE.UM_ATTR_NAME "
@@ -40,6 +50,12 @@ public class NotificationConstants {
     public static final String GET_USERS_FILTERED_BY_LAST_LOGIN_TIME_IDENTITY_CLAIM = "SELECT USER_NAME, DATA_VALUE " +
             "FROM IDN_IDENTITY_USER_DATA WHERE DATA_KEY = ? AND DATA_VALUE BETWEEN ? AND ? AND TENANT_ID = ?";
 
+    // Keyset pagination of the above queries. The first page is read without the user name condition.
+    public static final String USER_NAME_AFTER_CONDITION = " AND UM_USER.UM_USER_NAME > ?";
+    public static final String ORDER_BY_USER_NAME = " ORDER BY UM_USER.UM_USER_NAME";
+    public static final String IDENTITY_CLAIM_USER_NAME_AFTER_CONDITION = " AND USER_NAME > ?";
+    public static final String IDENTITY_CLAIM_ORDER_BY_USER_NAME = " ORDER BY USER_NAME";
+
     public final static String USERNAME_CLAIM = "http://wso2.org/claims/username";
     public final static String FIRST_NAME_CLAIM = "http://wso2.org/claims/givenname";
     public final static String EMAIL_CLAIM = "http://wso2.org/claims/emailaddress";
@@ -22,16 +22,19 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.account.suspension.notification.task.NotificationReceiversHandler;
 import org.wso2.carbon.identity.account.suspension.notification.task.NotificationReceiversRetrieval;
 import org.wso2.carbon.identity.account.suspension.notification.task.exception.AccountSuspensionNotificationException;
 import org.wso2.carbon.identity.account.suspension.notification.task.internal.NotificationTaskDataHolder;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
 import org.wso2.carbon.user.api.RealmConfiguration;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.model.UserClaimSearchEntry;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 
@@ -41,9 +44,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -192,57 +197,182 @@ public class NotificationReceiversRetrievalUtil {
             lookupMax, long delayForSuspension, RealmService realmService, String tenantDomain, String userStoreDomain)
             throws AccountSuspensionNotificationException {
 
+        List<NotificationReceiver> users = new ArrayList<>();
+        processNotificationReceiversFromIdentityClaim(lookupMin, lookupMax, delayForSuspension, realmService,
+                tenantDomain, userStoreDomain, getNotificationReceiversPageSize(), users::addAll);
+        return users;
+    }
+
+    /**
+     * This method passes the NotificationReceiver objects for the users whose accounts have been idle more than the
+     * allowed number of days to the handler, page by page. The pages are read with keyset pagination on the user
+     * name, and the claims of the users of a page are read with a single call.
+     *
+     * @param lookupMin          lookup mininum timestamp
+     * @param lookupMax          lookup maximum timestamp
+     * @param delayForSuspension allowed account suspension delay
+     * @param realmService       realm service
+     * @param tenantDomain       tenant domain
+     * @param userStoreDomain    userstore domain
+     * @param pageSize           maximum number of users read in a page
+     * @param handler            handler of the pages of NotificationReceiver objects
+     * @throws AccountSuspensionNotificationException if something happens when retrieving user details
+     */
+    public static void processNotificationReceiversFromIdentityClaim(long lookupMin, long lookupMax,
+                                                                     long delayForSuspension,
+                                                                     RealmService realmService, String tenantDomain,
+                                                                     String userStoreDomain, int pageSize,
+                                                                     NotificationReceiversHandler handler)
+            throws AccountSuspensionNotificationException {
+
         if (log.isDebugEnabled()) {
             log.debug("Retrieve users whose accounts have been idle more than the allowed number of days by checking " +
                     "the identity database.");
         }
 
-        List<NotificationReceiver> users = new ArrayList<>();
-        String sqlStmt = NotificationConstants.GET_USERS_FILTERED_BY_LAST_LOGIN_TIME_IDENTITY_CLAIM;
-        try (Connection connection = IdentityDatabaseUtil.getDBConnection(true)) {
-            try (PreparedStatement prepStmt = connection.prepareStatement(sqlStmt)) {
+        int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+        UserStoreManager userStoreManager;
+        try {
+            userStoreManager = (UserStoreManager) realmService.getTenantUserRealm(tenantId).getUserStoreManager();
+        } catch (UserStoreException e) {
+            throw new AccountSuspensionNotificationException(e.getMessage(), e);
+        }
+
+        String lastUserName = null;
+        int rowCount;
+        do {
+            Map<String, Long> lastLoginTimes = new LinkedHashMap<>();
+            rowCount = 0;
+            String sqlStmt = NotificationConstants.GET_USERS_FILTERED_BY_LAST_LOGIN_TIME_IDENTITY_CLAIM +
+                    (lastUserName == null ? "" : NotificationConstants.IDENTITY_CLAIM_USER_NAME_AFTER_CONDITION) +
+                    NotificationConstants.IDENTITY_CLAIM_ORDER_BY_USER_NAME;
+            try (Connection connection = IdentityDatabaseUtil.getDBConnection(false);
+                 PreparedStatement prepStmt = connection.prepareStatement(sqlStmt)) {
                 prepStmt.setString(1, NotificationConstants.LAST_LOGIN_TIME_IDENTITY_CLAIM);
                 prepStmt.setString(2, String.valueOf(lookupMin));
                 prepStmt.setString(3, String.valueOf(lookupMax));
-                prepStmt.setInt(4, IdentityTenantUtil.getTenantId(tenantDomain));
+                prepStmt.setInt(4, tenantId);
+                if (lastUserName != null) {
+                    prepStmt.setString(5, lastUserName);
+                }
+                prepStmt.setMaxRows(pageSize);
                 try (ResultSet resultSet = prepStmt.executeQuery()) {
-                    while (resultSet.next()) {
+                    while (rowCount < pageSize && resultSet.next()) {
+                        rowCount++;
                         String userName = resultSet.getString(1);
-                        if (StringUtils.isNotBlank(userName)) {
-                            String[] claims = new String[2];
-                            claims[0] = NotificationConstants.FIRST_NAME_CLAIM;
-                            claims[1] = NotificationConstants.EMAIL_CLAIM;
-                            UserStoreManager userStoreManager = (UserStoreManager) realmService.getTenantUserRealm
-                                    (IdentityTenantUtil.getTenantId(tenantDomain)).getUserStoreManager();
-
-                            if (userStoreDomain != null &&
-                                    userStoreDomain.equalsIgnoreCase(UserCoreUtil.extractDomainFromName(userName))) {
-
-                                Map<String, String> map = userStoreManager.getUserClaimValues(userName, claims, null);
-                                NotificationReceiver receiver = new NotificationReceiver();
-                                receiver.setEmail(map.get(NotificationConstants.EMAIL_CLAIM));
-                                receiver.setUsername(UserCoreUtil.removeDomainFromName(userName));
-                                receiver.setFirstName(map.get(NotificationConstants.FIRST_NAME_CLAIM));
-                                receiver.setUserStoreDomain(userStoreDomain);
-
-                                long lastLoginTime = Long.parseLong(resultSet.getString(2));
-                                long expireDate = lastLoginTime + TimeUnit.DAYS.toMillis(delayForSuspension);
-                                receiver.setExpireDate(new SimpleDateFormat("dd-MM-yyyy").format(new Date(expireDate)));
-                                users.add(receiver);
-                            }
+                        if (StringUtils.isBlank(userName)) {
+                            continue;
+                        }
+                        lastUserName = userName;
+                        if (userStoreDomain != null &&
+                                userStoreDomain.equalsIgnoreCase(UserCoreUtil.extractDomainFromName(userName))) {
+                            lastLoginTimes.put(UserCoreUtil.removeDomainFromName(userName),
+                                    Long.parseLong(resultSet.getString(2)));
                         }
                     }
                 }
-                IdentityDatabaseUtil.commitTransaction(connection);
-                return users;
+            } catch (SQLException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Error occurred while running the sql query: " + sqlStmt);
+                }
+                throw new AccountSuspensionNotificationException(e.getMessage(), e);
             }
-        } catch (SQLException e) {
-            if (log.isDebugEnabled()) {
-                log.debug("Error occurred while running the sql query: " + sqlStmt);
+
+            if (!lastLoginTimes.isEmpty()) {
+                String[] claims = {NotificationConstants.FIRST_NAME_CLAIM, NotificationConstants.EMAIL_CLAIM};
+                Map<String, Map<String, String>> usersClaimValues;
+                try {
+                    usersClaimValues = getUsersClaimValues(userStoreManager, lastLoginTimes.keySet(),
+                            userStoreDomain, claims);
+                } catch (UserStoreException e) {
+                    throw new AccountSuspensionNotificationException(e.getMessage(), e);
+                }
+
+                List<NotificationReceiver> receivers = new ArrayList<>(lastLoginTimes.size());
+                for (Map.Entry<String, Long> entry : lastLoginTimes.entrySet()) {
+                    receivers.add(buildNotificationReceiver(entry.getKey(), userStoreDomain,
+                            usersClaimValues.get(entry.getKey()), entry.getValue(), delayForSuspension));
+                }
+                handler.handle(receivers);
+            }
+        } while (rowCount == pageSize && lastUserName != null);
+    }
+
+    /**
+     * Get the claim values of a page of users of a user store. The claims are read with a single call, and read
+     * per user only for the users missing in the result.
+     *
+     * @param userStoreManager User store manager of the tenant.
+     * @param userNames        User names without the user store domain.
+     * @param userStoreDomain  User store domain of the users.
+     * @param claims           Claims to read.
+     * @return Map of the user name to the claim values of the user.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurs while reading the claim values.
+     */
+    public static Map<String, Map<String, String>> getUsersClaimValues(UserStoreManager userStoreManager,
+                                                                       Collection<String> userNames,
+                                                                       String userStoreDomain, String[] claims)
+            throws org.wso2.carbon.user.core.UserStoreException {
+
+        String[] domainQualifiedUserNames = new String[userNames.size()];
+        int i = 0;
+        for (String userName : userNames) {
+            domainQualifiedUserNames[i++] = IdentityUtil.addDomainToName(userName, userStoreDomain);
+        }
+
+        Map<String, Map<String, String>> usersClaimValues = new HashMap<>();
+        UserClaimSearchEntry[] userClaimSearchEntries = userStoreManager.getUsersClaimValues(
+                domainQualifiedUserNames, claims, UserCoreConstants.DEFAULT_PROFILE);
+        if (userClaimSearchEntries != null) {
+            for (UserClaimSearchEntry userClaimSearchEntry : userClaimSearchEntries) {
+                if (userClaimSearchEntry != null && userClaimSearchEntry.getUserName() != null) {
+                    usersClaimValues.put(UserCoreUtil.removeDomainFromName(userClaimSearchEntry.getUserName()),
+                            userClaimSearchEntry.getClaims());
+                }
             }
-            throw new AccountSuspensionNotificationException(e.getMessage(), e);
-        } catch (UserStoreException e) {
-            throw new AccountSuspensionNotificationException(e.getMessage(), e);
         }
+        for (String userName : userNames) {
+            if (usersClaimValues.get(userName) == null) {
+                usersClaimValues.put(userName, userStoreManager.getUserClaimValues(
+                        IdentityUtil.addDomainToName(userName, userStoreDomain), claims, null));
+            }
+        }
+        return usersClaimValues;
+    }
+
+    /**
+     * Build a notification receiver.
+     *
+     * @param userName           User name without the user store domain.
+     * @param userStoreDomain    User store domain of the user.
+     * @param claimValues        Claim values of the user.
+     * @param lastLoginTime      Last login time of the user.
+     * @param delayForSuspension Allowed account suspension delay.
+     * @return Notification receiver.
+     */
+    public static NotificationReceiver buildNotificationReceiver(String userName, String userStoreDomain,
+                                                                 Map<String, String> claimValues,
+                                                                 long lastLoginTime, long delayForSuspension) {
+
+        NotificationReceiver receiver = new NotificationReceiver();
+        receiver.setEmail(claimValues.get(NotificationConstants.EMAIL_CLAIM));
+        receiver.setUsername(userName);
+        receiver.setFirstName(claimValues.get(NotificationConstants.FIRST_NAME_CLAIM));
+        receiver.setUserStoreDomain(userStoreDomain);
+
+        long expireDate = lastLoginTime + TimeUnit.DAYS.toMillis(delayForSuspension);
+        receiver.setExpireDate(new SimpleDateFormat("dd-MM-yyyy").format(new Date(expireDate)));
+        return receiver;
+    }
+
+    /**
+     * Get the maximum number of notification receivers retrieved in a page.
+     *
+     * @return Page size configured in identity.xml, or the default page size.
+     */
+    public static int getNotificationReceiversPageSize() {
+
+        return IdentityGovernanceUtil.getPositiveIntProperty(NotificationConstants.NOTIFICATION_RECEIVERS_PAGE_SIZE,
+                NotificationConstants.DEFAULT_NOTIFICATION_RECEIVERS_PAGE_SIZE);
     }
 }
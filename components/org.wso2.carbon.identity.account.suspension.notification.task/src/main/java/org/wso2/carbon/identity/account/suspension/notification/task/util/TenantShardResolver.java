@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.account.suspension.notification.task.util;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Assigns tenants to the members of a cluster with consistent hashing. Each member is placed on a hash ring at a
+ * number of virtual positions, and a tenant is owned by the first member found clockwise from the hash of the tenant
+ * domain. Adding or removing a member only moves the tenants of the ring segments next to that member.
+ * <p>
+ * The members of the ring are configured statically. Hence when a member is down, the tenants it owns are processed
+ * by the coordinator of the cluster until the member joins back.
+ */
+public class TenantShardResolver {
+
+    private static final int VIRTUAL_NODES_PER_MEMBER = 128;
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final Set<String> members = new HashSet<>();
+
+    /**
+     * Create a resolver for the given cluster members.
+     *
+     * @param members Identifiers of the cluster members.
+     */
+    public TenantShardResolver(Collection<String> members) {
+
+        for (String member : members) {
+            if (StringUtils.isBlank(member)) {
+                continue;
+            }
+            this.members.add(member.trim());
+            for (int i = 0; i < VIRTUAL_NODES_PER_MEMBER; i++) {
+                ring.put(hash(member.trim() + "#" + i), member.trim());
+            }
+        }
+    }
+
+    /**
+     * Get the cluster member which owns the given tenant.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Identifier of the owning member, or null if there are no members.
+     */
+    public String getOwner(String tenantDomain) {
+
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(tenantDomain));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Check whether the given member is one of the members of the ring.
+     *
+     * @param member Identifier of the member.
+     * @return True if the member is in the ring.
+     */
+    public boolean isMember(String member) {
+
+        return member != null && members.contains(member.trim());
+    }
+
+    /**
+     * Get the number of members of the ring.
+     *
+     * @return Number of members.
+     */
+    public int getMemberCount() {
+
+        return members.size();
+    }
+
+    /**
+     * Get the tenants to be processed by the given member. When fewer members are alive in the cluster than the
+     * members of the ring, the tenants owned by the missing members would not be processed by any member. In that
+     * case all the tenants are processed by the coordinator, and the other members do not process any tenant, so
+     * that no tenant is processed twice.
+     *
+     * @param member           Identifier of the member.
+     * @param tenantDomains    Domains of all the tenants.
+     * @param aliveMemberCount Number of members alive in the cluster.
+     * @param coordinator      True if the member is the coordinator of the cluster.
+     * @return Domains of the tenants to be processed by the member.
+     */
+    public List<String> getTenantsToProcess(String member, Collection<String> tenantDomains, int aliveMemberCount,
+                                            boolean coordinator) {
+
+        List<String> assignedTenantDomains = new ArrayList<>();
+        if (aliveMemberCount < members.size()) {
+            if (coordinator) {
+                assignedTenantDomains.addAll(tenantDomains);
+            }
+            return assignedTenantDomains;
+        }
+        for (String tenantDomain : tenantDomains) {
+            if (member.trim().equals(getOwner(tenantDomain))) {
+                assignedTenantDomains.add(tenantDomain);
+            }
+        }
+        return assignedTenantDomains;
+    }
+
+    private static long hash(String key) {
+
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // MD5 is available in every Java platform.
+            throw new IllegalStateException("MD5 algorithm is not available", e);
+        }
+        long hash = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash << 8) | (digest[i] & 0xff);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.account.suspension.notification.task.util;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for TenantShardResolver.
+ */
+public class TenantShardResolverTest {
+
+    private static final List<String> MEMBERS = Arrays.asList("node1", "node2", "node3");
+    private static final int TENANT_COUNT = 3000;
+
+    @Test
+    public void testTenantsAreDistributedAmongMembers() {
+
+        TenantShardResolver resolver = new TenantShardResolver(Arrays.asList(" node1", "node2 ", "node3", ""));
+        assertEquals(resolver.getMemberCount(), 3);
+        assertTrue(resolver.isMember("node1"));
+        assertFalse(resolver.isMember("node4"));
+
+        TenantShardResolver recreatedResolver = new TenantShardResolver(MEMBERS);
+        Map<String, Integer> tenantCounts = new HashMap<>();
+        for (String tenantDomain : getTenantDomains()) {
+            String owner = resolver.getOwner(tenantDomain);
+            assertTrue(MEMBERS.contains(owner), "Unexpected owner: " + owner);
+            // The owner of a tenant does not change between the runs.
+            assertEquals(recreatedResolver.getOwner(tenantDomain), owner);
+            tenantCounts.merge(owner, 1, Integer::sum);
+        }
+        for (String member : MEMBERS) {
+            int tenantCount = tenantCounts.getOrDefault(member, 0);
+            assertTrue(tenantCount > TENANT_COUNT / 4 && tenantCount < TENANT_COUNT / 2,
+                    member + " owns " + tenantCount + " of " + TENANT_COUNT + " tenants.");
+        }
+    }
+
+    @Test
+    public void testEachTenantIsProcessedByOneMember() {
+
+        TenantShardResolver resolver = new TenantShardResolver(MEMBERS);
+        List<String> tenantDomains = getTenantDomains();
+
+        Set<String> processedTenantDomains = new HashSet<>();
+        int processedCount = 0;
+        for (String member : MEMBERS) {
+            List<String> assignedTenantDomains = resolver.getTenantsToProcess(member, tenantDomains, MEMBERS.size(),
+                    "node1".equals(member));
+            processedTenantDomains.addAll(assignedTenantDomains);
+            processedCount += assignedTenantDomains.size();
+        }
+        assertEquals(processedCount, TENANT_COUNT);
+        assertEquals(processedTenantDomains.size(), TENANT_COUNT);
+    }
+
+    @Test
+    public void testRemovingMemberOnlyMovesItsTenants() {
+
+        TenantShardResolver resolver = new TenantShardResolver(MEMBERS);
+        TenantShardResolver reducedResolver = new TenantShardResolver(Arrays.asList("node1", "node2"));
+        for (String tenantDomain : getTenantDomains()) {
+            String owner = resolver.getOwner(tenantDomain);
+            if (!"node3".equals(owner)) {
+                assertEquals(reducedResolver.getOwner(tenantDomain), owner);
+            }
+        }
+    }
+
+    @Test
+    public void testTenantsOfMissingMemberAreProcessedByCoordinator() {
+
+        TenantShardResolver resolver = new TenantShardResolver(MEMBERS);
+        List<String> tenantDomains = getTenantDomains();
+
+        // node3 is down, hence only two of the three members are alive in the cluster.
+        assertEquals(resolver.getTenantsToProcess("node1", tenantDomains, 2, true), tenantDomains);
+        assertTrue(resolver.getTenantsToProcess("node2", tenantDomains, 2, false).isEmpty());
+
+        // The tenants are distributed again once node3 joins back.
+        List<String> assignedTenantDomains = resolver.getTenantsToProcess("node1", tenantDomains, 3, true);
+        assertTrue(assignedTenantDomains.size() < TENANT_COUNT);
+        for (String tenantDomain : assignedTenantDomains) {
+            assertEquals(resolver.getOwner(tenantDomain), "node1");
+        }
+    }
+
+    private List<String> getTenantDomains() {
+
+        List<String> tenantDomains = new ArrayList<>();
+        for (int i = 0; i < TENANT_COUNT; i++) {
+            tenantDomains.add("tenant" + i + ".com");
+        }
+        return tenantDomains;
+    }
+}
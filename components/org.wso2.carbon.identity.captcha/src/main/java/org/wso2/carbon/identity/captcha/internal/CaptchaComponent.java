@@ -116,6 +116,7 @@ public class CaptchaComponent {
     @Deactivate
     protected void deactivate(ComponentContext context) {
 
+        CaptchaDataHolder.getInstance().setReCaptchaHttpClient(null);
         if (log.isDebugEnabled()) {
             log.debug("Captcha Component is de-activated");
         }
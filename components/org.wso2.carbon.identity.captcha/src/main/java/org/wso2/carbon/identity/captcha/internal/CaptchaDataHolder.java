@@ -19,6 +19,8 @@
 package org.wso2.carbon.identity.captcha.internal;
 
 import org.wso2.carbon.identity.captcha.connector.CaptchaConnector;
+import org.wso2.carbon.identity.captcha.util.CaptchaConstants;
+import org.wso2.carbon.identity.captcha.util.ReCaptchaHttpClient;
 import org.wso2.carbon.identity.governance.IdentityGovernanceService;
 import org.wso2.carbon.identity.handler.event.account.lock.service.AccountLockService;
 import org.wso2.carbon.user.core.service.RealmService;
@@ -79,6 +81,8 @@ public class CaptchaDataHolder {
 
     private List<String> reCaptchaBypassedApiEndpoints = new ArrayList<>();
 
+    private volatile ReCaptchaHttpClient reCaptchaHttpClient;
+
     private CaptchaDataHolder() {
 
     }
@@ -280,4 +284,41 @@ public class CaptchaDataHolder {
 
         this.reCaptchaBypassedApiEndpoints = reCaptchaBypassedApiEndpoints;
     }
+
+    /**
+     * Get the HTTP client shared by the reCaptcha verifications. A client with the default configurations is
+     * created if the client is not configured.
+     *
+     * @return ReCaptcha HTTP client.
+     */
+    public ReCaptchaHttpClient getReCaptchaHttpClient() {
+
+        if (reCaptchaHttpClient == null) {
+            synchronized (this) {
+                if (reCaptchaHttpClient == null) {
+                    reCaptchaHttpClient = new ReCaptchaHttpClient(
+                            CaptchaConstants.RE_CAPTCHA_HTTP_DEFAULT_MAX_CONNECTIONS,
+                            CaptchaConstants.RE_CAPTCHA_HTTP_DEFAULT_CONNECT_TIMEOUT,
+                            CaptchaConstants.RE_CAPTCHA_HTTP_DEFAULT_READ_TIMEOUT,
+                            CaptchaConstants.RE_CAPTCHA_HTTP_DEFAULT_CONNECTION_REQUEST_TIMEOUT,
+                            CaptchaConstants.RE_CAPTCHA_HTTP_DEFAULT_KEEP_ALIVE);
+                }
+            }
+        }
+        return reCaptchaHttpClient;
+    }
+
+    /**
+     * Set the HTTP client shared by the reCaptcha verifications. The previous client is closed.
+     *
+     * @param reCaptchaHttpClient ReCaptcha HTTP client.
+     */
+    public synchronized void setReCaptchaHttpClient(ReCaptchaHttpClient reCaptchaHttpClient) {
+
+        ReCaptchaHttpClient previousReCaptchaHttpClient = this.reCaptchaHttpClient;
+        this.reCaptchaHttpClient = reCaptchaHttpClient;
+        if (previousReCaptchaHttpClient != null && previousReCaptchaHttpClient != reCaptchaHttpClient) {
+            previousReCaptchaHttpClient.close();
+        }
+    }
 }
@@ -89,6 +89,18 @@ public class CaptchaConstants {
 
     public static final String SSO_LOGIN_RECAPTCHA_CONNECTOR_NAME = "sso.login.recaptcha";
 
+    // Configurations of the HTTP client used for reCaptcha verification. Timeouts are in milliseconds.
+    public static final String RE_CAPTCHA_HTTP_MAX_CONNECTIONS = "recaptcha.http.max.connections";
+    public static final String RE_CAPTCHA_HTTP_CONNECT_TIMEOUT = "recaptcha.http.connect.timeout";
+    public static final String RE_CAPTCHA_HTTP_READ_TIMEOUT = "recaptcha.http.read.timeout";
+    public static final String RE_CAPTCHA_HTTP_CONNECTION_REQUEST_TIMEOUT = "recaptcha.http.connection.request.timeout";
+    public static final String RE_CAPTCHA_HTTP_KEEP_ALIVE = "recaptcha.http.keep.alive";
+    public static final int RE_CAPTCHA_HTTP_DEFAULT_MAX_CONNECTIONS = 50;
+    public static final int RE_CAPTCHA_HTTP_DEFAULT_CONNECT_TIMEOUT = 5000;
+    public static final int RE_CAPTCHA_HTTP_DEFAULT_READ_TIMEOUT = 10000;
+    public static final int RE_CAPTCHA_HTTP_DEFAULT_CONNECTION_REQUEST_TIMEOUT = 2000;
+    public static final int RE_CAPTCHA_HTTP_DEFAULT_KEEP_ALIVE = 60000;
+
     /**
      * Captcha Connector configuration constants from the identity.xml.
      */
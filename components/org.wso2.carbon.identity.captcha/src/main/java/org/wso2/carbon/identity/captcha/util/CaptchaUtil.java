@@ -28,7 +28,6 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.NameValuePair;
 import org.apache.hc.core5.http.io.entity.StringEntity;
@@ -50,12 +49,12 @@ import org.wso2.carbon.identity.captcha.internal.CaptchaDataHolder;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.governance.IdentityGovernanceException;
 import org.wso2.carbon.identity.governance.IdentityGovernanceService;
+import org.wso2.carbon.identity.governance.model.GovernanceConfigSnapshot;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.UserRealm;
 import org.wso2.carbon.user.core.UserStoreManager;
 import org.wso2.carbon.user.core.service.RealmService;
-import org.wso2.carbon.utils.httpclient5.HTTPClientUtils;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 import org.wso2.securevault.SecretResolver;
@@ -288,8 +287,8 @@ public class CaptchaUtil {
         }
 
         JsonObject jsonResponse;
-        try (CloseableHttpClient httpclient = HTTPClientUtils.createClientWithCustomHostnameVerifier().build()) {
-            jsonResponse = httpclient.execute(httpPost, response -> {
+        try {
+            jsonResponse = CaptchaDataHolder.getInstance().getReCaptchaHttpClient().execute(httpPost, response -> {
                 try (InputStream in = response.getEntity().getContent()) {
                     JsonElement jsonElement = JsonParser.parseReader(new InputStreamReader(in, StandardCharsets.UTF_8));
                     return jsonElement.getAsJsonObject();
@@ -433,11 +432,10 @@ public class CaptchaUtil {
     public static boolean isMaximumFailedLoginAttemptsReached(String usernameWithDomain, String tenantDomain,
                                                               String failedAttemptsClaim) throws CaptchaException {
 
-        Property[] connectorConfigs;
+        GovernanceConfigSnapshot connectorConfigs;
         try {
             connectorConfigs = CaptchaDataHolder.getInstance().getIdentityGovernanceService()
-                    .getConfiguration(new String[]{SSO_LOGIN_RECAPTCHA_CONNECTOR_NAME + ReCaptchaConnectorPropertySuffixes.ENABLE,
-                            SSO_LOGIN_RECAPTCHA_CONNECTOR_NAME + ReCaptchaConnectorPropertySuffixes.MAX_ATTEMPTS}, tenantDomain);
+                    .getConfigurationSnapshot(tenantDomain);
         } catch (Exception e) {
             // Can happen due to invalid user/ invalid tenant/ invalid configuration
             if (log.isDebugEnabled()) {
@@ -450,21 +448,18 @@ public class CaptchaUtil {
             return false;
         }
 
-        String maxAttemptsStr = null;
-        for (Property property : connectorConfigs) {
-            if ((SSO_LOGIN_RECAPTCHA_CONNECTOR_NAME + ReCaptchaConnectorPropertySuffixes.ENABLE).equals(property.getName())
-                    && !Boolean.valueOf(property.getValue())) {
-                return false;
-            } else if ((SSO_LOGIN_RECAPTCHA_CONNECTOR_NAME + ReCaptchaConnectorPropertySuffixes.MAX_ATTEMPTS).equals(property.getName())) {
-                maxAttemptsStr = property.getValue();
-            }
+        String enableProperty = SSO_LOGIN_RECAPTCHA_CONNECTOR_NAME + ReCaptchaConnectorPropertySuffixes.ENABLE;
+        if (!connectorConfigs.getBoolean(enableProperty, true)) {
+            return false;
         }
 
-        if (StringUtils.isBlank(maxAttemptsStr) || !NumberUtils.isNumber(maxAttemptsStr)) {
+        String maxAttemptsProperty =
+                SSO_LOGIN_RECAPTCHA_CONNECTOR_NAME + ReCaptchaConnectorPropertySuffixes.MAX_ATTEMPTS;
+        if (!connectorConfigs.isInt(maxAttemptsProperty)) {
             throw new CaptchaServerException("Invalid reCaptcha configuration.");
         }
 
-        int maxAttempts = Integer.parseInt(maxAttemptsStr);
+        int maxAttempts = connectorConfigs.getInt(maxAttemptsProperty, 0);
 
         RealmService realmService = CaptchaDataHolder.getInstance().getRealmService();
         int tenantId;
@@ -618,6 +613,40 @@ public class CaptchaUtil {
                 properties.getProperty(CaptchaConstants.FORCEFULLY_ENABLED_RECAPTCHA_FOR_ALL_TENANTS);
         CaptchaDataHolder.getInstance().setForcefullyEnabledRecaptchaForAllTenants(
                 Boolean.parseBoolean(forcefullyEnableRecaptchaForAllTenants));
+
+        CaptchaDataHolder.getInstance().setReCaptchaHttpClient(new ReCaptchaHttpClient(
+                getReCaptchaHttpConfig(properties, CaptchaConstants.RE_CAPTCHA_HTTP_MAX_CONNECTIONS,
+                        CaptchaConstants.RE_CAPTCHA_HTTP_DEFAULT_MAX_CONNECTIONS),
+                getReCaptchaHttpConfig(properties, CaptchaConstants.RE_CAPTCHA_HTTP_CONNECT_TIMEOUT,
+                        CaptchaConstants.RE_CAPTCHA_HTTP_DEFAULT_CONNECT_TIMEOUT),
+                getReCaptchaHttpConfig(properties, CaptchaConstants.RE_CAPTCHA_HTTP_READ_TIMEOUT,
+                        CaptchaConstants.RE_CAPTCHA_HTTP_DEFAULT_READ_TIMEOUT),
+                getReCaptchaHttpConfig(properties, CaptchaConstants.RE_CAPTCHA_HTTP_CONNECTION_REQUEST_TIMEOUT,
+                        CaptchaConstants.RE_CAPTCHA_HTTP_DEFAULT_CONNECTION_REQUEST_TIMEOUT),
+                getReCaptchaHttpConfig(properties, CaptchaConstants.RE_CAPTCHA_HTTP_KEEP_ALIVE,
+                        CaptchaConstants.RE_CAPTCHA_HTTP_DEFAULT_KEEP_ALIVE)));
+    }
+
+    /**
+     * Get a configuration of the HTTP client used for reCaptcha verification.
+     *
+     * @param properties   Captcha properties.
+     * @param name         Name of the configuration.
+     * @param defaultValue Value used if the configuration is not a positive integer.
+     * @return Configured value.
+     */
+    private static int getReCaptchaHttpConfig(Properties properties, String name, int defaultValue) {
+
+        String value = properties.getProperty(name);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        int configuredValue = NumberUtils.toInt(value.trim(), -1);
+        if (configuredValue <= 0) {
+            log.warn("Invalid value: " + value + " for " + name + ". Using the default value: " + defaultValue);
+            return defaultValue;
+        }
+        return configuredValue;
     }
 
     /**
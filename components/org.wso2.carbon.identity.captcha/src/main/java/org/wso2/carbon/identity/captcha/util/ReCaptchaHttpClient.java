@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.captcha.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.DefaultHostnameVerifier;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.wso2.carbon.utils.httpclient5.HTTPClientUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.HostnameVerifier;
+
+/**
+ * HTTP client used to call the reCaptcha verification endpoint. The client keeps a bounded pool of connections
+ * which is shared by all the verifications, and records the verification latency and the pool usage.
+ */
+public class ReCaptchaHttpClient implements Closeable {
+
+    private static final Log log = LogFactory.getLog(ReCaptchaHttpClient.class);
+
+    private static final String HOSTNAME_VERIFIER = "httpclient.hostnameVerifier";
+    private static final String HOSTNAME_VERIFIER_ALLOW_ALL = "AllowAll";
+    private static final String HOSTNAME_VERIFIER_DEFAULT_AND_LOCALHOST = "DefaultAndLocalhost";
+    private static final List<String> LOCALHOSTS = Arrays.asList("::1", "127.0.0.1", "localhost",
+            "localhost.localdomain");
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    private final LongAdder verificationCount = new LongAdder();
+    private final LongAdder failedVerificationCount = new LongAdder();
+    private final LongAdder totalLatency = new LongAdder();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    /**
+     * Create a reCaptcha HTTP client.
+     *
+     * @param maxConnections           Maximum number of pooled connections.
+     * @param connectTimeout           Timeout in milliseconds to establish a connection.
+     * @param readTimeout              Timeout in milliseconds to wait for the verification response.
+     * @param connectionRequestTimeout Timeout in milliseconds to wait for a connection from the pool.
+     * @param keepAlive                Maximum time in milliseconds to keep an idle connection alive.
+     */
+    public ReCaptchaHttpClient(int maxConnections, int connectTimeout, int readTimeout, int connectionRequestTimeout,
+                               int keepAlive) {
+
+        TimeValue keepAliveDuration = TimeValue.ofMilliseconds(keepAlive);
+        connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setSSLSocketFactory(SSLConnectionSocketFactoryBuilder.create()
+                        .useSystemProperties()
+                        .setHostnameVerifier(getHostnameVerifier())
+                        .build())
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+                        .build())
+                .build();
+        httpClient = HTTPClientUtils.createClientWithCustomHostnameVerifier()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeout))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue duration = DefaultConnectionKeepAliveStrategy.INSTANCE
+                            .getKeepAliveDuration(response, context);
+                    return TimeValue.isPositive(duration) && duration.compareTo(keepAliveDuration) < 0 ?
+                            duration : keepAliveDuration;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveDuration)
+                .build();
+    }
+
+    /**
+     * Execute a verification request using a pooled connection.
+     *
+     * @param request         Verification request.
+     * @param responseHandler Handler to process the verification response.
+     * @param <T>             Type of the processed response.
+     * @return Processed verification response.
+     * @throws IOException If the verification endpoint cannot be reached.
+     */
+    public <T> T execute(ClassicHttpRequest request, HttpClientResponseHandler<? extends T> responseHandler)
+            throws IOException {
+
+        long startTime = System.nanoTime();
+        boolean successful = false;
+        try {
+            T response = httpClient.execute(request, responseHandler);
+            successful = true;
+            return response;
+        } finally {
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            recordVerification(latency, successful);
+        }
+    }
+
+    /**
+     * Get the number of verification requests sent.
+     *
+     * @return Number of verification requests.
+     */
+    public long getVerificationCount() {
+
+        return verificationCount.sum();
+    }
+
+    /**
+     * Get the number of verification requests which did not get a response.
+     *
+     * @return Number of failed verification requests.
+     */
+    public long getFailedVerificationCount() {
+
+        return failedVerificationCount.sum();
+    }
+
+    /**
+     * Get the average verification latency.
+     *
+     * @return Average verification latency in milliseconds.
+     */
+    public long getAverageVerificationLatency() {
+
+        long count = verificationCount.sum();
+        return count == 0 ? 0 : totalLatency.sum() / count;
+    }
+
+    /**
+     * Get the maximum verification latency.
+     *
+     * @return Maximum verification latency in milliseconds.
+     */
+    public long getMaxVerificationLatency() {
+
+        return maxLatency.get();
+    }
+
+    /**
+     * Get the usage of the connection pool. The pool is saturated when all the connections are leased, in which
+     * case the pending requests wait for a connection until the connection request timeout.
+     *
+     * @return Leased, pending, available and maximum connections of the pool.
+     */
+    public PoolStats getPoolStats() {
+
+        return connectionManager.getTotalStats();
+    }
+
+    @Override
+    public void close() {
+
+        httpClient.close(CloseMode.GRACEFUL);
+    }
+
+    private void recordVerification(long latency, boolean successful) {
+
+        verificationCount.increment();
+        totalLatency.add(latency);
+        maxLatency.accumulateAndGet(latency, Math::max);
+        if (!successful) {
+            failedVerificationCount.increment();
+        }
+
+        PoolStats poolStats = connectionManager.getTotalStats();
+        if (!successful && poolStats.getLeased() >= poolStats.getMax()) {
+            log.warn("reCaptcha verification connection pool is saturated. Leased: " + poolStats.getLeased() +
+                    ", pending: " + poolStats.getPending() + ", max: " + poolStats.getMax());
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("reCaptcha verification " + (successful ? "completed" : "failed") + " in " + latency +
+                    " ms. Connection pool { leased: " + poolStats.getLeased() + ", pending: " +
+                    poolStats.getPending() + ", available: " + poolStats.getAvailable() + ", max: " +
+                    poolStats.getMax() + " }");
+        }
+    }
+
+    private static HostnameVerifier getHostnameVerifier() {
+
+        String hostnameVerifier = System.getProperty(HOSTNAME_VERIFIER);
+        if (HOSTNAME_VERIFIER_ALLOW_ALL.equals(hostnameVerifier)) {
+            return NoopHostnameVerifier.INSTANCE;
+        }
+        DefaultHostnameVerifier defaultHostnameVerifier = new DefaultHostnameVerifier();
+        if (HOSTNAME_VERIFIER_DEFAULT_AND_LOCALHOST.equals(hostnameVerifier)) {
+            return (hostname, session) -> LOCALHOSTS.contains(hostname) ||
+                    defaultHostnameVerifier.verify(hostname, session);
+        }
+        return defaultHostnameVerifier;
+    }
+}
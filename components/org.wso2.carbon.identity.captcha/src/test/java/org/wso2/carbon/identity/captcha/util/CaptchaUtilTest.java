@@ -17,6 +17,7 @@
 package org.wso2.carbon.identity.captcha.util;
 
 import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpServer;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -27,9 +28,12 @@ import org.wso2.carbon.identity.captcha.internal.CaptchaDataHolder;
 
 import java.io.IOException;
 
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 
 import static org.testng.Assert.assertThrows;
 
@@ -204,4 +208,42 @@ public class CaptchaUtilTest {
         // Verify no exception is thrown for invalid response.
         assertThrows(InvocationTargetException.class, () -> method.invoke(null, verificationResponse));
     }
+
+    @Test (description = "This method is used to test the isValidCaptcha method against a local verification " +
+            "endpoint, with the shared HTTP client")
+    public void testIsValidCaptchaWithSharedHttpClient() throws Exception {
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/siteverify", exchange -> {
+            byte[] body = getReCaptchaJsonObject(true, 0.9).toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        ReCaptchaHttpClient httpClient = new ReCaptchaHttpClient(2, 1000, 1000, 1000, 1000);
+        CaptchaDataHolder.getInstance().setReCaptchaHttpClient(httpClient);
+        try {
+            CaptchaDataHolder.getInstance().setReCaptchaType(null);
+            CaptchaDataHolder.getInstance().setReCaptchaVerifyUrl("http://localhost:" +
+                    server.getAddress().getPort() + "/siteverify");
+            CaptchaDataHolder.getInstance().setReCaptchaSecretKey("dummyKey");
+            CaptchaDataHolder.getInstance().setReCaptchaScoreThreshold(CaptchaConstants.CAPTCHA_V3_DEFAULT_THRESHOLD);
+
+            Assert.assertTrue(CaptchaUtil.isValidCaptcha("reCaptchaResponse"));
+            Assert.assertTrue(CaptchaUtil.isValidCaptcha("reCaptchaResponse"));
+
+            Assert.assertSame(CaptchaDataHolder.getInstance().getReCaptchaHttpClient(), httpClient);
+            Assert.assertEquals(httpClient.getVerificationCount(), 2);
+            Assert.assertEquals(httpClient.getFailedVerificationCount(), 0);
+            Assert.assertEquals(httpClient.getPoolStats().getLeased(), 0);
+            Assert.assertEquals(httpClient.getPoolStats().getMax(), 2);
+        } finally {
+            CaptchaDataHolder.getInstance().setReCaptchaHttpClient(null);
+            server.stop(0);
+        }
+    }
 }
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.governance.bean.ConnectorConfig;
+import org.wso2.carbon.identity.governance.common.IdentityConnectorConfig;
+import org.wso2.carbon.identity.governance.model.GovernanceConfigSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Connector configurations of a tenant materialized from a governance configuration snapshot, indexed by the
+ * connector name and the connector category. The indexed configurations are never handed out. Callers get copies
+ * as they are free to modify them.
+ */
+final class ConnectorConfigIndex {
+
+    private final String configVersion;
+    private final int connectorListVersion;
+    private final List<ConnectorConfig> connectorConfigs;
+    private final Map<String, ConnectorConfig> connectorConfigsByName = new HashMap<>();
+    private final Map<String, List<ConnectorConfig>> connectorConfigsByCategory = new HashMap<>();
+
+    ConnectorConfigIndex(GovernanceConfigSnapshot configSnapshot, List<IdentityConnectorConfig> connectors,
+                         int connectorListVersion, String tenantDomain) {
+
+        this.configVersion = configSnapshot.getVersion();
+        this.connectorListVersion = connectorListVersion;
+
+        Property[] properties = configSnapshot.getProperties();
+        Map<String, Integer> propertyPositions = new HashMap<>();
+        for (int i = 0; i < properties.length; i++) {
+            if (properties[i] != null && StringUtils.isNotBlank(properties[i].getName())) {
+                propertyPositions.putIfAbsent(properties[i].getName(), i);
+            }
+        }
+        Map<String, List<Integer>> prefixMatches = getPrefixMatches(propertyPositions, connectors);
+
+        this.connectorConfigs = new ArrayList<>(connectors.size());
+        for (IdentityConnectorConfig connector : connectors) {
+            ConnectorConfig config = new ConnectorConfig();
+            config.setFriendlyName(connector.getFriendlyName());
+            config.setName(connector.getName());
+            config.setCategory(connector.getCategory());
+            config.setSubCategory(connector.getSubCategory());
+            config.setOrder(connector.getOrder());
+            config.setProperties(getConnectorProperties(connector, properties, propertyPositions,
+                    prefixMatches.get(connector.getName()), tenantDomain));
+
+            connectorConfigs.add(config);
+            if (config.getName() != null) {
+                connectorConfigsByName.putIfAbsent(config.getName(), config);
+            }
+            connectorConfigsByCategory.computeIfAbsent(config.getCategory(), category -> new ArrayList<>())
+                    .add(config);
+        }
+    }
+
+    /**
+     * Check whether the index was built from the given snapshot and connector list. Snapshots are compared by their
+     * version, as a cache may return a different copy of the same snapshot on each lookup.
+     *
+     * @param configSnapshot       Current configuration snapshot of the tenant.
+     * @param connectorListVersion Current version of the connector list.
+     * @return True if the index reflects the given snapshot and connector list.
+     */
+    boolean isBuiltFrom(GovernanceConfigSnapshot configSnapshot, int connectorListVersion) {
+
+        return configVersion != null && configVersion.equals(configSnapshot.getVersion()) &&
+                this.connectorListVersion == connectorListVersion;
+    }
+
+    List<ConnectorConfig> getConnectorConfigs() {
+
+        return copyOf(connectorConfigs);
+    }
+
+    ConnectorConfig getConnectorConfig(String connectorName) {
+
+        ConnectorConfig connectorConfig = connectorConfigsByName.get(connectorName);
+        return connectorConfig == null ? null : copyOf(connectorConfig);
+    }
+
+    List<ConnectorConfig> getConnectorConfigsByCategory(String category) {
+
+        List<ConnectorConfig> categorizedConnectorConfigs = connectorConfigsByCategory.get(category);
+        return categorizedConnectorConfigs == null ? new ArrayList<>() : copyOf(categorizedConnectorConfigs);
+    }
+
+    Map<String, List<ConnectorConfig>> getCategorizedConnectorConfigs() {
+
+        Map<String, List<ConnectorConfig>> categorizedConnectorConfigs = new HashMap<>();
+        for (Map.Entry<String, List<ConnectorConfig>> entry : connectorConfigsByCategory.entrySet()) {
+            categorizedConnectorConfigs.put(entry.getKey(), copyOf(entry.getValue()));
+        }
+        return categorizedConnectorConfigs;
+    }
+
+    /**
+     * Find the properties whose names start with a connector name, in a single pass over the properties. Each
+     * property name is only checked against the prefixes with the length of a connector name.
+     *
+     * @return Map of connector name to the positions of the matching properties, in the property order.
+     */
+    private static Map<String, List<Integer>> getPrefixMatches(Map<String, Integer> propertyPositions,
+                                                               List<IdentityConnectorConfig> connectors) {
+
+        Set<String> connectorNames = new HashSet<>();
+        Set<Integer> connectorNameLengths = new TreeSet<>();
+        for (IdentityConnectorConfig connector : connectors) {
+            if (StringUtils.isNotBlank(connector.getName())) {
+                connectorNames.add(connector.getName());
+                connectorNameLengths.add(connector.getName().length());
+            }
+        }
+
+        Map<String, List<Integer>> prefixMatches = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : propertyPositions.entrySet()) {
+            String propertyName = entry.getKey();
+            for (int length : connectorNameLengths) {
+                if (length > propertyName.length()) {
+                    break;
+                }
+                String prefix = propertyName.substring(0, length);
+                if (connectorNames.contains(prefix)) {
+                    prefixMatches.computeIfAbsent(prefix, name -> new ArrayList<>()).add(entry.getValue());
+                }
+            }
+        }
+        for (List<Integer> positions : prefixMatches.values()) {
+            Collections.sort(positions);
+        }
+        return prefixMatches;
+    }
+
+    /**
+     * Get the properties of a connector. These are the properties named with the connector name as the prefix,
+     * merged in property order with the first declared property of the connector, followed by the rest of the
+     * declared properties of the connector.
+     */
+    private static Property[] getConnectorProperties(IdentityConnectorConfig connector, Property[] properties,
+                                                     Map<String, Integer> propertyPositions,
+                                                     List<Integer> prefixMatches, String tenantDomain) {
+
+        String[] connectorProperties = connector.getPropertyNames();
+        if (connectorProperties == null || connectorProperties.length == 0) {
+            return new Property[0];
+        }
+
+        List<Integer> positions = new ArrayList<>();
+        if (prefixMatches != null) {
+            positions.addAll(prefixMatches);
+        }
+        Integer firstPropertyPosition = propertyPositions.get(connectorProperties[0]);
+        if (firstPropertyPosition != null && !positions.contains(firstPropertyPosition)) {
+            int index = Collections.binarySearch(positions, firstPropertyPosition);
+            positions.add(-index - 1, firstPropertyPosition);
+        }
+        Set<Integer> addedPositions = new HashSet<>(positions);
+        for (int i = 1; i < connectorProperties.length; i++) {
+            Integer position = propertyPositions.get(connectorProperties[i]);
+            if (position != null && addedPositions.add(position)) {
+                positions.add(position);
+            }
+        }
+
+        Map<String, String> propertyFriendlyNames = connector.getPropertyNameMapping();
+        Map<String, String> propertyDescriptions = connector.getPropertyDescriptionMapping();
+        Map<String, Property> metaData = connector.getMetaData();
+        List<String> confidentialProperties = connector.getConfidentialPropertyValues(tenantDomain);
+        List<Property> configProperties = new ArrayList<>(positions.size());
+        for (int position : positions) {
+            Property property = properties[position];
+            Property configProperty = new Property();
+            configProperty.setName(property.getName());
+            configProperty.setValue(property.getValue());
+            configProperty.setDisplayName(propertyFriendlyNames.get(property.getName()));
+            configProperty.setDescription(propertyDescriptions.get(property.getName()));
+
+            if (metaData != null && metaData.containsKey(property.getName())) {
+                configProperty.setType(metaData.get(property.getName()).getType());
+                configProperty.setRegex(metaData.get(property.getName()).getRegex());
+                configProperty.setGroupId(metaData.get(property.getName()).getGroupId());
+            }
+            if (confidentialProperties != null && confidentialProperties.contains(configProperty.getName())) {
+                configProperty.setConfidential(true);
+            }
+            configProperties.add(configProperty);
+        }
+        return configProperties.toArray(new Property[0]);
+    }
+
+    private static List<ConnectorConfig> copyOf(List<ConnectorConfig> connectorConfigs) {
+
+        List<ConnectorConfig> copies = new ArrayList<>(connectorConfigs.size());
+        for (ConnectorConfig connectorConfig : connectorConfigs) {
+            copies.add(copyOf(connectorConfig));
+        }
+        return copies;
+    }
+
+    private static ConnectorConfig copyOf(ConnectorConfig connectorConfig) {
+
+        ConnectorConfig copy = new ConnectorConfig();
+        copy.setFriendlyName(connectorConfig.getFriendlyName());
+        copy.setName(connectorConfig.getName());
+        copy.setCategory(connectorConfig.getCategory());
+        copy.setSubCategory(connectorConfig.getSubCategory());
+        copy.setOrder(connectorConfig.getOrder());
+        Property[] properties = new Property[connectorConfig.getProperties().length];
+        for (int i = 0; i < properties.length; i++) {
+            Property property = connectorConfig.getProperties()[i];
+            Property propertyCopy = new Property();
+            propertyCopy.setName(property.getName());
+            propertyCopy.setValue(property.getValue());
+            propertyCopy.setDisplayName(property.getDisplayName());
+            propertyCopy.setDescription(property.getDescription());
+            propertyCopy.setType(property.getType());
+            propertyCopy.setRegex(property.getRegex());
+            propertyCopy.setGroupId(property.getGroupId());
+            propertyCopy.setConfidential(property.isConfidential());
+            properties[i] = propertyCopy;
+        }
+        copy.setProperties(properties);
+        return copy;
+    }
+}
@@ -19,6 +19,7 @@ package org.wso2.carbon.identity.governance;
 import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.governance.bean.ConnectorConfig;
 import org.wso2.carbon.identity.governance.common.IdentityConnectorConfig;
+import org.wso2.carbon.identity.governance.model.GovernanceConfigSnapshot;
 
 import java.util.List;
 import java.util.Map;
@@ -50,6 +51,20 @@ public interface IdentityGovernanceService {
      */
     Property[] getConfiguration(String[] propertyNames, String tenantDomain) throws IdentityGovernanceException;
 
+    /**
+     * Get an immutable snapshot of the configurations of a tenant, which provides indexed and typed access to the
+     * configuration values.
+     *
+     * @param tenantDomain Domain name of the tenant
+     * @return Configuration snapshot of the tenant
+     * @throws IdentityGovernanceException
+     */
+    default GovernanceConfigSnapshot getConfigurationSnapshot(String tenantDomain)
+            throws IdentityGovernanceException {
+
+        return new GovernanceConfigSnapshot(getConfiguration(tenantDomain));
+    }
+
     /**
      * Get the governance connector list.
      *
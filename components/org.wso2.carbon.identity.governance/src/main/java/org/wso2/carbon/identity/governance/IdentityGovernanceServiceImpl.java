@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016-2024, WSO2 LLC. (http://www.wso2.com).
+ * Copyright (c) 2016-2025, WSO2 LLC. (http://www.wso2.com).
  *
  * WSO2 LLC. licenses this file to you under the Apache License,
  * Version 2.0 (the "License"); you may not use this file except
@@ -31,17 +31,17 @@ import org.wso2.carbon.identity.governance.bean.ConnectorConfig;
 import org.wso2.carbon.identity.governance.common.IdentityConnectorConfig;
 import org.wso2.carbon.identity.governance.exceptions.general.IdentityGovernanceClientException;
 import org.wso2.carbon.identity.governance.internal.IdentityMgtServiceDataHolder;
+import org.wso2.carbon.identity.governance.internal.cache.GovernanceConfigCache;
+import org.wso2.carbon.identity.governance.internal.cache.GovernanceConfigCacheKey;
+import org.wso2.carbon.identity.governance.model.GovernanceConfigSnapshot;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementClientException;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
 import org.wso2.carbon.idp.mgt.IdpManager;
 import org.wso2.carbon.idp.mgt.util.IdPManagementUtil;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Class which contains exposed identity governance services.
@@ -62,6 +62,11 @@ public class IdentityGovernanceServiceImpl implements IdentityGovernanceService
     private  static final String USERNAME_RECOVERY_EMAIL_ENABLE = "Recovery.Notification.Username.Email.Enable";
     private static final String USERNAME_RECOVERY_SMS_ENABLE = "Recovery.Notification.Username.SMS.Enable";
     private static final String FALSE_STRING = "false";
+    private static final int MAX_CONNECTOR_CONFIG_INDEXES = 1000;
+
+    // Indexes of inactive tenants are never cleared, hence the least recently used indexes are evicted.
+    private final Map<String, ConnectorConfigIndex> connectorConfigIndexes =
+            new LruMap<>(MAX_CONNECTOR_CONFIG_INDEXES);
 
     public void updateConfiguration(String tenantDomain, Map<String, String> configurationDetails)
             throws IdentityGovernanceException {
@@ -111,6 +116,7 @@ public class IdentityGovernanceServiceImpl implements IdentityGovernanceService
             residentIdp.setFederatedAuthenticatorConfigs(configsToSave.toArray(new
                     FederatedAuthenticatorConfig[configsToSave.size()]));
             identityProviderManager.updateResidentIdP(residentIdp, tenantDomain);
+            clearConfigurationCache(tenantDomain);
         } catch (IdentityProviderManagementClientException e) {
             log.debug("Client error while updating identityManagement properties of Resident IdP.", e);
             throw new IdentityGovernanceClientException(e.getMessage(), e);
@@ -122,6 +128,49 @@ public class IdentityGovernanceServiceImpl implements IdentityGovernanceService
     @Override
     public Property[] getConfiguration(String tenantDomain) throws IdentityGovernanceException {
 
+        return getConfigurationSnapshot(tenantDomain).getProperties();
+    }
+
+    @Override
+    public Property[] getConfiguration(String[] propertyNames, String tenantDomain) throws
+            IdentityGovernanceException {
+
+        return getConfigurationSnapshot(tenantDomain).getProperties(propertyNames);
+    }
+
+    @Override
+    public GovernanceConfigSnapshot getConfigurationSnapshot(String tenantDomain)
+            throws IdentityGovernanceException {
+
+        GovernanceConfigCacheKey cacheKey = new GovernanceConfigCacheKey(tenantDomain);
+        GovernanceConfigSnapshot configSnapshot =
+                GovernanceConfigCache.getInstance().getValueFromCache(cacheKey, tenantDomain);
+        if (configSnapshot != null) {
+            return configSnapshot;
+        }
+        configSnapshot = new GovernanceConfigSnapshot(getResidentIdPConfiguration(tenantDomain));
+        GovernanceConfigCache.getInstance().addToCache(cacheKey, configSnapshot, tenantDomain);
+        return configSnapshot;
+    }
+
+    /**
+     * Clear the cached configuration snapshot of a tenant. The cache entry is invalidated across the cluster.
+     *
+     * @param tenantDomain Tenant domain.
+     */
+    public void clearConfigurationCache(String tenantDomain) {
+
+        GovernanceConfigCache.getInstance().clearCacheEntry(new GovernanceConfigCacheKey(tenantDomain), tenantDomain);
+        synchronized (connectorConfigIndexes) {
+            connectorConfigIndexes.remove(tenantDomain);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the governance configuration cache of tenant: " + tenantDomain);
+        }
+    }
+
+    private Property[] getResidentIdPConfiguration(String tenantDomain) throws IdentityGovernanceException {
+
         IdpManager identityProviderManager = IdentityMgtServiceDataHolder.getInstance().getIdpManager();
         IdentityProvider residentIdp = null;
         try {
@@ -148,25 +197,6 @@ public class IdentityGovernanceServiceImpl implements IdentityGovernanceService
         return configMap;
     }
 
-    @Override
-    public Property[] getConfiguration(String[] propertyNames, String tenantDomain) throws
-            IdentityGovernanceException {
-
-        List<Property> requestedProperties = new ArrayList<>();
-        Property[] allProperties = getConfiguration(tenantDomain);
-        for (String propertyName : propertyNames) {
-            for (int i = 0; i < allProperties.length; i++) {
-                if (propertyName.equals(allProperties[i].getName())) {
-                    requestedProperties.add(allProperties[i]);
-                    break;
-                }
-            }
-
-        }
-        return requestedProperties.toArray(new Property[requestedProperties.size()]);
-
-    }
-
     public List<IdentityConnectorConfig> getConnectorList() throws IdentityGovernanceException {
 
         return IdentityMgtServiceDataHolder.getInstance().getIdentityGovernanceConnectorList();
@@ -174,114 +204,60 @@ public class IdentityGovernanceServiceImpl implements IdentityGovernanceService
 
     public List<ConnectorConfig> getConnectorListWithConfigs(String tenantDomain) throws IdentityGovernanceException {
 
-        List<IdentityConnectorConfig> list = IdentityMgtServiceDataHolder.getInstance()
-                .getIdentityGovernanceConnectorList();
-        Property[] properties = this.getConfiguration(tenantDomain);
-        List<ConnectorConfig> configs = new ArrayList<>(list.size());
-        String[] connectorProperties;
-        String connectorName;
-        for (int i = 0; i < list.size(); i++) {
-            ConnectorConfig config = new ConnectorConfig();
-            Map<String, String> propertyFriendlyNames = list.get(i).getPropertyNameMapping();
-            Map<String, String> propertyDescriptions = list.get(i).getPropertyDescriptionMapping();
-            Map<String, Property> metaData = list.get(i).getMetaData();
-            List<String> confidentialProperties = list.get(i).getConfidentialPropertyValues(tenantDomain);
-            config.setFriendlyName(list.get(i).getFriendlyName());
-            config.setName(list.get(i).getName());
-            config.setCategory(list.get(i).getCategory());
-            config.setSubCategory(list.get(i).getSubCategory());
-            config.setOrder(list.get(i).getOrder());
-            connectorProperties = list.get(i).getPropertyNames();
-            connectorName = list.get(i).getName();
-            List<Property> configProperties = new ArrayList<>();
-            Set<String> addedProperties = new HashSet<>();
-
-            for (String connectorProperty : connectorProperties) {
-                for (Property property : properties) {
-                    if (StringUtils.isBlank(property.getName()) || addedProperties.contains(property.getName())) {
-                        continue;
-                    }
-                    if (connectorProperty.equals(property.getName()) ||
-                            (StringUtils.isNotBlank(connectorName) && property.getName().startsWith(connectorName))) {
-                        Property configProperty = new Property();
-                        configProperty.setName(property.getName());
-                        configProperty.setValue(property.getValue());
-                        configProperty.setDisplayName(propertyFriendlyNames.get(property.getName()));
-                        configProperty.setDescription(propertyDescriptions.get(property.getName()));
-
-                        if (metaData != null && metaData.containsKey(property.getName())) {
-                            configProperty.setType(metaData.get(property.getName()).getType());
-                            configProperty.setRegex(metaData.get(property.getName()).getRegex());
-                            configProperty.setGroupId(metaData.get(property.getName()).getGroupId());
-                        }
-                        if (confidentialProperties != null &&
-                                confidentialProperties.contains(configProperty.getName())) {
-                            configProperty.setConfidential(true);
-                        }
-                        configProperties.add(configProperty);
-                        addedProperties.add(property.getName());
-                    }
-                }
-            }
-            config.setProperties(configProperties.toArray(new Property[0]));
-            configs.add(i, config);
-        }
-        return configs;
+        return getConnectorConfigIndex(tenantDomain).getConnectorConfigs();
     }
 
     public Map<String, List<ConnectorConfig>> getCategorizedConnectorListWithConfigs(String tenantDomain)
             throws IdentityGovernanceException {
 
-        List<ConnectorConfig> connectorListWithConfigs = this.getConnectorListWithConfigs(tenantDomain);
-
-        Map<String, List<ConnectorConfig>> categorizedConnectorListWithConfigs = new HashMap<>();
-
-        for (ConnectorConfig connectorConfig : connectorListWithConfigs) {
-            String category = connectorConfig.getCategory();
-            if (categorizedConnectorListWithConfigs.get(category) == null) {
-                List<ConnectorConfig> categorizedConnectors = new ArrayList<>();
-                categorizedConnectors.add(connectorConfig);
-                categorizedConnectorListWithConfigs.put(category, categorizedConnectors);
-            } else {
-                categorizedConnectorListWithConfigs.get(category).add(connectorConfig);
-            }
-        }
-
-        return categorizedConnectorListWithConfigs;
+        return getConnectorConfigIndex(tenantDomain).getCategorizedConnectorConfigs();
     }
 
     public List<ConnectorConfig> getConnectorListWithConfigsByCategory(String tenantDomain,
                                                                        String category)
             throws IdentityGovernanceException {
 
-        List<ConnectorConfig> connectorListWithConfigs = this.getConnectorListWithConfigs(tenantDomain);
-
-        List<ConnectorConfig> categorizedConnectorListWithConfigs = new ArrayList<>();
-
-        for (ConnectorConfig connectorConfig : connectorListWithConfigs) {
-            if (connectorConfig.getCategory().equals(category)) {
-                categorizedConnectorListWithConfigs.add(connectorConfig);
-            }
-        }
-
-        return categorizedConnectorListWithConfigs;
+        return getConnectorConfigIndex(tenantDomain).getConnectorConfigsByCategory(category);
     }
 
     public ConnectorConfig getConnectorWithConfigs(String tenantDomain,
                                                    String connectorName) throws IdentityGovernanceException {
 
-        List<ConnectorConfig> connectorListWithConfigs = this.getConnectorListWithConfigs(tenantDomain);
+        ConnectorConfig connectorConfig = getConnectorConfigIndex(tenantDomain).getConnectorConfig(connectorName);
+        // Should remove this logic eventually.
+        if (connectorConfig != null && isEmailOTPConnector(connectorName, connectorConfig)) {
+            readEmailOTPAlphanumericPropertyValue(connectorConfig);
+        }
+        return connectorConfig;
+    }
 
-        for (ConnectorConfig connectorConfig : connectorListWithConfigs) {
-            if (connectorConfig.getName().equals(connectorName)) {
-                // Should remove this logic eventually.
-                if (isEmailOTPConnector(connectorName, connectorConfig)) {
-                    readEmailOTPAlphanumericPropertyValue(connectorConfig);
-                }
-                return connectorConfig;
-            }
+    /**
+     * Get the connector configurations of a tenant, materialized from the current configuration snapshot of the
+     * tenant. The configurations are materialized again only if the snapshot or the connector list has changed.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Connector configuration index of the tenant.
+     * @throws IdentityGovernanceException If an error occurred while loading the configurations.
+     */
+    private ConnectorConfigIndex getConnectorConfigIndex(String tenantDomain) throws IdentityGovernanceException {
+
+        GovernanceConfigSnapshot configSnapshot = getConfigurationSnapshot(tenantDomain);
+        int connectorListVersion =
+                IdentityMgtServiceDataHolder.getInstance().getIdentityGovernanceConnectorListVersion();
+        ConnectorConfigIndex connectorConfigIndex;
+        synchronized (connectorConfigIndexes) {
+            connectorConfigIndex = connectorConfigIndexes.get(tenantDomain);
+        }
+        if (connectorConfigIndex != null && connectorConfigIndex.isBuiltFrom(configSnapshot, connectorListVersion)) {
+            return connectorConfigIndex;
+        }
+        connectorConfigIndex = new ConnectorConfigIndex(configSnapshot,
+                IdentityMgtServiceDataHolder.getInstance().getIdentityGovernanceConnectorList(), connectorListVersion,
+                tenantDomain);
+        synchronized (connectorConfigIndexes) {
+            connectorConfigIndexes.put(tenantDomain, connectorConfigIndex);
         }
-        return null;
+        return connectorConfigIndex;
     }
 
     /**
@@ -19,6 +19,7 @@ package org.wso2.carbon.identity.governance;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.IdentityProvider;
@@ -34,11 +35,21 @@ import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
 import org.wso2.carbon.idp.mgt.IdpManager;
 import org.wso2.carbon.user.api.UserStoreManager;
 import org.wso2.carbon.user.core.UserCoreConstants;
+import org.wso2.carbon.user.core.UserStoreException;
+import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
+import org.wso2.carbon.user.core.model.ExpressionOperation;
+import org.wso2.carbon.user.core.model.UserClaimSearchEntry;
+import org.wso2.carbon.user.core.model.UserMgtContext;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 
 public class IdentityGovernanceUtil {
 
@@ -190,4 +201,170 @@ public class IdentityGovernanceUtil {
         return getPropertyObject(type, null, 0);
     }
 
+    /**
+     * Resolve the unique IDs of users of a user store from their user names. The user names are resolved in
+     * chunks, reading the user ID claim of a whole chunk with a single user store call, and are resolved one by one
+     * only for the users missing in the result.
+     *
+     * @param userStoreManager User store manager of the users.
+     * @param userNames        Domain qualified user names of the users of the user store.
+     * @return Map of the given user names to the user IDs. Users without a user ID are not included.
+     * @throws UserStoreException If an error occurs while resolving the user IDs.
+     */
+    public static Map<String, String> getUserIdsFromUserNames(AbstractUserStoreManager userStoreManager,
+                                                              List<String> userNames) throws UserStoreException {
+
+        int chunkSize = getUserIdResolutionChunkSize();
+        String[] claims = {IdentityMgtConstants.Claim.USER_ID};
+        Map<String, String> userIds = new HashMap<>();
+        for (int from = 0; from < userNames.size(); from += chunkSize) {
+            List<String> chunk = userNames.subList(from, Math.min(from + chunkSize, userNames.size()));
+            Map<String, String> chunkUserIds = new HashMap<>();
+            UserClaimSearchEntry[] userClaimSearchEntries = userStoreManager.getUsersClaimValues(
+                    chunk.toArray(new String[0]), claims, UserCoreConstants.DEFAULT_PROFILE);
+            if (userClaimSearchEntries != null) {
+                for (UserClaimSearchEntry userClaimSearchEntry : userClaimSearchEntries) {
+                    if (userClaimSearchEntry == null || userClaimSearchEntry.getUserName() == null ||
+                            userClaimSearchEntry.getClaims() == null) {
+                        continue;
+                    }
+                    chunkUserIds.put(UserCoreUtil.removeDomainFromName(userClaimSearchEntry.getUserName()),
+                            userClaimSearchEntry.getClaims().get(IdentityMgtConstants.Claim.USER_ID));
+                }
+            }
+            for (String userName : chunk) {
+                String userId = chunkUserIds.get(UserCoreUtil.removeDomainFromName(userName));
+                if (StringUtils.isBlank(userId)) {
+                    userId = userStoreManager.getUserIDFromUserName(userName);
+                }
+                if (StringUtils.isNotBlank(userId)) {
+                    userIds.put(userName, userId);
+                }
+            }
+        }
+        return userIds;
+    }
+
+    /**
+     * Resolve the unique IDs of users of any user store of a realm from their user names. The users are grouped by
+     * the user store, and the user IDs of each user store are resolved with
+     * {@link #getUserIdsFromUserNames(AbstractUserStoreManager, List)}.
+     *
+     * @param userStoreManager Primary user store manager of the realm.
+     * @param userNames        Domain qualified user names of the users.
+     * @return Map of the given user names to the user IDs. Users without a user ID are not included.
+     * @throws UserStoreException If a user store is not found, or an error occurs while resolving the user IDs.
+     */
+    public static Map<String, String> getUserIdsFromDomainQualifiedUserNames(
+            org.wso2.carbon.user.core.UserStoreManager userStoreManager, List<String> userNames)
+            throws UserStoreException {
+
+        Map<String, List<String>> userNamesByDomain = new LinkedHashMap<>();
+        for (String userName : userNames) {
+            userNamesByDomain.computeIfAbsent(UserCoreUtil.extractDomainFromName(userName),
+                    domain -> new ArrayList<>()).add(userName);
+        }
+        Map<String, String> userIds = new HashMap<>();
+        for (Map.Entry<String, List<String>> domainUserNames : userNamesByDomain.entrySet()) {
+            org.wso2.carbon.user.core.UserStoreManager domainUserStoreManager = userStoreManager;
+            if (!IdentityUtil.getPrimaryDomainName().equals(domainUserNames.getKey())) {
+                domainUserStoreManager = userStoreManager.getSecondaryUserStoreManager(domainUserNames.getKey());
+                if (domainUserStoreManager == null) {
+                    throw new UserStoreException("User store manager not found for domain: " +
+                            domainUserNames.getKey());
+                }
+            }
+            if (domainUserStoreManager instanceof AbstractUserStoreManager) {
+                userIds.putAll(getUserIdsFromUserNames((AbstractUserStoreManager) domainUserStoreManager,
+                        domainUserNames.getValue()));
+            }
+        }
+        return userIds;
+    }
+
+    private static int getUserIdResolutionChunkSize() {
+
+        return getPositiveIntProperty(IdentityMgtConstants.PropertyConfig.USER_ID_RESOLUTION_CHUNK_SIZE,
+                IdentityMgtConstants.PropertyConfig.DEFAULT_USER_ID_RESOLUTION_CHUNK_SIZE);
+    }
+
+    /**
+     * Get the value of an identity configuration property which has to be a positive integer.
+     *
+     * @param propertyName Name of the property.
+     * @param defaultValue Value used if the property is not configured or is not a positive integer.
+     * @return Configured value, or the default value.
+     */
+    public static int getPositiveIntProperty(String propertyName, int defaultValue) {
+
+        String value = IdentityUtil.getProperty(propertyName);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            int intValue = Integer.parseInt(value.trim());
+            if (intValue > 0) {
+                return intValue;
+            }
+        } catch (NumberFormatException e) {
+            // Falls through to the warning below.
+        }
+        log.warn("Invalid value: " + value + " configured for: " + propertyName + ". Using the default value: " +
+                defaultValue);
+        return defaultValue;
+    }
+
+    /**
+     * Add wildcards to the claim value to match the specified operation for filtering.
+     *
+     * @param operation  Filtering operation specified.
+     * @param claimValue Attribute value.
+     * @return attribute value with wildcards.
+     */
+    public static String getClaimValueForOperation(String operation, String claimValue) {
+
+        if (ExpressionOperation.EW.toString().equals(operation)) {
+            claimValue = "%" + claimValue;
+        } else if (ExpressionOperation.CO.toString().equals(operation)) {
+            claimValue = "%" + claimValue + "%";
+        } else if (ExpressionOperation.SW.toString().equals(operation)) {
+            claimValue = claimValue + "%";
+        }
+        return claimValue;
+    }
+
+    /**
+     * Wrap a task to run in the context of the caller, when it is handed over to a thread pool. The task runs in the
+     * flow of the given tenant, with the username of the carbon context and the user management context of the
+     * caller. The user management context of the thread running the task is restored afterwards, as the task may run
+     * on the caller thread when the pool is full.
+     *
+     * @param tenantDomain Tenant domain of the caller.
+     * @param task         Task to run.
+     * @param <T>          Result type of the task.
+     * @return Task running in the context of the caller.
+     */
+    public static <T> Callable<T> withCallerContext(String tenantDomain, Callable<T> task) {
+
+        String username = PrivilegedCarbonContext.getThreadLocalCarbonContext().getUsername();
+        UserMgtContext userMgtContext = UserCoreUtil.getUserMgtContextFromThreadLocal();
+        return () -> {
+            UserMgtContext threadUserMgtContext = UserCoreUtil.getUserMgtContextFromThreadLocal();
+            try {
+                PrivilegedCarbonContext.startTenantFlow();
+                PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                carbonContext.setTenantDomain(tenantDomain, true);
+                carbonContext.setUsername(username);
+                UserCoreUtil.setUserMgtContextInThreadLocal(userMgtContext);
+                return task.call();
+            } finally {
+                if (threadUserMgtContext != null) {
+                    UserCoreUtil.setUserMgtContextInThreadLocal(threadUserMgtContext);
+                } else {
+                    UserCoreUtil.removeUserMgtContextInThreadLocal();
+                }
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+        };
+    }
 }
@@ -151,6 +151,32 @@ public class IdentityMgtConstants {
         public static final String EXTENSION_USER_DATA_STORE = "Identity.Mgt.User.Data.Store";
         public static final String EXTENSION_USER_RECOVERY_DATA_STORE = "Identity.Mgt.User.Recovery.Data.Store";
         public static final String NOTIFICATION_LINK_EXPIRE_TIME = "Notification.Expire.Time";
+        public static final String USER_ID_RESOLUTION_CHUNK_SIZE = "Identity.Mgt.UserIdResolution.ChunkSize";
+        public static final int DEFAULT_USER_ID_RESOLUTION_CHUNK_SIZE = 500;
+        public static final String REGEX_PATTERN_CACHE_MAX_ENTRIES_PER_TENANT =
+                "Identity.Mgt.RegexPatternCache.MaxEntriesPerTenant";
+        public static final int DEFAULT_REGEX_PATTERN_CACHE_MAX_ENTRIES_PER_TENANT = 100;
+        public static final String TENANT_RESOLUTION_CACHE_MAX_ENTRIES =
+                "Identity.Mgt.TenantResolutionCache.MaxEntries";
+        public static final int DEFAULT_TENANT_RESOLUTION_CACHE_MAX_ENTRIES = 10000;
+        // Time in seconds after which a cached tenant mapping is resolved again.
+        public static final String TENANT_RESOLUTION_CACHE_TIMEOUT = "Identity.Mgt.TenantResolutionCache.Timeout";
+        public static final int DEFAULT_TENANT_RESOLUTION_CACHE_TIMEOUT = 60;
+        // Asynchronous dispatching of the POST_ events whose event handlers are declared non-blocking.
+        public static final String ASYNC_EVENTS_ENABLE = "Identity.Mgt.AsyncEvents.Enable";
+        public static final String ASYNC_EVENTS_LANE_COUNT = "Identity.Mgt.AsyncEvents.LaneCount";
+        public static final int DEFAULT_ASYNC_EVENTS_LANE_COUNT = 4;
+        public static final String ASYNC_EVENTS_QUEUE_SIZE = "Identity.Mgt.AsyncEvents.QueueSize";
+        public static final int DEFAULT_ASYNC_EVENTS_QUEUE_SIZE = 1000;
+        public static final String ASYNC_EVENTS_ENQUEUE_TIMEOUT = "Identity.Mgt.AsyncEvents.EnqueueTimeout";
+        public static final int DEFAULT_ASYNC_EVENTS_ENQUEUE_TIMEOUT = 1000;
+        // Retries of an event handler which failed to handle an asynchronously dispatched event.
+        public static final String ASYNC_EVENTS_MAX_RETRIES = "Identity.Mgt.AsyncEvents.MaxRetries";
+        public static final int DEFAULT_ASYNC_EVENTS_MAX_RETRIES = 3;
+        public static final String ASYNC_EVENTS_RETRY_INTERVAL = "Identity.Mgt.AsyncEvents.RetryInterval";
+        public static final int DEFAULT_ASYNC_EVENTS_RETRY_INTERVAL = 100;
+        // Event handler module property declaring that the event handler can handle the POST_ events asynchronously.
+        public static final String EVENT_HANDLER_NON_BLOCKING = "nonBlocking";
         private PropertyConfig() {
 
         }
@@ -196,6 +222,7 @@ public class IdentityMgtConstants {
         public static final String UNLOCKING_TIME = "http://wso2.org/claims/identity/unlockTime";
         public static final String ACCOUNT_LOCK = "http://wso2.org/claims/identity/accountLocked";
         public static final String PREFERED_CHANNEL_CLAIM = "http://wso2.org/claims/identity/preferredChannel";
+        public static final String USER_ID = "http://wso2.org/claims/userid";
         private Claim() {
 
         }
@@ -0,0 +1,429 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Bounded per-tenant cache of compiled regex patterns, keyed by the name of the regex source (e.g. a claim URI or a
+ * user store property) and the regex itself. A changed regex is a different key, hence a claim or user store whose
+ * regex is updated never gets the previously compiled pattern, and the stale pattern is evicted as the least
+ * recently used entry.
+ * <p>
+ * Patterns with an unboundedly repeated group which has no element of a fixed length, such as {@code (a+)+} or
+ * {@code (\w+\s?)*}, can match the same input in exponentially many ways and are rejected before they
+ * are compiled. The rejection is cached as well.
+ */
+public final class RegexPatternCache {
+
+    private static final Log log = LogFactory.getLog(RegexPatternCache.class);
+    private static final RegexPatternCache instance = new RegexPatternCache();
+
+    private final Map<String, Map<Map.Entry<String, String>, CompiledPattern>> tenantPatterns =
+            new ConcurrentHashMap<>();
+    private final int maxEntriesPerTenant;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private RegexPatternCache() {
+
+        this.maxEntriesPerTenant = getMaxEntriesPerTenant();
+    }
+
+    public static RegexPatternCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the compiled pattern of the given regex.
+     *
+     * @param tenantDomain Tenant domain.
+     * @param key          Name of the source of the regex, such as a claim URI.
+     * @param regex        Regex.
+     * @return Compiled pattern.
+     * @throws PatternSyntaxException If the regex is invalid or may cause catastrophic backtracking.
+     */
+    public Pattern getPattern(String tenantDomain, String key, String regex) {
+
+        Map<Map.Entry<String, String>, CompiledPattern> patterns =
+                tenantPatterns.computeIfAbsent(StringUtils.defaultString(tenantDomain),
+                        domain -> new LruMap<>(maxEntriesPerTenant));
+        Map.Entry<String, String> patternKey = new AbstractMap.SimpleImmutableEntry<>(key, regex);
+        CompiledPattern compiledPattern;
+        synchronized (patterns) {
+            compiledPattern = patterns.get(patternKey);
+        }
+        if (compiledPattern != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+            compiledPattern = compile(regex);
+            if (compiledPattern.error != null) {
+                rejectedCount.incrementAndGet();
+                log.warn("Rejected the regex configured for " + key + " in tenant: " + tenantDomain + ". " +
+                        compiledPattern.error.getDescription());
+            }
+            synchronized (patterns) {
+                patterns.put(patternKey, compiledPattern);
+            }
+        }
+
+        if (compiledPattern.error != null) {
+            throw compiledPattern.error;
+        }
+        return compiledPattern.pattern;
+    }
+
+    /**
+     * Clear the cached patterns of the given tenant.
+     *
+     * @param tenantDomain Tenant domain.
+     */
+    public void clear(String tenantDomain) {
+
+        tenantPatterns.remove(StringUtils.defaultString(tenantDomain));
+    }
+
+    /**
+     * Get the number of lookups served from the cache.
+     *
+     * @return Hit count.
+     */
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    /**
+     * Get the number of lookups which compiled the regex.
+     *
+     * @return Miss count.
+     */
+    public long getMissCount() {
+
+        return missCount.get();
+    }
+
+    /**
+     * Get the number of regexes rejected as they may cause catastrophic backtracking or are invalid.
+     *
+     * @return Rejected count.
+     */
+    public long getRejectedCount() {
+
+        return rejectedCount.get();
+    }
+
+    private static CompiledPattern compile(String regex) {
+
+        try {
+            int index = findBacktrackingGroup(regex);
+            if (index >= 0) {
+                return new CompiledPattern(null, new PatternSyntaxException("Repeated group without a fixed " +
+                        "length element may cause catastrophic backtracking", regex, index));
+            }
+            return new CompiledPattern(Pattern.compile(regex), null);
+        } catch (PatternSyntaxException e) {
+            return new CompiledPattern(null, e);
+        }
+    }
+
+    /**
+     * Find an unboundedly repeated group in which no alternative has an element of a fixed length, such as a
+     * delimiter. The split of the input among the iterations of such a group is ambiguous, hence a failing match
+     * backtracks through exponentially many splits. Atomic groups and possessive quantifiers do not backtrack and are
+     * treated as fixed.
+     *
+     * @param regex Regex.
+     * @return Index of the quantifier of the offending group, or -1 if there is none.
+     */
+    static int findBacktrackingGroup(String regex) {
+
+        Deque<GroupState> groups = new ArrayDeque<>();
+        GroupState current = new GroupState(false, false);
+        int length = regex.length();
+        int i = 0;
+        while (i < length) {
+            char c = regex.charAt(i);
+            boolean zeroWidth = false;
+            boolean fixed = true;
+            if (c == '\\') {
+                if (i + 1 < length && regex.charAt(i + 1) == 'Q') {
+                    int end = regex.indexOf("\\E", i + 2);
+                    i = end < 0 ? length : end + 2;
+                } else {
+                    zeroWidth = i + 1 < length && "bBAzZG".indexOf(regex.charAt(i + 1)) >= 0;
+                    i = skipEscape(regex, i);
+                }
+            } else if (c == '[') {
+                i = skipCharacterClass(regex, i);
+            } else if (c == '(') {
+                boolean lookaround = false;
+                boolean atomic = false;
+                i++;
+                if (i < length && regex.charAt(i) == '?') {
+                    i++;
+                    if (i < length && (regex.charAt(i) == '=' || regex.charAt(i) == '!')) {
+                        lookaround = true;
+                        i++;
+                    } else if (i + 1 < length && regex.charAt(i) == '<' &&
+                            (regex.charAt(i + 1) == '=' || regex.charAt(i + 1) == '!')) {
+                        lookaround = true;
+                        i += 2;
+                    } else if (i < length && regex.charAt(i) == '>') {
+                        atomic = true;
+                        i++;
+                    } else if (i < length && regex.charAt(i) == '<') {
+                        int end = regex.indexOf('>', i);
+                        i = end < 0 ? length : end + 1;
+                    } else {
+                        // Inline flags, either alone as in (?i) or applied to a group as in (?i:...).
+                        while (i < length && regex.charAt(i) != ':' && regex.charAt(i) != ')') {
+                            i++;
+                        }
+                        if (i < length && regex.charAt(i) == ')') {
+                            i++;
+                            continue;
+                        }
+                        i++;
+                    }
+                }
+                groups.push(current);
+                current = new GroupState(lookaround, atomic);
+                continue;
+            } else if (c == ')') {
+                if (groups.isEmpty()) {
+                    // Unbalanced parenthesis. Pattern compilation reports it.
+                    return -1;
+                }
+                current.endBranch();
+                GroupState group = current;
+                current = groups.pop();
+                i++;
+                zeroWidth = group.lookaround;
+                fixed = group.atomic || group.fixed || !group.hasElements;
+                Quantifier quantifier = Quantifier.parse(regex, i);
+                if (!zeroWidth && !fixed && quantifier != null && quantifier.isUnbounded() &&
+                        !quantifier.possessive) {
+                    return i;
+                }
+            } else if (c == '|') {
+                current.endBranch();
+                i++;
+                continue;
+            } else if (c == '^' || c == '$') {
+                zeroWidth = true;
+                i++;
+            } else {
+                i++;
+            }
+
+            Quantifier quantifier = Quantifier.parse(regex, i);
+            if (quantifier != null) {
+                i = quantifier.end;
+            }
+            if (!zeroWidth) {
+                current.addElement(quantifier == null ? fixed :
+                        quantifier.possessive || (fixed && quantifier.isExact()));
+            }
+        }
+        return -1;
+    }
+
+    private static int skipEscape(String regex, int index) {
+
+        int i = index + 2;
+        if (index + 1 < regex.length() && "pPx".indexOf(regex.charAt(index + 1)) >= 0 && i < regex.length() &&
+                regex.charAt(i) == '{') {
+            int end = regex.indexOf('}', i);
+            return end < 0 ? regex.length() : end + 1;
+        }
+        return Math.min(i, regex.length());
+    }
+
+    private static int skipCharacterClass(String regex, int index) {
+
+        int depth = 0;
+        int i = index;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i = skipEscape(regex, i);
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+                // A closing bracket right after the opening one is a literal.
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static int getMaxEntriesPerTenant() {
+
+        return IdentityGovernanceUtil.getPositiveIntProperty(
+                IdentityMgtConstants.PropertyConfig.REGEX_PATTERN_CACHE_MAX_ENTRIES_PER_TENANT,
+                IdentityMgtConstants.PropertyConfig.DEFAULT_REGEX_PATTERN_CACHE_MAX_ENTRIES_PER_TENANT);
+    }
+
+    /**
+     * Compiled pattern, or the reason the regex was rejected.
+     */
+    private static final class CompiledPattern {
+
+        private final Pattern pattern;
+        private final PatternSyntaxException error;
+
+        private CompiledPattern(Pattern pattern, PatternSyntaxException error) {
+
+            this.pattern = pattern;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Elements seen so far in a group. A group is fixed if every alternative has an element of a fixed length.
+     */
+    private static final class GroupState {
+
+        private final boolean lookaround;
+        private final boolean atomic;
+        private boolean fixed = true;
+        private boolean branchFixed;
+        private boolean hasElements;
+
+        private GroupState(boolean lookaround, boolean atomic) {
+
+            this.lookaround = lookaround;
+            this.atomic = atomic;
+        }
+
+        private void addElement(boolean fixed) {
+
+            branchFixed |= fixed;
+            hasElements = true;
+        }
+
+        private void endBranch() {
+
+            fixed &= branchFixed;
+            branchFixed = false;
+        }
+    }
+
+    /**
+     * Quantifier following an element.
+     */
+    private static final class Quantifier {
+
+        private final int min;
+        // Maximum number of repetitions, or -1 if unbounded.
+        private final int max;
+        private final boolean possessive;
+        private final int end;
+
+        private Quantifier(int min, int max, boolean possessive, int end) {
+
+            this.min = min;
+            this.max = max;
+            this.possessive = possessive;
+            this.end = end;
+        }
+
+        private boolean isUnbounded() {
+
+            return max < 0;
+        }
+
+        private boolean isExact() {
+
+            return min > 0 && min == max;
+        }
+
+        private static Quantifier parse(String regex, int index) {
+
+            if (index >= regex.length()) {
+                return null;
+            }
+            char c = regex.charAt(index);
+            int min;
+            int max;
+            int end;
+            if (c == '*' || c == '+' || c == '?') {
+                min = c == '+' ? 1 : 0;
+                max = c == '?' ? 1 : -1;
+                end = index + 1;
+            } else if (c == '{') {
+                int close = regex.indexOf('}', index);
+                if (close < 0) {
+                    return null;
+                }
+                String[] bounds = regex.substring(index + 1, close).split(",", -1);
+                try {
+                    min = Integer.parseInt(bounds[0].trim());
+                    if (bounds.length == 1) {
+                        max = min;
+                    } else {
+                        max = StringUtils.isBlank(bounds[1]) ? -1 : Integer.parseInt(bounds[1].trim());
+                    }
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                end = close + 1;
+            } else {
+                return null;
+            }
+            boolean possessive = false;
+            if (end < regex.length()) {
+                if (regex.charAt(end) == '+') {
+                    possessive = true;
+                    end++;
+                } else if (regex.charAt(end) == '?') {
+                    end++;
+                }
+            }
+            return new Quantifier(min, max, possessive, end);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.base.IdentityRuntimeException;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bidirectional cache of the tenant IDs and tenant domains, resolved on the identity event paths. Lookups do not
+ * take any lock. A missing mapping is resolved through {@link IdentityTenantUtil} and cached in both directions.
+ * The mappings of a tenant have to be cleared when the tenant is activated, deactivated or deleted. Once the cache
+ * reaches the configured number of tenants, the expired mappings are dropped, or else the mapping cached first.
+ * <p>
+ * The cache is local to the node, and a tenant is cleared only in the node where the tenant is changed. Hence the
+ * mappings expire after the configured timeout, after which the other nodes of a cluster resolve them again through
+ * the tenant manager, whose cache is invalidated across the cluster.
+ */
+public final class TenantResolutionCache {
+
+    private static final Log log = LogFactory.getLog(TenantResolutionCache.class);
+    private static final TenantResolutionCache instance = new TenantResolutionCache();
+
+    private final Map<Integer, CachedTenant> tenantDomains = new ConcurrentHashMap<>();
+    private final Map<String, CachedTenant> tenantIds = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long timeoutInNanos;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    private TenantResolutionCache() {
+
+        this(getMaxEntries(), getTimeoutInMillis());
+    }
+
+    TenantResolutionCache(int maxEntries, long timeoutInMillis) {
+
+        this.maxEntries = maxEntries;
+        this.timeoutInNanos = TimeUnit.MILLISECONDS.toNanos(timeoutInMillis);
+    }
+
+    public static TenantResolutionCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the tenant domain of the given tenant ID.
+     *
+     * @param tenantId Tenant ID.
+     * @return Tenant domain.
+     * @throws IdentityRuntimeException If the tenant domain cannot be resolved.
+     */
+    public String getTenantDomain(int tenantId) {
+
+        CachedTenant cachedTenant = tenantDomains.get(tenantId);
+        if (cachedTenant != null && !cachedTenant.isExpired()) {
+            hitCount.incrementAndGet();
+            return cachedTenant.tenantDomain;
+        }
+        missCount.incrementAndGet();
+        String tenantDomain = IdentityTenantUtil.getTenantDomain(tenantId);
+        put(tenantId, tenantDomain);
+        return tenantDomain;
+    }
+
+    /**
+     * Get the tenant ID of the given tenant domain.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Tenant ID.
+     * @throws IdentityRuntimeException If the tenant ID cannot be resolved.
+     */
+    public int getTenantId(String tenantDomain) {
+
+        if (tenantDomain == null) {
+            return IdentityTenantUtil.getTenantId(null);
+        }
+        CachedTenant cachedTenant = tenantIds.get(tenantDomain);
+        if (cachedTenant != null && !cachedTenant.isExpired()) {
+            hitCount.incrementAndGet();
+            return cachedTenant.tenantId;
+        }
+        missCount.incrementAndGet();
+        int resolvedTenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+        put(resolvedTenantId, tenantDomain);
+        return resolvedTenantId;
+    }
+
+    /**
+     * Clear the cached mappings of the given tenant.
+     *
+     * @param tenantId Tenant ID.
+     */
+    public void clear(int tenantId) {
+
+        CachedTenant cachedTenant = tenantDomains.remove(tenantId);
+        if (cachedTenant != null) {
+            tenantIds.remove(cachedTenant.tenantDomain, cachedTenant);
+        }
+        // The domain may be mapped to the tenant without the reverse mapping, if it was cleared concurrently.
+        tenantIds.values().removeIf(mappedTenant -> mappedTenant.tenantId == tenantId);
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the cached tenant domain of tenant: " + tenantId);
+        }
+    }
+
+    /**
+     * Clear all the cached mappings.
+     */
+    public void clear() {
+
+        tenantDomains.clear();
+        tenantIds.clear();
+    }
+
+    /**
+     * Get the number of lookups served from the cache.
+     *
+     * @return Number of cache hits.
+     */
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    /**
+     * Get the number of lookups resolved through the tenant manager.
+     *
+     * @return Number of cache misses.
+     */
+    public long getMissCount() {
+
+        return missCount.get();
+    }
+
+    private void put(int tenantId, String tenantDomain) {
+
+        if (StringUtils.isEmpty(tenantDomain)) {
+            return;
+        }
+        if (tenantDomains.size() >= maxEntries) {
+            evict();
+        }
+        CachedTenant cachedTenant = new CachedTenant(tenantId, tenantDomain, System.nanoTime() + timeoutInNanos);
+        tenantDomains.put(tenantId, cachedTenant);
+        tenantIds.put(tenantDomain, cachedTenant);
+    }
+
+    /**
+     * Drop the expired mappings, or the mapping which expires first if none has expired. The mappings share the same
+     * timeout, hence the one which expires first is the one cached first.
+     */
+    private void evict() {
+
+        CachedTenant eldestTenant = null;
+        for (CachedTenant cachedTenant : tenantDomains.values()) {
+            if (cachedTenant.isExpired()) {
+                remove(cachedTenant);
+            } else if (eldestTenant == null || cachedTenant.expiryTime - eldestTenant.expiryTime < 0) {
+                eldestTenant = cachedTenant;
+            }
+        }
+        if (eldestTenant != null && tenantDomains.size() >= maxEntries) {
+            remove(eldestTenant);
+        }
+        // A domain whose tenant was mapped to another domain afterwards is not reachable from the tenant IDs.
+        tenantIds.values().removeIf(CachedTenant::isExpired);
+    }
+
+    private void remove(CachedTenant cachedTenant) {
+
+        tenantDomains.remove(cachedTenant.tenantId, cachedTenant);
+        tenantIds.remove(cachedTenant.tenantDomain, cachedTenant);
+    }
+
+    private static int getMaxEntries() {
+
+        return IdentityGovernanceUtil.getPositiveIntProperty(
+                IdentityMgtConstants.PropertyConfig.TENANT_RESOLUTION_CACHE_MAX_ENTRIES,
+                IdentityMgtConstants.PropertyConfig.DEFAULT_TENANT_RESOLUTION_CACHE_MAX_ENTRIES);
+    }
+
+    private static long getTimeoutInMillis() {
+
+        return TimeUnit.SECONDS.toMillis(IdentityGovernanceUtil.getPositiveIntProperty(
+                IdentityMgtConstants.PropertyConfig.TENANT_RESOLUTION_CACHE_TIMEOUT,
+                IdentityMgtConstants.PropertyConfig.DEFAULT_TENANT_RESOLUTION_CACHE_TIMEOUT));
+    }
+
+    /**
+     * A cached mapping of a tenant ID and a tenant domain.
+     */
+    private static final class CachedTenant {
+
+        private final int tenantId;
+        private final String tenantDomain;
+        // Expiry time of the mapping as per System.nanoTime().
+        private final long expiryTime;
+
+        private CachedTenant(int tenantId, String tenantDomain, long expiryTime) {
+
+            this.tenantId = tenantId;
+            this.tenantDomain = tenantDomain;
+            this.expiryTime = expiryTime;
+        }
+
+        private boolean isExpired() {
+
+            return System.nanoTime() - expiryTime >= 0;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.wso2.carbon.identity.core.ConnectorConfig;
+import org.wso2.carbon.identity.event.handler.AbstractEventHandler;
 import org.wso2.carbon.identity.event.services.IdentityEventService;
 import org.wso2.carbon.identity.governance.IdentityGovernanceService;
 import org.wso2.carbon.identity.governance.IdentityGovernanceServiceImpl;
@@ -37,10 +38,12 @@ import org.wso2.carbon.identity.governance.internal.service.impl.otp.OTPGenerato
 import org.wso2.carbon.identity.governance.service.IdentityDataStoreService;
 import org.wso2.carbon.identity.governance.service.IdentityDataStoreServiceImpl;
 import org.wso2.carbon.identity.governance.service.notification.NotificationChannelManager;
+import org.wso2.carbon.identity.governance.listener.GovernanceConfigCacheIdPMgtListener;
 import org.wso2.carbon.identity.governance.listener.IdentityMgtEventListener;
 import org.wso2.carbon.identity.governance.listener.IdentityStoreEventListener;
 import org.wso2.carbon.identity.governance.service.otp.OTPGenerator;
 import org.wso2.carbon.idp.mgt.IdpManager;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtListener;
 import org.wso2.carbon.user.core.listener.UserOperationEventListener;
 import org.wso2.carbon.user.core.service.RealmService;
 
@@ -50,13 +53,15 @@ import org.wso2.carbon.user.core.service.RealmService;
 public class IdentityMgtServiceComponent {
 
     private static final Log log = LogFactory.getLog(IdentityMgtServiceComponent.class);
+    private IdentityMgtEventListener identityMgtEventListener;
 
     @Activate
     protected void activate(ComponentContext context) {
 
         try {
-            IdentityMgtEventListener listener = new IdentityMgtEventListener();
-            context.getBundleContext().registerService(UserOperationEventListener.class, listener, null);
+            identityMgtEventListener = new IdentityMgtEventListener();
+            context.getBundleContext().registerService(UserOperationEventListener.class, identityMgtEventListener,
+                    null);
             // IdentityDataStoreService should be registered before the IdentityStoreEventListener.
             IdentityDataStoreService identityDataStoreService = new IdentityDataStoreServiceImpl();
             context.getBundleContext()
@@ -68,6 +73,8 @@ public class IdentityMgtServiceComponent {
             context.getBundleContext().registerService(IdentityGovernanceService.class, identityGovernanceService,
                     null);
             IdentityMgtServiceDataHolder.getInstance().setIdentityGovernanceService(identityGovernanceService);
+            context.getBundleContext().registerService(IdentityProviderMgtListener.class,
+                    new GovernanceConfigCacheIdPMgtListener(identityGovernanceService), null);
             DefaultNotificationChannelManager defaultNotificationChannelManager =
                     new DefaultNotificationChannelManager();
             context.getBundleContext()
@@ -87,6 +94,16 @@ public class IdentityMgtServiceComponent {
     @Deactivate
     protected void deactivate(ComponentContext context) {
 
+        if (identityMgtEventListener != null) {
+            // Handle the queued identity events first, as the event handlers may update the identity data.
+            identityMgtEventListener.shutdown();
+        }
+        IdentityDataStoreService identityDataStoreService =
+                IdentityMgtServiceDataHolder.getInstance().getIdentityDataStoreService();
+        if (identityDataStoreService instanceof IdentityDataStoreServiceImpl) {
+            // Drain the identity data whose write was deferred.
+            ((IdentityDataStoreServiceImpl) identityDataStoreService).shutdown();
+        }
         if (log.isDebugEnabled()) {
             log.debug("Identity Management bundle is de-activated");
         }
@@ -134,6 +151,22 @@ public class IdentityMgtServiceComponent {
         IdentityMgtServiceDataHolder.getInstance().unsetIdentityGovernanceConnector(identityConnectorConfig);
     }
 
+    @Reference(
+            name = "identity.event.handler",
+            service = org.wso2.carbon.identity.event.handler.AbstractEventHandler.class,
+            cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetEventHandler")
+    protected void setEventHandler(AbstractEventHandler eventHandler) {
+
+        IdentityMgtServiceDataHolder.getInstance().addEventHandler(eventHandler);
+    }
+
+    protected void unsetEventHandler(AbstractEventHandler eventHandler) {
+
+        IdentityMgtServiceDataHolder.getInstance().removeEventHandler(eventHandler);
+    }
+
     protected void unsetIdpManager(IdpManager idpManager) {
 
         IdentityMgtServiceDataHolder.getInstance().setIdpManager(null);
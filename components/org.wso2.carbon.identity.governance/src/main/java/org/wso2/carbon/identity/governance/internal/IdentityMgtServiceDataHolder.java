@@ -16,6 +16,7 @@
 
 package org.wso2.carbon.identity.governance.internal;
 
+import org.wso2.carbon.identity.event.handler.AbstractEventHandler;
 import org.wso2.carbon.identity.event.services.IdentityEventService;
 import org.wso2.carbon.identity.governance.IdentityGovernanceServiceImpl;
 import org.wso2.carbon.identity.governance.common.IdentityConnectorConfig;
@@ -25,6 +26,8 @@ import org.wso2.carbon.user.core.service.RealmService;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class IdentityMgtServiceDataHolder {
 
@@ -32,9 +35,12 @@ public class IdentityMgtServiceDataHolder {
     private IdentityEventService identityEventService;
     private IdpManager idpManager;
     private static volatile List<IdentityConnectorConfig> identityConnectorConfigList = new ArrayList<>();
+    // Incremented whenever the connector list changes, so that views built from the list can detect staleness.
+    private static final AtomicInteger identityConnectorConfigListVersion = new AtomicInteger();
     private RealmService realmService;
     private IdentityGovernanceServiceImpl identityGovernanceService;
     private IdentityDataStoreService identityDataStoreService;
+    private final List<AbstractEventHandler> eventHandlers = new CopyOnWriteArrayList<>();
 
     public static IdentityMgtServiceDataHolder getInstance() {
 
@@ -53,18 +59,25 @@ public class IdentityMgtServiceDataHolder {
             IdentityConnectorConfig connector) {
 
         identityConnectorConfigList.add(connector);
+        identityConnectorConfigListVersion.incrementAndGet();
     }
 
     protected void unsetIdentityGovernanceConnector(
             IdentityConnectorConfig connector) {
 
         identityConnectorConfigList.remove(connector);
+        identityConnectorConfigListVersion.incrementAndGet();
     }
 
     public List<IdentityConnectorConfig> getIdentityGovernanceConnectorList () {
         return identityConnectorConfigList;
     }
 
+    public int getIdentityGovernanceConnectorListVersion() {
+
+        return identityConnectorConfigListVersion.get();
+    }
+
     public IdpManager getIdpManager() {
         return idpManager;
     }
@@ -100,4 +113,19 @@ public class IdentityMgtServiceDataHolder {
 
         this.identityDataStoreService = identityDataStoreService;
     }
+
+    public List<AbstractEventHandler> getEventHandlers() {
+
+        return eventHandlers;
+    }
+
+    public void addEventHandler(AbstractEventHandler eventHandler) {
+
+        eventHandlers.add(eventHandler);
+    }
+
+    public void removeEventHandler(AbstractEventHandler eventHandler) {
+
+        eventHandlers.remove(eventHandler);
+    }
 }
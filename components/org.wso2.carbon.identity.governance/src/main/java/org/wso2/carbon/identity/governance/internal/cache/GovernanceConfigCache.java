@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance.internal.cache;
+
+import org.wso2.carbon.identity.core.cache.BaseCache;
+import org.wso2.carbon.identity.governance.model.GovernanceConfigSnapshot;
+
+/**
+ * Cache to maintain the tenant - governance configuration snapshot.
+ */
+public class GovernanceConfigCache extends BaseCache<GovernanceConfigCacheKey, GovernanceConfigSnapshot> {
+
+    private static final String GOVERNANCE_CONFIG_CACHE = "GovernanceConfigCache";
+    private static volatile GovernanceConfigCache instance;
+
+    public GovernanceConfigCache() {
+
+        super(GOVERNANCE_CONFIG_CACHE);
+    }
+
+    public static GovernanceConfigCache getInstance() {
+
+        if (instance == null) {
+            synchronized (GovernanceConfigCache.class) {
+                if (instance == null) {
+                    instance = new GovernanceConfigCache();
+                }
+            }
+        }
+        return instance;
+    }
+}
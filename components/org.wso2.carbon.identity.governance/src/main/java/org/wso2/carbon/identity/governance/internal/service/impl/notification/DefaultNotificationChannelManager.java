@@ -29,7 +29,7 @@ import org.wso2.carbon.identity.governance.exceptions.notiification.Notification
 import org.wso2.carbon.identity.governance.exceptions.notiification.NotificationChannelManagerClientException;
 import org.wso2.carbon.identity.governance.exceptions.notiification.NotificationChannelManagerServerException;
 import org.wso2.carbon.identity.governance.service.notification.NotificationChannels;
-import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.governance.TenantResolutionCache;
 
 import org.wso2.carbon.identity.governance.internal.IdentityMgtServiceDataHolder;
 import org.wso2.carbon.identity.governance.service.notification.NotificationChannelManager;
@@ -324,7 +324,7 @@ public class DefaultNotificationChannelManager implements NotificationChannelMan
             throws NotificationChannelManagerServerException {
 
         try {
-            int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+            int tenantId = TenantResolutionCache.getInstance().getTenantId(tenantDomain);
             RealmService realmService = IdentityMgtServiceDataHolder.getInstance().getRealmService();
             UserRealm userRealm = realmService.getTenantUserRealm(tenantId);
             if (userRealm != null) {
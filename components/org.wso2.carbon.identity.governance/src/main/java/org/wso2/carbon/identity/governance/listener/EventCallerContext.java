@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance.listener;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.context.IdentityContext;
+import org.wso2.carbon.identity.core.context.model.Flow;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.event.IdentityEventException;
+import org.wso2.carbon.user.core.model.UserMgtContext;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Thread local context of the thread raising an event, captured when the event is queued to be handled by another
+ * thread. The event handlers read the username of the carbon context, the flow of the identity context, the thread
+ * local properties and the user management context of the caller, as they do when the event is handled in the
+ * calling thread.
+ */
+final class EventCallerContext {
+
+    private final String username;
+    private final Flow flow;
+    private final Map<String, Object> threadLocalProperties;
+    private final UserMgtContext userMgtContext;
+
+    private EventCallerContext(String username, Flow flow, Map<String, Object> threadLocalProperties,
+                               UserMgtContext userMgtContext) {
+
+        this.username = username;
+        this.flow = flow;
+        this.threadLocalProperties = threadLocalProperties;
+        this.userMgtContext = userMgtContext;
+    }
+
+    /**
+     * Capture the context of the calling thread.
+     *
+     * @return Context of the calling thread.
+     */
+    static EventCallerContext capture() {
+
+        return new EventCallerContext(PrivilegedCarbonContext.getThreadLocalCarbonContext().getUsername(),
+                IdentityContext.getThreadLocalIdentityContext().getFlow(),
+                new HashMap<>(IdentityUtil.threadLocalProperties.get()),
+                UserCoreUtil.getUserMgtContextFromThreadLocal());
+    }
+
+    /**
+     * A task handling an event.
+     */
+    interface Task {
+
+        void run() throws IdentityEventException;
+    }
+
+    /**
+     * Run the task in the flow of the given tenant with the captured context. The thread local context is cleared
+     * afterwards, as this runs on a worker thread shared by the events of different callers.
+     *
+     * @param tenantDomain Tenant domain of the event.
+     * @param task         Task handling the event.
+     * @throws IdentityEventException If an event handler fails.
+     */
+    void run(String tenantDomain, Task task) throws IdentityEventException {
+
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            if (StringUtils.isNotBlank(tenantDomain)) {
+                carbonContext.setTenantDomain(tenantDomain, true);
+            }
+            carbonContext.setUsername(username);
+            if (flow != null) {
+                IdentityContext.getThreadLocalIdentityContext().setFlow(flow);
+            }
+            IdentityUtil.threadLocalProperties.get().putAll(threadLocalProperties);
+            if (userMgtContext != null) {
+                UserCoreUtil.setUserMgtContextInThreadLocal(userMgtContext);
+            }
+            task.run();
+        } finally {
+            UserCoreUtil.removeUserMgtContextInThreadLocal();
+            IdentityUtil.threadLocalProperties.remove();
+            IdentityContext.destroyCurrentContext();
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+}
@@ -22,24 +22,28 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.base.IdentityRuntimeException;
 import org.wso2.carbon.identity.core.AbstractIdentityUserOperationEventListener;
 import org.wso2.carbon.identity.core.context.IdentityContext;
 import org.wso2.carbon.identity.core.model.IdentityErrorMsgContext;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.event.IdentityEventClientException;
+import org.wso2.carbon.identity.event.IdentityEventConfigBuilder;
 import org.wso2.carbon.identity.event.IdentityEventConstants;
 import org.wso2.carbon.identity.event.IdentityEventException;
+import org.wso2.carbon.identity.event.bean.ModuleConfiguration;
+import org.wso2.carbon.identity.event.bean.Subscription;
 import org.wso2.carbon.identity.event.event.Event;
 import org.wso2.carbon.identity.event.services.IdentityEventService;
 import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
 import org.wso2.carbon.identity.governance.IdentityMgtConstants;
+import org.wso2.carbon.identity.governance.TenantResolutionCache;
 import org.wso2.carbon.identity.governance.internal.IdentityMgtServiceDataHolder;
 import org.wso2.carbon.identity.governance.model.UserIdentityClaim;
 import org.wso2.carbon.identity.governance.service.notification.NotificationChannels;
 import org.wso2.carbon.tenant.mgt.util.TenantMgtUtil;
 import org.wso2.carbon.user.api.Permission;
-import org.wso2.carbon.user.api.TenantManager;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.UserStoreClientException;
 import org.wso2.carbon.user.core.UserStoreException;
@@ -49,12 +53,19 @@ import org.wso2.carbon.user.core.common.LoginIdentifier;
 import org.wso2.carbon.user.core.common.User;
 import org.wso2.carbon.user.core.model.Condition;
 import org.wso2.carbon.user.core.model.UniqueIDUserClaimSearchEntry;
-import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -69,6 +80,14 @@ public class IdentityMgtEventListener extends AbstractIdentityUserOperationEvent
     private static String RE_CAPTCHA_USER_DOMAIN = "user-domain-recaptcha";
     private static final String USER_IDENTITY_CLAIMS_MAP = "UserIdentityClaimsMap";
     private static final String TOKEN_EXCHANGE_GRANT_TYPE = "urn:ietf:params:oauth:grant-type:token-exchange";
+    private static final String POST_EVENT_PREFIX = "POST_";
+    private static final Object NOT_COPYABLE = new Object();
+
+    private final boolean asyncEventsEnabled =
+            Boolean.parseBoolean(IdentityUtil.getProperty(IdentityMgtConstants.PropertyConfig.ASYNC_EVENTS_ENABLE));
+    private volatile OrderedEventDispatchQueue asyncEventQueue;
+    private volatile IdentityEventConfigBuilder nonBlockingEventsSource;
+    private volatile Set<String> nonBlockingEvents = Collections.emptySet();
 
     /**
      * USER_EXIST_THREAD_LOCAL_PROPERTY is used to maintain the state of user existence
@@ -1703,11 +1722,9 @@ public class IdentityMgtEventListener extends AbstractIdentityUserOperationEvent
             int tenantId = userStoreManager.getTenantId();
             String userTenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
             try {
-                RealmService realmService = IdentityMgtServiceDataHolder.getInstance().getRealmService();
-                TenantManager tenantManager = realmService.getTenantManager();
-                userTenantDomain = tenantManager.getDomain(tenantId);
-            } catch (org.wso2.carbon.user.api.UserStoreException e) {
-                log.error("Unable to get the get the domain from realmService for tenant: " + tenantId, e);
+                userTenantDomain = TenantResolutionCache.getInstance().getTenantDomain(tenantId);
+            } catch (IdentityRuntimeException e) {
+                log.error("Unable to get the domain of tenant: " + tenantId, e);
             }
 
             properties.put(IdentityEventConstants.EventProperty.USER_STORE_MANAGER, userStoreManager);
@@ -1715,7 +1732,7 @@ public class IdentityMgtEventListener extends AbstractIdentityUserOperationEvent
                     .getThreadLocalCarbonContext().getTenantId());
             properties.put(IdentityEventConstants.EventProperty.TENANT_DOMAIN, userTenantDomain);
 
-            if (!TenantMgtUtil.isTenantAdminCreationOperation()) {
+            if (!TenantMgtUtil.isTenantAdminCreationOperation() && !dispatchAsynchronously(identityMgtEvent)) {
                 eventMgtService.handleEvent(identityMgtEvent);
             }
         } catch (IdentityEventException e) {
@@ -1743,6 +1760,209 @@ public class IdentityMgtEventListener extends AbstractIdentityUserOperationEvent
         }
     }
 
+    /**
+     * Queue the given POST_ event to be handled asynchronously, if asynchronous events are enabled and all the event
+     * handlers subscribed to the event are declared non-blocking. The events of the same user are handled in the
+     * order they are queued, and an event which cannot be queued is handled synchronously once the queued events of
+     * the same user are handled. The PRE_ events are always handled synchronously, so that the event handlers can
+     * interrupt the operation.
+     *
+     * @param event Event to be handled.
+     * @return True if the event is queued, false if the event has to be handled synchronously.
+     */
+    private boolean dispatchAsynchronously(Event event) {
+
+        String eventName = event.getEventName();
+        if (!asyncEventsEnabled || !StringUtils.startsWith(eventName, POST_EVENT_PREFIX) ||
+                !isNonBlockingEvent(eventName)) {
+            return false;
+        }
+        Map<String, Object> properties = event.getEventProperties();
+        Object user = properties.get(IdentityEventConstants.EventProperty.USER_NAME);
+        if (user == null) {
+            user = properties.get(IdentityEventConstants.EventProperty.USER_ID);
+        }
+        if (user == null) {
+            user = properties.get(IdentityEventConstants.EventProperty.ROLE_NAME);
+        }
+        // The properties are copied, as the caller may modify them once the operation returns.
+        HashMap<String, Object> eventProperties = new HashMap<>();
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            Object value = copyEventProperty(property.getValue());
+            if (value == NOT_COPYABLE) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Handling event: " + eventName + " synchronously as the property: " +
+                            property.getKey() + " cannot be copied.");
+                }
+                return false;
+            }
+            eventProperties.put(property.getKey(), value);
+        }
+        String orderingKey = properties.get(IdentityEventConstants.EventProperty.TENANT_DOMAIN) + ":" + user;
+        if (getAsyncEventQueue().enqueue(orderingKey, new Event(eventName, eventProperties),
+                EventCallerContext.capture())) {
+            return true;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Handling event: " + eventName + " synchronously as it could not be queued.");
+        }
+        return false;
+    }
+
+    /**
+     * Copy an event property value to be handed over to another thread. Maps, collections and object arrays are
+     * copied along with their elements. Immutable values and the user store manager are shared as they are. Any other
+     * value, such as a credential which is cleared by the caller, cannot be copied.
+     *
+     * @param value Event property value.
+     * @return Copy of the value, or {@link #NOT_COPYABLE} if the value cannot be copied.
+     */
+    private static Object copyEventProperty(Object value) {
+
+        if (isImmutableEventProperty(value) || value instanceof UserStoreManager) {
+            return value;
+        }
+        if (value instanceof Map) {
+            Map<Object, Object> copy = value instanceof LinkedHashMap ? new LinkedHashMap<>() : new HashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                Object entryValue = copyEventProperty(entry.getValue());
+                if (entryValue == NOT_COPYABLE || !isImmutableEventProperty(entry.getKey())) {
+                    return NOT_COPYABLE;
+                }
+                copy.put(entry.getKey(), entryValue);
+            }
+            return copy;
+        }
+        if (value instanceof Collection) {
+            Collection<Object> copy = value instanceof Set ? new LinkedHashSet<>() : new ArrayList<>();
+            for (Object element : (Collection<?>) value) {
+                Object elementCopy = copyEventProperty(element);
+                if (elementCopy == NOT_COPYABLE) {
+                    return NOT_COPYABLE;
+                }
+                copy.add(elementCopy);
+            }
+            return copy;
+        }
+        if (value instanceof Object[]) {
+            Object[] copy = ((Object[]) value).clone();
+            for (int i = 0; i < copy.length; i++) {
+                Object elementCopy = copyEventProperty(copy[i]);
+                if (elementCopy == NOT_COPYABLE) {
+                    return NOT_COPYABLE;
+                }
+                copy[i] = elementCopy;
+            }
+            return copy;
+        }
+        return NOT_COPYABLE;
+    }
+
+    private static boolean isImmutableEventProperty(Object value) {
+
+        return value == null || value instanceof String || value instanceof Number || value instanceof Boolean ||
+                value instanceof Character || value instanceof Enum;
+    }
+
+    private boolean isNonBlockingEvent(String eventName) {
+
+        IdentityEventConfigBuilder configBuilder;
+        try {
+            configBuilder = IdentityEventConfigBuilder.getInstance();
+        } catch (IdentityEventException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Error while reading the event handler configurations. Handling event: " + eventName +
+                        " synchronously.", e);
+            }
+            return false;
+        }
+        if (configBuilder != nonBlockingEventsSource) {
+            // Event handler configurations are loaded once from the event configuration.
+            nonBlockingEvents = getNonBlockingEvents(configBuilder);
+            nonBlockingEventsSource = configBuilder;
+        }
+        return nonBlockingEvents.contains(eventName);
+    }
+
+    private Set<String> getNonBlockingEvents(IdentityEventConfigBuilder configBuilder) {
+
+        Set<String> subscribedEvents = new HashSet<>();
+        Set<String> blockingEvents = new HashSet<>();
+        Map<String, ModuleConfiguration> moduleConfigurations = configBuilder.getModuleConfiguration();
+        if (moduleConfigurations == null) {
+            return subscribedEvents;
+        }
+        for (Map.Entry<String, ModuleConfiguration> moduleConfiguration : moduleConfigurations.entrySet()) {
+            if (moduleConfiguration.getValue() == null ||
+                    moduleConfiguration.getValue().getSubscriptions() == null) {
+                continue;
+            }
+            Properties moduleProperties = moduleConfiguration.getValue().getModuleProperties();
+            String nonBlockingProperty =
+                    moduleConfiguration.getKey() + "." + IdentityMgtConstants.PropertyConfig.EVENT_HANDLER_NON_BLOCKING;
+            boolean nonBlocking = moduleProperties != null &&
+                    Boolean.parseBoolean(moduleProperties.getProperty(nonBlockingProperty));
+            for (Subscription subscription : moduleConfiguration.getValue().getSubscriptions()) {
+                subscribedEvents.add(subscription.getSubscriptionName());
+                if (!nonBlocking) {
+                    blockingEvents.add(subscription.getSubscriptionName());
+                }
+            }
+        }
+        // An event is handled asynchronously only if none of the event handlers subscribed to it is blocking.
+        subscribedEvents.removeAll(blockingEvents);
+        return subscribedEvents;
+    }
+
+    private OrderedEventDispatchQueue getAsyncEventQueue() {
+
+        if (asyncEventQueue == null) {
+            synchronized (this) {
+                if (asyncEventQueue == null) {
+                    RetryingEventDispatcher eventDispatcher = new RetryingEventDispatcher(eventMgtService,
+                            IdentityMgtServiceDataHolder.getInstance()::getEventHandlers,
+                            IdentityGovernanceUtil.getPositiveIntProperty(
+                                    IdentityMgtConstants.PropertyConfig.ASYNC_EVENTS_MAX_RETRIES,
+                                    IdentityMgtConstants.PropertyConfig.DEFAULT_ASYNC_EVENTS_MAX_RETRIES),
+                            IdentityGovernanceUtil.getPositiveIntProperty(
+                                    IdentityMgtConstants.PropertyConfig.ASYNC_EVENTS_RETRY_INTERVAL,
+                                    IdentityMgtConstants.PropertyConfig.DEFAULT_ASYNC_EVENTS_RETRY_INTERVAL));
+                    asyncEventQueue = new OrderedEventDispatchQueue(
+                            IdentityGovernanceUtil.getPositiveIntProperty(
+                                    IdentityMgtConstants.PropertyConfig.ASYNC_EVENTS_LANE_COUNT,
+                                    IdentityMgtConstants.PropertyConfig.DEFAULT_ASYNC_EVENTS_LANE_COUNT),
+                            IdentityGovernanceUtil.getPositiveIntProperty(
+                                    IdentityMgtConstants.PropertyConfig.ASYNC_EVENTS_QUEUE_SIZE,
+                                    IdentityMgtConstants.PropertyConfig.DEFAULT_ASYNC_EVENTS_QUEUE_SIZE),
+                            IdentityGovernanceUtil.getPositiveIntProperty(
+                                    IdentityMgtConstants.PropertyConfig.ASYNC_EVENTS_ENQUEUE_TIMEOUT,
+                                    IdentityMgtConstants.PropertyConfig.DEFAULT_ASYNC_EVENTS_ENQUEUE_TIMEOUT),
+                            (event, callerContext) -> handleEventInCallerContext(event, callerContext,
+                                    eventDispatcher));
+                }
+            }
+        }
+        return asyncEventQueue;
+    }
+
+    private void handleEventInCallerContext(Event event, EventCallerContext callerContext,
+                                            RetryingEventDispatcher eventDispatcher) throws IdentityEventException {
+
+        String tenantDomain = (String) event.getEventProperties().get(
+                IdentityEventConstants.EventProperty.TENANT_DOMAIN);
+        callerContext.run(tenantDomain, () -> eventDispatcher.dispatch(event));
+    }
+
+    /**
+     * Stop the asynchronous event dispatching. The queued events are handled before the dispatching stops.
+     */
+    public synchronized void shutdown() {
+
+        if (asyncEventQueue != null) {
+            asyncEventQueue.shutdown();
+        }
+    }
+
     public boolean doPostGetUserClaimValue(String userName, String claim, List<String> claimValue, String profileName, UserStoreManager storeManager) throws UserStoreException {
 
         if (!isEnable()) {
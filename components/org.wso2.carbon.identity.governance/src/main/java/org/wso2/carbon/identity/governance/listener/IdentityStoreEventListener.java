@@ -17,14 +17,16 @@
 package org.wso2.carbon.identity.governance.listener;
 
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.mutable.MutableBoolean;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.base.IdentityRuntimeException;
 import org.wso2.carbon.identity.core.AbstractIdentityUserOperationEventListener;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
+import org.wso2.carbon.identity.governance.TenantResolutionCache;
 import org.wso2.carbon.identity.governance.internal.IdentityMgtServiceDataHolder;
 import org.wso2.carbon.identity.governance.model.UserIdentityClaim;
 import org.wso2.carbon.identity.governance.service.IdentityDataStoreService;
@@ -42,9 +44,9 @@ import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -432,121 +434,116 @@ public class IdentityStoreEventListener extends AbstractIdentityUserOperationEve
             return true;
         }
 
-        MutableBoolean isFirstClaimFilter = new MutableBoolean(true);
-        filterUsers(condition, userStoreManager, domain, filteredUserNameList, isFirstClaimFilter);
+        filterUsers(condition, userStoreManager, domain, filteredUserNameList);
         return true;
     }
 
     /**
-     * Recursively search within the condition for expression conditions that contain identity claims and filter users
-     * matched with each such claims. After filtering users for each claim, the common set of users will be retained in
-     * the final user list to be returned.
+     * Filter the users matched with the identity claims of the condition. The expression conditions with identity
+     * claims are removed from the condition, and the identity claim condition formed by them, with the AND and OR
+     * operations of the condition, is evaluated in the identity data store as a whole.
      *
      * @param condition            Condition to be considered for filtering.
      * @param userManager          UserStoreManager.
      * @param domain               User store domain.
      * @param filteredUserNameList Username list to be returned from the listener.
-     * @param isFirstClaimFilter   Whether this is the first claim being filtered. This is used to decide whether to
-     *                             add or retain username list to the final username list.
      * @throws UserStoreException
      */
     private void filterUsers(Condition condition, UserStoreManager userManager, String domain,
-                             List<String> filteredUserNameList, MutableBoolean isFirstClaimFilter)
-            throws UserStoreException {
+                             List<String> filteredUserNameList) throws UserStoreException {
 
-        if (condition instanceof ExpressionCondition) {
-            ExpressionCondition expressionCondition = (ExpressionCondition) condition;
-            String claimUri = expressionCondition.getAttributeName();
-            if (claimUri.contains(UserCoreConstants.ClaimTypeURIs.IDENTITY_CLAIM_URI)) {
+        Condition identityClaimCondition = extractIdentityClaimCondition(condition);
+        if (identityClaimCondition == null) {
+            return;
+        }
+
+        try {
+            List<String> usernames;
+            if (identityClaimCondition instanceof ExpressionCondition) {
+                ExpressionCondition expressionCondition = (ExpressionCondition) identityClaimCondition;
+                String claimUri = expressionCondition.getAttributeName();
                 String claimValue = expressionCondition.getAttributeValue();
                 String operation = expressionCondition.getOperation();
-
-                try {
-                    List<String> usernames;
-                   if (ExpressionOperation.NE.toString().equals(operation)) {
-                       usernames = identityDataStoreService.getUserNamesByClaimURINotEqualValue(condition, claimUri,
-                               claimValue, userManager);
-                   } else {
-                        usernames = identityDataStoreService.listUsersByClaimURIAndValue(claimUri,
-                                getClaimValueForOperation(operation, claimValue), userManager);
-                   }
-                    updateUserList(usernames, filteredUserNameList, domain, isFirstClaimFilter);
-
-                    if (log.isDebugEnabled()) {
-                        log.debug("Retrieved " + usernames.size() + " users for claim: " + claimUri);
-                    }
-                } catch (IdentityException e) {
-                    throw new UserStoreException("Error while listing the users for given claim: " + claimUri, e);
+                if (ExpressionOperation.NE.toString().equals(operation)) {
+                    usernames = identityDataStoreService.getUserNamesByClaimURINotEqualValue(condition, claimUri,
+                            claimValue, userManager);
+                } else {
+                    usernames = identityDataStoreService.listUsersByClaimURIAndValue(claimUri,
+                            IdentityGovernanceUtil.getClaimValueForOperation(operation, claimValue), userManager);
                 }
+            } else {
+                usernames = identityDataStoreService.listUsersByCondition(identityClaimCondition, userManager);
+            }
+            updateUserList(usernames, filteredUserNameList, domain);
 
-                // Remove expression conditions with identity claims from the condition.
-                ((ExpressionCondition) condition).setAttributeName(null);
-                ((ExpressionCondition) condition).setAttributeValue(null);
-                ((ExpressionCondition) condition).setOperation(null);
+            if (log.isDebugEnabled()) {
+                log.debug("Retrieved " + usernames.size() + " users for the identity claim filter.");
             }
+        } catch (IdentityException e) {
+            throw new UserStoreException("Error while listing the users for the identity claim filter.", e);
+        }
+    }
+
+    /**
+     * Recursively search within the condition for expression conditions that contain identity claims, and remove
+     * them from the condition.
+     *
+     * @param condition Condition to be considered for filtering.
+     * @return Condition formed by the removed expression conditions, or null if there are no identity claims.
+     */
+    private Condition extractIdentityClaimCondition(Condition condition) {
+
+        if (condition instanceof ExpressionCondition) {
+            ExpressionCondition expressionCondition = (ExpressionCondition) condition;
+            String claimUri = expressionCondition.getAttributeName();
+            if (claimUri == null || !claimUri.contains(UserCoreConstants.ClaimTypeURIs.IDENTITY_CLAIM_URI)) {
+                return null;
+            }
+            ExpressionCondition identityClaimCondition = new ExpressionCondition(expressionCondition.getOperation(),
+                    claimUri, expressionCondition.getAttributeValue());
+
+            // Remove expression conditions with identity claims from the condition.
+            expressionCondition.setAttributeName(null);
+            expressionCondition.setAttributeValue(null);
+            expressionCondition.setOperation(null);
+            return identityClaimCondition;
         } else if (condition instanceof OperationalCondition) {
-            Condition leftCondition = ((OperationalCondition) condition).getLeftCondition();
-            filterUsers(leftCondition, userManager, domain, filteredUserNameList, isFirstClaimFilter);
-            Condition rightCondition = ((OperationalCondition) condition).getRightCondition();
-            filterUsers(rightCondition, userManager, domain, filteredUserNameList, isFirstClaimFilter);
+            OperationalCondition operationalCondition = (OperationalCondition) condition;
+            Condition leftCondition = extractIdentityClaimCondition(operationalCondition.getLeftCondition());
+            Condition rightCondition = extractIdentityClaimCondition(operationalCondition.getRightCondition());
+            if (leftCondition == null) {
+                return rightCondition;
+            } else if (rightCondition == null) {
+                return leftCondition;
+            }
+            return new OperationalCondition(operationalCondition.getOperation(), leftCondition, rightCondition);
         }
+        return null;
     }
 
     /**
-     * Update the username list to be returned, with each identity claim filtering result.
+     * Update the username list to be returned, with the identity claim filtering result.
      *
-     * @param usernames            Usernames returned for an identity claim filter.
+     * @param usernames            Usernames returned for the identity claim filter.
      * @param filteredUserNameList Username list to be returned from the listener.
      * @param userStoreDomain      User store domain.
-     * @param isFirstClaimFilter   Whether this is the first claim being filtered. This is used to decide whether to
-     *                             add or retain username list to the final username list.
      */
-    private void updateUserList(List<String> usernames, List<String> filteredUserNameList, String userStoreDomain,
-                                MutableBoolean isFirstClaimFilter) {
+    private void updateUserList(List<String> usernames, List<String> filteredUserNameList, String userStoreDomain) {
 
          /* If this is the primary domain, all the users will be retrieved since the primary domain is
          not appended to the user name in the IDN table. So we have to filter users belongs to primary
          in Java level. */
         if (StringUtils.equalsIgnoreCase(userStoreDomain, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME)) {
-            List<String> usersInPrimaryDomain = new ArrayList<>();
             for (String username : usernames) {
                 if (!StringUtils.contains(username, UserCoreConstants.DOMAIN_SEPARATOR) ||
                         StringUtils.startsWith(username, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME +
                                 UserCoreConstants.DOMAIN_SEPARATOR)) {
-                    usersInPrimaryDomain.add(username);
+                    filteredUserNameList.add(username);
                 }
             }
-            usernames = usersInPrimaryDomain;
-        }
-        usernames = Arrays.asList(usernames.toArray(new String[0]));
-
-        /* If this is the first claim that was filtered, all users are added to the final user list.
-         Otherwise, final user list is updated with common users for all claims filtered so far. */
-        if (isFirstClaimFilter.booleanValue()) {
-            filteredUserNameList.addAll(usernames);
-            isFirstClaimFilter.setValue(false);
         } else {
-            filteredUserNameList.retainAll(usernames);
-        }
-    }
-
-    /**
-     * Add wildcards to the claim value to match the specified operation for filtering.
-     *
-     * @param operation  Filtering operation specified.
-     * @param claimValue Attribute value.
-     * @return attribute value with wildcards.
-     */
-    private String getClaimValueForOperation(String operation, String claimValue) {
-
-        if (ExpressionOperation.EW.toString().equals(operation)) {
-            claimValue = "%" + claimValue;
-        } else if (ExpressionOperation.CO.toString().equals(operation)) {
-            claimValue = "%" + claimValue + "%";
-        } else if (ExpressionOperation.SW.toString().equals(operation)) {
-            claimValue = claimValue + "%";
+            filteredUserNameList.addAll(usernames);
         }
-        return claimValue;
     }
 
     public boolean doPreGetPaginatedUserList(Condition condition, List<String> identityClaimFilteredUserNames,
@@ -735,6 +732,8 @@ public class IdentityStoreEventListener extends AbstractIdentityUserOperationEve
             return true;
         }
 
+        // Group the entries by user store domain so that the identity data of each domain is loaded in bulk.
+        Map<String, List<UserClaimSearchEntry>> userClaimSearchEntriesOfDomains = new LinkedHashMap<>();
         for (UserClaimSearchEntry userClaimSearchEntry : userClaimSearchEntries) {
 
             String username = userClaimSearchEntry.getUserName();
@@ -747,45 +746,59 @@ public class IdentityStoreEventListener extends AbstractIdentityUserOperationEve
                 continue;
             }
 
-            // No need to separately handle if identity data store is user store based for the users' userstore domain.
-            if (isStoreIdentityClaimsInUserStoreEnabled(userStoreManager
-                    .getSecondaryUserStoreManager(UserCoreUtil.extractDomainFromName(username)))) {
-                continue;
-            }
-
             if (log.isDebugEnabled()) {
                 log.debug("Method doPostGetUsersClaimValues getting executed in the IdentityStoreEventListener for " +
                         "user: " + username);
             }
+            userClaimSearchEntriesOfDomains.computeIfAbsent(UserCoreUtil.extractDomainFromName(username),
+                    domain -> new ArrayList<>()).add(userClaimSearchEntry);
+        }
 
-            if (userClaimSearchEntry.getClaims() == null) {
-                userClaimSearchEntry.setClaims(new HashMap<String, String>());
-            }
+        for (Map.Entry<String, List<UserClaimSearchEntry>> domainEntry : userClaimSearchEntriesOfDomains.entrySet()) {
+
+            UserStoreManager secondaryUserStoreManager =
+                    userStoreManager.getSecondaryUserStoreManager(domainEntry.getKey());
 
-            if (!isHybridDataStoreEnable) {
-                /*
-                If hybrid data store is disabled, we need to use the identity claim value only from the identity data
-                store. Hence, we need to remove the identity claim values from the claimMap to avoid use of values from
-                user store for identity claims.
-                 */
-                userClaimSearchEntry.getClaims().entrySet().removeIf(
-                        entry -> entry.getKey().contains(UserCoreConstants.ClaimTypeURIs.IDENTITY_CLAIM_URI_PREFIX));
+            // No need to separately handle if identity data store is user store based for the users' userstore domain.
+            if (isStoreIdentityClaimsInUserStoreEnabled(secondaryUserStoreManager)) {
+                continue;
             }
 
-            // There is/are identity claim/s load the dto.
-            UserIdentityClaim identityDTO = identityDataStoreService
-                    .getIdentityClaimData(userClaimSearchEntry.getUserName(), userStoreManager
-                    .getSecondaryUserStoreManager(UserCoreUtil.extractDomainFromName(username)));
+            List<String> usernames = new ArrayList<>();
+            for (UserClaimSearchEntry userClaimSearchEntry : domainEntry.getValue()) {
+                if (userClaimSearchEntry.getClaims() == null) {
+                    userClaimSearchEntry.setClaims(new HashMap<String, String>());
+                }
 
-            // If no user identity data found, just continue.
-            if (identityDTO == null) {
-                continue;
+                if (!isHybridDataStoreEnable) {
+                    /*
+                    If hybrid data store is disabled, we need to use the identity claim value only from the identity
+                    data store. Hence, we need to remove the identity claim values from the claimMap to avoid use of
+                    values from user store for identity claims.
+                     */
+                    userClaimSearchEntry.getClaims().entrySet().removeIf(entry ->
+                            entry.getKey().contains(UserCoreConstants.ClaimTypeURIs.IDENTITY_CLAIM_URI_PREFIX));
+                }
+                usernames.add(userClaimSearchEntry.getUserName());
             }
 
-            // Data found, add the values for security questions and identity claims.
-            for (String claim : claims) {
-                if (identityDTO.getUserIdentityDataMap().containsKey(claim)) {
-                    userClaimSearchEntry.getClaims().put(claim, identityDTO.getUserIdentityDataMap().get(claim));
+            // There is/are identity claim/s load the dtos of all the users of the domain at once.
+            Map<String, UserIdentityClaim> identityDTOs =
+                    identityDataStoreService.getIdentityClaimDataOfUsers(usernames, secondaryUserStoreManager);
+
+            for (UserClaimSearchEntry userClaimSearchEntry : domainEntry.getValue()) {
+                UserIdentityClaim identityDTO = identityDTOs.get(userClaimSearchEntry.getUserName());
+
+                // If no user identity data found, just continue.
+                if (identityDTO == null) {
+                    continue;
+                }
+
+                // Data found, add the values for security questions and identity claims.
+                for (String claim : claims) {
+                    if (identityDTO.getUserIdentityDataMap().containsKey(claim)) {
+                        userClaimSearchEntry.getClaims().put(claim, identityDTO.getUserIdentityDataMap().get(claim));
+                    }
                 }
             }
         }
@@ -799,9 +812,9 @@ public class IdentityStoreEventListener extends AbstractIdentityUserOperationEve
 
         UserRealm userRealm;
         try {
-            int tenantId = realmService.getTenantManager().getTenantId(tenantDomain);
+            int tenantId = TenantResolutionCache.getInstance().getTenantId(tenantDomain);
             userRealm = (UserRealm) realmService.getTenantUserRealm(tenantId);
-        } catch (org.wso2.carbon.user.api.UserStoreException e) {
+        } catch (org.wso2.carbon.user.api.UserStoreException | IdentityRuntimeException e) {
             throw new UserStoreException("Error occurred while retrieving user realm.", e);
         }
         return userRealm.getUserStoreManager();
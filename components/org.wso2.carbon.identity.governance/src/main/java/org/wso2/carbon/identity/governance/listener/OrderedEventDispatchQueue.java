@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance.listener;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.event.IdentityEventException;
+import org.wso2.carbon.identity.event.event.Event;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dispatches identity events asynchronously, preserving the order of the events with the same ordering key. Each
+ * ordering key is mapped to one of a fixed set of lanes, and each lane has a bounded queue drained by a single
+ * worker thread. When the queue of a lane is full, the caller waits for the configured time before the event is
+ * rejected, so that a slow event handler slows down the producers instead of growing the queues.
+ * <p>
+ * A rejected event is handled by the caller. Before the event is handed back to the caller, the caller waits until
+ * the queued events of the same ordering key are dispatched, so that the rejected event is not handled ahead of
+ * them. The events raised while an event is being dispatched are handed back to the worker thread as they are,
+ * since they are part of the event being dispatched.
+ * <p>
+ * Failed events are not retried by the queue, as the event handlers which already handled the event would handle it
+ * again. The dispatcher retries the event handlers which failed instead.
+ */
+class OrderedEventDispatchQueue {
+
+    private static final Log log = LogFactory.getLog(OrderedEventDispatchQueue.class);
+    private static final String WORKER_THREAD_NAME_PREFIX = "IdentityMgtAsyncEventDispatcher-";
+    private static final long WORKER_POLL_TIMEOUT = 1000;
+    private static final long SHUTDOWN_TIMEOUT_IN_SECONDS = 30;
+
+    private final Lane[] lanes;
+    private final long enqueueTimeoutInMillis;
+    private final Dispatcher dispatcher;
+    private volatile boolean running = true;
+    // Number of the queued and in progress events of each ordering key.
+    private final Map<String, Integer> pendingEvents = new ConcurrentHashMap<>();
+    private final Object dispatchLock = new Object();
+
+    private final LongAdder dispatchedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    /**
+     * Hands over an event to the event handlers.
+     */
+    interface Dispatcher {
+
+        void dispatch(Event event, EventCallerContext callerContext) throws IdentityEventException;
+    }
+
+    OrderedEventDispatchQueue(int laneCount, int laneCapacity, long enqueueTimeoutInMillis, Dispatcher dispatcher) {
+
+        this.enqueueTimeoutInMillis = enqueueTimeoutInMillis;
+        this.dispatcher = dispatcher;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(laneCapacity, WORKER_THREAD_NAME_PREFIX + i);
+        }
+    }
+
+    /**
+     * Add an event to the lane of the given ordering key. The caller waits for the configured enqueue timeout if
+     * the lane is full. If the event is rejected, the caller waits until the queued events of the same ordering key
+     * are dispatched before this returns.
+     *
+     * @param orderingKey   Key of the events to be dispatched in order, such as the user of the event.
+     * @param event         Event to be dispatched.
+     * @param callerContext Context of the thread raising the event.
+     * @return True if the event is queued, false if the event is rejected and has to be dispatched by the caller.
+     */
+    boolean enqueue(String orderingKey, Event event, EventCallerContext callerContext) {
+
+        if (isWorkerThread()) {
+            // Raised while dispatching an event, hence handled as a part of that event.
+            return false;
+        }
+        Lane lane = lanes[Math.floorMod(orderingKey.hashCode(), lanes.length)];
+        QueuedEvent queuedEvent = new QueuedEvent(orderingKey, event, callerContext);
+        pendingEvents.merge(orderingKey, 1, Integer::sum);
+        boolean queued = false;
+        if (running) {
+            try {
+                queued = lane.queue.offer(queuedEvent, enqueueTimeoutInMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // The worker may have stopped after the event is queued, if the dispatching was stopped concurrently.
+            if (queued && !running && !lane.worker.isAlive() && lane.queue.remove(queuedEvent)) {
+                queued = false;
+            }
+        }
+        if (queued) {
+            maxQueueDepth.accumulateAndGet(lane.queue.size(), Math::max);
+            return true;
+        }
+
+        release(orderingKey);
+        rejectedCount.increment();
+        if (log.isDebugEnabled()) {
+            log.debug("Asynchronous event queue is full or stopped. Rejected event: " + event.getEventName());
+        }
+        awaitDispatched(orderingKey);
+        return false;
+    }
+
+    /**
+     * Stop accepting events and dispatch the queued events before the worker threads stop.
+     */
+    void shutdown() {
+
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_IN_SECONDS);
+        for (Lane lane : lanes) {
+            try {
+                lane.worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        synchronized (dispatchLock) {
+            dispatchLock.notifyAll();
+        }
+        int pendingEventCount = getQueueDepth();
+        if (pendingEventCount > 0) {
+            log.warn(pendingEventCount + " asynchronous identity events could not be dispatched while draining " +
+                    "the event queue.");
+        }
+    }
+
+    /**
+     * Get the number of events waiting to be dispatched.
+     *
+     * @return Number of queued events.
+     */
+    int getQueueDepth() {
+
+        int queueDepth = 0;
+        for (Lane lane : lanes) {
+            queueDepth += lane.queue.size();
+        }
+        return queueDepth;
+    }
+
+    /**
+     * Get the highest number of events queued in a lane at a time.
+     *
+     * @return Highest number of queued events.
+     */
+    int getMaxQueueDepth() {
+
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * Get the number of events dispatched successfully.
+     *
+     * @return Number of dispatched events.
+     */
+    long getDispatchedCount() {
+
+        return dispatchedCount.sum();
+    }
+
+    /**
+     * Get the number of events failed in an event handler.
+     *
+     * @return Number of failed events.
+     */
+    long getFailedCount() {
+
+        return failedCount.sum();
+    }
+
+    /**
+     * Get the number of events rejected as the queue was full or stopped.
+     *
+     * @return Number of rejected events.
+     */
+    long getRejectedCount() {
+
+        return rejectedCount.sum();
+    }
+
+    private void dispatch(QueuedEvent queuedEvent) {
+
+        Event event = queuedEvent.event;
+        try {
+            dispatcher.dispatch(event, queuedEvent.callerContext);
+            dispatchedCount.increment();
+        } catch (IdentityEventException | RuntimeException e) {
+            failedCount.increment();
+            log.error("Error occurred while handling event: " + event.getEventName(), e);
+        } finally {
+            release(queuedEvent.orderingKey);
+        }
+    }
+
+    private void release(String orderingKey) {
+
+        Integer remainingEvents = pendingEvents.computeIfPresent(orderingKey,
+                (key, count) -> count > 1 ? count - 1 : null);
+        if (remainingEvents == null) {
+            synchronized (dispatchLock) {
+                dispatchLock.notifyAll();
+            }
+        }
+    }
+
+    private void awaitDispatched(String orderingKey) {
+
+        synchronized (dispatchLock) {
+            while (pendingEvents.containsKey(orderingKey) && isAnyWorkerAlive()) {
+                try {
+                    dispatchLock.wait(WORKER_POLL_TIMEOUT);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean isWorkerThread() {
+
+        Thread currentThread = Thread.currentThread();
+        for (Lane lane : lanes) {
+            if (lane.worker == currentThread) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isAnyWorkerAlive() {
+
+        for (Lane lane : lanes) {
+            if (lane.worker.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An event queued with its ordering key and the context of the thread raising it.
+     */
+    private static final class QueuedEvent {
+
+        private final String orderingKey;
+        private final Event event;
+        private final EventCallerContext callerContext;
+
+        private QueuedEvent(String orderingKey, Event event, EventCallerContext callerContext) {
+
+            this.orderingKey = orderingKey;
+            this.event = event;
+            this.callerContext = callerContext;
+        }
+    }
+
+    /**
+     * A bounded queue of events dispatched in order by a single worker thread.
+     */
+    private final class Lane implements Runnable {
+
+        private final BlockingQueue<QueuedEvent> queue;
+        private final Thread worker;
+
+        private Lane(int capacity, String workerName) {
+
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.worker = new Thread(this, workerName);
+            this.worker.setDaemon(true);
+            this.worker.start();
+        }
+
+        @Override
+        public void run() {
+
+            while (running || !queue.isEmpty()) {
+                QueuedEvent queuedEvent;
+                try {
+                    queuedEvent = queue.poll(WORKER_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (queuedEvent != null) {
+                    dispatch(queuedEvent);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance.listener;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.event.IdentityEventClientException;
+import org.wso2.carbon.identity.event.IdentityEventException;
+import org.wso2.carbon.identity.event.bean.IdentityEventMessageContext;
+import org.wso2.carbon.identity.event.event.Event;
+import org.wso2.carbon.identity.event.handler.AbstractEventHandler;
+import org.wso2.carbon.identity.event.services.IdentityEventService;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hands over an asynchronously dispatched event to each of the event handlers which can handle it, in the order of
+ * their priority. An event handler which fails is retried with an increasing interval, except for the client errors,
+ * while the event handlers which handled the event are not invoked again. The event is handed over to the event
+ * service as it is, if no event handlers are registered.
+ */
+class RetryingEventDispatcher {
+
+    private static final Log log = LogFactory.getLog(RetryingEventDispatcher.class);
+
+    private final IdentityEventService eventService;
+    private final Supplier<List<AbstractEventHandler>> eventHandlers;
+    private final int maxRetries;
+    private final long retryIntervalInMillis;
+    private final LongAdder retriedCount = new LongAdder();
+
+    RetryingEventDispatcher(IdentityEventService eventService, Supplier<List<AbstractEventHandler>> eventHandlers,
+                            int maxRetries, long retryIntervalInMillis) {
+
+        this.eventService = eventService;
+        this.eventHandlers = eventHandlers;
+        this.maxRetries = maxRetries;
+        this.retryIntervalInMillis = retryIntervalInMillis;
+    }
+
+    /**
+     * Hand over the event to the event handlers which can handle it.
+     *
+     * @param event Event to be dispatched.
+     * @throws IdentityEventException If an event handler fails even after retrying.
+     */
+    void dispatch(Event event) throws IdentityEventException {
+
+        List<AbstractEventHandler> registeredHandlers = eventHandlers.get();
+        if (registeredHandlers == null || registeredHandlers.isEmpty()) {
+            eventService.handleEvent(event);
+            return;
+        }
+        IdentityEventMessageContext messageContext = new IdentityEventMessageContext(event);
+        List<AbstractEventHandler> handlers = new ArrayList<>();
+        for (AbstractEventHandler handler : registeredHandlers) {
+            if (handler.canHandle(messageContext)) {
+                handlers.add(handler);
+            }
+        }
+        handlers.sort(Comparator.comparingInt(handler -> handler.getPriority(messageContext)));
+
+        List<String> failedHandlers = new ArrayList<>();
+        for (AbstractEventHandler handler : handlers) {
+            if (!handleEventWithRetries(handler, event)) {
+                failedHandlers.add(handler.getName());
+            }
+        }
+        if (!failedHandlers.isEmpty()) {
+            throw new IdentityEventException("Event handlers: " + failedHandlers + " failed to handle event: " +
+                    event.getEventName());
+        }
+    }
+
+    /**
+     * Get the number of event handler invocations retried.
+     *
+     * @return Number of retries.
+     */
+    long getRetriedCount() {
+
+        return retriedCount.sum();
+    }
+
+    private boolean handleEventWithRetries(AbstractEventHandler handler, Event event) {
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                handler.handleEvent(event);
+                return true;
+            } catch (IdentityEventException | RuntimeException e) {
+                // Client errors are caused by the event itself, hence they are not retried.
+                if (attempt > maxRetries || e instanceof IdentityEventClientException) {
+                    log.error("Error occurred while handling event: " + event.getEventName() + " in event handler: " +
+                            handler.getName() + " after " + attempt + " attempts.", e);
+                    return false;
+                }
+                retriedCount.increment();
+                if (log.isDebugEnabled()) {
+                    log.debug("Error occurred while handling event: " + event.getEventName() + " in event handler: " +
+                            handler.getName() + ". Retrying.", e);
+                }
+            }
+            try {
+                Thread.sleep(retryIntervalInMillis * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while retrying event: " + event.getEventName() + " in event handler: " +
+                        handler.getName());
+                return false;
+            }
+        }
+    }
+}
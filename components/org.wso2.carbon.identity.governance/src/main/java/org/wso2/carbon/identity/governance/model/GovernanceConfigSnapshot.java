@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance.model;
+
+import org.wso2.carbon.identity.application.common.model.Property;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of the governance configurations of a tenant. Property values are indexed by name and the
+ * numeric and boolean values are parsed once when the snapshot is built.
+ */
+public class GovernanceConfigSnapshot implements Serializable {
+
+    private static final long serialVersionUID = -4021364885301926453L;
+
+    // Copies of the snapshot, such as the ones read from a distributed cache, share the version.
+    private final String version = UUID.randomUUID().toString();
+    private final String[] names;
+    private final String[] values;
+    private final Map<String, String> valuesByName = new HashMap<>();
+    private final Map<String, Long> numericValues = new HashMap<>();
+    private final Map<String, Boolean> booleanValues = new HashMap<>();
+
+    /**
+     * Build a snapshot from the governance configurations of a tenant.
+     *
+     * @param properties Governance configurations as returned by the governance service. Null elements are ignored.
+     */
+    public GovernanceConfigSnapshot(Property[] properties) {
+
+        int length = properties == null ? 0 : properties.length;
+        this.names = new String[length];
+        this.values = new String[length];
+        for (int i = 0; i < length; i++) {
+            Property property = properties[i];
+            if (property == null || property.getName() == null) {
+                continue;
+            }
+            String name = property.getName();
+            String value = property.getValue();
+            names[i] = name;
+            values[i] = value;
+            // The first occurrence of a property wins, as in a lookup over the property array.
+            if (valuesByName.containsKey(name)) {
+                continue;
+            }
+            valuesByName.put(name, value);
+            booleanValues.put(name, Boolean.parseBoolean(value));
+            if (value != null) {
+                try {
+                    numericValues.put(name, Long.parseLong(value.trim()));
+                } catch (NumberFormatException e) {
+                    // Not a numeric property.
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the version of the snapshot. A new version is assigned whenever a snapshot is built, while the copies of a
+     * snapshot share the version.
+     *
+     * @return Version of the snapshot.
+     */
+    public String getVersion() {
+
+        return version;
+    }
+
+    /**
+     * Check whether the given property is configured.
+     *
+     * @param name Property name.
+     * @return True if the property is available in the snapshot.
+     */
+    public boolean contains(String name) {
+
+        return valuesByName.containsKey(name);
+    }
+
+    /**
+     * Get the value of a property.
+     *
+     * @param name Property name.
+     * @return Property value or null if the property is not available.
+     */
+    public String getValue(String name) {
+
+        return valuesByName.get(name);
+    }
+
+    /**
+     * Get the value of a property as a boolean.
+     *
+     * @param name         Property name.
+     * @param defaultValue Value to be returned if the property is not available.
+     * @return True if the property value is 'true' ignoring the case, the default value if the property is not
+     * available and false otherwise.
+     */
+    public boolean getBoolean(String name, boolean defaultValue) {
+
+        Boolean value = booleanValues.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Check whether the value of a property is a valid integer.
+     *
+     * @param name Property name.
+     * @return True if the property is available and its value is a valid integer.
+     */
+    public boolean isInt(String name) {
+
+        Long value = numericValues.get(name);
+        return value != null && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Get the value of a property as an integer.
+     *
+     * @param name         Property name.
+     * @param defaultValue Value to be returned if the property is not available or not a valid integer.
+     * @return Property value as an integer.
+     */
+    public int getInt(String name, int defaultValue) {
+
+        return isInt(name) ? numericValues.get(name).intValue() : defaultValue;
+    }
+
+    /**
+     * Check whether the value of a property is a valid long.
+     *
+     * @param name Property name.
+     * @return True if the property is available and its value is a valid long.
+     */
+    public boolean isLong(String name) {
+
+        return numericValues.containsKey(name);
+    }
+
+    /**
+     * Get the value of a property as a long.
+     *
+     * @param name         Property name.
+     * @param defaultValue Value to be returned if the property is not available or not a valid long.
+     * @return Property value as a long.
+     */
+    public long getLong(String name, long defaultValue) {
+
+        Long value = numericValues.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Get the requested properties. Properties which are not available are skipped.
+     *
+     * @param propertyNames Names of the requested properties.
+     * @return New property instances of the available properties, in the requested order.
+     */
+    public Property[] getProperties(String[] propertyNames) {
+
+        Property[] requestedProperties = new Property[propertyNames.length];
+        int index = 0;
+        for (String propertyName : propertyNames) {
+            if (valuesByName.containsKey(propertyName)) {
+                requestedProperties[index++] = createProperty(propertyName, valuesByName.get(propertyName));
+            }
+        }
+        if (index == requestedProperties.length) {
+            return requestedProperties;
+        }
+        Property[] availableProperties = new Property[index];
+        System.arraycopy(requestedProperties, 0, availableProperties, 0, index);
+        return availableProperties;
+    }
+
+    /**
+     * Get all the properties of the snapshot.
+     *
+     * @return New property instances, in the order the snapshot was built from.
+     */
+    public Property[] getProperties() {
+
+        Property[] properties = new Property[names.length];
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null) {
+                properties[i] = createProperty(names[i], values[i]);
+            }
+        }
+        return properties;
+    }
+
+    private static Property createProperty(String name, String value) {
+
+        // Property is mutable, hence a new instance is handed out each time to keep the snapshot immutable.
+        Property property = new Property();
+        property.setName(name);
+        property.setValue(value);
+        return property;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of usernames listed from the identity data store, with the continuation token to retrieve the next page.
+ */
+public class UserNamesPage {
+
+    private final List<String> userNames;
+    private final String nextPageToken;
+
+    public UserNamesPage(List<String> userNames, String nextPageToken) {
+
+        this.userNames = Collections.unmodifiableList(userNames);
+        this.nextPageToken = nextPageToken;
+    }
+
+    /**
+     * Get the usernames of the page.
+     *
+     * @return Usernames.
+     */
+    public List<String> getUserNames() {
+
+        return userNames;
+    }
+
+    /**
+     * Get the opaque token to be passed to retrieve the next page.
+     *
+     * @return Continuation token, or null if this is the last page.
+     */
+    public String getNextPageToken() {
+
+        return nextPageToken;
+    }
+
+    /**
+     * Check whether there are more pages after this page.
+     *
+     * @return True if there is a next page.
+     */
+    public boolean hasNextPage() {
+
+        return nextPageToken != null;
+    }
+}
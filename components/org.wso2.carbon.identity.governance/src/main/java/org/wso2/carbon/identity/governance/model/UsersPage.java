@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of users, with the cursor to retrieve the next page.
+ *
+ * @param <T> Type of the users.
+ */
+public class UsersPage<T> {
+
+    private final List<T> users;
+    private final String nextCursor;
+
+    public UsersPage(List<T> users, String nextCursor) {
+
+        this.users = Collections.unmodifiableList(users);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Get the users of the page.
+     *
+     * @return Users.
+     */
+    public List<T> getUsers() {
+
+        return users;
+    }
+
+    /**
+     * Get the opaque cursor to be passed to retrieve the next page.
+     *
+     * @return Cursor, or null if this is the last page.
+     */
+    public String getNextCursor() {
+
+        return nextCursor;
+    }
+
+    /**
+     * Check whether there are more pages after this page.
+     *
+     * @return True if there is a next page.
+     */
+    public boolean hasNextPage() {
+
+        return nextCursor != null;
+    }
+}
@@ -19,15 +19,26 @@
 package org.wso2.carbon.identity.governance.service;
 
 import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
 import org.wso2.carbon.identity.governance.model.UserIdentityClaim;
+import org.wso2.carbon.identity.governance.model.UserNamesPage;
 import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
 import org.wso2.carbon.user.core.model.Condition;
 import org.wso2.carbon.user.core.model.ExpressionCondition;
+import org.wso2.carbon.user.core.model.ExpressionOperation;
+import org.wso2.carbon.user.core.model.OperationalCondition;
+import org.wso2.carbon.user.core.model.OperationalOperation;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This interface is used to store data in the identity data store.
@@ -56,6 +67,26 @@ public interface IdentityDataStoreService {
      */
     UserIdentityClaim getIdentityClaimData(String username, UserStoreManager userStoreManager);
 
+    /**
+     * Get identity claim data from the identity data store for a set of users of the same user store.
+     *
+     * @param usernames         Usernames of the users.
+     * @param userStoreManager  User store manager of the user store the users belong to.
+     * @return                  Map of usernames to identity claim data. Users without data are not included.
+     */
+    default Map<String, UserIdentityClaim> getIdentityClaimDataOfUsers(Collection<String> usernames,
+                                                                       UserStoreManager userStoreManager) {
+
+        Map<String, UserIdentityClaim> identityClaimData = new HashMap<>();
+        for (String username : usernames) {
+            UserIdentityClaim userIdentityClaim = getIdentityClaimData(username, userStoreManager);
+            if (userIdentityClaim != null) {
+                identityClaimData.put(username, userIdentityClaim);
+            }
+        }
+        return identityClaimData;
+    }
+
     /**
      * Return an array of user who have the given claim URI and claim value.
      *
@@ -112,6 +143,51 @@ public interface IdentityDataStoreService {
         return Collections.emptyList();
     }
 
+    /**
+     * List the users of the user store domain of the given user store manager which match a condition of identity
+     * claims. The condition is a tree of identity claim expressions combined with AND and OR operations. By default
+     * the users of each expression are listed separately and the lists are combined with set operations.
+     *
+     * @param condition        Identity claim condition.
+     * @param userStoreManager UserStoreManager instance.
+     * @return List of usernames.
+     * @throws IdentityException Identity exception.
+     */
+    default List<String> listUsersByCondition(Condition condition, UserStoreManager userStoreManager)
+            throws IdentityException {
+
+        if (condition instanceof OperationalCondition) {
+            OperationalCondition operationalCondition = (OperationalCondition) condition;
+            boolean isOr = OperationalOperation.OR.toString().equals(operationalCondition.getOperation());
+            Set<String> userNames = new LinkedHashSet<>(listUsersByCondition(operationalCondition.getLeftCondition(),
+                    userStoreManager));
+            if (!isOr && userNames.isEmpty()) {
+                return new ArrayList<>(userNames);
+            }
+            List<String> rightUserNames = listUsersByCondition(operationalCondition.getRightCondition(),
+                    userStoreManager);
+            if (isOr) {
+                userNames.addAll(rightUserNames);
+            } else {
+                userNames.retainAll(new HashSet<>(rightUserNames));
+            }
+            return new ArrayList<>(userNames);
+        }
+        if (condition instanceof ExpressionCondition) {
+            ExpressionCondition expressionCondition = (ExpressionCondition) condition;
+            String operation = expressionCondition.getOperation();
+            if (ExpressionOperation.NE.toString().equals(operation)) {
+                return getUserNamesByClaimURINotEqualValue(expressionCondition,
+                        expressionCondition.getAttributeName(), expressionCondition.getAttributeValue(),
+                        userStoreManager);
+            }
+            return listUsersByClaimURIAndValue(expressionCondition.getAttributeName(),
+                    IdentityGovernanceUtil.getClaimValueForOperation(operation,
+                            expressionCondition.getAttributeValue()), userStoreManager);
+        }
+        return Collections.emptyList();
+    }
+
     /**
      * Get the list of usernames who have the claim value less than the provided claim value for a given claim URI.
      *
@@ -148,6 +224,27 @@ public interface IdentityDataStoreService {
     List<String> getUserNamesBetweenProvidedClaimValues(String claimURI, String startValue, String endValue,
                                                         int tenantId) throws IdentityException;
 
+    /**
+     * List the users who have a value for the given claim URI within the given range, page by page. The users are
+     * ordered by the claim value and the username, and each page continues after the last user of the previous page,
+     * hence the cost of retrieving a page does not depend on its position.
+     *
+     * @param claimURI   Claim URI.
+     * @param lowerBound Exclusive lower bound of the claim value, or null if there is no lower bound.
+     * @param upperBound Exclusive upper bound of the claim value, or null if there is no upper bound.
+     * @param tenantId   Tenant ID.
+     * @param pageToken  Continuation token returned with the previous page, or null to retrieve the first page.
+     * @param pageSize   Maximum number of users in the page.
+     * @return Page of usernames.
+     * @throws IdentityException Identity exception.
+     */
+    default UserNamesPage listUsersByClaimValueRange(String claimURI, String lowerBound, String upperBound,
+                                                     int tenantId, String pageToken, int pageSize)
+            throws IdentityException {
+
+        return new UserNamesPage(Collections.emptyList(), null);
+    }
+
     /**
      * Get the list of usernames who have the claim value less than the provided claim value for a given claim URI
      * and include or exclude the users with the boolean isIncluded
@@ -23,6 +23,7 @@ import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.model.IdentityErrorMsgContext;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.governance.model.UserIdentityClaim;
+import org.wso2.carbon.identity.governance.model.UserNamesPage;
 import org.wso2.carbon.identity.governance.store.JDBCIdentityDataStore;
 import org.wso2.carbon.identity.governance.store.UserIdentityDataStore;
 import org.wso2.carbon.identity.governance.store.UserStoreBasedIdentityDataStore;
@@ -32,6 +33,7 @@ import org.wso2.carbon.user.core.UserStoreManager;
 import org.wso2.carbon.user.core.model.Condition;
 import org.wso2.carbon.user.core.model.ExpressionCondition;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +92,11 @@ public class IdentityDataStoreServiceImpl implements IdentityDataStoreService {
             if (!IdentityUtil.threadLocalProperties.get().containsKey(operationType)) {
                 IdentityUtil.threadLocalProperties.get().put(operationType, true);
 
+                if (PRE_SET_USER_CLAIM_VALUES.equals(operationType) &&
+                        storeDeferredInIdentityDataStore(userName, userStoreManager, claims)) {
+                    return true;
+                }
+
                 UserIdentityClaim userIdentityClaim = null;
                 if (!StringUtils.equalsIgnoreCase(operationType, PRE_USER_ADD_CLAIM_VALUES)) {
                     // We avoid loading claims for pre user add operations.
@@ -130,12 +137,27 @@ public class IdentityDataStoreServiceImpl implements IdentityDataStoreService {
         }
     }
 
+    /**
+     * Release the resources held by the identity data store, persisting any data whose write was deferred.
+     */
+    public void shutdown() {
+
+        identityDataStore.shutdown();
+    }
+
     @Override
     public UserIdentityClaim getIdentityClaimData(String username, UserStoreManager userStoreManager) {
 
         return identityDataStore.load(username, userStoreManager);
     }
 
+    @Override
+    public Map<String, UserIdentityClaim> getIdentityClaimDataOfUsers(Collection<String> usernames,
+                                                                      UserStoreManager userStoreManager) {
+
+        return identityDataStore.loadAll(usernames, userStoreManager);
+    }
+
     @Override
     public List<String> listUsersByClaimURIAndValue(String claimURI, String claimValue,
                                                     UserStoreManager userStoreManager) throws IdentityException {
@@ -167,6 +189,13 @@ public class IdentityDataStoreServiceImpl implements IdentityDataStoreService {
         return identityDataStore.getUserNamesByClaimURINotEqualValue(condition, claimURI, claimValue, userStoreManager);
     }
 
+    @Override
+    public List<String> listUsersByCondition(Condition condition, UserStoreManager userStoreManager)
+            throws IdentityException {
+
+        return identityDataStore.listUsersByCondition(condition, userStoreManager);
+    }
+
     @Override
     public List<String> getUserNamesLessThanProvidedClaimValue(String claimURI, String claimValue, int tenantId)
             throws IdentityException {
@@ -188,6 +217,15 @@ public class IdentityDataStoreServiceImpl implements IdentityDataStoreService {
         return identityDataStore.getUserNamesBetweenProvidedClaimValues(claimURI, startValue, endValue, tenantId);
     }
 
+    @Override
+    public UserNamesPage listUsersByClaimValueRange(String claimURI, String lowerBound, String upperBound,
+                                                    int tenantId, String pageToken, int pageSize)
+            throws IdentityException {
+
+        return identityDataStore.listUsersByClaimValueRange(claimURI, lowerBound, upperBound, tenantId, pageToken,
+                pageSize);
+    }
+
     @Override
     public List<String> getUserNamesLessThanClaimWithNestedClaim(String claimURI,
                                                                  String claimValue,
@@ -219,6 +257,37 @@ public class IdentityDataStoreServiceImpl implements IdentityDataStoreService {
         return identityDataStore instanceof UserStoreBasedIdentityDataStore;
     }
 
+    /**
+     * Hand over the identity claims to the identity data store for a deferred write, if the store supports deferred
+     * writes for all of them. Such claims are written without reading and merging the stored identity claims.
+     *
+     * @param userName         Username of the user.
+     * @param userStoreManager User store manager.
+     * @param claims           Claims being set. Identity claims are removed if they are accepted by the store.
+     * @return True if the identity claims were accepted for a deferred write.
+     * @throws UserStoreException If an error occurs while storing the claims.
+     */
+    private boolean storeDeferredInIdentityDataStore(String userName, UserStoreManager userStoreManager,
+                                                     Map<String, String> claims) throws UserStoreException {
+
+        UserIdentityClaim userIdentityClaim = new UserIdentityClaim(userName);
+        for (Map.Entry<String, String> claim : claims.entrySet()) {
+            if (StringUtils.isNotEmpty(claim.getKey()) &&
+                    claim.getKey().contains(UserCoreConstants.ClaimTypeURIs.IDENTITY_CLAIM_URI_PREFIX)) {
+                userIdentityClaim.setUserIdentityDataClaim(claim.getKey(), claim.getValue());
+            }
+        }
+        try {
+            if (!identityDataStore.storeDeferred(userIdentityClaim, userStoreManager)) {
+                return false;
+            }
+        } catch (IdentityException e) {
+            throw new UserStoreException("Error while saving user identityDataStore data for user : " + userName, e);
+        }
+        claims.keySet().removeAll(userIdentityClaim.getUserIdentityDataMap().keySet());
+        return true;
+    }
+
     /**
      * Check weather the given user store has enabled the property "StoreIdentityClaims" to store identity claims
      * in the user store.
@@ -24,29 +24,41 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
 import org.wso2.carbon.identity.governance.model.UserIdentityClaim;
+import org.wso2.carbon.identity.governance.model.UserNamesPage;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.api.UserStoreManager;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.model.Condition;
 import org.wso2.carbon.user.core.model.ExpressionCondition;
 import org.wso2.carbon.user.core.model.ExpressionOperation;
+import org.wso2.carbon.user.core.model.OperationalCondition;
+import org.wso2.carbon.user.core.model.OperationalOperation;
 import org.wso2.carbon.user.core.model.SqlBuilder;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.utils.dbcreator.DatabaseCreator;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -65,6 +77,59 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
     private static final String ORACLE = "oracle";
     private static final String POSTGRE_SQL = "postgresql";
     private static final String MYSQL = "mysql";
+    private static final String MARIADB = "mariadb";
+    private static final String H2 = "h2";
+    private static final String ENABLE_UPSERT = "IdentityDataStore.EnableUpsert";
+    private static final String BULK_LOAD_CHUNK_SIZE = "IdentityDataStore.BulkLoadChunkSize";
+    private static final int DEFAULT_BULK_LOAD_CHUNK_SIZE = 100;
+    private static final String FETCH_SIZE = "IdentityDataStore.FetchSize";
+    private static final int DEFAULT_FETCH_SIZE = 500;
+    private static final String PAGE_TOKEN_SEPARATOR = ".";
+    private static final String WRITE_BEHIND_ENABLE = "IdentityDataStore.WriteBehind.Enable";
+    private static final String WRITE_BEHIND_CLAIMS = "IdentityDataStore.WriteBehind.Claims";
+    private static final String WRITE_BEHIND_FLUSH_INTERVAL = "IdentityDataStore.WriteBehind.FlushInterval";
+    private static final String WRITE_BEHIND_BATCH_SIZE = "IdentityDataStore.WriteBehind.BatchSize";
+    private static final String WRITE_BEHIND_MAX_PENDING_USERS = "IdentityDataStore.WriteBehind.MaxPendingUsers";
+    private static final String LAST_LOGIN_TIME = "http://wso2.org/claims/identity/lastLoginTime";
+    private static final int DEFAULT_WRITE_BEHIND_FLUSH_INTERVAL = 5000;
+    private static final int DEFAULT_WRITE_BEHIND_BATCH_SIZE = 500;
+    private static final int DEFAULT_WRITE_BEHIND_MAX_PENDING_USERS = 10000;
+
+    private final UserIdentityDataWriteBehindQueue writeBehindQueue;
+    private final boolean isUpsertEnabled;
+    private volatile String identityDBType;
+
+    public JDBCIdentityDataStore() {
+
+        // Upsert is only used when it is explicitly enabled.
+        isUpsertEnabled = Boolean.parseBoolean(StringUtils.trim(IdentityUtil.getProperty(ENABLE_UPSERT)));
+        if (Boolean.parseBoolean(IdentityUtil.getProperty(WRITE_BEHIND_ENABLE))) {
+            Set<String> deferrableClaims = new HashSet<>();
+            String configuredClaims = IdentityUtil.getProperty(WRITE_BEHIND_CLAIMS);
+            if (StringUtils.isNotBlank(configuredClaims)) {
+                for (String claim : configuredClaims.split(",")) {
+                    if (StringUtils.isNotBlank(claim)) {
+                        deferrableClaims.add(claim.trim());
+                    }
+                }
+            } else {
+                deferrableClaims.add(LAST_LOGIN_TIME);
+            }
+            writeBehindQueue = new UserIdentityDataWriteBehindQueue(deferrableClaims,
+                    IdentityGovernanceUtil.getPositiveIntProperty(
+                            WRITE_BEHIND_FLUSH_INTERVAL, DEFAULT_WRITE_BEHIND_FLUSH_INTERVAL),
+                    IdentityGovernanceUtil.getPositiveIntProperty(
+                            WRITE_BEHIND_BATCH_SIZE, DEFAULT_WRITE_BEHIND_BATCH_SIZE),
+                    IdentityGovernanceUtil.getPositiveIntProperty(
+                            WRITE_BEHIND_MAX_PENDING_USERS, DEFAULT_WRITE_BEHIND_MAX_PENDING_USERS),
+                    this::writeDeferredUserDataValues);
+            if (log.isDebugEnabled()) {
+                log.debug("Write behind is enabled in JDBCIdentityDataStore for the claims: " + deferrableClaims);
+            }
+        } else {
+            writeBehindQueue = null;
+        }
+    }
 
     @Override
     public void store(UserIdentityClaim userIdentityDTO, UserStoreManager userStoreManager)
@@ -91,38 +156,22 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
         }
 
         Map<String, String> data = userIdentityDTO.getUserIdentityDataMap();
+        boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreInUsernameCaseSensitive(userName, tenantId);
+        if (writeBehindQueue != null) {
+            // The claims are written with their latest values, hence the pending writes are outdated. A write already
+            // in flight is waited for before the connection is taken, so that it does not overwrite the latest values.
+            writeBehindQueue.discard(tenantId, userName, isUsernameCaseSensitive, data.keySet());
+        }
 
         Connection connection = IdentityDatabaseUtil.getDBConnection();
         try {
-            Map<String, String> existingDataValues = getUserDataValues(connection, userName, tenantId);
-            Map<String, String> newClaims = new HashMap<>();
-            Map<String, String> availableClaims = new HashMap<>();
-
-            // Divide claim list to already available claims (need to update those) and new claims (need to add those)
-            for (Map.Entry<String, String> entry : data.entrySet()) {
-                String key = entry.getKey();
-                String value = entry.getValue();
-                if (existingDataValues.containsKey(key)) {
-                    String existingValue = existingDataValues.get(key);
-                    if (existingValue == null || !existingValue.equals(value)) {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Key:" + key + ", Value:" + value + " to be updated for user:" + userName
-                                    + " in JDBCIdentityDataStore");
-                        }
-                        availableClaims.put(key, value);
-                    }
-                } else {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Key:" + key + ", Value:" + value + " to be added for user:" + userName + " in "
-                                + "JDBCIdentityDataStore");
-                    }
-                    newClaims.put(key, value);
-                }
+            String upsertQuery = getUpsertQuery(connection, isUsernameCaseSensitive);
+            if (upsertQuery != null) {
+                upsertUserDataValues(connection, upsertQuery, userName, tenantId, data);
+            } else {
+                addOrUpdateUserDataValues(connection, userName, tenantId, data);
             }
 
-            addUserDataValues(connection, userName, tenantId, newClaims);
-            updateUserDataValues(connection, userName, tenantId, availableClaims);
-
             IdentityDatabaseUtil.commitTransaction(connection);
         } catch (SQLException e) {
             IdentityDatabaseUtil.rollbackTransaction(connection);
@@ -132,6 +181,121 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
         }
     }
 
+    /**
+     * Write the identity data of a user by reading the existing values first and then adding the new claims and
+     * updating the changed claims. Used when the database does not support a suitable upsert statement.
+     */
+    private void addOrUpdateUserDataValues(Connection connection, String userName, int tenantId,
+                                           Map<String, String> data) throws SQLException {
+
+        Map<String, String> existingDataValues = getUserDataValues(connection, userName, tenantId);
+        Map<String, String> newClaims = new HashMap<>();
+        Map<String, String> availableClaims = new HashMap<>();
+
+        // Divide claim list to already available claims (need to update those) and new claims (need to add those)
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            if (existingDataValues.containsKey(key)) {
+                String existingValue = existingDataValues.get(key);
+                if (existingValue == null || !existingValue.equals(value)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Key:" + key + ", Value:" + value + " to be updated for user:" + userName
+                                + " in JDBCIdentityDataStore");
+                    }
+                    availableClaims.put(key, value);
+                }
+            } else {
+                if (log.isDebugEnabled()) {
+                    log.debug("Key:" + key + ", Value:" + value + " to be added for user:" + userName + " in "
+                            + "JDBCIdentityDataStore");
+                }
+                newClaims.put(key, value);
+            }
+        }
+
+        addUserDataValues(connection, userName, tenantId, newClaims);
+        updateUserDataValues(connection, userName, tenantId, availableClaims);
+    }
+
+    /**
+     * Write the identity data of a user with a single batched upsert statement. All the given claims are sent to the
+     * database, as the existing values are not read. The rows whose value is not changed are matched but not updated.
+     */
+    private void upsertUserDataValues(Connection connection, String upsertQuery, String userName, int tenantId,
+                                      Map<String, String> data) throws SQLException {
+
+        try (PreparedStatement prepStmt = connection.prepareStatement(upsertQuery)) {
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Key:" + entry.getKey() + ", Value:" + entry.getValue() + " to be upserted for user:" +
+                            userName + " in JDBCIdentityDataStore");
+                }
+                addUpsertBatch(prepStmt, tenantId, userName, entry.getKey(), entry.getValue());
+            }
+            prepStmt.executeBatch();
+        }
+    }
+
+    private void addUpsertBatch(PreparedStatement prepStmt, int tenantId, String userName, String key, String value)
+            throws SQLException {
+
+        prepStmt.setInt(1, tenantId);
+        prepStmt.setString(2, userName);
+        prepStmt.setString(3, key);
+        prepStmt.setString(4, value);
+        prepStmt.addBatch();
+    }
+
+    /**
+     * Get the upsert statement of the identity database type.
+     *
+     * @param connection              Database connection.
+     * @param isUsernameCaseSensitive Whether usernames are case sensitive.
+     * @return Upsert statement, or null if upsert is disabled or not supported with the given case sensitivity.
+     */
+    private String getUpsertQuery(Connection connection, boolean isUsernameCaseSensitive) {
+
+        if (!isUpsertEnabled) {
+            return null;
+        }
+        String dbType = getIdentityDBType(connection);
+        if (MYSQL.equals(dbType) || MARIADB.equals(dbType)) {
+            // Conflicts are detected on the primary key, whose case sensitivity depends on the column collation.
+            return isUsernameCaseSensitive ? SQLQuery.UPSERT_USER_DATA_MYSQL : null;
+        } else if (POSTGRE_SQL.equals(dbType)) {
+            return isUsernameCaseSensitive ? SQLQuery.UPSERT_USER_DATA_POSTGRESQL : null;
+        } else if (H2.equals(dbType)) {
+            return isUsernameCaseSensitive ? SQLQuery.UPSERT_USER_DATA_H2 :
+                    SQLQuery.UPSERT_USER_DATA_H2_CASE_INSENSITIVE;
+        } else if (ORACLE.equals(dbType)) {
+            return isUsernameCaseSensitive ? SQLQuery.UPSERT_USER_DATA_ORACLE :
+                    SQLQuery.UPSERT_USER_DATA_ORACLE_CASE_INSENSITIVE;
+        } else if (MSSQL.equals(dbType)) {
+            return isUsernameCaseSensitive ? SQLQuery.UPSERT_USER_DATA_MSSQL :
+                    SQLQuery.UPSERT_USER_DATA_MSSQL_CASE_INSENSITIVE;
+        } else if (DB2.equals(dbType)) {
+            return isUsernameCaseSensitive ? SQLQuery.UPSERT_USER_DATA_DB2 :
+                    SQLQuery.UPSERT_USER_DATA_DB2_CASE_INSENSITIVE;
+        }
+        return null;
+    }
+
+    private String getIdentityDBType(Connection connection) {
+
+        if (identityDBType == null) {
+            try {
+                identityDBType = DatabaseCreator.getDatabaseType(connection);
+            } catch (Exception e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Error while detecting the identity database type. Upsert will not be used.", e);
+                }
+                return null;
+            }
+        }
+        return identityDBType;
+    }
+
     private Map<String, String> getUserDataValues(Connection connection, String userName, int tenantId)
             throws SQLException {
 
@@ -204,6 +368,48 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
         }
     }
 
+    @Override
+    public boolean storeDeferred(UserIdentityClaim userIdentityDTO, UserStoreManager userStoreManager)
+            throws IdentityException {
+
+        if (writeBehindQueue == null || userIdentityDTO == null ||
+                !writeBehindQueue.isDeferrable(userIdentityDTO.getUserIdentityDataMap().keySet())) {
+            return false;
+        }
+
+        String domainName = ((org.wso2.carbon.user.core.UserStoreManager) userStoreManager).getRealmConfiguration().
+                getUserStoreProperty(UserCoreConstants.RealmConfig.PROPERTY_DOMAIN_NAME);
+        String userName = UserCoreUtil.addDomainToName(userIdentityDTO.getUserName(), domainName);
+        int tenantId;
+        try {
+            tenantId = userStoreManager.getTenantId();
+        } catch (UserStoreException e) {
+            throw IdentityException.error("Error while getting tenant Id.", e);
+        }
+
+        // Enqueue before updating the cache, so that a concurrent load from the database sees the pending values.
+        writeBehindQueue.enqueue(tenantId, userName, IdentityUtil.isUserStoreInUsernameCaseSensitive(userName,
+                tenantId), userIdentityDTO.getUserIdentityDataMap());
+        // Only complete cache entries are updated. Otherwise the next load reads the database and the pending values.
+        if (super.load(userName, userStoreManager) != null) {
+            userIdentityDTO.setUserName(userName);
+            super.store(userIdentityDTO, userStoreManager);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Deferred writing the claims: " + userIdentityDTO.getUserIdentityDataMap().keySet() +
+                    " of user: " + userName + " in tenant: " + tenantId);
+        }
+        return true;
+    }
+
+    @Override
+    public void shutdown() {
+
+        if (writeBehindQueue != null) {
+            writeBehindQueue.shutdown();
+        }
+    }
+
     @Override
     public UserIdentityClaim load(String userName, UserStoreManager userStoreManager) {
 
@@ -222,6 +428,10 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
             int tenantId = userStoreManager.getTenantId();
             Map<String, String> data = getUserDataValues(connection, userName, tenantId);
             IdentityDatabaseUtil.commitTransaction(connection);
+            if (writeBehindQueue != null && !writeBehindQueue.isEmpty()) {
+                data.putAll(writeBehindQueue.getUnpersistedClaims(tenantId, userName,
+                        IdentityUtil.isUserStoreInUsernameCaseSensitive(userName, tenantId)));
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Retrieved identity data for:" + tenantId + ":" + userName);
                 for (Map.Entry<String, String> dataEntry : data.entrySet()) {
@@ -246,6 +456,222 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
         return null;
     }
 
+    @Override
+    public Map<String, UserIdentityClaim> loadAll(Collection<String> userNames, UserStoreManager userStoreManager) {
+
+        Map<String, UserIdentityClaim> userIdentityClaims = new HashMap<>();
+        if (userNames == null || userNames.isEmpty()) {
+            return userIdentityClaims;
+        }
+
+        int tenantId;
+        try {
+            tenantId = userStoreManager.getTenantId();
+        } catch (UserStoreException e) {
+            log.error("Error while getting tenant Id.", e);
+            return userIdentityClaims;
+        }
+        String domainName = ((org.wso2.carbon.user.core.UserStoreManager) userStoreManager).getRealmConfiguration().
+                getUserStoreProperty(UserCoreConstants.RealmConfig.PROPERTY_DOMAIN_NAME);
+
+        // Serve the users available in the cache and collect the rest, keyed by the domain qualified username.
+        Map<String, String> uncachedUserNames = new LinkedHashMap<>();
+        for (String userName : userNames) {
+            if (userName == null) {
+                continue;
+            }
+            String domainQualifiedUserName = UserCoreUtil.addDomainToName(userName, domainName);
+            UserIdentityClaim dto = super.load(domainQualifiedUserName, userStoreManager);
+            if (dto != null) {
+                userIdentityClaims.put(userName, dto);
+            } else {
+                uncachedUserNames.put(domainQualifiedUserName, userName);
+            }
+        }
+        if (uncachedUserNames.isEmpty()) {
+            return userIdentityClaims;
+        }
+
+        // All the users belong to the same user store, hence the case sensitivity is the same for all of them.
+        boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreInUsernameCaseSensitive(
+                uncachedUserNames.keySet().iterator().next(), tenantId);
+        Map<String, Map<String, String>> dataValuesOfUsers;
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        try {
+            dataValuesOfUsers = getUserDataValues(connection, new ArrayList<>(uncachedUserNames.keySet()), tenantId,
+                    isUsernameCaseSensitive);
+            IdentityDatabaseUtil.commitTransaction(connection);
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            log.error("Error while reading user identity data of " + uncachedUserNames.size() + " users", e);
+            return userIdentityClaims;
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+
+        for (Map.Entry<String, String> entry : uncachedUserNames.entrySet()) {
+            String domainQualifiedUserName = entry.getKey();
+            Map<String, String> data = dataValuesOfUsers.get(isUsernameCaseSensitive ? domainQualifiedUserName :
+                    domainQualifiedUserName.toLowerCase(Locale.ENGLISH));
+            // Users without identity data are cached as well, same as in the single user load.
+            UserIdentityClaim dto = new UserIdentityClaim(domainQualifiedUserName,
+                    data == null ? new HashMap<>() : new HashMap<>(data));
+            if (writeBehindQueue != null && !writeBehindQueue.isEmpty()) {
+                dto.getUserIdentityDataMap().putAll(writeBehindQueue.getUnpersistedClaims(tenantId,
+                        domainQualifiedUserName, isUsernameCaseSensitive));
+            }
+            dto.setTenantId(tenantId);
+            try {
+                super.store(dto, userStoreManager);
+            } catch (IdentityException e) {
+                log.error("Error while reading user identity data", e);
+            }
+            userIdentityClaims.put(entry.getValue(), dto);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Retrieved identity data of " + uncachedUserNames.size() + " users from the database and " +
+                    (userIdentityClaims.size() - uncachedUserNames.size()) + " users from the cache in tenant: " +
+                    tenantId);
+        }
+        return userIdentityClaims;
+    }
+
+    /**
+     * Retrieve the identity data of the given users with chunked USER_NAME IN (...) queries.
+     *
+     * @param connection              Database connection.
+     * @param userNames               Domain qualified usernames.
+     * @param tenantId                Tenant ID.
+     * @param isUsernameCaseSensitive Whether usernames are case sensitive.
+     * @return Map of usernames, in lower case if usernames are case insensitive, to their identity data.
+     * @throws SQLException If an error occurs while reading the data.
+     */
+    private Map<String, Map<String, String>> getUserDataValues(Connection connection, List<String> userNames,
+                                                               int tenantId, boolean isUsernameCaseSensitive)
+            throws SQLException {
+
+        Map<String, Map<String, String>> dataValuesOfUsers = new HashMap<>();
+        int chunkSize = getBulkLoadChunkSize();
+        for (int chunkStart = 0; chunkStart < userNames.size(); chunkStart += chunkSize) {
+            List<String> chunk = userNames.subList(chunkStart, Math.min(chunkStart + chunkSize, userNames.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(),
+                    isUsernameCaseSensitive ? QUERY_BINDING_SYMBOL : "LOWER(" + QUERY_BINDING_SYMBOL + ")"));
+            String query = (isUsernameCaseSensitive ? SQLQuery.LOAD_USERS_DATA :
+                    SQLQuery.LOAD_USERS_DATA_CASE_INSENSITIVE) + placeholders + ")";
+            try (PreparedStatement prepStmt = connection.prepareStatement(query)) {
+                prepStmt.setInt(1, tenantId);
+                for (int i = 0; i < chunk.size(); i++) {
+                    prepStmt.setString(i + 2, chunk.get(i));
+                }
+                try (ResultSet results = prepStmt.executeQuery()) {
+                    while (results.next()) {
+                        String userName = results.getString(1);
+                        if (!isUsernameCaseSensitive) {
+                            userName = userName.toLowerCase(Locale.ENGLISH);
+                        }
+                        dataValuesOfUsers.computeIfAbsent(userName, key -> new HashMap<>())
+                                .put(results.getString(2), results.getString(3));
+                    }
+                }
+            }
+        }
+        return dataValuesOfUsers;
+    }
+
+    /**
+     * Persist the coalesced identity data updates taken from the write behind queue. The updates are written with one
+     * upsert batch if the database supports it. Otherwise the existing values of all the users in the batch are read
+     * at once, and the updates are written with one insert and one update batch.
+     *
+     * @param batch Coalesced identity data updates.
+     * @throws SQLException If an error occurs while writing the data.
+     */
+    private void writeDeferredUserDataValues(List<UserIdentityDataWriteBehindQueue.PendingUserData> batch)
+            throws SQLException {
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        try (PreparedStatement addStmt = connection.prepareStatement(SQLQuery.STORE_USER_DATA);
+             PreparedStatement updateStmt = connection.prepareStatement(SQLQuery.UPDATE_USER_DATA);
+             PreparedStatement updateCaseInsensitiveStmt =
+                     connection.prepareStatement(SQLQuery.UPDATE_USER_DATA_CASE_INSENSITIVE)) {
+            Map<Integer, List<UserIdentityDataWriteBehindQueue.PendingUserData>> batchOfTenants = new HashMap<>();
+            for (UserIdentityDataWriteBehindQueue.PendingUserData pending : batch) {
+                batchOfTenants.computeIfAbsent(pending.getTenantId(), tenantId -> new ArrayList<>()).add(pending);
+            }
+            for (Map.Entry<Integer, List<UserIdentityDataWriteBehindQueue.PendingUserData>> tenantEntry :
+                    batchOfTenants.entrySet()) {
+                int tenantId = tenantEntry.getKey();
+                for (boolean isUsernameCaseSensitive : new boolean[]{true, false}) {
+                    List<String> userNames = new ArrayList<>();
+                    for (UserIdentityDataWriteBehindQueue.PendingUserData pending : tenantEntry.getValue()) {
+                        if (pending.isUsernameCaseSensitive() == isUsernameCaseSensitive) {
+                            userNames.add(pending.getUserName());
+                        }
+                    }
+                    if (userNames.isEmpty()) {
+                        continue;
+                    }
+                    String upsertQuery = getUpsertQuery(connection, isUsernameCaseSensitive);
+                    if (upsertQuery != null) {
+                        try (PreparedStatement upsertStmt = connection.prepareStatement(upsertQuery)) {
+                            for (UserIdentityDataWriteBehindQueue.PendingUserData pending : tenantEntry.getValue()) {
+                                if (pending.isUsernameCaseSensitive() != isUsernameCaseSensitive) {
+                                    continue;
+                                }
+                                for (Map.Entry<String, String> claim : pending.getClaims().entrySet()) {
+                                    addUpsertBatch(upsertStmt, tenantId, pending.getUserName(), claim.getKey(),
+                                            claim.getValue());
+                                }
+                            }
+                            upsertStmt.executeBatch();
+                        }
+                        continue;
+                    }
+                    Map<String, Map<String, String>> existingDataValuesOfUsers =
+                            getUserDataValues(connection, userNames, tenantId, isUsernameCaseSensitive);
+                    PreparedStatement prepStmt = isUsernameCaseSensitive ? updateStmt : updateCaseInsensitiveStmt;
+                    for (UserIdentityDataWriteBehindQueue.PendingUserData pending : tenantEntry.getValue()) {
+                        if (pending.isUsernameCaseSensitive() != isUsernameCaseSensitive) {
+                            continue;
+                        }
+                        Map<String, String> existingDataValues = existingDataValuesOfUsers.get(
+                                isUsernameCaseSensitive ? pending.getUserName() :
+                                        pending.getUserName().toLowerCase(Locale.ENGLISH));
+                        for (Map.Entry<String, String> claim : pending.getClaims().entrySet()) {
+                            if (existingDataValues != null && existingDataValues.containsKey(claim.getKey())) {
+                                prepStmt.setString(1, claim.getValue());
+                                prepStmt.setInt(2, tenantId);
+                                prepStmt.setString(3, pending.getUserName());
+                                prepStmt.setString(4, claim.getKey());
+                                prepStmt.addBatch();
+                            } else {
+                                addStmt.setInt(1, tenantId);
+                                addStmt.setString(2, pending.getUserName());
+                                addStmt.setString(3, claim.getKey());
+                                addStmt.setString(4, claim.getValue());
+                                addStmt.addBatch();
+                            }
+                        }
+                    }
+                }
+            }
+            addStmt.executeBatch();
+            updateStmt.executeBatch();
+            updateCaseInsensitiveStmt.executeBatch();
+            IdentityDatabaseUtil.commitTransaction(connection);
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw e;
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+    }
+
+    private int getBulkLoadChunkSize() {
+
+        return IdentityGovernanceUtil.getPositiveIntProperty(BULK_LOAD_CHUNK_SIZE, DEFAULT_BULK_LOAD_CHUNK_SIZE);
+    }
+
     @Override
     public void remove(String userName, UserStoreManager userStoreManager) throws IdentityException {
 
@@ -265,6 +691,9 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
                 query = SQLQuery.DELETE_USER_DATA_CASE_INSENSITIVE;
             }
             prepStmt = connection.prepareStatement(query);
+            if (writeBehindQueue != null) {
+                writeBehindQueue.discard(tenantId, userName, isUsernameCaseSensitive, null);
+            }
             prepStmt.setInt(1, tenantId);
             prepStmt.setString(2, userName);
             prepStmt.execute();
@@ -284,13 +713,7 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
 
         List<String> userNames = new ArrayList<>();
 
-        if (claimValue.contains(QUERY_FILTER_STRING_ANY)) {
-            // This is to support LDAP like queries. Value having only * is restricted except one *.
-            if (!claimValue.matches("(\\*)\\1+")) {
-                // Convert all the * to % except \*.
-                claimValue = claimValue.replaceAll("(?<!\\\\)\\*", SQL_FILTER_STRING_ANY);
-            }
-        }
+        claimValue = toSqlFilterValue(claimValue);
 
         try (Connection connection = IdentityDatabaseUtil.getDBConnection()) {
 
@@ -400,6 +823,155 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A condition without not equal expressions is evaluated with a single query. The identity data rows of the
+     * user store domain with the claims of the condition are grouped by the username, and each expression of the
+     * condition becomes an aggregate over the rows of the user in the HAVING clause, combined with the AND and OR
+     * operations of the condition. Only the matching usernames are read from the database.
+     */
+    @Override
+    public List<String> listUsersByCondition(Condition condition,
+                                             org.wso2.carbon.user.core.UserStoreManager userStoreManager)
+            throws IdentityException {
+
+        Set<String> dataKeys = new LinkedHashSet<>();
+        if (!collectDataKeysOfCondition(condition, dataKeys)) {
+            // Not equal expressions also match the users without identity data, hence evaluated separately, along
+            // with the range expressions.
+            return super.listUsersByCondition(condition, userStoreManager);
+        }
+
+        List<String> userNames = new ArrayList<>();
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(false)) {
+            int tenantId = userStoreManager.getTenantId();
+            String userStoreDomain = UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration());
+
+            List<String> parameters = new ArrayList<>();
+            StringBuilder query = new StringBuilder(SQLQuery.LIST_USERS_BY_CONDITION);
+            if (StringUtils.equalsIgnoreCase(userStoreDomain, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME)) {
+                // Users of the primary domain are stored without the domain, or with the primary domain.
+                query.append("(USER_NAME NOT LIKE ? OR USER_NAME LIKE ?)");
+                parameters.add(SQL_FILTER_STRING_ANY + UserCoreConstants.DOMAIN_SEPARATOR + SQL_FILTER_STRING_ANY);
+                parameters.add(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME + UserCoreConstants.DOMAIN_SEPARATOR +
+                        SQL_FILTER_STRING_ANY);
+            } else {
+                query.append("USER_NAME LIKE ?");
+                parameters.add(userStoreDomain.toUpperCase(Locale.ENGLISH) + UserCoreConstants.DOMAIN_SEPARATOR +
+                        SQL_FILTER_STRING_ANY);
+            }
+            query.append(" AND DATA_KEY IN (")
+                    .append(String.join(",", Collections.nCopies(dataKeys.size(), QUERY_BINDING_SYMBOL)))
+                    .append(") GROUP BY USER_NAME HAVING ");
+            parameters.addAll(dataKeys);
+            appendHavingCondition(condition, query, parameters);
+            query.append(" ORDER BY USER_NAME");
+
+            try (PreparedStatement prepStmt = connection.prepareStatement(query.toString())) {
+                prepStmt.setInt(1, tenantId);
+                for (int i = 0; i < parameters.size(); i++) {
+                    prepStmt.setString(i + 2, parameters.get(i));
+                }
+                try (ResultSet resultSet = prepStmt.executeQuery()) {
+                    while (resultSet.next()) {
+                        userNames.add(resultSet.getString(USER_NAME));
+                    }
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Retrieved " + userNames.size() + " users matching the identity claims: " + dataKeys +
+                        " of user store domain: " + userStoreDomain + " in tenant: " + tenantId);
+            }
+        } catch (SQLException | UserStoreException e) {
+            throw new IdentityException("Error occurred while retrieving users matching the identity claims: " +
+                    dataKeys, e);
+        }
+        return userNames;
+    }
+
+    /**
+     * Collect the claim URIs of the expressions of a condition.
+     *
+     * @return False if the condition cannot be evaluated with a single query.
+     */
+    private boolean collectDataKeysOfCondition(Condition condition, Set<String> dataKeys) {
+
+        if (condition instanceof OperationalCondition) {
+            OperationalCondition operationalCondition = (OperationalCondition) condition;
+            String operation = operationalCondition.getOperation();
+            if (!OperationalOperation.AND.toString().equals(operation) &&
+                    !OperationalOperation.OR.toString().equals(operation)) {
+                return false;
+            }
+            return collectDataKeysOfCondition(operationalCondition.getLeftCondition(), dataKeys) &&
+                    collectDataKeysOfCondition(operationalCondition.getRightCondition(), dataKeys);
+        }
+        if (condition instanceof ExpressionCondition) {
+            ExpressionCondition expressionCondition = (ExpressionCondition) condition;
+            if (getDataValueComparison(expressionCondition.getOperation()) == null ||
+                    expressionCondition.getAttributeName() == null || expressionCondition.getAttributeValue() == null) {
+                return false;
+            }
+            dataKeys.add(expressionCondition.getAttributeName());
+            return true;
+        }
+        return false;
+    }
+
+    private void appendHavingCondition(Condition condition, StringBuilder query, List<String> parameters) {
+
+        if (condition instanceof OperationalCondition) {
+            OperationalCondition operationalCondition = (OperationalCondition) condition;
+            query.append("(");
+            appendHavingCondition(operationalCondition.getLeftCondition(), query, parameters);
+            query.append(" ").append(operationalCondition.getOperation()).append(" ");
+            appendHavingCondition(operationalCondition.getRightCondition(), query, parameters);
+            query.append(")");
+            return;
+        }
+
+        ExpressionCondition expressionCondition = (ExpressionCondition) condition;
+        String operation = expressionCondition.getOperation();
+        String claimValue = expressionCondition.getAttributeValue();
+        claimValue = toSqlFilterValue(IdentityGovernanceUtil.getClaimValueForOperation(operation, claimValue));
+        // The user matches the expression if any identity data row of the user matches it.
+        query.append("MAX(CASE WHEN DATA_KEY = ? AND DATA_VALUE ").append(getDataValueComparison(operation))
+                .append(" ? THEN 1 ELSE 0 END) = 1");
+        parameters.add(expressionCondition.getAttributeName());
+        parameters.add(claimValue);
+    }
+
+    /**
+     * Get the SQL comparison of the data value for an expression operation. Equality is compared with LIKE, same as
+     * when listing the users of a single claim, to support the wildcards in the claim value. The greater than or
+     * equal and less than or equal operations are not evaluated in a single query, so that they are evaluated the
+     * same way as when the expression is filtered on its own.
+     *
+     * @return SQL comparison, or null if the operation is not supported in a single query.
+     */
+    private static String getDataValueComparison(String operation) {
+
+        if (ExpressionOperation.EQ.toString().equals(operation) || ExpressionOperation.EW.toString().equals(operation)
+                || ExpressionOperation.CO.toString().equals(operation) ||
+                ExpressionOperation.SW.toString().equals(operation)) {
+            return "LIKE";
+        }
+        return null;
+    }
+
+    private static String toSqlFilterValue(String claimValue) {
+
+        if (claimValue.contains(QUERY_FILTER_STRING_ANY)) {
+            // This is to support LDAP like queries. Value having only * is restricted except one *.
+            if (!claimValue.matches("(\\*)\\1+")) {
+                // Convert all the * to % except \*.
+                claimValue = claimValue.replaceAll("(?<!\\\\)\\*", SQL_FILTER_STRING_ANY);
+            }
+        }
+        return claimValue;
+    }
+
     @Override
     public List<String> getUserNamesLessThanProvidedClaimValue(String claimURI, String claimValue, int tenantId)
             throws IdentityException {
@@ -408,6 +980,7 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
         List<String> userNames = new ArrayList<>();
         try (Connection connection = IdentityDatabaseUtil.getDBConnection(true)) {
             try (PreparedStatement prepStmt = connection.prepareStatement(sqlStmt)) {
+                prepStmt.setFetchSize(getFetchSize());
                 prepStmt.setString(1, claimURI);
                 prepStmt.setInt(2, tenantId);
                 prepStmt.setString(3, claimValue);
@@ -433,6 +1006,7 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
         List<String> userNames = new ArrayList<>();
         try (Connection connection = IdentityDatabaseUtil.getDBConnection(true)) {
             try (PreparedStatement prepStmt = connection.prepareStatement(sqlStmt)) {
+                prepStmt.setFetchSize(getFetchSize());
                 prepStmt.setString(1, claimURI);
                 prepStmt.setInt(2, tenantId);
                 prepStmt.setString(3, claimValue);
@@ -458,6 +1032,7 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
         List<String> userNames = new ArrayList<>();
         try (Connection connection = IdentityDatabaseUtil.getDBConnection(true)) {
             try (PreparedStatement prepStmt = connection.prepareStatement(sqlStmt)) {
+                prepStmt.setFetchSize(getFetchSize());
                 prepStmt.setString(1, claimURI);
                 prepStmt.setInt(2, tenantId);
                 prepStmt.setString(3, endValue);
@@ -476,6 +1051,117 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
         }
     }
 
+    @Override
+    public UserNamesPage listUsersByClaimValueRange(String claimURI, String lowerBound, String upperBound,
+                                                    int tenantId, String pageToken, int pageSize)
+            throws IdentityException {
+
+        if (pageSize <= 0) {
+            throw IdentityException.error("Invalid page size: " + pageSize);
+        }
+        String[] position = decodePageToken(pageToken);
+
+        List<String> parameters = new ArrayList<>();
+        StringBuilder query = new StringBuilder(SQLQuery.LIST_USERS_BY_DATA_KEY_ORDERED_BY_DATA_VALUE);
+        if (lowerBound != null) {
+            query.append(" AND DATA_VALUE > ?");
+            parameters.add(lowerBound);
+        }
+        if (upperBound != null) {
+            query.append(" AND DATA_VALUE < ?");
+            parameters.add(upperBound);
+        }
+        if (position != null) {
+            // Seek to the position after the last user of the previous page.
+            query.append(" AND (DATA_VALUE > ? OR (DATA_VALUE = ? AND USER_NAME > ?))");
+            parameters.add(position[0]);
+            parameters.add(position[0]);
+            parameters.add(position[1]);
+        }
+        query.append(" ORDER BY DATA_VALUE, USER_NAME");
+
+        List<String> userNames = new ArrayList<>();
+        String lastDataValue = null;
+        boolean hasNextPage = false;
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(false)) {
+            String dbType = getIdentityDBType(connection);
+            if (MSSQL.equals(dbType) || ORACLE.equals(dbType) || POSTGRE_SQL.equals(dbType)) {
+                query.append(" OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY");
+            } else {
+                query.append(" LIMIT ?");
+            }
+
+            try (PreparedStatement prepStmt = connection.prepareStatement(query.toString())) {
+                // One more row than the page size is read to find whether there is a next page.
+                int maxRows = pageSize + 1;
+                prepStmt.setMaxRows(maxRows);
+                prepStmt.setFetchSize(Math.min(maxRows, getFetchSize()));
+                prepStmt.setString(1, claimURI);
+                prepStmt.setInt(2, tenantId);
+                int index = 3;
+                for (String parameter : parameters) {
+                    prepStmt.setString(index++, parameter);
+                }
+                prepStmt.setInt(index, maxRows);
+                try (ResultSet resultSet = prepStmt.executeQuery()) {
+                    while (resultSet.next()) {
+                        if (userNames.size() == pageSize) {
+                            hasNextPage = true;
+                            break;
+                        }
+                        userNames.add(resultSet.getString(1));
+                        lastDataValue = resultSet.getString(2);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IdentityException("Error occurred while retrieving users from Identity Store.", e);
+        }
+
+        String nextPageToken = hasNextPage ? encodePageToken(lastDataValue, userNames.get(userNames.size() - 1)) :
+                null;
+        return new UserNamesPage(userNames, nextPageToken);
+    }
+
+    /**
+     * Encode the position of a user in the claim value order as an opaque continuation token.
+     */
+    private static String encodePageToken(String dataValue, String userName) {
+
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(dataValue.getBytes(StandardCharsets.UTF_8)) + PAGE_TOKEN_SEPARATOR +
+                encoder.encodeToString(userName.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a continuation token to the claim value and the username of the last user of the previous page.
+     *
+     * @return Claim value and username, or null if there is no token.
+     * @throws IdentityException If the token is invalid.
+     */
+    private static String[] decodePageToken(String pageToken) throws IdentityException {
+
+        if (StringUtils.isEmpty(pageToken)) {
+            return null;
+        }
+        String[] parts = pageToken.split(Pattern.quote(PAGE_TOKEN_SEPARATOR), -1);
+        if (parts.length != 2) {
+            throw IdentityException.error("Invalid page token: " + pageToken);
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            return new String[]{new String(decoder.decode(parts[0]), StandardCharsets.UTF_8),
+                    new String(decoder.decode(parts[1]), StandardCharsets.UTF_8)};
+        } catch (IllegalArgumentException e) {
+            throw IdentityException.error("Invalid page token: " + pageToken, e);
+        }
+    }
+
+    private int getFetchSize() {
+
+        return IdentityGovernanceUtil.getPositiveIntProperty(FETCH_SIZE, DEFAULT_FETCH_SIZE);
+    }
+
     @Override
     public List<String> getUserNamesLessThanClaimWithNestedClaim(String claimURI, String claimValue,
                                                                  String nestedClaimURI,
@@ -998,6 +1684,12 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
         public static final String LOAD_USER_DATA_CASE_INSENSITIVE = "SELECT " + "DATA_KEY, DATA_VALUE FROM " +
                 "IDN_IDENTITY_USER_DATA WHERE TENANT_ID = ? AND LOWER(USER_NAME) = LOWER(?)";
 
+        // The IN clause placeholders and the closing parenthesis are appended based on the number of users.
+        public static final String LOAD_USERS_DATA = "SELECT USER_NAME, DATA_KEY, DATA_VALUE FROM " +
+                "IDN_IDENTITY_USER_DATA WHERE TENANT_ID = ? AND USER_NAME IN (";
+        public static final String LOAD_USERS_DATA_CASE_INSENSITIVE = "SELECT USER_NAME, DATA_KEY, DATA_VALUE FROM " +
+                "IDN_IDENTITY_USER_DATA WHERE TENANT_ID = ? AND LOWER(USER_NAME) IN (";
+
         public static final String DELETE_USER_DATA = "DELETE FROM IDN_IDENTITY_USER_DATA WHERE " +
                 "TENANT_ID = ? AND USER_NAME = ?";
         public static final String DELETE_USER_DATA_CASE_INSENSITIVE = "DELETE FROM IDN_IDENTITY_USER_DATA WHERE " +
@@ -1008,6 +1700,14 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
                 "FROM IDN_IDENTITY_USER_DATA " +
                 "WHERE DATA_KEY = ? AND DATA_VALUE LIKE ? AND TENANT_ID = ? AND USER_NAME LIKE ?";
 
+        // The user store domain, data key and HAVING conditions are appended based on the filter condition.
+        static final String LIST_USERS_BY_CONDITION = "SELECT USER_NAME FROM IDN_IDENTITY_USER_DATA WHERE " +
+                "TENANT_ID = ? AND ";
+
+        // The range, the position to continue from and the row limit are appended based on the request.
+        static final String LIST_USERS_BY_DATA_KEY_ORDERED_BY_DATA_VALUE = "SELECT USER_NAME, DATA_VALUE FROM " +
+                "IDN_IDENTITY_USER_DATA WHERE DATA_KEY = ? AND TENANT_ID = ?";
+
         public static final String FILTER_USERS_BY_DATA_KEY_LESS_THAN_DATA_VALUE =
                 "SELECT USER_NAME, DATA_VALUE FROM IDN_IDENTITY_USER_DATA WHERE " +
                         "DATA_KEY = ? AND TENANT_ID = ? AND DATA_VALUE < ?";
@@ -1020,6 +1720,56 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
                 "SELECT USER_NAME, DATA_VALUE FROM IDN_IDENTITY_USER_DATA WHERE " +
                         "DATA_KEY = ? AND TENANT_ID = ? AND DATA_VALUE < ? AND DATA_VALUE > ?";
 
+        // MySQL does not change the rows updated with the same value.
+        public static final String UPSERT_USER_DATA_MYSQL = "INSERT INTO IDN_IDENTITY_USER_DATA (TENANT_ID, " +
+                "USER_NAME, DATA_KEY, DATA_VALUE) VALUES (?,?,?,?) ON DUPLICATE KEY UPDATE DATA_VALUE = " +
+                "VALUES(DATA_VALUE)";
+
+        public static final String UPSERT_USER_DATA_POSTGRESQL = "INSERT INTO IDN_IDENTITY_USER_DATA (TENANT_ID, " +
+                "USER_NAME, DATA_KEY, DATA_VALUE) VALUES (?,?,?,?) ON CONFLICT (TENANT_ID, USER_NAME, DATA_KEY) DO " +
+                "UPDATE SET DATA_VALUE = EXCLUDED.DATA_VALUE WHERE IDN_IDENTITY_USER_DATA.DATA_VALUE IS DISTINCT " +
+                "FROM EXCLUDED.DATA_VALUE";
+
+        private static final String MERGE_USER_DATA_CHANGED = "(T.DATA_VALUE <> S.DATA_VALUE OR T.DATA_VALUE IS " +
+                "NULL OR S.DATA_VALUE IS NULL)";
+        private static final String MERGE_USER_DATA_NOT_MATCHED = " WHEN NOT MATCHED THEN INSERT (TENANT_ID, " +
+                "USER_NAME, DATA_KEY, DATA_VALUE) VALUES (S.TENANT_ID, S.USER_NAME, S.DATA_KEY, S.DATA_VALUE)";
+        private static final String MERGE_USER_DATA_MATCHED = " WHEN MATCHED AND " + MERGE_USER_DATA_CHANGED +
+                " THEN UPDATE SET T.DATA_VALUE = S.DATA_VALUE" + MERGE_USER_DATA_NOT_MATCHED;
+        // Oracle does not support a condition in the WHEN MATCHED clause, hence the update has a WHERE clause.
+        private static final String MERGE_USER_DATA_MATCHED_ORACLE = " WHEN MATCHED THEN UPDATE SET T.DATA_VALUE = " +
+                "S.DATA_VALUE WHERE " + MERGE_USER_DATA_CHANGED + MERGE_USER_DATA_NOT_MATCHED;
+        private static final String MERGE_USER_DATA_ON = " ON (T.TENANT_ID = S.TENANT_ID AND T.USER_NAME = " +
+                "S.USER_NAME AND T.DATA_KEY = S.DATA_KEY)";
+        private static final String MERGE_USER_DATA_ON_CASE_INSENSITIVE = " ON (T.TENANT_ID = S.TENANT_ID AND " +
+                "LOWER(T.USER_NAME) = LOWER(S.USER_NAME) AND T.DATA_KEY = S.DATA_KEY)";
+
+        private static final String MERGE_USER_DATA_ORACLE = "MERGE INTO IDN_IDENTITY_USER_DATA T USING (SELECT ? " +
+                "AS TENANT_ID, ? AS USER_NAME, ? AS DATA_KEY, ? AS DATA_VALUE FROM DUAL) S";
+        public static final String UPSERT_USER_DATA_ORACLE = MERGE_USER_DATA_ORACLE + MERGE_USER_DATA_ON +
+                MERGE_USER_DATA_MATCHED_ORACLE;
+        public static final String UPSERT_USER_DATA_ORACLE_CASE_INSENSITIVE = MERGE_USER_DATA_ORACLE +
+                MERGE_USER_DATA_ON_CASE_INSENSITIVE + MERGE_USER_DATA_MATCHED_ORACLE;
+
+        private static final String MERGE_USER_DATA_MSSQL = "MERGE INTO IDN_IDENTITY_USER_DATA WITH (HOLDLOCK) AS T " +
+                "USING (VALUES (?, ?, ?, ?)) AS S (TENANT_ID, USER_NAME, DATA_KEY, DATA_VALUE)";
+        public static final String UPSERT_USER_DATA_MSSQL = MERGE_USER_DATA_MSSQL + MERGE_USER_DATA_ON +
+                MERGE_USER_DATA_MATCHED + ";";
+        public static final String UPSERT_USER_DATA_MSSQL_CASE_INSENSITIVE = MERGE_USER_DATA_MSSQL +
+                MERGE_USER_DATA_ON_CASE_INSENSITIVE + MERGE_USER_DATA_MATCHED + ";";
+
+        private static final String MERGE_USER_DATA_DB2 = "MERGE INTO IDN_IDENTITY_USER_DATA T USING (VALUES " +
+                "(CAST(? AS INTEGER), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(2048)))) " +
+                "AS S (TENANT_ID, USER_NAME, DATA_KEY, DATA_VALUE)";
+        public static final String UPSERT_USER_DATA_DB2 = MERGE_USER_DATA_DB2 + MERGE_USER_DATA_ON +
+                MERGE_USER_DATA_MATCHED;
+        public static final String UPSERT_USER_DATA_DB2_CASE_INSENSITIVE = MERGE_USER_DATA_DB2 +
+                MERGE_USER_DATA_ON_CASE_INSENSITIVE + MERGE_USER_DATA_MATCHED;
+
+        // H2 supports the MERGE statement of DB2, unlike its MERGE ... KEY statement which rewrites unchanged rows.
+        public static final String UPSERT_USER_DATA_H2 = UPSERT_USER_DATA_DB2;
+        public static final String UPSERT_USER_DATA_H2_CASE_INSENSITIVE = UPSERT_USER_DATA_DB2_CASE_INSENSITIVE;
+
         private SQLQuery() {
         }
     }
@@ -19,14 +19,25 @@
 package org.wso2.carbon.identity.governance.store;
 
 import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
 import org.wso2.carbon.identity.governance.model.UserIdentityClaim;
+import org.wso2.carbon.identity.governance.model.UserNamesPage;
 import org.wso2.carbon.user.api.UserStoreManager;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.model.Condition;
 import org.wso2.carbon.user.core.model.ExpressionCondition;
+import org.wso2.carbon.user.core.model.ExpressionOperation;
+import org.wso2.carbon.user.core.model.OperationalCondition;
+import org.wso2.carbon.user.core.model.OperationalOperation;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * This interface provides to plug module for preferred persistence store.
@@ -64,6 +75,28 @@ public abstract class UserIdentityDataStore {
     public abstract void store(UserIdentityClaim userIdentityDTO, UserStoreManager userStoreManager)
             throws IdentityException;
 
+    /**
+     * Stores data without waiting for it to be persisted, if the store supports deferred writes for all the given
+     * claims. The stored data is visible to subsequent loads immediately.
+     *
+     * @param userIdentityDTO  Identity data to be stored.
+     * @param userStoreManager UserStoreManager instance.
+     * @return True if the data was accepted for a deferred write, false if the caller should use {@link #store}.
+     * @throws IdentityException Identity exception.
+     */
+    public boolean storeDeferred(UserIdentityClaim userIdentityDTO, UserStoreManager userStoreManager)
+            throws IdentityException {
+
+        return false;
+    }
+
+    /**
+     * Releases the resources held by the store, persisting any data whose write was deferred.
+     */
+    public void shutdown() {
+
+    }
+
     /**
      * Loads
      *
@@ -73,6 +106,28 @@ public abstract class UserIdentityDataStore {
      */
     public abstract UserIdentityClaim load(String userName, UserStoreManager userStoreManager);
 
+    /**
+     * Loads the identity data of a set of users belonging to the same user store.
+     *
+     * @param userNames        Usernames of the users.
+     * @param userStoreManager UserStoreManager instance of the user store the users belong to.
+     * @return Map of the given usernames to their identity data. Users without identity data are not included.
+     */
+    public Map<String, UserIdentityClaim> loadAll(Collection<String> userNames, UserStoreManager userStoreManager) {
+
+        // Sub classes which can load users in bulk should override this. Falls back to loading users one by one.
+        Map<String, UserIdentityClaim> userIdentityClaims = new HashMap<>();
+        if (userNames == null) {
+            return userIdentityClaims;
+        }
+        for (String userName : userNames) {
+            UserIdentityClaim userIdentityClaim = load(userName, userStoreManager);
+            if (userIdentityClaim != null) {
+                userIdentityClaims.put(userName, userIdentityClaim);
+            }
+        }
+        return userIdentityClaims;
+    }
 
     /**
      * Removes
@@ -134,6 +189,22 @@ public abstract class UserIdentityDataStore {
         return Collections.emptyList();
     }
 
+    /**
+     * List the users of the user store domain of the given user store manager which match a condition of identity
+     * claims. The condition is a tree of identity claim expressions combined with AND and OR operations.
+     *
+     * @param condition        Identity claim condition.
+     * @param userStoreManager UserStoreManager instance.
+     * @return List of usernames.
+     * @throws IdentityException Identity exception.
+     */
+    public List<String> listUsersByCondition(Condition condition,
+                                             org.wso2.carbon.user.core.UserStoreManager userStoreManager)
+            throws IdentityException {
+
+        return new ArrayList<>(getUserNamesMatchingCondition(condition, userStoreManager));
+    }
+
     /**
      * Get the list of usernames who have the claim value less than the provided claim value for a given claim URI.
      *
@@ -182,6 +253,28 @@ public abstract class UserIdentityDataStore {
         return Collections.emptyList();
     }
 
+    /**
+     * List the users who have a value for the given claim URI within the given range, page by page. The users are
+     * ordered by the claim value and the username, and each page continues after the last user of the previous page,
+     * hence the cost of retrieving a page does not depend on its position.
+     *
+     * @param claimURI   Claim URI.
+     * @param lowerBound Exclusive lower bound of the claim value, or null if there is no lower bound.
+     * @param upperBound Exclusive upper bound of the claim value, or null if there is no upper bound.
+     * @param tenantId   Tenant ID.
+     * @param pageToken  Continuation token returned with the previous page, or null to retrieve the first page.
+     * @param pageSize   Maximum number of users in the page.
+     * @return Page of usernames.
+     * @throws IdentityException Identity exception.
+     */
+    public UserNamesPage listUsersByClaimValueRange(String claimURI, String lowerBound, String upperBound,
+                                                    int tenantId, String pageToken, int pageSize)
+            throws IdentityException {
+
+        // Return an empty page if subclasses do not have any overrides.
+        return new UserNamesPage(Collections.emptyList(), null);
+    }
+
     /**
      * Get the list of usernames who have the claim value less than the provided claim value for a given claim URI
      * and include or exclude the users with the boolean isIncluded
@@ -233,4 +326,43 @@ public abstract class UserIdentityDataStore {
         // Return an immutable empty list if subclasses do not have any overrides.
         return Collections.emptyList();
     }
+
+    /**
+     * Evaluate an identity claim condition by listing the users of each identity claim expression and combining
+     * the lists with set operations.
+     */
+    private Set<String> getUserNamesMatchingCondition(Condition condition,
+                                                      org.wso2.carbon.user.core.UserStoreManager userStoreManager)
+            throws IdentityException {
+
+        if (condition instanceof OperationalCondition) {
+            OperationalCondition operationalCondition = (OperationalCondition) condition;
+            boolean isOr = OperationalOperation.OR.toString().equals(operationalCondition.getOperation());
+            Set<String> userNames = getUserNamesMatchingCondition(operationalCondition.getLeftCondition(),
+                    userStoreManager);
+            if (!isOr && userNames.isEmpty()) {
+                return userNames;
+            }
+            Set<String> rightUserNames = getUserNamesMatchingCondition(operationalCondition.getRightCondition(),
+                    userStoreManager);
+            if (isOr) {
+                userNames.addAll(rightUserNames);
+            } else {
+                userNames.retainAll(rightUserNames);
+            }
+            return userNames;
+        }
+        if (condition instanceof ExpressionCondition) {
+            ExpressionCondition expressionCondition = (ExpressionCondition) condition;
+            String operation = expressionCondition.getOperation();
+            String claimValue = expressionCondition.getAttributeValue();
+            if (ExpressionOperation.NE.toString().equals(operation)) {
+                return new LinkedHashSet<>(getUserNamesByClaimURINotEqualValue(expressionCondition,
+                        expressionCondition.getAttributeName(), claimValue, userStoreManager));
+            }
+            return new LinkedHashSet<>(list(expressionCondition.getAttributeName(),
+                    IdentityGovernanceUtil.getClaimValueForOperation(operation, claimValue), userStoreManager));
+        }
+        return new LinkedHashSet<>();
+    }
 }
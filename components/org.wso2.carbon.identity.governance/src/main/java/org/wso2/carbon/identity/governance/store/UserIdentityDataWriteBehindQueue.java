@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance.store;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces identity data updates of users in memory and persists them in batches on a fixed interval, so that
+ * frequently updated metadata claims such as the last login time do not cost a database write per update.
+ * Updates of the same user are merged, hence only the latest value of each claim is written.
+ */
+class UserIdentityDataWriteBehindQueue {
+
+    private static final Log log = LogFactory.getLog(UserIdentityDataWriteBehindQueue.class);
+    private static final long SHUTDOWN_TIMEOUT_IN_SECONDS = 30;
+    private static final long IN_FLIGHT_WRITE_TIMEOUT_IN_SECONDS = 30;
+
+    private final Set<String> deferrableClaims;
+    private final int batchSize;
+    private final int maxPendingUsers;
+    private final Writer writer;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean flushTriggered = new AtomicBoolean(false);
+    private final Map<UserKey, PendingUserData> pendingUserData = new ConcurrentHashMap<>();
+    // Updates which are being written by a flush. Kept visible for reads until the write completes.
+    private final Map<UserKey, PendingUserData> inFlightUserData = new ConcurrentHashMap<>();
+
+    /**
+     * Persists a batch of coalesced user identity data updates.
+     */
+    interface Writer {
+
+        void write(List<PendingUserData> batch) throws Exception;
+    }
+
+    UserIdentityDataWriteBehindQueue(Set<String> deferrableClaims, long flushIntervalInMillis, int batchSize,
+                                     int maxPendingUsers, Writer writer) {
+
+        this.deferrableClaims = Collections.unmodifiableSet(new HashSet<>(deferrableClaims));
+        this.batchSize = batchSize;
+        this.maxPendingUsers = maxPendingUsers;
+        this.writer = writer;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "IdentityDataWriteBehindFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flushSafely, flushIntervalInMillis, flushIntervalInMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Check whether all the given claims can be persisted through the queue.
+     *
+     * @param claims Claim URIs.
+     * @return True if all the claims are configured to be written behind.
+     */
+    boolean isDeferrable(Collection<String> claims) {
+
+        return !claims.isEmpty() && deferrableClaims.containsAll(claims);
+    }
+
+    /**
+     * Add identity data updates of a user to the queue, merging them with the updates already pending for the user.
+     *
+     * @param tenantId                Tenant ID.
+     * @param userName                Domain qualified username.
+     * @param isUsernameCaseSensitive Whether the username is case sensitive.
+     * @param claims                  Claims to be persisted.
+     */
+    void enqueue(int tenantId, String userName, boolean isUsernameCaseSensitive, Map<String, String> claims) {
+
+        UserKey key = new UserKey(tenantId, userName, isUsernameCaseSensitive);
+        pendingUserData.compute(key, (userKey, pending) -> {
+            if (pending == null) {
+                pending = new PendingUserData(tenantId, userName, isUsernameCaseSensitive);
+            }
+            synchronized (pending) {
+                pending.claims.putAll(claims);
+            }
+            return pending;
+        });
+        if (pendingUserData.size() >= maxPendingUsers && flushTriggered.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flushSafely);
+            } catch (RejectedExecutionException e) {
+                flushTriggered.set(false);
+                if (log.isDebugEnabled()) {
+                    log.debug("Write behind queue is shut down. Pending identity data will be written on drain.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the claim values of a user which are not yet persisted.
+     *
+     * @param tenantId                Tenant ID.
+     * @param userName                Domain qualified username.
+     * @param isUsernameCaseSensitive Whether the username is case sensitive.
+     * @return Claims which are not persisted yet. Empty if there are none.
+     */
+    Map<String, String> getUnpersistedClaims(int tenantId, String userName, boolean isUsernameCaseSensitive) {
+
+        UserKey key = new UserKey(tenantId, userName, isUsernameCaseSensitive);
+        Map<String, String> claims = new HashMap<>();
+        PendingUserData inFlight = inFlightUserData.get(key);
+        if (inFlight != null) {
+            claims.putAll(inFlight.claims);
+        }
+        // Pending updates are newer than the in flight updates.
+        PendingUserData pending = pendingUserData.get(key);
+        if (pending != null) {
+            synchronized (pending) {
+                claims.putAll(pending.claims);
+            }
+        }
+        return claims;
+    }
+
+    /**
+     * Discard the pending updates of the given claims of a user, since they are about to be persisted or removed
+     * directly. If a flush is writing the updates of the user, this waits until the write completes, so that the
+     * older values written by the flush do not overwrite the direct write which follows.
+     *
+     * @param tenantId                Tenant ID.
+     * @param userName                Domain qualified username.
+     * @param isUsernameCaseSensitive Whether the username is case sensitive.
+     * @param claims                  Claims to be discarded. All the claims are discarded if null.
+     */
+    void discard(int tenantId, String userName, boolean isUsernameCaseSensitive, Collection<String> claims) {
+
+        UserKey key = new UserKey(tenantId, userName, isUsernameCaseSensitive);
+        discardPending(key, claims);
+        PendingUserData inFlight = inFlightUserData.get(key);
+        if (inFlight == null) {
+            return;
+        }
+        try {
+            if (!inFlight.written.await(IN_FLIGHT_WRITE_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Timed out while waiting for the write behind queue to write the identity data of user: " +
+                        userName + " in tenant: " + tenantId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // A failed write puts the updates back to the queue, hence they are discarded again.
+        discardPending(key, claims);
+    }
+
+    boolean isEmpty() {
+
+        return pendingUserData.isEmpty() && inFlightUserData.isEmpty();
+    }
+
+    /**
+     * Write all the pending updates to the database.
+     */
+    synchronized void flush() {
+
+        flushTriggered.set(false);
+        while (!pendingUserData.isEmpty()) {
+            List<PendingUserData> batch = new ArrayList<>(batchSize);
+            for (UserKey key : pendingUserData.keySet()) {
+                if (batch.size() >= batchSize) {
+                    break;
+                }
+                // The updates are moved atomically, so that a discard sees them either pending or in flight.
+                pendingUserData.computeIfPresent(key, (userKey, pending) -> {
+                    inFlightUserData.put(userKey, pending);
+                    batch.add(pending);
+                    return null;
+                });
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                writer.write(batch);
+            } catch (Exception e) {
+                log.error("Error while writing identity data of " + batch.size() + " users. The updates will be " +
+                        "retried in the next flush.", e);
+                requeue(batch);
+                return;
+            } finally {
+                for (PendingUserData pending : batch) {
+                    inFlightUserData.remove(pending.getKey(), pending);
+                    pending.written.countDown();
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Wrote identity data of " + batch.size() + " users from the write behind queue.");
+            }
+        }
+    }
+
+    /**
+     * Stop the scheduled flushes and write all the pending updates.
+     */
+    void shutdown() {
+
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (!pendingUserData.isEmpty()) {
+            log.warn("Identity data of " + pendingUserData.size() + " users could not be written while draining the " +
+                    "write behind queue.");
+        }
+    }
+
+    private void flushSafely() {
+
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Error while flushing the identity data write behind queue.", e);
+        }
+    }
+
+    private void discardPending(UserKey key, Collection<String> claims) {
+
+        pendingUserData.computeIfPresent(key, (userKey, pending) -> {
+            if (claims == null) {
+                return null;
+            }
+            synchronized (pending) {
+                pending.claims.keySet().removeAll(claims);
+                return pending.claims.isEmpty() ? null : pending;
+            }
+        });
+    }
+
+    private void requeue(List<PendingUserData> batch) {
+
+        for (PendingUserData failed : batch) {
+            // The failed updates are copied, as the writes waiting for them are released once they are requeued.
+            PendingUserData retry = new PendingUserData(failed.tenantId, failed.userName,
+                    failed.usernameCaseSensitive);
+            retry.claims.putAll(failed.claims);
+            // Updates received after the batch was taken are newer, hence they take precedence.
+            pendingUserData.merge(failed.getKey(), retry, (newer, older) -> {
+                synchronized (newer) {
+                    for (Map.Entry<String, String> claim : older.claims.entrySet()) {
+                        newer.claims.putIfAbsent(claim.getKey(), claim.getValue());
+                    }
+                }
+                return newer;
+            });
+        }
+    }
+
+    /**
+     * Coalesced identity data updates of a user.
+     */
+    static final class PendingUserData {
+
+        private final int tenantId;
+        private final String userName;
+        private final boolean usernameCaseSensitive;
+        private final Map<String, String> claims = new HashMap<>();
+        // Released once a flush has written or failed to write the updates.
+        private final CountDownLatch written = new CountDownLatch(1);
+
+        private PendingUserData(int tenantId, String userName, boolean usernameCaseSensitive) {
+
+            this.tenantId = tenantId;
+            this.userName = userName;
+            this.usernameCaseSensitive = usernameCaseSensitive;
+        }
+
+        int getTenantId() {
+
+            return tenantId;
+        }
+
+        String getUserName() {
+
+            return userName;
+        }
+
+        boolean isUsernameCaseSensitive() {
+
+            return usernameCaseSensitive;
+        }
+
+        Map<String, String> getClaims() {
+
+            return claims;
+        }
+
+        private UserKey getKey() {
+
+            return new UserKey(tenantId, userName, usernameCaseSensitive);
+        }
+    }
+
+    private static final class UserKey {
+
+        private final int tenantId;
+        private final String userName;
+
+        private UserKey(int tenantId, String userName, boolean isUsernameCaseSensitive) {
+
+            this.tenantId = tenantId;
+            this.userName = isUsernameCaseSensitive ? userName : userName.toLowerCase(Locale.ENGLISH);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            UserKey that = (UserKey) o;
+            return tenantId == that.tenantId && userName.equals(that.userName);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return 31 * tenantId + userName.hashCode();
+        }
+    }
+}
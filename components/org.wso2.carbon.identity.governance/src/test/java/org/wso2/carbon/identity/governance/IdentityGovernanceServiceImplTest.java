@@ -29,17 +29,36 @@ import org.testng.annotations.Test;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.IdentityProvider;
 import org.wso2.carbon.identity.application.common.model.IdentityProviderProperty;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.governance.bean.ConnectorConfig;
+import org.wso2.carbon.identity.governance.common.IdentityConnectorConfig;
 import org.wso2.carbon.identity.governance.internal.IdentityMgtServiceDataHolder;
+import org.wso2.carbon.identity.governance.internal.cache.GovernanceConfigCache;
+import org.wso2.carbon.identity.governance.internal.cache.GovernanceConfigCacheKey;
+import org.wso2.carbon.identity.governance.model.GovernanceConfigSnapshot;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
 import org.wso2.carbon.idp.mgt.IdpManager;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
 
 public class IdentityGovernanceServiceImplTest {
 
@@ -66,8 +85,16 @@ public class IdentityGovernanceServiceImplTest {
     @Mock
     IdentityProvider identityProvider;
 
+    @Mock
+    GovernanceConfigCache governanceConfigCache;
+
+    @Mock
+    IdentityConnectorConfig usernameRecoveryConnector;
+
     MockedStatic<IdentityMgtServiceDataHolder> identityMgtServiceDataHolderMockedStatic;
 
+    MockedStatic<GovernanceConfigCache> governanceConfigCacheMockedStatic;
+
     private IdentityGovernanceServiceImpl identityGovernanceService;
 
     @BeforeMethod
@@ -78,6 +105,8 @@ public class IdentityGovernanceServiceImplTest {
         identityMgtServiceDataHolderMockedStatic.when(IdentityMgtServiceDataHolder::
                 getInstance).thenReturn(identityMgtServiceDataHolder);
         when(identityMgtServiceDataHolder.getIdpManager()).thenReturn(idpManager);
+        governanceConfigCacheMockedStatic = mockStatic(GovernanceConfigCache.class);
+        governanceConfigCacheMockedStatic.when(GovernanceConfigCache::getInstance).thenReturn(governanceConfigCache);
         when(idpManager.getResidentIdP(TENANT_DOMAIN)).thenReturn(identityProvider);
 
         FederatedAuthenticatorConfig[] authenticatorConfigs = new FederatedAuthenticatorConfig[0];
@@ -90,6 +119,7 @@ public class IdentityGovernanceServiceImplTest {
     public void tearDown() {
 
         identityMgtServiceDataHolderMockedStatic.close();
+        governanceConfigCacheMockedStatic.close();
     }
 
     @Test(dataProvider = "updateConfigurations")
@@ -114,6 +144,100 @@ public class IdentityGovernanceServiceImplTest {
 
     }
 
+    @Test
+    public void testUpdateConfigurationClearsConfigurationCache() throws IdentityGovernanceException {
+
+        when(identityProvider.getIdpProperties()).thenReturn(
+                getUsernameRecoveryIdentityProviderProperties(false, false, false));
+
+        Map<String, String> configurationDetails = new HashMap<>();
+        configurationDetails.put(USERNAME_RECOVERY_ENABLE, TRUE_STRING);
+        identityGovernanceService.updateConfiguration(TENANT_DOMAIN, configurationDetails);
+
+        verify(governanceConfigCache).clearCacheEntry(new GovernanceConfigCacheKey(TENANT_DOMAIN), TENANT_DOMAIN);
+    }
+
+    @Test
+    public void testGetConfigurationSnapshot() throws Exception {
+
+        when(identityProvider.getIdpProperties()).thenReturn(
+                getUsernameRecoveryIdentityProviderProperties(true, false, true));
+
+        GovernanceConfigSnapshot configSnapshot = identityGovernanceService.getConfigurationSnapshot(TENANT_DOMAIN);
+
+        verify(governanceConfigCache).addToCache(any(GovernanceConfigCacheKey.class), eq(configSnapshot),
+                eq(TENANT_DOMAIN));
+        assertTrue(configSnapshot.getBoolean(USERNAME_RECOVERY_ENABLE, false));
+        assertFalse(configSnapshot.getBoolean(USERNAME_RECOVERY_EMAIL_ENABLE, true));
+        assertTrue(configSnapshot.getBoolean(PASSWORD_RECOVERY_ENABLE, true));
+
+        Property[] properties = identityGovernanceService.getConfiguration(
+                new String[]{USERNAME_RECOVERY_SMS_ENABLE, PASSWORD_RECOVERY_ENABLE}, TENANT_DOMAIN);
+        assertEquals(1, properties.length);
+        assertEquals(USERNAME_RECOVERY_SMS_ENABLE, properties[0].getName());
+        assertEquals(TRUE_STRING, properties[0].getValue());
+    }
+
+    @Test
+    public void testGetConfigurationSnapshotFromCache() throws Exception {
+
+        GovernanceConfigSnapshot cachedSnapshot = new GovernanceConfigSnapshot(new Property[0]);
+        when(governanceConfigCache.getValueFromCache(new GovernanceConfigCacheKey(TENANT_DOMAIN), TENANT_DOMAIN))
+                .thenReturn(cachedSnapshot);
+
+        assertEquals(cachedSnapshot, identityGovernanceService.getConfigurationSnapshot(TENANT_DOMAIN));
+        verify(idpManager, never()).getResidentIdP(TENANT_DOMAIN);
+    }
+
+    @Test
+    public void testGetConnectorWithConfigs() throws Exception {
+
+        when(identityProvider.getIdpProperties()).thenReturn(
+                getUsernameRecoveryIdentityProviderProperties(true, false, true));
+        when(usernameRecoveryConnector.getName()).thenReturn("Recovery.Notification.Username");
+        when(usernameRecoveryConnector.getCategory()).thenReturn("Account Management");
+        when(usernameRecoveryConnector.getPropertyNames()).thenReturn(new String[]{USERNAME_RECOVERY_ENABLE});
+        when(usernameRecoveryConnector.getPropertyNameMapping()).thenReturn(Collections.emptyMap());
+        when(usernameRecoveryConnector.getPropertyDescriptionMapping()).thenReturn(Collections.emptyMap());
+        when(identityMgtServiceDataHolder.getIdentityGovernanceConnectorList()).thenReturn(
+                Collections.singletonList(usernameRecoveryConnector));
+
+        ConnectorConfig connectorConfig = identityGovernanceService.getConnectorWithConfigs(TENANT_DOMAIN,
+                "Recovery.Notification.Username");
+
+        // The connector declares one property, the rest are matched with the connector name as the prefix.
+        assertEquals(3, connectorConfig.getProperties().length);
+        assertEquals(USERNAME_RECOVERY_ENABLE, connectorConfig.getProperties()[0].getName());
+        assertEquals(TRUE_STRING, connectorConfig.getProperties()[0].getValue());
+        assertNull(identityGovernanceService.getConnectorWithConfigs(TENANT_DOMAIN, "Unknown.Connector"));
+        assertNotSame(connectorConfig,
+                identityGovernanceService.getConnectorWithConfigs(TENANT_DOMAIN, "Recovery.Notification.Username"));
+        assertEquals(1, identityGovernanceService.getConnectorListWithConfigsByCategory(TENANT_DOMAIN,
+                "Account Management").size());
+    }
+
+    @Test
+    public void testConnectorConfigsAreReusedForCopiesOfSnapshot() throws Exception {
+
+        GovernanceConfigSnapshot configSnapshot = new GovernanceConfigSnapshot(new Property[0]);
+        GovernanceConfigSnapshot copiedSnapshot = copyOf(configSnapshot);
+        GovernanceConfigSnapshot updatedSnapshot = new GovernanceConfigSnapshot(new Property[0]);
+        when(governanceConfigCache.getValueFromCache(new GovernanceConfigCacheKey(TENANT_DOMAIN), TENANT_DOMAIN))
+                .thenReturn(configSnapshot, copiedSnapshot, updatedSnapshot);
+        when(usernameRecoveryConnector.getName()).thenReturn("Recovery.Notification.Username");
+        when(usernameRecoveryConnector.getPropertyNames()).thenReturn(new String[]{USERNAME_RECOVERY_ENABLE});
+        when(identityMgtServiceDataHolder.getIdentityGovernanceConnectorList()).thenReturn(
+                Collections.singletonList(usernameRecoveryConnector));
+
+        identityGovernanceService.getConnectorListWithConfigs(TENANT_DOMAIN);
+        // A copy of the snapshot, as read from a distributed cache, does not materialize the configurations again.
+        identityGovernanceService.getConnectorListWithConfigs(TENANT_DOMAIN);
+        verify(usernameRecoveryConnector, times(1)).getPropertyNames();
+
+        identityGovernanceService.getConnectorListWithConfigs(TENANT_DOMAIN);
+        verify(usernameRecoveryConnector, times(2)).getPropertyNames();
+    }
+
     @DataProvider(name = "updateConfigurations")
     public Object[][] buildConfigurations() {
 
@@ -388,4 +512,16 @@ public class IdentityGovernanceServiceImplTest {
 
         return expected;
     }
+
+    private static GovernanceConfigSnapshot copyOf(GovernanceConfigSnapshot configSnapshot) throws Exception {
+
+        ByteArrayOutputStream serializedSnapshot = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(serializedSnapshot)) {
+            outputStream.writeObject(configSnapshot);
+        }
+        try (ObjectInputStream inputStream = new ObjectInputStream(
+                new ByteArrayInputStream(serializedSnapshot.toByteArray()))) {
+            return (GovernanceConfigSnapshot) inputStream.readObject();
+        }
+    }
 }
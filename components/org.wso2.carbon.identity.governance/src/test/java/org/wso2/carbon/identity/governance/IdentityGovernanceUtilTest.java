@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance;
+
+import org.mockito.MockedStatic;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.user.core.UserCoreConstants;
+import org.wso2.carbon.user.core.UserStoreException;
+import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
+import org.wso2.carbon.user.core.model.UserClaimSearchEntry;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests for IdentityGovernanceUtil.
+ */
+public class IdentityGovernanceUtilTest {
+
+    private MockedStatic<IdentityUtil> mockedIdentityUtil;
+
+    @BeforeMethod
+    public void setUp() {
+
+        mockedIdentityUtil = mockStatic(IdentityUtil.class);
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty(
+                IdentityMgtConstants.PropertyConfig.USER_ID_RESOLUTION_CHUNK_SIZE)).thenReturn("2");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        mockedIdentityUtil.close();
+    }
+
+    @Test
+    public void testGetUserIdsFromUserNames() throws Exception {
+
+        AbstractUserStoreManager userStoreManager = mock(AbstractUserStoreManager.class);
+        when(userStoreManager.getUsersClaimValues(eq(new String[]{"user1", "user2"}), any(String[].class),
+                eq(UserCoreConstants.DEFAULT_PROFILE))).thenReturn(new UserClaimSearchEntry[]{
+                createEntry("user1", "id1"), createEntry("user2", "id2")});
+        // The third user is missing in the bulk result and is resolved on its own.
+        when(userStoreManager.getUsersClaimValues(eq(new String[]{"user3"}), any(String[].class),
+                eq(UserCoreConstants.DEFAULT_PROFILE))).thenReturn(new UserClaimSearchEntry[0]);
+        when(userStoreManager.getUserIDFromUserName("user3")).thenReturn("id3");
+
+        Map<String, String> userIds = IdentityGovernanceUtil.getUserIdsFromUserNames(userStoreManager,
+                Arrays.asList("user1", "user2", "user3"));
+
+        assertEquals(userIds.size(), 3);
+        assertEquals(userIds.get("user1"), "id1");
+        assertEquals(userIds.get("user2"), "id2");
+        assertEquals(userIds.get("user3"), "id3");
+        verify(userStoreManager, times(2)).getUsersClaimValues(any(String[].class), any(String[].class),
+                eq(UserCoreConstants.DEFAULT_PROFILE));
+        verify(userStoreManager, never()).getUserIDFromUserName("user1");
+    }
+
+    @Test
+    public void testGetUserIdsFromDomainQualifiedUserNames() throws Exception {
+
+        mockedIdentityUtil.when(IdentityUtil::getPrimaryDomainName).thenReturn("PRIMARY");
+        AbstractUserStoreManager userStoreManager = mock(AbstractUserStoreManager.class);
+        AbstractUserStoreManager secondaryUserStoreManager = mock(AbstractUserStoreManager.class);
+        when(userStoreManager.getSecondaryUserStoreManager("SECONDARY")).thenReturn(secondaryUserStoreManager);
+        when(userStoreManager.getUsersClaimValues(eq(new String[]{"user1", "user3"}), any(String[].class),
+                eq(UserCoreConstants.DEFAULT_PROFILE))).thenReturn(new UserClaimSearchEntry[]{
+                createEntry("user1", "id1"), createEntry("user3", "id3")});
+        when(secondaryUserStoreManager.getUsersClaimValues(eq(new String[]{"SECONDARY/user2"}), any(String[].class),
+                eq(UserCoreConstants.DEFAULT_PROFILE))).thenReturn(new UserClaimSearchEntry[]{
+                createEntry("SECONDARY/user2", "id2")});
+
+        // The users of each user store are resolved together, irrespective of their order.
+        Map<String, String> userIds = IdentityGovernanceUtil.getUserIdsFromDomainQualifiedUserNames(
+                userStoreManager, Arrays.asList("user1", "SECONDARY/user2", "user3"));
+
+        assertEquals(userIds.size(), 3);
+        assertEquals(userIds.get("user1"), "id1");
+        assertEquals(userIds.get("SECONDARY/user2"), "id2");
+        assertEquals(userIds.get("user3"), "id3");
+    }
+
+    @Test(expectedExceptions = UserStoreException.class)
+    public void testGetUserIdsFromDomainQualifiedUserNamesOfMissingUserStore() throws Exception {
+
+        mockedIdentityUtil.when(IdentityUtil::getPrimaryDomainName).thenReturn("PRIMARY");
+        IdentityGovernanceUtil.getUserIdsFromDomainQualifiedUserNames(mock(AbstractUserStoreManager.class),
+                Collections.singletonList("SECONDARY/user1"));
+    }
+
+    private UserClaimSearchEntry createEntry(String userName, String userId) {
+
+        UserClaimSearchEntry userClaimSearchEntry = new UserClaimSearchEntry();
+        userClaimSearchEntry.setUserName(userName);
+        userClaimSearchEntry.setClaims(Collections.singletonMap(IdentityMgtConstants.Claim.USER_ID, userId));
+        return userClaimSearchEntry;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit tests for RegexPatternCache.
+ */
+public class RegexPatternCacheTest {
+
+    private static final String TEST_TENANT_DOMAIN = "regex.com";
+    private static final String CLAIM_URI = "http://wso2.org/claims/emailaddress";
+    private static final String EMAIL_REGEX = "^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@[A-Za-z0-9-]+" +
+            "(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$";
+
+    @AfterMethod
+    public void tearDown() {
+
+        RegexPatternCache.getInstance().clear(TEST_TENANT_DOMAIN);
+    }
+
+    @Test
+    public void testGetPattern() {
+
+        RegexPatternCache regexPatternCache = RegexPatternCache.getInstance();
+        long hitCount = regexPatternCache.getHitCount();
+        long missCount = regexPatternCache.getMissCount();
+
+        Pattern pattern = regexPatternCache.getPattern(TEST_TENANT_DOMAIN, CLAIM_URI, EMAIL_REGEX);
+        assertSame(regexPatternCache.getPattern(TEST_TENANT_DOMAIN, CLAIM_URI, EMAIL_REGEX), pattern);
+        assertEquals(regexPatternCache.getMissCount(), missCount + 1);
+        assertEquals(regexPatternCache.getHitCount(), hitCount + 1);
+
+        // An updated regex of the same claim is compiled again.
+        Pattern updatedPattern = regexPatternCache.getPattern(TEST_TENANT_DOMAIN, CLAIM_URI, "^.+@.+$");
+        assertNotSame(updatedPattern, pattern);
+        assertEquals(updatedPattern.pattern(), "^.+@.+$");
+    }
+
+    @Test
+    public void testGetPatternRejectsBacktrackingRegex() {
+
+        RegexPatternCache regexPatternCache = RegexPatternCache.getInstance();
+        long rejectedCount = regexPatternCache.getRejectedCount();
+        for (int i = 0; i < 2; i++) {
+            try {
+                regexPatternCache.getPattern(TEST_TENANT_DOMAIN, CLAIM_URI, "^(\\w+\\s?)*$");
+                fail("Expected the regex to be rejected.");
+            } catch (PatternSyntaxException e) {
+                assertEquals(e.getIndex(), 9);
+            }
+        }
+        // The rejection is cached, hence the regex is analyzed once.
+        assertEquals(regexPatternCache.getRejectedCount(), rejectedCount + 1);
+    }
+
+    @DataProvider
+    public Object[][] regexes() {
+
+        return new Object[][]{
+                {"(a+)+", 4},
+                {"(\\w+\\s?)*", 8},
+                {"((ab)+)+", 7},
+                {"([a-z]{1,3})+", 12},
+                {"(.*)*", 4},
+                {"(?i)(a*)*", 8},
+                {"(?:a|b?)+", 8},
+                {EMAIL_REGEX, -1},
+                {"[a-zA-Z0-9._\\-|//]{3,30}$", -1},
+                {"^(\\d{1,3}\\.){3}\\d{1,3}$", -1},
+                {"(a{2})+", -1},
+                {"(a|b)+", -1},
+                {"(?>a+)+", -1},
+                {"(a++)+", -1},
+                {"(?=.*[a-z])(?=.*\\d).{8,}", -1},
+                {"[()+]+", -1},
+                {"\\(a+\\)+", -1}
+        };
+    }
+
+    @Test(dataProvider = "regexes")
+    public void testFindBacktrackingGroup(String regex, int expectedIndex) {
+
+        assertEquals(RegexPatternCache.findBacktrackingGroup(regex), expectedIndex);
+    }
+}
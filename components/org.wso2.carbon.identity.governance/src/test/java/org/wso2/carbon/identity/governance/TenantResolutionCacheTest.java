@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance;
+
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests for TenantResolutionCache.
+ */
+public class TenantResolutionCacheTest {
+
+    private static final int TEST_TENANT_ID = 4567;
+    private static final String TEST_TENANT_DOMAIN = "tenant-cache.com";
+
+    private MockedStatic<IdentityTenantUtil> mockedIdentityTenantUtil;
+
+    @BeforeMethod
+    public void setUp() {
+
+        TenantResolutionCache.getInstance().clear();
+        mockedIdentityTenantUtil = Mockito.mockStatic(IdentityTenantUtil.class);
+        mockedIdentityTenantUtil.when(() -> IdentityTenantUtil.getTenantDomain(TEST_TENANT_ID))
+                .thenReturn(TEST_TENANT_DOMAIN);
+        mockedIdentityTenantUtil.when(() -> IdentityTenantUtil.getTenantId(TEST_TENANT_DOMAIN))
+                .thenReturn(TEST_TENANT_ID);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        mockedIdentityTenantUtil.close();
+        TenantResolutionCache.getInstance().clear();
+    }
+
+    @Test
+    public void testMappingsAreCachedInBothDirections() {
+
+        TenantResolutionCache tenantResolutionCache = TenantResolutionCache.getInstance();
+        long hitCount = tenantResolutionCache.getHitCount();
+        long missCount = tenantResolutionCache.getMissCount();
+
+        assertEquals(tenantResolutionCache.getTenantDomain(TEST_TENANT_ID), TEST_TENANT_DOMAIN);
+        assertEquals(tenantResolutionCache.getTenantId(TEST_TENANT_DOMAIN), TEST_TENANT_ID);
+        assertEquals(tenantResolutionCache.getTenantDomain(TEST_TENANT_ID), TEST_TENANT_DOMAIN);
+
+        assertEquals(tenantResolutionCache.getMissCount(), missCount + 1);
+        assertEquals(tenantResolutionCache.getHitCount(), hitCount + 2);
+        mockedIdentityTenantUtil.verify(() -> IdentityTenantUtil.getTenantDomain(TEST_TENANT_ID));
+        mockedIdentityTenantUtil.verify(() -> IdentityTenantUtil.getTenantId(TEST_TENANT_DOMAIN), Mockito.never());
+    }
+
+    @Test
+    public void testClearTenant() {
+
+        TenantResolutionCache tenantResolutionCache = TenantResolutionCache.getInstance();
+        assertEquals(tenantResolutionCache.getTenantId(TEST_TENANT_DOMAIN), TEST_TENANT_ID);
+
+        // The domain of a deactivated and re-created tenant is resolved again.
+        tenantResolutionCache.clear(TEST_TENANT_ID);
+        mockedIdentityTenantUtil.when(() -> IdentityTenantUtil.getTenantId(TEST_TENANT_DOMAIN))
+                .thenReturn(TEST_TENANT_ID + 1);
+        assertEquals(tenantResolutionCache.getTenantId(TEST_TENANT_DOMAIN), TEST_TENANT_ID + 1);
+        mockedIdentityTenantUtil.verify(() -> IdentityTenantUtil.getTenantId(TEST_TENANT_DOMAIN), Mockito.times(2));
+    }
+
+    @Test
+    public void testMappingsExpire() throws Exception {
+
+        TenantResolutionCache tenantResolutionCache = new TenantResolutionCache(10, 100);
+        assertEquals(tenantResolutionCache.getTenantId(TEST_TENANT_DOMAIN), TEST_TENANT_ID);
+        assertEquals(tenantResolutionCache.getTenantDomain(TEST_TENANT_ID), TEST_TENANT_DOMAIN);
+        assertEquals(tenantResolutionCache.getHitCount(), 1);
+
+        // The domain of a tenant re-created in another node is resolved again once the mapping expires.
+        Thread.sleep(200);
+        mockedIdentityTenantUtil.when(() -> IdentityTenantUtil.getTenantId(TEST_TENANT_DOMAIN))
+                .thenReturn(TEST_TENANT_ID + 1);
+        assertEquals(tenantResolutionCache.getTenantId(TEST_TENANT_DOMAIN), TEST_TENANT_ID + 1);
+        assertEquals(tenantResolutionCache.getMissCount(), 2);
+    }
+
+    @Test
+    public void testMappingCachedFirstIsEvicted() {
+
+        mockedIdentityTenantUtil.when(() -> IdentityTenantUtil.getTenantDomain(TEST_TENANT_ID + 1))
+                .thenReturn("second-" + TEST_TENANT_DOMAIN);
+        mockedIdentityTenantUtil.when(() -> IdentityTenantUtil.getTenantDomain(TEST_TENANT_ID + 2))
+                .thenReturn("third-" + TEST_TENANT_DOMAIN);
+        TenantResolutionCache tenantResolutionCache = new TenantResolutionCache(2, 60000);
+        tenantResolutionCache.getTenantDomain(TEST_TENANT_ID);
+        tenantResolutionCache.getTenantDomain(TEST_TENANT_ID + 1);
+        tenantResolutionCache.getTenantDomain(TEST_TENANT_ID + 2);
+        assertEquals(tenantResolutionCache.getMissCount(), 3);
+
+        // Only the mapping cached first is evicted, in both directions.
+        assertEquals(tenantResolutionCache.getTenantId("second-" + TEST_TENANT_DOMAIN), TEST_TENANT_ID + 1);
+        assertEquals(tenantResolutionCache.getTenantDomain(TEST_TENANT_ID + 2), "third-" + TEST_TENANT_DOMAIN);
+        assertEquals(tenantResolutionCache.getHitCount(), 2);
+        assertEquals(tenantResolutionCache.getTenantId(TEST_TENANT_DOMAIN), TEST_TENANT_ID);
+        assertEquals(tenantResolutionCache.getMissCount(), 4);
+    }
+}
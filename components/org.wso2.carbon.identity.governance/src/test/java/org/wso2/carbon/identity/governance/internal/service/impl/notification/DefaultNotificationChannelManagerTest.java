@@ -30,6 +30,7 @@ import org.testng.annotations.Test;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.governance.IdentityMgtConstants;
+import org.wso2.carbon.identity.governance.TenantResolutionCache;
 import org.wso2.carbon.identity.governance.exceptions.notiification.NotificationChannelManagerException;
 import org.wso2.carbon.identity.governance.internal.IdentityMgtServiceDataHolder;
 import org.wso2.carbon.identity.governance.service.notification.NotificationChannels;
@@ -92,6 +93,7 @@ public class DefaultNotificationChannelManagerTest {
         mockedIdentityUtil.close();
         mockedIdentityMgtServiceDataHolder.close();
         mockedIdentityTenantUtil.close();
+        TenantResolutionCache.getInstance().clear();
     }
 
     /**
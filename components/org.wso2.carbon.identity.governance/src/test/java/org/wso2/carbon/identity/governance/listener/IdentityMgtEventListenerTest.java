@@ -18,17 +18,27 @@ package org.wso2.carbon.identity.governance.listener;
 
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.context.IdentityContext;
+import org.wso2.carbon.identity.core.context.model.Flow;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.event.IdentityEventClientException;
+import org.wso2.carbon.identity.event.IdentityEventConfigBuilder;
+import org.wso2.carbon.identity.event.IdentityEventConstants;
 import org.wso2.carbon.identity.event.IdentityEventException;
+import org.wso2.carbon.identity.event.bean.ModuleConfiguration;
+import org.wso2.carbon.identity.event.bean.Subscription;
 import org.wso2.carbon.identity.event.event.Event;
 import org.wso2.carbon.identity.event.services.IdentityEventService;
+import org.wso2.carbon.identity.governance.IdentityMgtConstants;
+import org.wso2.carbon.identity.governance.TenantResolutionCache;
 import org.wso2.carbon.identity.governance.internal.IdentityMgtServiceDataHolder;
 import org.wso2.carbon.user.api.Permission;
 import org.wso2.carbon.user.api.RealmConfiguration;
@@ -37,21 +47,32 @@ import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.UserStoreClientException;
 import org.wso2.carbon.user.core.UserStoreManager;
 import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.model.UserMgtContext;
 import org.wso2.carbon.user.core.tenant.TenantManager;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.spy;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.expectThrows;
 
@@ -62,6 +83,7 @@ public class IdentityMgtEventListenerTest {
 
     private int SAMPLE_TENANT_ID = 3456;
     private String SAMPLE_TENANT_DOMAIN = "abc.com";
+    private static final String ASYNC_EVENT_DISPATCHER_THREAD_PREFIX = "IdentityMgtAsyncEventDispatcher-";
 
     @Mock
     UserStoreManager userStoreManager;
@@ -534,6 +556,7 @@ public class IdentityMgtEventListenerTest {
         tenantManager = Mockito.mock(TenantManager.class);
         when(realmService.getTenantManager()).thenReturn(tenantManager);
         when(tenantManager.getDomain(SAMPLE_TENANT_ID)).thenReturn(SAMPLE_TENANT_DOMAIN);
+        new IdentityTenantUtil().setRealmService(realmService);
 
         TestUtils.startTenantFlow(SAMPLE_TENANT_DOMAIN);
         when(userStoreManager.getTenantId()).thenReturn(SAMPLE_TENANT_ID);
@@ -561,6 +584,8 @@ public class IdentityMgtEventListenerTest {
         IdentityMgtServiceDataHolder.getInstance().setRealmService(realmService);
         when(realmService.getTenantManager()).thenReturn(tenantManager);
         when(tenantManager.getDomain(1)).thenReturn("testDomain");
+        new IdentityTenantUtil().setRealmService(realmService);
+        TenantResolutionCache.getInstance().clear(1);
 
         Method handleEventMethod = IdentityMgtEventListener.class.getDeclaredMethod(
                 "handleEvent", String.class, HashMap.class, UserStoreManager.class);
@@ -600,4 +625,161 @@ public class IdentityMgtEventListenerTest {
         assertTrue(cause instanceof UserStoreException);
         assertEquals(cause.getMessage(), "policy‐violation");
     }
+
+    @Test
+    public void testPreEventsAreHandledSynchronously() throws Exception {
+
+        List<String> handlerThreads = new CopyOnWriteArrayList<>();
+        handleEventWithAsyncEvents(IdentityEventConstants.Event.PRE_ADD_USER, new HashMap<>(),
+                recordHandlerThread(handlerThreads), createModuleConfigurations(true));
+        assertEquals(handlerThreads, Collections.singletonList(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void testPostEventsOfNonBlockingHandlersAreQueued() throws Exception {
+
+        List<String> handlerThreads = new CopyOnWriteArrayList<>();
+        handleEventWithAsyncEvents(IdentityEventConstants.Event.POST_ADD_USER, new HashMap<>(),
+                recordHandlerThread(handlerThreads), createModuleConfigurations(true));
+        assertEquals(handlerThreads.size(), 1);
+        assertTrue(handlerThreads.get(0).startsWith(ASYNC_EVENT_DISPATCHER_THREAD_PREFIX), handlerThreads.get(0));
+    }
+
+    @Test
+    public void testEventWithBlockingHandlerIsHandledSynchronously() throws Exception {
+
+        // The notification handler is non-blocking while the audit handler subscribed to the same event is not.
+        List<String> handlerThreads = new CopyOnWriteArrayList<>();
+        handleEventWithAsyncEvents(IdentityEventConstants.Event.POST_ADD_USER, new HashMap<>(),
+                recordHandlerThread(handlerThreads), createModuleConfigurations(true, false));
+        assertEquals(handlerThreads, Collections.singletonList(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void testEventWithNonCopyablePropertyIsHandledSynchronously() throws Exception {
+
+        // The credential is cleared by the caller once the operation returns, hence it cannot be handed over.
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put(IdentityEventConstants.EventProperty.CREDENTIAL, "password".toCharArray());
+        List<String> handlerThreads = new CopyOnWriteArrayList<>();
+        handleEventWithAsyncEvents(IdentityEventConstants.Event.POST_ADD_USER, properties,
+                recordHandlerThread(handlerThreads), createModuleConfigurations(true));
+        assertEquals(handlerThreads, Collections.singletonList(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void testQueuedEventsAreHandledInCallerContext() throws Exception {
+
+        Map<String, Object> handlerContext = Collections.synchronizedMap(new HashMap<>());
+        IdentityEventService eventService = mock(IdentityEventService.class);
+        doAnswer(invocation -> {
+            handlerContext.put("thread", Thread.currentThread().getName());
+            handlerContext.put("tenantDomain", PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain());
+            handlerContext.put("username", PrivilegedCarbonContext.getThreadLocalCarbonContext().getUsername());
+            handlerContext.put("flow", IdentityContext.getThreadLocalIdentityContext().getFlow().getName());
+            handlerContext.put("property", IdentityUtil.threadLocalProperties.get().get("testProperty"));
+            handlerContext.put("userMgtContext", UserCoreUtil.getUserMgtContextFromThreadLocal());
+            return null;
+        }).when(eventService).handleEvent(any(Event.class));
+
+        UserMgtContext userMgtContext = new UserMgtContext();
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setUsername("admin");
+            IdentityContext.getThreadLocalIdentityContext().setFlow(new Flow.Builder()
+                    .name(Flow.Name.PASSWORD_RESET)
+                    .initiatingPersona(Flow.InitiatingPersona.ADMIN)
+                    .build());
+            IdentityUtil.threadLocalProperties.get().put("testProperty", "testValue");
+            UserCoreUtil.setUserMgtContextInThreadLocal(userMgtContext);
+            handleEventWithAsyncEvents(IdentityEventConstants.Event.POST_ADD_USER, new HashMap<>(), eventService,
+                    createModuleConfigurations(true));
+        } finally {
+            UserCoreUtil.removeUserMgtContextInThreadLocal();
+            IdentityUtil.threadLocalProperties.get().remove("testProperty");
+            IdentityContext.destroyCurrentContext();
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+
+        assertTrue(((String) handlerContext.get("thread")).startsWith(ASYNC_EVENT_DISPATCHER_THREAD_PREFIX));
+        assertEquals(handlerContext.get("tenantDomain"), MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        assertEquals(handlerContext.get("username"), "admin");
+        assertEquals(handlerContext.get("flow"), Flow.Name.PASSWORD_RESET);
+        assertEquals(handlerContext.get("property"), "testValue");
+        assertSame(handlerContext.get("userMgtContext"), userMgtContext);
+    }
+
+    /**
+     * Handle the event with a listener created while asynchronous events are enabled. The listener is shut down
+     * before this returns, hence the queued events are handled by then.
+     */
+    private void handleEventWithAsyncEvents(String eventName, HashMap<String, Object> properties,
+                                            IdentityEventService eventService,
+                                            Map<String, ModuleConfiguration> moduleConfigurations) throws Exception {
+
+        UserStoreManager superTenantUserStoreManager = mock(UserStoreManager.class);
+        when(superTenantUserStoreManager.getTenantId()).thenReturn(MultitenantConstants.SUPER_TENANT_ID);
+        IdentityEventConfigBuilder configBuilder = mock(IdentityEventConfigBuilder.class);
+        when(configBuilder.getModuleConfiguration()).thenReturn(moduleConfigurations);
+        IdentityEventService originalEventService = instance.getIdentityEventService();
+        try (MockedStatic<IdentityUtil> mockedIdentityUtil = mockStatic(IdentityUtil.class);
+             MockedStatic<IdentityTenantUtil> mockedIdentityTenantUtil = mockStatic(IdentityTenantUtil.class);
+             MockedStatic<IdentityEventConfigBuilder> mockedConfigBuilder =
+                     mockStatic(IdentityEventConfigBuilder.class)) {
+            mockedIdentityUtil.when(() -> IdentityUtil.getProperty(
+                    IdentityMgtConstants.PropertyConfig.ASYNC_EVENTS_ENABLE)).thenReturn("true");
+            mockedConfigBuilder.when(IdentityEventConfigBuilder::getInstance).thenReturn(configBuilder);
+            mockedIdentityTenantUtil.when(() -> IdentityTenantUtil.getTenantDomain(
+                    MultitenantConstants.SUPER_TENANT_ID)).thenReturn(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+            instance.setIdentityEventService(eventService);
+            IdentityMgtEventListener listener = new IdentityMgtEventListener();
+            try {
+                Method handleEventMethod = IdentityMgtEventListener.class.getDeclaredMethod(
+                        "handleEvent", String.class, HashMap.class, UserStoreManager.class);
+                handleEventMethod.setAccessible(true);
+                handleEventMethod.invoke(listener, eventName, properties, superTenantUserStoreManager);
+            } finally {
+                listener.shutdown();
+            }
+        } finally {
+            instance.setIdentityEventService(originalEventService);
+        }
+    }
+
+    private IdentityEventService recordHandlerThread(List<String> handlerThreads) throws Exception {
+
+        IdentityEventService eventService = mock(IdentityEventService.class);
+        doAnswer(invocation -> {
+            handlerThreads.add(Thread.currentThread().getName());
+            return null;
+        }).when(eventService).handleEvent(any(Event.class));
+        return eventService;
+    }
+
+    /**
+     * Create the configurations of event handlers subscribed to the add user events, one for each of the given
+     * non-blocking declarations.
+     */
+    private Map<String, ModuleConfiguration> createModuleConfigurations(boolean... nonBlocking) {
+
+        Map<String, ModuleConfiguration> moduleConfigurations = new HashMap<>();
+        for (int i = 0; i < nonBlocking.length; i++) {
+            String moduleName = "eventHandler" + i;
+            Properties moduleProperties = new Properties();
+            moduleProperties.setProperty(moduleName + "." + IdentityMgtConstants.PropertyConfig
+                    .EVENT_HANDLER_NON_BLOCKING, String.valueOf(nonBlocking[i]));
+            List<Subscription> subscriptions = new ArrayList<>();
+            for (String eventName : Arrays.asList(IdentityEventConstants.Event.PRE_ADD_USER,
+                    IdentityEventConstants.Event.POST_ADD_USER)) {
+                Subscription subscription = mock(Subscription.class);
+                when(subscription.getSubscriptionName()).thenReturn(eventName);
+                subscriptions.add(subscription);
+            }
+            ModuleConfiguration moduleConfiguration = mock(ModuleConfiguration.class);
+            when(moduleConfiguration.getModuleProperties()).thenReturn(moduleProperties);
+            when(moduleConfiguration.getSubscriptions()).thenReturn(subscriptions);
+            moduleConfigurations.put(moduleName, moduleConfiguration);
+        }
+        return moduleConfigurations;
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance.listener;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.event.IdentityEventException;
+import org.wso2.carbon.identity.event.event.Event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for OrderedEventDispatchQueue.
+ */
+public class OrderedEventDispatchQueueTest {
+
+    @Test
+    public void testEventsOfSameKeyAreDispatchedInOrder() {
+
+        List<String> dispatchedEvents = Collections.synchronizedList(new ArrayList<>());
+        OrderedEventDispatchQueue queue = new OrderedEventDispatchQueue(4, 100, 100,
+                (event, callerContext) -> dispatchedEvents.add(event.getEventName()));
+        List<String> expectedEvents = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            expectedEvents.add("POST_EVENT_" + i);
+            assertTrue(queue.enqueue("carbon.super:user1", createEvent("POST_EVENT_" + i), null));
+        }
+
+        queue.shutdown();
+
+        assertEquals(dispatchedEvents, expectedEvents);
+        assertEquals(queue.getDispatchedCount(), 50);
+    }
+
+    @Test
+    public void testFailedEventsAreNotRetried() {
+
+        AtomicInteger attempts = new AtomicInteger();
+        OrderedEventDispatchQueue queue = new OrderedEventDispatchQueue(1, 10, 100, (event, callerContext) -> {
+            attempts.incrementAndGet();
+            throw new IdentityEventException("Simulated failure.");
+        });
+
+        assertTrue(queue.enqueue("carbon.super:user1", createEvent("POST_ADD_USER"), null));
+        queue.shutdown();
+
+        // The event handlers which handled the event before the failure must not handle it again.
+        assertEquals(attempts.get(), 1);
+        assertEquals(queue.getDispatchedCount(), 0);
+        assertEquals(queue.getFailedCount(), 1);
+    }
+
+    @Test
+    public void testRejectedEventIsHandedBackAfterQueuedEventsOfSameKey() throws Exception {
+
+        List<String> dispatchedEvents = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch dispatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseDispatch = new CountDownLatch(1);
+        OrderedEventDispatchQueue queue = new OrderedEventDispatchQueue(1, 1, 10, (event, callerContext) -> {
+            dispatchStarted.countDown();
+            try {
+                releaseDispatch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dispatchedEvents.add(event.getEventName());
+        });
+
+        assertTrue(queue.enqueue("carbon.super:user1", createEvent("POST_EVENT_1"), null));
+        assertTrue(dispatchStarted.await(5, TimeUnit.SECONDS));
+        assertTrue(queue.enqueue("carbon.super:user1", createEvent("POST_EVENT_2"), null));
+
+        // The worker is busy and the queue is full. The event of another key is handed back right away.
+        assertFalse(queue.enqueue("carbon.super:user2", createEvent("POST_EVENT_OF_USER_2"), null));
+        assertTrue(dispatchedEvents.isEmpty());
+
+        // The event of the same key is handed back only after the queued events of the key are dispatched.
+        CompletableFuture<Boolean> rejectedEvent = CompletableFuture.supplyAsync(
+                () -> queue.enqueue("carbon.super:user1", createEvent("POST_EVENT_3"), null));
+        Thread.sleep(100);
+        assertFalse(rejectedEvent.isDone());
+        releaseDispatch.countDown();
+        assertFalse(rejectedEvent.get(5, TimeUnit.SECONDS));
+        assertEquals(dispatchedEvents, Arrays.asList("POST_EVENT_1", "POST_EVENT_2"));
+        assertEquals(queue.getRejectedCount(), 2);
+
+        queue.shutdown();
+
+        assertEquals(queue.getDispatchedCount(), 2);
+        assertFalse(queue.enqueue("carbon.super:user1", createEvent("POST_EVENT_4"), null));
+    }
+
+    @Test
+    public void testEventsRaisedWhileDispatchingAreHandedBack() throws Exception {
+
+        AtomicBoolean nestedEventQueued = new AtomicBoolean(true);
+        OrderedEventDispatchQueue[] queue = new OrderedEventDispatchQueue[1];
+        queue[0] = new OrderedEventDispatchQueue(1, 10, 10, (event, callerContext) -> {
+            if ("POST_EVENT_1".equals(event.getEventName())) {
+                nestedEventQueued.set(queue[0].enqueue("carbon.super:user1", createEvent("POST_EVENT_2"), null));
+            }
+        });
+
+        assertTrue(queue[0].enqueue("carbon.super:user1", createEvent("POST_EVENT_1"), null));
+        queue[0].shutdown();
+
+        assertFalse(nestedEventQueued.get());
+        assertEquals(queue[0].getDispatchedCount(), 1);
+    }
+
+    private Event createEvent(String eventName) {
+
+        return new Event(eventName, new HashMap<>());
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance.listener;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.event.IdentityEventClientException;
+import org.wso2.carbon.identity.event.IdentityEventException;
+import org.wso2.carbon.identity.event.event.Event;
+import org.wso2.carbon.identity.event.handler.AbstractEventHandler;
+import org.wso2.carbon.identity.event.services.IdentityEventService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit tests for RetryingEventDispatcher.
+ */
+public class RetryingEventDispatcherTest {
+
+    private static final String EVENT_NAME = "POST_ADD_USER";
+
+    @Test
+    public void testOnlyFailedHandlersAreRetried() throws Exception {
+
+        List<String> invokedHandlers = Collections.synchronizedList(new ArrayList<>());
+        AbstractEventHandler notificationHandler = createHandler("notificationHandler", 10, invokedHandlers);
+        AbstractEventHandler auditHandler = createHandler("auditHandler", 20, invokedHandlers);
+        doThrow(new IdentityEventException("Temporary failure.")).doAnswer(invocation -> {
+            invokedHandlers.add("auditHandler");
+            return null;
+        }).when(auditHandler).handleEvent(any(Event.class));
+
+        IdentityEventService eventService = mock(IdentityEventService.class);
+        RetryingEventDispatcher dispatcher = new RetryingEventDispatcher(eventService,
+                () -> Arrays.asList(auditHandler, notificationHandler), 3, 1);
+        dispatcher.dispatch(createEvent());
+
+        // Handlers are invoked in the order of their priority, and the handler which succeeded is not invoked again.
+        assertEquals(invokedHandlers, Arrays.asList("notificationHandler", "auditHandler"));
+        verify(notificationHandler, times(1)).handleEvent(any(Event.class));
+        verify(auditHandler, times(2)).handleEvent(any(Event.class));
+        verify(eventService, never()).handleEvent(any(Event.class));
+        assertEquals(dispatcher.getRetriedCount(), 1);
+    }
+
+    @Test
+    public void testHandlerFailingAfterRetriesFailsEvent() throws Exception {
+
+        List<String> invokedHandlers = Collections.synchronizedList(new ArrayList<>());
+        AbstractEventHandler failingHandler = createHandler("failingHandler", 10, invokedHandlers);
+        AbstractEventHandler auditHandler = createHandler("auditHandler", 20, invokedHandlers);
+        doThrow(new IdentityEventException("Permanent failure.")).when(failingHandler).handleEvent(any(Event.class));
+
+        RetryingEventDispatcher dispatcher = new RetryingEventDispatcher(mock(IdentityEventService.class),
+                () -> Arrays.asList(failingHandler, auditHandler), 2, 1);
+        try {
+            dispatcher.dispatch(createEvent());
+            fail("Event should fail as an event handler failed.");
+        } catch (IdentityEventException e) {
+            assertTrue(e.getMessage().contains("failingHandler"));
+        }
+        // The remaining handlers still handle the event.
+        assertEquals(invokedHandlers, Collections.singletonList("auditHandler"));
+        verify(failingHandler, times(3)).handleEvent(any(Event.class));
+        assertEquals(dispatcher.getRetriedCount(), 2);
+    }
+
+    @Test
+    public void testClientErrorsAreNotRetried() throws Exception {
+
+        AbstractEventHandler handler = createHandler("handler", 10, new ArrayList<>());
+        doThrow(new IdentityEventClientException("Invalid event.")).when(handler).handleEvent(any(Event.class));
+
+        RetryingEventDispatcher dispatcher = new RetryingEventDispatcher(mock(IdentityEventService.class),
+                () -> Collections.singletonList(handler), 3, 1);
+        try {
+            dispatcher.dispatch(createEvent());
+            fail("Event should fail as the event handler failed.");
+        } catch (IdentityEventException e) {
+            verify(handler, times(1)).handleEvent(any(Event.class));
+            assertEquals(dispatcher.getRetriedCount(), 0);
+        }
+    }
+
+    @Test
+    public void testHandlersNotHandlingEventAreSkipped() throws Exception {
+
+        AbstractEventHandler handler = createHandler("handler", 10, new ArrayList<>());
+        when(handler.canHandle(any())).thenReturn(false);
+
+        IdentityEventService eventService = mock(IdentityEventService.class);
+        new RetryingEventDispatcher(eventService, () -> Collections.singletonList(handler), 3, 1)
+                .dispatch(createEvent());
+        verify(handler, never()).handleEvent(any(Event.class));
+        verify(eventService, never()).handleEvent(any(Event.class));
+    }
+
+    @Test
+    public void testEventIsHandedToEventServiceWithoutRegisteredHandlers() throws Exception {
+
+        IdentityEventService eventService = mock(IdentityEventService.class);
+        Event event = createEvent();
+        new RetryingEventDispatcher(eventService, Collections::emptyList, 3, 1).dispatch(event);
+        verify(eventService).handleEvent(event);
+    }
+
+    private AbstractEventHandler createHandler(String name, int priority, List<String> invokedHandlers)
+            throws Exception {
+
+        AbstractEventHandler handler = mock(AbstractEventHandler.class);
+        when(handler.getName()).thenReturn(name);
+        when(handler.canHandle(any())).thenReturn(true);
+        when(handler.getPriority(any())).thenReturn(priority);
+        doAnswer(invocation -> {
+            invokedHandlers.add(name);
+            return null;
+        }).when(handler).handleEvent(any(Event.class));
+        return handler;
+    }
+
+    private Event createEvent() {
+
+        return new Event(EVENT_NAME, new HashMap<>());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance.service;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.model.ExpressionCondition;
+import org.wso2.carbon.user.core.model.ExpressionOperation;
+import org.wso2.carbon.user.core.model.OperationalCondition;
+import org.wso2.carbon.user.core.model.OperationalOperation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests for the default methods of IdentityDataStoreService.
+ */
+public class IdentityDataStoreServiceTest {
+
+    private static final String ACCOUNT_LOCKED_CLAIM = "http://wso2.org/claims/identity/accountLocked";
+    private static final String ACCOUNT_STATE_CLAIM = "http://wso2.org/claims/identity/accountState";
+    private static final String EMAIL_VERIFIED_CLAIM = "http://wso2.org/claims/identity/emailVerified";
+
+    private IdentityDataStoreService identityDataStoreService;
+    private UserStoreManager userStoreManager;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        identityDataStoreService = mock(IdentityDataStoreService.class, CALLS_REAL_METHODS);
+        userStoreManager = mock(UserStoreManager.class);
+        doReturn(Arrays.asList("user1", "user2")).when(identityDataStoreService)
+                .listUsersByClaimURIAndValue(ACCOUNT_LOCKED_CLAIM, "true", userStoreManager);
+        doReturn(Arrays.asList("user2", "user3")).when(identityDataStoreService)
+                .listUsersByClaimURIAndValue(ACCOUNT_STATE_CLAIM, "PENDING%", userStoreManager);
+    }
+
+    @Test
+    public void testListUsersByConditionWithAndOperation() throws Exception {
+
+        List<String> userNames = identityDataStoreService.listUsersByCondition(new OperationalCondition(
+                OperationalOperation.AND.toString(),
+                new ExpressionCondition(ExpressionOperation.EQ.toString(), ACCOUNT_LOCKED_CLAIM, "true"),
+                new ExpressionCondition(ExpressionOperation.SW.toString(), ACCOUNT_STATE_CLAIM, "PENDING")),
+                userStoreManager);
+
+        assertEquals(userNames, Collections.singletonList("user2"));
+    }
+
+    @Test
+    public void testListUsersByConditionWithOrOperation() throws Exception {
+
+        List<String> userNames = identityDataStoreService.listUsersByCondition(new OperationalCondition(
+                OperationalOperation.OR.toString(),
+                new ExpressionCondition(ExpressionOperation.EQ.toString(), ACCOUNT_LOCKED_CLAIM, "true"),
+                new ExpressionCondition(ExpressionOperation.SW.toString(), ACCOUNT_STATE_CLAIM, "PENDING")),
+                userStoreManager);
+
+        assertEquals(userNames, Arrays.asList("user1", "user2", "user3"));
+    }
+
+    @Test
+    public void testListUsersByConditionSkipsRightConditionOfEmptyAndOperation() throws Exception {
+
+        doReturn(Collections.emptyList()).when(identityDataStoreService)
+                .listUsersByClaimURIAndValue(EMAIL_VERIFIED_CLAIM, "false", userStoreManager);
+        ExpressionCondition notEqualCondition = new ExpressionCondition(ExpressionOperation.NE.toString(),
+                ACCOUNT_LOCKED_CLAIM, "true");
+        List<String> userNames = identityDataStoreService.listUsersByCondition(new OperationalCondition(
+                OperationalOperation.AND.toString(),
+                new ExpressionCondition(ExpressionOperation.EQ.toString(), EMAIL_VERIFIED_CLAIM, "false"),
+                notEqualCondition), userStoreManager);
+
+        assertEquals(userNames, Collections.emptyList());
+        verify(identityDataStoreService, never()).getUserNamesByClaimURINotEqualValue(any(), anyString(),
+                anyString(), any());
+    }
+}
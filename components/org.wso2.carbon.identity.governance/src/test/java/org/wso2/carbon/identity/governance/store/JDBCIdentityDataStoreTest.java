@@ -27,29 +27,44 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.wso2.carbon.context.CarbonContext;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.governance.model.UserIdentityClaim;
+import org.wso2.carbon.identity.governance.model.UserNamesPage;
 import org.wso2.carbon.identity.governance.service.IdentityDataStoreService;
 import org.wso2.carbon.identity.governance.service.IdentityDataStoreServiceImpl;
 import org.wso2.carbon.identity.governance.store.Utils.TestUtils;
 import org.wso2.carbon.user.api.RealmConfiguration;
+import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.UserRealm;
 import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.model.Condition;
 import org.wso2.carbon.user.core.model.ExpressionCondition;
 import org.wso2.carbon.user.core.model.ExpressionOperation;
+import org.wso2.carbon.user.core.model.OperationalCondition;
+import org.wso2.carbon.user.core.model.OperationalOperation;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.utils.dbcreator.DatabaseCreator;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
@@ -68,6 +83,8 @@ public class JDBCIdentityDataStoreTest {
     private static final String ACCOUNT_STATE_CLAIM_VALUE = "DISABLED";
     private static final String EMAIL_VERIFIED_CLAIM = "http://wso2.org/claims/identity/emailVerified";
     private static final String USER_6_USERNAME = "DEFAULT/sampleUser6@xmail.com";
+    // Identity data written by the tests is kept in a separate tenant, so that the other tests are not affected.
+    private static final int WRITE_TENANT_ID = 5;
 
     private MockedStatic<IdentityDatabaseUtil> mockedIdentityDatabaseUtils;
     private MockedStatic<IdentityTenantUtil> mockedIdentityTenantUtil;
@@ -75,6 +92,7 @@ public class JDBCIdentityDataStoreTest {
     private MockedStatic<IdentityUtil> mockedIdentityUtil;
     private MockedStatic<UserCoreUtil> mockedUserCoreUtil;
     private MockedStatic<DatabaseCreator> mockedDatabaseCreator;
+    private MockedStatic<PrivilegedCarbonContext> mockedPrivilegedCarbonContext;
 
     private UserStoreManager userStoreManager;
     IdentityDataStoreService identityDataStoreService;
@@ -188,6 +206,10 @@ public class JDBCIdentityDataStoreTest {
         mockedIdentityUtil.close();
         mockedUserCoreUtil.close();
         mockedDatabaseCreator.close();
+        if (mockedPrivilegedCarbonContext != null) {
+            mockedPrivilegedCarbonContext.close();
+            mockedPrivilegedCarbonContext = null;
+        }
     }
 
     @AfterClass
@@ -398,6 +420,301 @@ public class JDBCIdentityDataStoreTest {
         assertEquals(result.size(), 6, "Should return all 6 users for NE operation with non-existent claim URI");
     }
 
+    @DataProvider
+    Object[][] testDataForListUsersByCondition() {
+
+        Condition disabled = new ExpressionCondition(ExpressionOperation.EQ.toString(), ACCOUNT_STATE_CLAIM_URI,
+                ACCOUNT_STATE_CLAIM_VALUE);
+        Condition emailVerified = new ExpressionCondition(ExpressionOperation.EQ.toString(), EMAIL_VERIFIED_CLAIM,
+                "true");
+        Condition emailNotVerified = new ExpressionCondition(ExpressionOperation.NE.toString(),
+                EMAIL_VERIFIED_CLAIM, "true");
+        Condition loggedInRecently = new ExpressionCondition(ExpressionOperation.SW.toString(), CLAIM_URI,
+                "1674");
+        Condition disabledLike = new ExpressionCondition(ExpressionOperation.CO.toString(), ACCOUNT_STATE_CLAIM_URI,
+                "SABL");
+        return new Object[][]{
+                {new OperationalCondition(OperationalOperation.AND.toString(), disabled, emailVerified),
+                        Collections.singletonList("DEFAULT/sampleUser5@xmail.com")},
+                {new OperationalCondition(OperationalOperation.OR.toString(), disabled, emailVerified),
+                        Arrays.asList("DEFAULT/sampleUser1@xmail.com", "DEFAULT/sampleUser3@xmail.com",
+                                "DEFAULT/sampleUser5@xmail.com")},
+                {new OperationalCondition(OperationalOperation.AND.toString(), loggedInRecently,
+                        new OperationalCondition(OperationalOperation.OR.toString(), disabledLike, emailVerified)),
+                        Arrays.asList("DEFAULT/sampleUser3@xmail.com", "DEFAULT/sampleUser5@xmail.com")},
+                {new OperationalCondition(OperationalOperation.AND.toString(), disabled, emailNotVerified),
+                        Arrays.asList("DEFAULT/sampleUser1@xmail.com", "DEFAULT/sampleUser3@xmail.com")}
+        };
+    }
+
+    @Test(description = "Test listUsersByCondition with AND and OR combinations of identity claim conditions.",
+            dataProvider = "testDataForListUsersByCondition")
+    public void testListUsersByCondition(Condition condition, List<String> expectedUserNames) throws Exception {
+
+        List<String> result = jdbcIdentityDataStore.listUsersByCondition(condition, userStoreManager);
+
+        List<String> sortedResult = new ArrayList<>(result);
+        Collections.sort(sortedResult);
+        assertEquals(sortedResult, expectedUserNames);
+    }
+
+    @DataProvider
+    Object[][] testDataForListUsersByConditionWithRangeExpressions() {
+
+        return new Object[][]{
+                {ExpressionOperation.GE.toString()},
+                {ExpressionOperation.LE.toString()}
+        };
+    }
+
+    @Test(description = "Test listUsersByCondition evaluates the range expressions the same way as a single claim " +
+            "filter.", dataProvider = "testDataForListUsersByConditionWithRangeExpressions")
+    public void testListUsersByConditionWithRangeExpressions(String operation) throws Exception {
+
+        Condition lastLogon = new ExpressionCondition(operation, CLAIM_URI, "1674000000000");
+        Condition disabled = new ExpressionCondition(ExpressionOperation.EQ.toString(), ACCOUNT_STATE_CLAIM_URI,
+                ACCOUNT_STATE_CLAIM_VALUE);
+
+        List<String> singleClaimResult = jdbcIdentityDataStore.list(CLAIM_URI, "1674000000000", userStoreManager);
+        List<String> result = jdbcIdentityDataStore.listUsersByCondition(
+                new OperationalCondition(OperationalOperation.AND.toString(), lastLogon, disabled), userStoreManager);
+
+        assertEquals(singleClaimResult, Collections.singletonList("DEFAULT/sampleUser3@xmail.com"));
+        assertEquals(result, singleClaimResult);
+    }
+
+    @Test(description = "Test listUsersByClaimValueRange pages through the users in the claim value order.")
+    public void testListUsersByClaimValueRange() throws Exception {
+
+        List<List<String>> pages = new ArrayList<>();
+        String pageToken = null;
+        do {
+            UserNamesPage page = jdbcIdentityDataStore.listUsersByClaimValueRange(CLAIM_URI, CLAIM_VALUE_2,
+                    CLAIM_VALUE_1, TENANT_ID, pageToken, 2);
+            pages.add(page.getUserNames());
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+
+        assertEquals(pages.size(), 2);
+        assertEquals(pages.get(0), Arrays.asList("DEFAULT/sampleUser2@xmail.com", "DEFAULT/sampleUser3@xmail.com"));
+        assertEquals(pages.get(1), Arrays.asList("DEFAULT/sampleUser4@xmail.com", "DEFAULT/sampleUser5@xmail.com"));
+    }
+
+    @Test(description = "Test listUsersByClaimValueRange with an invalid page token.",
+            expectedExceptions = IdentityException.class)
+    public void testListUsersByClaimValueRangeWithInvalidPageToken() throws Exception {
+
+        jdbcIdentityDataStore.listUsersByClaimValueRange(CLAIM_URI, null, null, TENANT_ID, "invalid", 2);
+    }
+
+    @Test(description = "Test store adds the identity data of a user with the upsert statement.")
+    public void testStoreAddsUserData() throws Exception {
+
+        mockUserStoreOfTenant(WRITE_TENANT_ID, true);
+        enableUpsert();
+        Map<String, String> claims = new HashMap<>();
+        claims.put(ACCOUNT_STATE_CLAIM_URI, "LOCKED");
+        claims.put(EMAIL_VERIFIED_CLAIM, "false");
+
+        jdbcIdentityDataStore.store(new UserIdentityClaim("upsertUser1", new HashMap<>(claims)), userStoreManager);
+
+        assertEquals(getStoredUserData(WRITE_TENANT_ID, "DEFAULT/upsertUser1"), claims);
+    }
+
+    @Test(description = "Test store updates the existing identity data of a user with the upsert statement.")
+    public void testStoreUpdatesUserData() throws Exception {
+
+        mockUserStoreOfTenant(WRITE_TENANT_ID, true);
+        enableUpsert();
+        addStoredUserData(WRITE_TENANT_ID, "DEFAULT/upsertUser2", ACCOUNT_STATE_CLAIM_URI, "LOCKED");
+        addStoredUserData(WRITE_TENANT_ID, "DEFAULT/upsertUser2", EMAIL_VERIFIED_CLAIM, "false");
+        Map<String, String> claims = new HashMap<>();
+        claims.put(ACCOUNT_STATE_CLAIM_URI, "UNLOCKED");
+        claims.put(EMAIL_VERIFIED_CLAIM, "false");
+        claims.put(CLAIM_URI, CLAIM_VALUE_1);
+
+        jdbcIdentityDataStore.store(new UserIdentityClaim("upsertUser2", new HashMap<>(claims)), userStoreManager);
+
+        assertEquals(getStoredUserData(WRITE_TENANT_ID, "DEFAULT/upsertUser2"), claims);
+    }
+
+    @Test(description = "Test store does not rewrite the identity data of a user which is not changed, with the " +
+            "upsert statement.")
+    public void testStoreSkipsUnchangedUserData() throws Exception {
+
+        mockUserStoreOfTenant(WRITE_TENANT_ID, true);
+        enableUpsert();
+        addStoredUserData(WRITE_TENANT_ID, "DEFAULT/upsertUser3", EMAIL_VERIFIED_CLAIM, "false");
+        List<int[]> updateCounts = new ArrayList<>();
+        mockedIdentityDatabaseUtils.when(IdentityDatabaseUtil::getDBConnection).thenAnswer(invocation -> {
+            Connection connection = spy(TestUtils.getConnection());
+            doAnswer(prepareInvocation -> {
+                PreparedStatement prepStmt = spy((PreparedStatement) prepareInvocation.callRealMethod());
+                doAnswer(executeInvocation -> {
+                    int[] counts = (int[]) executeInvocation.callRealMethod();
+                    updateCounts.add(counts);
+                    return counts;
+                }).when(prepStmt).executeBatch();
+                return prepStmt;
+            }).when(connection).prepareStatement(anyString());
+            return connection;
+        });
+
+        jdbcIdentityDataStore.store(new UserIdentityClaim("upsertUser3",
+                new HashMap<>(Collections.singletonMap(EMAIL_VERIFIED_CLAIM, "false"))), userStoreManager);
+        jdbcIdentityDataStore.store(new UserIdentityClaim("upsertUser3",
+                new HashMap<>(Collections.singletonMap(EMAIL_VERIFIED_CLAIM, "true"))), userStoreManager);
+
+        assertEquals(updateCounts.size(), 2);
+        assertEquals(updateCounts.get(0), new int[]{0});
+        assertEquals(updateCounts.get(1), new int[]{1});
+        assertEquals(getStoredUserData(WRITE_TENANT_ID, "DEFAULT/upsertUser3"),
+                Collections.singletonMap(EMAIL_VERIFIED_CLAIM, "true"));
+    }
+
+    @DataProvider(name = "caseInsensitiveStoreData")
+    public Object[][] caseInsensitiveStoreData() {
+
+        return new Object[][]{
+                // The existing data is read first when upsert is not enabled.
+                {"UpsertUser4", false},
+                {"UpsertUser5", true}
+        };
+    }
+
+    @Test(description = "Test store updates the identity data of a user regardless of the username case, if " +
+            "usernames are case insensitive.", dataProvider = "caseInsensitiveStoreData")
+    public void testStoreWithCaseInsensitiveUsername(String storedUserName, boolean isUpsertEnabled)
+            throws Exception {
+
+        mockUserStoreOfTenant(WRITE_TENANT_ID, false);
+        if (isUpsertEnabled) {
+            enableUpsert();
+        }
+        addStoredUserData(WRITE_TENANT_ID, "DEFAULT/" + storedUserName, ACCOUNT_STATE_CLAIM_URI, "LOCKED");
+        Map<String, String> claims = new HashMap<>();
+        claims.put(ACCOUNT_STATE_CLAIM_URI, "UNLOCKED");
+        claims.put(EMAIL_VERIFIED_CLAIM, "true");
+        String userName = storedUserName.toLowerCase();
+
+        jdbcIdentityDataStore.store(new UserIdentityClaim(userName, claims), userStoreManager);
+
+        // The existing claim is updated in the existing row, and the new claim is added with the given username.
+        assertEquals(getStoredUserData(WRITE_TENANT_ID, "DEFAULT/" + storedUserName),
+                Collections.singletonMap(ACCOUNT_STATE_CLAIM_URI, "UNLOCKED"));
+        assertEquals(getStoredUserData(WRITE_TENANT_ID, "DEFAULT/" + userName),
+                Collections.singletonMap(EMAIL_VERIFIED_CLAIM, "true"));
+    }
+
+    @Test(description = "Test loadAll loads the identity data of multiple users in chunks.")
+    public void testLoadAll() throws Exception {
+
+        mockUserStoreOfTenant(WRITE_TENANT_ID, true);
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty("IdentityDataStore.BulkLoadChunkSize"))
+                .thenReturn("2");
+        addStoredUserData(WRITE_TENANT_ID, "DEFAULT/bulkUser1", ACCOUNT_STATE_CLAIM_URI, "LOCKED");
+        addStoredUserData(WRITE_TENANT_ID, "DEFAULT/bulkUser1", EMAIL_VERIFIED_CLAIM, "true");
+        addStoredUserData(WRITE_TENANT_ID, "DEFAULT/bulkUser2", CLAIM_URI, CLAIM_VALUE_1);
+        addStoredUserData(WRITE_TENANT_ID, "DEFAULT/bulkUser4", CLAIM_URI, CLAIM_VALUE_2);
+        // A user of another tenant with the same username.
+        addStoredUserData(WRITE_TENANT_ID + 1, "DEFAULT/bulkUser3", CLAIM_URI, CLAIM_VALUE_2);
+
+        Map<String, UserIdentityClaim> userIdentityClaims = jdbcIdentityDataStore.loadAll(
+                Arrays.asList("bulkUser1", "bulkUser2", "bulkUser3", "BULKUSER4"), userStoreManager);
+
+        assertEquals(userIdentityClaims.size(), 4);
+        Map<String, String> expectedClaims = new HashMap<>();
+        expectedClaims.put(ACCOUNT_STATE_CLAIM_URI, "LOCKED");
+        expectedClaims.put(EMAIL_VERIFIED_CLAIM, "true");
+        assertEquals(userIdentityClaims.get("bulkUser1").getUserIdentityDataMap(), expectedClaims);
+        assertEquals(userIdentityClaims.get("bulkUser2").getUserIdentityDataMap(),
+                Collections.singletonMap(CLAIM_URI, CLAIM_VALUE_1));
+        // Users without identity data are loaded with empty identity data.
+        assertTrue(userIdentityClaims.get("bulkUser3").getUserIdentityDataMap().isEmpty());
+        // Usernames are case sensitive.
+        assertTrue(userIdentityClaims.get("BULKUSER4").getUserIdentityDataMap().isEmpty());
+    }
+
+    @Test(description = "Test loadAll matches the usernames case insensitively, if usernames are case insensitive.")
+    public void testLoadAllWithCaseInsensitiveUsernames() throws Exception {
+
+        mockUserStoreOfTenant(WRITE_TENANT_ID, false);
+        addStoredUserData(WRITE_TENANT_ID, "DEFAULT/BulkUser5", ACCOUNT_STATE_CLAIM_URI, "LOCKED");
+        addStoredUserData(WRITE_TENANT_ID, "DEFAULT/bulkuser6", CLAIM_URI, CLAIM_VALUE_1);
+
+        Map<String, UserIdentityClaim> userIdentityClaims = jdbcIdentityDataStore.loadAll(
+                Arrays.asList("bulkuser5", "BULKUSER6"), userStoreManager);
+
+        assertEquals(userIdentityClaims.get("bulkuser5").getUserIdentityDataMap(),
+                Collections.singletonMap(ACCOUNT_STATE_CLAIM_URI, "LOCKED"));
+        assertEquals(userIdentityClaims.get("BULKUSER6").getUserIdentityDataMap(),
+                Collections.singletonMap(CLAIM_URI, CLAIM_VALUE_1));
+    }
+
+    private void mockUserStoreOfTenant(int tenantId, boolean isUsernameCaseSensitive) throws Exception {
+
+        when(userStoreManager.getTenantId()).thenReturn(tenantId);
+        when(realmConfiguration.getUserStoreProperty(UserCoreConstants.RealmConfig.PROPERTY_DOMAIN_NAME))
+                .thenReturn("DEFAULT");
+        mockedUserCoreUtil.when(() -> UserCoreUtil.addDomainToName(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(1) + UserCoreConstants.DOMAIN_SEPARATOR +
+                        invocation.getArgument(0));
+        mockedUserCoreUtil.when(() -> UserCoreUtil.removeDomainFromName(anyString()))
+                .thenAnswer(invocation -> {
+                    String userName = invocation.getArgument(0);
+                    return userName.substring(userName.indexOf(UserCoreConstants.DOMAIN_SEPARATOR) + 1);
+                });
+        mockedIdentityUtil.when(() -> IdentityUtil.isUserStoreInUsernameCaseSensitive(anyString(), anyInt()))
+                .thenReturn(isUsernameCaseSensitive);
+        // The connections closed through IdentityDatabaseUtil are returned to the pool.
+        mockedIdentityDatabaseUtils.when(() -> IdentityDatabaseUtil.closeConnection(any(Connection.class)))
+                .thenAnswer(invocation -> {
+                    ((Connection) invocation.getArgument(0)).close();
+                    return null;
+                });
+        // Identity data read and written is cached in the identity data store cache.
+        mockedPrivilegedCarbonContext = Mockito.mockStatic(PrivilegedCarbonContext.class);
+        mockedPrivilegedCarbonContext.when(PrivilegedCarbonContext::getThreadLocalCarbonContext)
+                .thenReturn(mock(PrivilegedCarbonContext.class));
+    }
+
+    private void enableUpsert() {
+
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty("IdentityDataStore.EnableUpsert")).thenReturn("true");
+        jdbcIdentityDataStore = new JDBCIdentityDataStore();
+    }
+
+    private void addStoredUserData(int tenantId, String userName, String dataKey, String dataValue)
+            throws Exception {
+
+        try (Connection connection = TestUtils.getConnection();
+             PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO IDN_IDENTITY_USER_DATA " +
+                     "(TENANT_ID, USER_NAME, DATA_KEY, DATA_VALUE) VALUES (?,?,?,?)")) {
+            prepStmt.setInt(1, tenantId);
+            prepStmt.setString(2, userName);
+            prepStmt.setString(3, dataKey);
+            prepStmt.setString(4, dataValue);
+            prepStmt.executeUpdate();
+        }
+    }
+
+    private Map<String, String> getStoredUserData(int tenantId, String userName) throws Exception {
+
+        Map<String, String> userData = new HashMap<>();
+        try (Connection connection = TestUtils.getConnection();
+             PreparedStatement prepStmt = connection.prepareStatement("SELECT DATA_KEY, DATA_VALUE FROM " +
+                     "IDN_IDENTITY_USER_DATA WHERE TENANT_ID = ? AND USER_NAME = ?")) {
+            prepStmt.setInt(1, tenantId);
+            prepStmt.setString(2, userName);
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                while (resultSet.next()) {
+                    userData.put(resultSet.getString(1), resultSet.getString(2));
+                }
+            }
+        }
+        return userData;
+    }
+
     private void verifyUserStoreOnlyUserIncluded(List<String> usernames) {
 
         boolean containsUserStoreOnlyUser = usernames.stream()
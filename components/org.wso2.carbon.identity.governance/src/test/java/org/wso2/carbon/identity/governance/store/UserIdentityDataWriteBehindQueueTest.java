@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.governance.store;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class UserIdentityDataWriteBehindQueueTest {
+
+    private static final int TENANT_ID = 3;
+    private static final String LAST_LOGIN_TIME = "http://wso2.org/claims/identity/lastLoginTime";
+    private static final String ACCOUNT_LOCKED = "http://wso2.org/claims/identity/accountLocked";
+    private static final String USERNAME = "DEFAULT/sampleUser1@xmail.com";
+
+    private final List<List<UserIdentityDataWriteBehindQueue.PendingUserData>> writtenBatches = new ArrayList<>();
+    private boolean failWrites;
+    private UserIdentityDataWriteBehindQueue writeBehindQueue;
+
+    @BeforeMethod
+    public void setUp() {
+
+        writtenBatches.clear();
+        failWrites = false;
+        // A long flush interval keeps the scheduled flush out of the way of the tests.
+        writeBehindQueue = new UserIdentityDataWriteBehindQueue(new HashSet<>(Collections.singletonList(
+                LAST_LOGIN_TIME)), 60000, 2, 100, batch -> {
+                    if (failWrites) {
+                        throw new IllegalStateException("Simulated write failure.");
+                    }
+                    writtenBatches.add(new ArrayList<>(batch));
+                });
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        writeBehindQueue.shutdown();
+    }
+
+    @Test
+    public void testIsDeferrable() {
+
+        assertTrue(writeBehindQueue.isDeferrable(Collections.singletonList(LAST_LOGIN_TIME)));
+        assertFalse(writeBehindQueue.isDeferrable(Arrays.asList(LAST_LOGIN_TIME, ACCOUNT_LOCKED)));
+        assertFalse(writeBehindQueue.isDeferrable(Collections.emptyList()));
+    }
+
+    @Test
+    public void testUpdatesOfUserAreCoalesced() {
+
+        writeBehindQueue.enqueue(TENANT_ID, USERNAME, false, Collections.singletonMap(LAST_LOGIN_TIME, "1"));
+        writeBehindQueue.enqueue(TENANT_ID, USERNAME.toUpperCase(), false,
+                Collections.singletonMap(LAST_LOGIN_TIME, "2"));
+
+        assertEquals(writeBehindQueue.getUnpersistedClaims(TENANT_ID, USERNAME, false).get(LAST_LOGIN_TIME), "2");
+
+        writeBehindQueue.flush();
+
+        assertEquals(writtenBatches.size(), 1);
+        assertEquals(writtenBatches.get(0).size(), 1);
+        assertEquals(writtenBatches.get(0).get(0).getClaims().get(LAST_LOGIN_TIME), "2");
+        assertTrue(writeBehindQueue.isEmpty());
+    }
+
+    @Test
+    public void testFlushWritesInBatches() {
+
+        for (int i = 0; i < 5; i++) {
+            writeBehindQueue.enqueue(TENANT_ID, "user" + i, true, Collections.singletonMap(LAST_LOGIN_TIME, "1"));
+        }
+
+        writeBehindQueue.flush();
+
+        assertEquals(writtenBatches.size(), 3);
+        assertTrue(writeBehindQueue.isEmpty());
+    }
+
+    @Test
+    public void testFailedWritesAreRetried() {
+
+        writeBehindQueue.enqueue(TENANT_ID, USERNAME, true, Collections.singletonMap(LAST_LOGIN_TIME, "1"));
+        failWrites = true;
+        writeBehindQueue.flush();
+
+        assertTrue(writtenBatches.isEmpty());
+        assertEquals(writeBehindQueue.getUnpersistedClaims(TENANT_ID, USERNAME, true).get(LAST_LOGIN_TIME), "1");
+
+        failWrites = false;
+        writeBehindQueue.flush();
+
+        assertEquals(writtenBatches.size(), 1);
+        assertTrue(writeBehindQueue.isEmpty());
+    }
+
+    @Test
+    public void testDiscard() {
+
+        writeBehindQueue.enqueue(TENANT_ID, USERNAME, true, Collections.singletonMap(LAST_LOGIN_TIME, "1"));
+        writeBehindQueue.discard(TENANT_ID, USERNAME, true, Collections.singletonList(LAST_LOGIN_TIME));
+
+        assertTrue(writeBehindQueue.isEmpty());
+        writeBehindQueue.flush();
+        assertTrue(writtenBatches.isEmpty());
+    }
+
+    @Test
+    public void testDiscardWaitsForInFlightWrite() throws Exception {
+
+        List<String> writes = new CopyOnWriteArrayList<>();
+        discardDuringInFlightWrite(writes, false);
+
+        // The direct write follows the in flight write, hence the older values do not overwrite it.
+        assertEquals(writes, Arrays.asList("flush", "direct"));
+    }
+
+    @Test
+    public void testDiscardDropsUpdatesOfFailedInFlightWrite() throws Exception {
+
+        List<String> writes = new CopyOnWriteArrayList<>();
+        UserIdentityDataWriteBehindQueue queue = discardDuringInFlightWrite(writes, true);
+
+        // The failed updates are put back to the queue, but they are outdated by the direct write.
+        assertEquals(writes, Collections.singletonList("direct"));
+        assertTrue(queue.getUnpersistedClaims(TENANT_ID, USERNAME, true).isEmpty());
+    }
+
+    @Test
+    public void testShutdownDrainsPendingUpdates() {
+
+        writeBehindQueue.enqueue(TENANT_ID, USERNAME, true, Collections.singletonMap(LAST_LOGIN_TIME, "1"));
+
+        writeBehindQueue.shutdown();
+
+        assertEquals(writtenBatches.size(), 1);
+        assertTrue(writeBehindQueue.isEmpty());
+    }
+
+    /**
+     * Discard the updates of a user while a flush is writing them, and record the order of the flush and the direct
+     * write which follows the discard.
+     */
+    private UserIdentityDataWriteBehindQueue discardDuringInFlightWrite(List<String> writes, boolean failWrite)
+            throws Exception {
+
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch writeReleased = new CountDownLatch(1);
+        UserIdentityDataWriteBehindQueue queue = new UserIdentityDataWriteBehindQueue(new HashSet<>(
+                Collections.singletonList(LAST_LOGIN_TIME)), 60000, 2, 100, batch -> {
+                    writeStarted.countDown();
+                    writeReleased.await(5, TimeUnit.SECONDS);
+                    if (failWrite) {
+                        throw new IllegalStateException("Simulated write failure.");
+                    }
+                    writes.add("flush");
+                });
+        try {
+            queue.enqueue(TENANT_ID, USERNAME, true, Collections.singletonMap(LAST_LOGIN_TIME, "1"));
+            Thread flushingThread = new Thread(queue::flush);
+            flushingThread.start();
+            assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+
+            Thread writingThread = new Thread(() -> {
+                queue.discard(TENANT_ID, USERNAME, true, Collections.singletonList(LAST_LOGIN_TIME));
+                writes.add("direct");
+            });
+            writingThread.start();
+            writingThread.join(200);
+            assertTrue(writingThread.isAlive(), "Discard did not wait for the in flight write.");
+
+            writeReleased.countDown();
+            writingThread.join(5000);
+            flushingThread.join(5000);
+            return queue;
+        } finally {
+            writeReleased.countDown();
+            queue.shutdown();
+        }
+    }
+}
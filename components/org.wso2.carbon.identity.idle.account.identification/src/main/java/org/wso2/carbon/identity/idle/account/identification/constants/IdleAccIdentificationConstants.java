@@ -28,6 +28,8 @@ public class IdleAccIdentificationConstants {
     public static final String LAST_LOGIN_TIME_CLAIM = "http://wso2.org/claims/identity/lastLogonTime";
     public static final String ACCOUNT_STATE_CLAIM_URI = "http://wso2.org/claims/identity/accountState";
     public static final String ACCOUNT_STATE_DISABLED = "DISABLED";
+    // Number of users retrieved per page when streaming inactive users.
+    public static final int STREAMING_PAGE_SIZE = 500;
 
     /**
      * Class containing SQL queries.
@@ -48,6 +50,11 @@ public class IdleAccIdentificationConstants {
      */
     public enum ErrorMessages {
 
+        // Client errors 600xx.
+        ERROR_INVALID_PAGE_SIZE("60001",
+                "Invalid page size.",
+                "The page size should be a positive integer, but received: %s."),
+
         // Server errors 650xx.
         ERROR_RETRIEVE_INACTIVE_USERS_FROM_DB("65002",
                 "Error while retrieving inactive users from database.",
@@ -1,11 +1,14 @@
 package org.wso2.carbon.identity.idle.account.identification.services;
 
+import org.wso2.carbon.identity.idle.account.identification.constants.IdleAccIdentificationConstants;
 import org.wso2.carbon.identity.idle.account.identification.exception.IdleAccountIdentificationException;
+import org.wso2.carbon.identity.governance.model.UsersPage;
 import org.wso2.carbon.identity.idle.account.identification.models.InactiveUserModel;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Service interface for idle account identification.
@@ -63,4 +66,47 @@ public interface IdleAccountIdentificationService {
 
         return Collections.emptyList();
     }
+
+    /**
+     * Get a page of inactive users. The users are ordered by the last login time, and each page continues after the
+     * last user of the previous page, hence the cost of retrieving a page does not depend on its position.
+     *
+     * @param inactiveAfter date after which the user should be inactive.
+     * @param excludeBefore date before which the user should be excluded, or null to include all inactive users.
+     * @param tenantDomain  tenant domain.
+     * @param cursor        cursor returned with the previous page, or null to retrieve the first page.
+     * @param limit         maximum number of users in the page.
+     * @return              page of inactive users.
+     * @throws IdleAccountIdentificationException Exception when retrieving inactive users from database.
+     */
+    default UsersPage<InactiveUserModel> getInactiveUsers(LocalDateTime inactiveAfter,
+                                                          LocalDateTime excludeBefore,
+                                                          String tenantDomain, String cursor, int limit)
+            throws IdleAccountIdentificationException {
+
+        return new UsersPage<>(Collections.emptyList(), null);
+    }
+
+    /**
+     * Pass each inactive user to the given consumer. The users are retrieved page by page, hence only a single page
+     * of users is held in memory regardless of the number of inactive users in the tenant.
+     *
+     * @param inactiveAfter date after which the user should be inactive.
+     * @param excludeBefore date before which the user should be excluded, or null to include all inactive users.
+     * @param tenantDomain  tenant domain.
+     * @param consumer      consumer of the inactive users.
+     * @throws IdleAccountIdentificationException Exception when retrieving inactive users from database.
+     */
+    default void streamInactiveUsers(LocalDateTime inactiveAfter, LocalDateTime excludeBefore, String tenantDomain,
+                                     Consumer<InactiveUserModel> consumer)
+            throws IdleAccountIdentificationException {
+
+        String cursor = null;
+        do {
+            UsersPage<InactiveUserModel> page = getInactiveUsers(inactiveAfter, excludeBefore, tenantDomain, cursor,
+                    IdleAccIdentificationConstants.STREAMING_PAGE_SIZE);
+            page.getUsers().forEach(consumer);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
 }
@@ -22,7 +22,11 @@ import org.apache.commons.lang.StringUtils;
 import org.wso2.carbon.context.CarbonContext;
 
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
+import org.wso2.carbon.identity.governance.model.UserNamesPage;
+import org.wso2.carbon.identity.governance.model.UsersPage;
 import org.wso2.carbon.identity.idle.account.identification.constants.IdleAccIdentificationConstants;
+import org.wso2.carbon.identity.idle.account.identification.exception.IdleAccountIdentificationClientException;
 import org.wso2.carbon.identity.idle.account.identification.exception.IdleAccountIdentificationException;
 import org.wso2.carbon.identity.idle.account.identification.exception.IdleAccountIdentificationServerException;
 import org.wso2.carbon.identity.idle.account.identification.internal.IdleAccountIdentificationDataHolder;
@@ -41,6 +45,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of the service interface for idle account identification.
@@ -137,6 +142,36 @@ public class IdleAccountIdentificationServiceImpl implements IdleAccountIdentifi
         return inactiveUsers;
     }
 
+    @Override
+    public UsersPage<InactiveUserModel> getInactiveUsers(LocalDateTime inactiveAfter,
+                                                         LocalDateTime excludeBefore,
+                                                         String tenantDomain, String cursor, int limit)
+            throws IdleAccountIdentificationException {
+
+        if (limit <= 0) {
+            IdleAccIdentificationConstants.ErrorMessages errorEnum =
+                    IdleAccIdentificationConstants.ErrorMessages.ERROR_INVALID_PAGE_SIZE;
+            throw new IdleAccountIdentificationClientException(errorEnum.getCode(), errorEnum.getMessage(),
+                    String.format(errorEnum.getDescription(), limit));
+        }
+        int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+        String lastLoginTime = Long.toString(inactiveAfter.toEpochSecond(ZoneOffset.UTC));
+        String excludeDateEpoch = excludeBefore == null ? null :
+                Long.toString(excludeBefore.toEpochSecond(ZoneOffset.UTC));
+        try {
+            UserNamesPage userNamesPage = IdleAccountIdentificationDataHolder.getInstance()
+                    .getIdentityDataStoreService().listUsersByClaimValueRange(
+                            IdleAccIdentificationConstants.LAST_LOGIN_TIME_CLAIM, excludeDateEpoch, lastLoginTime,
+                            tenantId, cursor, limit);
+            return new UsersPage<>(buildInactiveUsers(userNamesPage.getUserNames()),
+                    userNamesPage.getNextPageToken());
+        } catch (IdentityException e) {
+            IdleAccIdentificationConstants.ErrorMessages errorEnum =
+                    IdleAccIdentificationConstants.ErrorMessages.ERROR_RETRIEVE_INACTIVE_USERS_FROM_DB;
+            throw new IdleAccountIdentificationServerException(errorEnum.getCode(), errorEnum.getMessage());
+        }
+    }
+
     /**
      * Build a list of inactive users.
      *
@@ -147,8 +182,9 @@ public class IdleAccountIdentificationServiceImpl implements IdleAccountIdentifi
             throws IdleAccountIdentificationServerException {
 
         List<InactiveUserModel> inactiveUsers = new ArrayList<>();
+        Map<String, String> userIds = fetchUserIds(usernames);
         for (String username : usernames) {
-            String userId = fetchUserId(username);
+            String userId = userIds.get(username);
             if (StringUtils.isNotBlank(userId)) {
                 InactiveUserModel inactiveUser = new InactiveUserModel();
                 inactiveUser.setUsername(username);
@@ -160,6 +196,24 @@ public class IdleAccountIdentificationServiceImpl implements IdleAccountIdentifi
         return inactiveUsers;
     }
 
+    /**
+     * Fetch UUIDs of the users of any user store.
+     *
+     * @param usernames         usernames of the users.
+     * @return                  map of the usernames to the UUIDs of the users.
+     */
+    public Map<String, String> fetchUserIds(List<String> usernames) throws IdleAccountIdentificationServerException {
+
+        UserStoreManager userStoreManager = getUserStoreManager(IdentityUtil.getPrimaryDomainName());
+        try {
+            return IdentityGovernanceUtil.getUserIdsFromDomainQualifiedUserNames(userStoreManager, usernames);
+        } catch (UserStoreException e) {
+            IdleAccIdentificationConstants.ErrorMessages errorEnum =
+                    IdleAccIdentificationConstants.ErrorMessages.ERROR_RETRIEVE_USER_UUID;
+            throw new IdleAccountIdentificationServerException(errorEnum.getCode(), errorEnum.getMessage());
+        }
+    }
+
     /**
      * Fetch UUID of the user.
      *
@@ -26,6 +26,7 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.wso2.carbon.context.CarbonContext;
 
+import org.wso2.carbon.identity.idle.account.identification.exception.IdleAccountIdentificationClientException;
 import org.wso2.carbon.identity.idle.account.identification.internal.IdleAccountIdentificationDataHolder;
 import org.wso2.carbon.identity.idle.account.identification.models.InactiveUserModel;
 import org.wso2.carbon.identity.idle.account.identification.services.impl.IdleAccountIdentificationServiceImpl;
@@ -34,6 +35,7 @@ import org.wso2.carbon.identity.idle.account.identification.util.TestUtils;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.governance.model.UsersPage;
 import org.wso2.carbon.identity.governance.service.IdentityDataStoreService;
 import org.wso2.carbon.identity.governance.service.IdentityDataStoreServiceImpl;
 import org.wso2.carbon.user.core.UserRealm;
@@ -42,11 +44,16 @@ import org.wso2.carbon.user.core.UserStoreManager;
 import java.sql.Connection;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.testng.Assert.assertEquals;
@@ -127,7 +134,7 @@ public class IdleAccountIdentificationServiceImplTest {
 
         IdleAccountIdentificationServiceImpl idleAccountIdentificationService =
                 spy(IdleAccountIdentificationServiceImpl.class);
-        doReturn(SAMPLE_USER_ID).when(idleAccountIdentificationService).fetchUserId(anyString());
+        mockFetchUserIds(idleAccountIdentificationService);
 
         List<InactiveUserModel> inactiveUsers = idleAccountIdentificationService.
                 getInactiveUsersFromSpecificDate(inactiveAfter, TENANT_DOMAIN);
@@ -150,7 +157,7 @@ public class IdleAccountIdentificationServiceImplTest {
 
         IdleAccountIdentificationServiceImpl idleAccountIdentificationService =
                 spy(IdleAccountIdentificationServiceImpl.class);
-        doReturn(SAMPLE_USER_ID).when(idleAccountIdentificationService).fetchUserId(anyString());
+        mockFetchUserIds(idleAccountIdentificationService);
 
         List<InactiveUserModel> inactiveUsers = idleAccountIdentificationService.
                 getLimitedInactiveUsersFromSpecificDate(inactiveAfter, excludeBefore, TENANT_DOMAIN);
@@ -175,11 +182,62 @@ public class IdleAccountIdentificationServiceImplTest {
 
         IdleAccountIdentificationServiceImpl idleAccountIdentificationService =
                 spy(IdleAccountIdentificationServiceImpl.class);
-        doReturn(SAMPLE_USER_ID).when(idleAccountIdentificationService).fetchUserId(anyString());
+        mockFetchUserIds(idleAccountIdentificationService);
 
         List<InactiveUserModel> inactiveUsers = idleAccountIdentificationService.
                 filterInactiveUsersIfDisabled(inactiveAfter, excludeBefore, TENANT_DOMAIN, isDisabled);
 
         assertEquals(inactiveUsers.size(), expected);
     }
+
+    @Test
+    public void testGetInactiveUsersPageByPage() throws Exception {
+
+        // Each page closes its connection, hence a new connection is provided for each page.
+        mockedIdentityDatabaseUtils.when(() -> IdentityDatabaseUtil.getDBConnection(anyBoolean()))
+                .thenAnswer(invocation -> TestUtils.getConnection());
+        IdleAccountIdentificationServiceImpl idleAccountIdentificationService =
+                spy(IdleAccountIdentificationServiceImpl.class);
+        mockFetchUserIds(idleAccountIdentificationService);
+        LocalDateTime inactiveAfter = LocalDate.parse("2023-01-31").atStartOfDay();
+
+        List<String> usernames = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            UsersPage<InactiveUserModel> page = idleAccountIdentificationService.getInactiveUsers(inactiveAfter, null,
+                    TENANT_DOMAIN, cursor, 2);
+            page.getUsers().forEach(inactiveUser -> usernames.add(inactiveUser.getUsername()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(pages, 3);
+        assertEquals(usernames.size(), 5);
+        assertEquals(new HashSet<>(usernames).size(), 5);
+
+        List<InactiveUserModel> streamedUsers = new ArrayList<>();
+        idleAccountIdentificationService.streamInactiveUsers(inactiveAfter, LocalDate.parse("2023-01-15")
+                .atStartOfDay(), TENANT_DOMAIN, streamedUsers::add);
+        assertEquals(streamedUsers.size(), 3);
+    }
+
+    @Test(expectedExceptions = IdleAccountIdentificationClientException.class)
+    public void testGetInactiveUsersWithInvalidLimit() throws Exception {
+
+        new IdleAccountIdentificationServiceImpl().getInactiveUsers(LocalDate.parse("2023-01-31").atStartOfDay(),
+                null, TENANT_DOMAIN, null, 0);
+    }
+
+    private void mockFetchUserIds(IdleAccountIdentificationServiceImpl idleAccountIdentificationService)
+            throws Exception {
+
+        doAnswer(invocation -> {
+            Map<String, String> userIds = new HashMap<>();
+            for (String username : invocation.<List<String>>getArgument(0)) {
+                userIds.put(username, SAMPLE_USER_ID);
+            }
+            return userIds;
+        }).when(idleAccountIdentificationService).fetchUserIds(anyList());
+    }
 }
@@ -22,6 +22,9 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.CarbonConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
+import org.wso2.carbon.identity.governance.RegexPatternCache;
 import org.wso2.carbon.identity.multi.attribute.login.mgt.MultiAttributeLoginResolver;
 import org.wso2.carbon.identity.multi.attribute.login.mgt.ResolvedUserResult;
 import org.wso2.carbon.identity.multi.attribute.login.resolver.regex.utils.UserResolverUtil;
@@ -48,7 +51,20 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 
 /**
@@ -59,6 +75,29 @@ public class RegexResolver implements MultiAttributeLoginResolver {
 
     private static final Log log = LogFactory.getLog(RegexResolver.class);
 
+    private static final String PARALLEL_RESOLUTION_ENABLE = "MultiAttributeLogin.ParallelResolution.Enable";
+    private static final String PARALLEL_RESOLUTION_POOL_SIZE = "MultiAttributeLogin.ParallelResolution.PoolSize";
+    private static final String PARALLEL_RESOLUTION_LOOKUP_TIMEOUT =
+            "MultiAttributeLogin.ParallelResolution.LookupTimeout";
+    private static final int DEFAULT_LOOKUP_POOL_SIZE = 10;
+    private static final int DEFAULT_LOOKUP_TIMEOUT = 5000;
+    private static final int LOOKUP_QUEUE_FACTOR = 10;
+
+    private final boolean parallelResolutionEnabled;
+    private final int lookupPoolSize;
+    // Timeout of the user list lookups in milliseconds.
+    private final long lookupTimeout;
+    private volatile ExecutorService lookupExecutor;
+
+    public RegexResolver() {
+
+        this.parallelResolutionEnabled = Boolean.parseBoolean(IdentityUtil.getProperty(PARALLEL_RESOLUTION_ENABLE));
+        this.lookupPoolSize = IdentityGovernanceUtil.getPositiveIntProperty(
+                PARALLEL_RESOLUTION_POOL_SIZE, DEFAULT_LOOKUP_POOL_SIZE);
+        this.lookupTimeout = IdentityGovernanceUtil.getPositiveIntProperty(
+                PARALLEL_RESOLUTION_LOOKUP_TIMEOUT, DEFAULT_LOOKUP_TIMEOUT);
+    }
+
     @Override
     public ResolvedUserResult resolveUser(String loginAttribute, List<String> allowedAttributes, String tenantDomain) {
 
@@ -72,7 +111,7 @@ public class RegexResolver implements MultiAttributeLoginResolver {
             ClaimManager claimManager = userRealm.getClaimManager();
 
             resolveDistinctUsersForClaims(loginAttribute, allowedAttributes, claimManager, userStoreManager,
-                    resolvedUserResult);
+                    resolvedUserResult, tenantDomain);
 
         } catch (UserStoreException e) {
             log.error("Error occurred while resolving user name", e);
@@ -83,89 +122,262 @@ public class RegexResolver implements MultiAttributeLoginResolver {
     private void resolveDistinctUsersForClaims(String loginAttribute, List<String> allowedAttributes,
                                                ClaimManager claimManager,
                                                UniqueIDUserStoreManager userStoreManager,
-                                               ResolvedUserResult resolvedUserResult)
+                                               ResolvedUserResult resolvedUserResult, String tenantDomain)
             throws UserStoreException {
 
-        Set<String> uniqueUserIds = new HashSet<>();
-        Map<String, List<User>> distinctUsers = new HashMap<>();
         List<String> userStorePreferenceOrder  = getUserStorePreferenceOrder();
 
-        // Resolve the user from the regex matching.
+        // Find the claims whose regex matches the login attribute, in the order of the allowed attributes.
+        List<Claim> matchedClaims = new ArrayList<>();
+        List<String> matchedClaimURIs = new ArrayList<>();
+        String domainSeparateAttribute = UserCoreUtil.removeDomainFromName(loginAttribute);
         for (String claimURI : allowedAttributes) {
             Claim claim = claimManager.getClaim(claimURI);
             if (claim == null || StringUtils.isBlank(claim.getRegEx())) {
                 continue;
             }
 
-            Pattern pattern = Pattern.compile(claim.getRegEx());
-            String domainSeparateAttribute = UserCoreUtil.removeDomainFromName(loginAttribute);
+            Pattern pattern = getClaimPattern(tenantDomain, claimURI, claim.getRegEx());
+            if (pattern != null && pattern.matcher(domainSeparateAttribute).matches()) {
+                matchedClaims.add(claim);
+                matchedClaimURIs.add(claimURI);
+            }
+        }
 
-            if (pattern.matcher(domainSeparateAttribute).matches()) {
-                List<User> userList = getUserList(claimURI, loginAttribute, userStorePreferenceOrder, userStoreManager);
+        // Check the users from username by default if there is no regex for username claim.
+        Claim usernameClaim = claimManager.getClaim(UserCoreClaimConstants.USERNAME_CLAIM_URI);
+        boolean resolveFromUsername = allowedAttributes.contains(UserCoreClaimConstants.USERNAME_CLAIM_URI)
+                && StringUtils.isBlank(usernameClaim.getRegEx());
+
+        DistinctUsers distinctUsers = new DistinctUsers(allowedAttributes, loginAttribute);
+        String errorMessage;
+        if (parallelResolutionEnabled && (!matchedClaimURIs.isEmpty() || resolveFromUsername)) {
+            errorMessage = resolveDistinctUsersInParallel(matchedClaimURIs, matchedClaims, resolveFromUsername,
+                    distinctUsers, loginAttribute, userStorePreferenceOrder, userStoreManager, tenantDomain);
+        } else {
+            errorMessage = resolveDistinctUsers(matchedClaimURIs, matchedClaims, resolveFromUsername, distinctUsers,
+                    loginAttribute, userStorePreferenceOrder, userStoreManager);
+        }
+        if (errorMessage != null) {
+            resolvedUserResult.setErrorMessage(errorMessage);
+            return;
+        }
 
-                if (userList.isEmpty()) {
-                    continue;
+        /*
+        At this point usersByClaim map will contain only one entry if the login identifier is resolved to a single
+        user from multiple claims. If the map is empty, that means the login identifier is not resolved to any user.
+        */
+        Map<String, List<User>> usersByClaim = distinctUsers.getUsersByClaim();
+        if (usersByClaim.size() == 1) {
+            Map.Entry<String, List<User>> entry = usersByClaim.entrySet().iterator().next();
+            setResolvedUserResult(entry.getValue(), entry.getKey(), loginAttribute, resolvedUserResult,
+                    claimManager.getClaim(entry.getKey()));
+        } else {
+            resolvedUserResult.setErrorMessage(getMultipleUsersErrorMessage(allowedAttributes, loginAttribute));
+        }
+    }
+
+    /**
+     * Resolve the users of the matched claims in the calling thread, followed by the users of the username if
+     * required.
+     *
+     * @param matchedClaimURIs         URIs of the claims whose regex matches the login attribute.
+     * @param matchedClaims            Claims whose regex matches the login attribute.
+     * @param resolveFromUsername      Whether the users have to be resolved from the username.
+     * @param distinctUsers            Distinct users resolved from the claims.
+     * @param loginAttribute           Login attribute.
+     * @param userStorePreferenceOrder User store preference order.
+     * @param userStoreManager         User store manager.
+     * @return Error message if multiple users are resolved, null otherwise.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while getting the user lists.
+     */
+    private String resolveDistinctUsers(List<String> matchedClaimURIs, List<Claim> matchedClaims,
+                                        boolean resolveFromUsername, DistinctUsers distinctUsers,
+                                        String loginAttribute, List<String> userStorePreferenceOrder,
+                                        UniqueIDUserStoreManager userStoreManager)
+            throws org.wso2.carbon.user.core.UserStoreException {
+
+        for (int i = 0; i < matchedClaimURIs.size(); i++) {
+            List<User> userList = getUserList(matchedClaimURIs.get(i), loginAttribute, userStorePreferenceOrder,
+                    userStoreManager);
+            String errorMessage = distinctUsers.addClaimUsers(matchedClaimURIs.get(i), matchedClaims.get(i),
+                    userList);
+            if (errorMessage != null) {
+                return errorMessage;
+            }
+        }
+        if (resolveFromUsername) {
+            distinctUsers.addUsernameUsers(getUserList(UserCoreClaimConstants.USERNAME_CLAIM_URI, loginAttribute,
+                    userStorePreferenceOrder, userStoreManager));
+        }
+        return null;
+    }
+
+    /**
+     * Resolve the users of the matched claims and the username with the lookups of all the claims started upfront on
+     * the lookup executor. The completed user lists are still evaluated in the order of the claims, hence the resolved
+     * user is the same as in the sequential mode. The resolution fails as soon as multiple users are resolved from the
+     * matched claims, irrespective of the order in which the lookups complete, in which case the error message may
+     * name all the allowed attributes instead of the claim. The lookups which are still pending are then cancelled.
+     *
+     * @param matchedClaimURIs         URIs of the claims whose regex matches the login attribute.
+     * @param matchedClaims            Claims whose regex matches the login attribute.
+     * @param resolveFromUsername      Whether the users have to be resolved from the username.
+     * @param distinctUsers            Distinct users resolved from the claims.
+     * @param loginAttribute           Login attribute.
+     * @param userStorePreferenceOrder User store preference order.
+     * @param userStoreManager         User store manager.
+     * @param tenantDomain             Tenant domain.
+     * @return Error message if multiple users are resolved, null otherwise.
+     * @throws org.wso2.carbon.user.core.UserStoreException If a lookup failed, timed out or was rejected.
+     */
+    private String resolveDistinctUsersInParallel(List<String> matchedClaimURIs, List<Claim> matchedClaims,
+                                                  boolean resolveFromUsername, DistinctUsers distinctUsers,
+                                                  String loginAttribute, List<String> userStorePreferenceOrder,
+                                                  UniqueIDUserStoreManager userStoreManager, String tenantDomain)
+            throws org.wso2.carbon.user.core.UserStoreException {
+
+        List<String> lookupClaimURIs = new ArrayList<>(matchedClaimURIs);
+        if (resolveFromUsername) {
+            lookupClaimURIs.add(UserCoreClaimConstants.USERNAME_CLAIM_URI);
+        }
+        UserListLookups userListLookups = new UserListLookups(getLookupExecutor(), lookupTimeout,
+                lookupClaimURIs.size());
+        try {
+            for (int i = 0; i < lookupClaimURIs.size(); i++) {
+                userListLookups.submit(i, getUserListLookups(lookupClaimURIs.get(i), loginAttribute,
+                        userStorePreferenceOrder, userStoreManager), tenantDomain);
+            }
+
+            Set<String> matchedUserIds = new HashSet<>();
+            int nextClaimIndex = 0;
+            while (nextClaimIndex < lookupClaimURIs.size()) {
+                UserListLookup completedLookup = userListLookups.awaitNext();
+                // Evaluate the claims whose lookups have all completed, in the order of the claims.
+                while (nextClaimIndex < lookupClaimURIs.size() && userListLookups.isCompleted(nextClaimIndex)) {
+                    List<User> userList = userListLookups.getUserList(nextClaimIndex);
+                    if (nextClaimIndex < matchedClaimURIs.size()) {
+                        String errorMessage = distinctUsers.addClaimUsers(matchedClaimURIs.get(nextClaimIndex),
+                                matchedClaims.get(nextClaimIndex), userList);
+                        if (errorMessage != null) {
+                            return errorMessage;
+                        }
+                    } else {
+                        distinctUsers.addUsernameUsers(userList);
+                    }
+                    nextClaimIndex++;
                 }
                 /*
-                This is to make sure that the same user is not added to the list multiple times from different claims.
+                Multiple users resolved from the matched claims fail the resolution in any order of the claims, hence
+                there is no need to wait for the lookups of the preceding claims.
                 */
-                List<User> allowedDistinctUsersForClaim = userList.stream()
-                        .filter(user -> uniqueUserIds.add(user.getUserID()))
-                        .collect(Collectors.toList());
-
-                if (allowedDistinctUsersForClaim.size() == 1) {
-                    /*
-                    If the disctinctUsers map already contains a record that means multiple users has been resolved
-                    for the login identifier from different claims. Hence, terminate the iteration and set the error
-                    message.
-                    */
-                    if (distinctUsers.size() > 0) {
-                        resolvedUserResult.setErrorMessage("Found multiple users for " + allowedAttributes +
-                                " to value " + loginAttribute);
-                        return;
-                    } else {
-                        distinctUsers.put(claimURI, allowedDistinctUsersForClaim);
+                if (nextClaimIndex < lookupClaimURIs.size() && completedLookup.isOfMatchedClaim(matchedClaimURIs)) {
+                    for (User user : completedLookup.getUsers()) {
+                        matchedUserIds.add(user.getUserID());
+                    }
+                    if (matchedUserIds.size() > 1) {
+                        return distinctUsers.getMultipleUsersMessage();
                     }
-                    /*
-                    If the allowedDistinctUsersForClaim size is greater than 1, that means multiple users has been
-                    resolved for the same login identifier from the same claim. Hence, terminate the iteration and set
-                    the error message.
-                    */
-                } else if (allowedDistinctUsersForClaim.size() > 1) {
-                    resolvedUserResult.setErrorMessage("Found multiple users for " + claim.getDisplayTag() +
-                            " to value " + loginAttribute);
-                    return;
                 }
             }
+            return null;
+        } catch (RejectedExecutionException e) {
+            throw new org.wso2.carbon.user.core.UserStoreException("The user lookups were rejected as the lookup " +
+                    "pool is saturated.", e);
+        } finally {
+            userListLookups.cancel();
         }
+    }
 
-        // Check the users from username by default if there is no regex for username claim.
-        Claim usernameClaim = claimManager.getClaim(UserCoreClaimConstants.USERNAME_CLAIM_URI);
-        if (allowedAttributes.contains(UserCoreClaimConstants.USERNAME_CLAIM_URI)
-                && StringUtils.isBlank(usernameClaim.getRegEx())) {
-            List<User> userList = getUserList(UserCoreClaimConstants.USERNAME_CLAIM_URI, loginAttribute,
-                    userStorePreferenceOrder, userStoreManager);
-            if (!userList.isEmpty()) {
-                List<User> allowedDistinctUsersForClaim = userList.stream()
-                        .filter(user -> uniqueUserIds.add(user.getUserID()))
-                        .collect(Collectors.toList());
-                if (allowedDistinctUsersForClaim.size() == 1) {
-                    distinctUsers.put(UserCoreClaimConstants.USERNAME_CLAIM_URI, allowedDistinctUsersForClaim);
+    /**
+     * Get the lookups which return the user list of the claim, as done by {@link #getUserList}. When the user store
+     * preference order applies, there is a lookup for each user store in the preference order.
+     *
+     * @param claimURI                 Claim URI.
+     * @param loginAttribute           Login attribute.
+     * @param userStorePreferenceOrder User store preference order.
+     * @param userStoreManager         User store manager.
+     * @return User list lookups.
+     * @throws org.wso2.carbon.user.core.UserStoreException If an error occurred while generating the user store chain.
+     */
+    private List<Callable<List<User>>> getUserListLookups(String claimURI, String loginAttribute,
+                                                          List<String> userStorePreferenceOrder,
+                                                          UniqueIDUserStoreManager userStoreManager)
+            throws org.wso2.carbon.user.core.UserStoreException {
+
+        List<Callable<List<User>>> lookups = new ArrayList<>();
+        if (!loginAttribute.contains(UserCoreConstants.DOMAIN_SEPARATOR) && userStorePreferenceOrder != null
+                && !userStorePreferenceOrder.isEmpty()) {
+            IterativeUserStoreManager currentUserStoreManager = generateUserStoreChain(userStorePreferenceOrder,
+                    (AbstractUserStoreManager) userStoreManager);
+            if (currentUserStoreManager != null) {
+                while (currentUserStoreManager != null) {
+                    AbstractUserStoreManager abstractUserStoreManager =
+                            currentUserStoreManager.getAbstractUserStoreManager();
+                    String domainName = UserCoreUtil.getDomainName(currentUserStoreManager.getRealmConfiguration());
+                    String domainAwareUsername = domainName + CarbonConstants.DOMAIN_SEPARATOR + loginAttribute;
+                    lookups.add(() -> abstractUserStoreManager.getUserListWithID(claimURI, domainAwareUsername,
+                            null));
+                    currentUserStoreManager = currentUserStoreManager.nextUserStoreManager();
                 }
+                return lookups;
             }
         }
+        lookups.add(() -> userStoreManager.getUserListWithID(claimURI, loginAttribute, null));
+        return lookups;
+    }
 
-        /*
-        At this point distinctUsers map will contain only one entry if the login identifier is resolved to a single
-        user from multiple claims. If the map is empty, that means the login identifier is not resolved to any user.
-        */
-        if (distinctUsers.size() == 1) {
-            Map.Entry<String, List<User>> entry = distinctUsers.entrySet().iterator().next();
-            setResolvedUserResult(entry.getValue(), entry.getKey(), loginAttribute, resolvedUserResult,
-                    claimManager.getClaim(entry.getKey()));
-        } else {
-            resolvedUserResult.setErrorMessage("Found multiple users for " + allowedAttributes +
-                    " to value " + loginAttribute);
+    private ExecutorService getLookupExecutor() {
+
+        ExecutorService executor = lookupExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = lookupExecutor;
+                if (executor == null) {
+                    /*
+                    Lookups are rejected when the pool and its queue are full, rather than running them in the caller
+                    thread where they can not be timed out.
+                    */
+                    ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(lookupPoolSize, lookupPoolSize,
+                            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(lookupPoolSize * LOOKUP_QUEUE_FACTOR),
+                            new LookupThreadFactory());
+                    threadPoolExecutor.allowCoreThreadTimeOut(true);
+                    executor = threadPoolExecutor;
+                    lookupExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Shut down the executor of the parallel user resolution, if it was started.
+     */
+    public void shutdown() {
+
+        ExecutorService executor = lookupExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Get the compiled regex pattern of the claim from the pattern cache.
+     *
+     * @param tenantDomain Tenant domain.
+     * @param claimURI     Claim URI.
+     * @param regex        Regex of the claim.
+     * @return Compiled pattern, or null if the regex is invalid or rejected, in which case the claim is not matched.
+     */
+    private Pattern getClaimPattern(String tenantDomain, String claimURI, String regex) {
+
+        try {
+            return RegexPatternCache.getInstance().getPattern(tenantDomain, claimURI, regex);
+        } catch (PatternSyntaxException e) {
+            // Claims configured before their regex was validated on configuration may still have a rejected regex.
+            log.warn("Skipping the claim: " + claimURI + " in tenant: " + tenantDomain + " as its regex can not be " +
+                    "used for matching. " + e.getDescription());
+            return null;
         }
     }
 
@@ -294,11 +506,15 @@ public class RegexResolver implements MultiAttributeLoginResolver {
             user.setUsername(user.getDomainQualifiedUsername());
             resolvedUserResult.setUser(user);
         } else if (userList.size() > 1) {
-            resolvedUserResult.setErrorMessage("Found multiple users for " + claim.getDisplayTag() +
-                    " to value " + loginAttribute);
+            resolvedUserResult.setErrorMessage(getMultipleUsersErrorMessage(claim.getDisplayTag(), loginAttribute));
         }
     }
 
+    private static String getMultipleUsersErrorMessage(Object attributes, String loginAttribute) {
+
+        return "Found multiple users for " + attributes + " to value " + loginAttribute;
+    }
+
     @Override
     public ResolvedUserResult resolveUser(String loginAttribute, List<String> allowedAttributes, String tenantDomain,
                                           String hint) {
@@ -330,8 +546,8 @@ public class RegexResolver implements MultiAttributeLoginResolver {
                 if (StringUtils.isBlank(regex)) {
                     continue;
                 }
-                Pattern pattern = Pattern.compile(regex);
-                if (pattern.matcher(loginAttributeValue).matches()) {
+                Pattern pattern = getClaimPattern(tenantDomain, claimURI, regex);
+                if (pattern != null && pattern.matcher(loginAttributeValue).matches()) {
                     authenticationResult = userStoreManager.
                             authenticateWithID(claimURI, loginAttributeValue, credential, StringUtils.EMPTY);
                     if (AuthenticationResult.AuthenticationStatus.SUCCESS.
@@ -355,4 +571,273 @@ public class RegexResolver implements MultiAttributeLoginResolver {
         }
         return authenticationResult;
     }
+
+    /**
+     * Distinct users resolved from the claims, added in the order of the claims. A user resolved from a claim is
+     * skipped in the following claims.
+     */
+    private static final class DistinctUsers {
+
+        private final List<String> allowedAttributes;
+        private final String loginAttribute;
+        private final Set<String> uniqueUserIds = new HashSet<>();
+        private final Map<String, List<User>> usersByClaim = new HashMap<>();
+
+        private DistinctUsers(List<String> allowedAttributes, String loginAttribute) {
+
+            this.allowedAttributes = allowedAttributes;
+            this.loginAttribute = loginAttribute;
+        }
+
+        /**
+         * Add the users resolved from a claim whose regex matches the login attribute.
+         *
+         * @param claimURI Claim URI.
+         * @param claim    Claim.
+         * @param userList Users resolved from the claim.
+         * @return Error message if multiple users are resolved, null otherwise.
+         */
+        private String addClaimUsers(String claimURI, Claim claim, List<User> userList) {
+
+            if (userList.isEmpty()) {
+                return null;
+            }
+            /*
+            This is to make sure that the same user is not added to the list multiple times from different claims.
+            */
+            List<User> allowedDistinctUsersForClaim = userList.stream()
+                    .filter(user -> uniqueUserIds.add(user.getUserID()))
+                    .collect(Collectors.toList());
+
+            if (allowedDistinctUsersForClaim.size() == 1) {
+                /*
+                If the disctinctUsers map already contains a record that means multiple users has been resolved
+                for the login identifier from different claims. Hence, terminate the iteration and set the error
+                message.
+                */
+                if (usersByClaim.size() > 0) {
+                    return getMultipleUsersMessage();
+                }
+                usersByClaim.put(claimURI, allowedDistinctUsersForClaim);
+                /*
+                If the allowedDistinctUsersForClaim size is greater than 1, that means multiple users has been
+                resolved for the same login identifier from the same claim. Hence, terminate the iteration and set
+                the error message.
+                */
+            } else if (allowedDistinctUsersForClaim.size() > 1) {
+                return getMultipleUsersErrorMessage(claim.getDisplayTag(), loginAttribute);
+            }
+            return null;
+        }
+
+        /**
+         * Add the users resolved from the username, when the username claim has no regex.
+         *
+         * @param userList Users resolved from the username.
+         */
+        private void addUsernameUsers(List<User> userList) {
+
+            List<User> allowedDistinctUsersForClaim = userList.stream()
+                    .filter(user -> uniqueUserIds.add(user.getUserID()))
+                    .collect(Collectors.toList());
+            if (allowedDistinctUsersForClaim.size() == 1) {
+                usersByClaim.put(UserCoreClaimConstants.USERNAME_CLAIM_URI, allowedDistinctUsersForClaim);
+            }
+        }
+
+        private Map<String, List<User>> getUsersByClaim() {
+
+            return usersByClaim;
+        }
+
+        private String getMultipleUsersMessage() {
+
+            return getMultipleUsersErrorMessage(allowedAttributes, loginAttribute);
+        }
+    }
+
+    /**
+     * User list lookups of a set of claims, run on the lookup executor and collected through a completion service as
+     * they complete. The user list of a claim is the concatenation of the results of its lookups, in the user store
+     * preference order. Each lookup has its own timeout, which runs from the time the lookup starts, or from the time
+     * it is submitted while it is waiting in the queue of the executor.
+     */
+    private static final class UserListLookups {
+
+        private final CompletionService<UserListLookup> completionService;
+        private final long timeoutInNanos;
+        private final List<List<UserListLookup>> claimLookups;
+        private final List<Future<UserListLookup>> futures = new ArrayList<>();
+        private final List<UserListLookup> pendingLookups = new ArrayList<>();
+
+        private UserListLookups(ExecutorService executor, long timeoutInMillis, int claimCount) {
+
+            this.completionService = new ExecutorCompletionService<>(executor);
+            this.timeoutInNanos = TimeUnit.MILLISECONDS.toNanos(timeoutInMillis);
+            this.claimLookups = new ArrayList<>(claimCount);
+            for (int i = 0; i < claimCount; i++) {
+                claimLookups.add(new ArrayList<>());
+            }
+        }
+
+        /**
+         * Submit the lookups of a claim in the caller context.
+         *
+         * @param claimIndex   Index of the claim.
+         * @param lookups      Lookups of the claim, in the user store preference order.
+         * @param tenantDomain Tenant domain.
+         * @throws RejectedExecutionException If the lookup executor is saturated.
+         */
+        private void submit(int claimIndex, List<Callable<List<User>>> lookups, String tenantDomain) {
+
+            for (Callable<List<User>> lookup : lookups) {
+                UserListLookup userListLookup = new UserListLookup(claimIndex, lookup);
+                futures.add(completionService.submit(
+                        IdentityGovernanceUtil.withCallerContext(tenantDomain, userListLookup)));
+                claimLookups.get(claimIndex).add(userListLookup);
+                pendingLookups.add(userListLookup);
+            }
+        }
+
+        /**
+         * Wait for the next lookup to complete.
+         *
+         * @return Completed lookup.
+         * @throws org.wso2.carbon.user.core.UserStoreException If a pending lookup timed out or the lookup failed.
+         */
+        private UserListLookup awaitNext() throws org.wso2.carbon.user.core.UserStoreException {
+
+            try {
+                while (true) {
+                    long timeout = getEarliestDeadline() - System.nanoTime();
+                    Future<UserListLookup> future = timeout > 0 ?
+                            completionService.poll(timeout, TimeUnit.NANOSECONDS) : completionService.poll();
+                    if (future != null) {
+                        UserListLookup userListLookup = future.get();
+                        userListLookup.completed = true;
+                        pendingLookups.remove(userListLookup);
+                        return userListLookup;
+                    }
+                    // The deadline of a lookup moves on once the lookup starts, hence check again before failing.
+                    if (timeout <= 0) {
+                        throw new org.wso2.carbon.user.core.UserStoreException(
+                                "Timed out while resolving the users.");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new org.wso2.carbon.user.core.UserStoreException("Interrupted while resolving the users.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof org.wso2.carbon.user.core.UserStoreException) {
+                    throw (org.wso2.carbon.user.core.UserStoreException) e.getCause();
+                }
+                throw new org.wso2.carbon.user.core.UserStoreException("Error occurred while resolving the users.",
+                        e.getCause());
+            }
+        }
+
+        private boolean isCompleted(int claimIndex) {
+
+            for (UserListLookup userListLookup : claimLookups.get(claimIndex)) {
+                if (!userListLookup.completed) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private List<User> getUserList(int claimIndex) {
+
+            List<User> userList = new ArrayList<>();
+            for (UserListLookup userListLookup : claimLookups.get(claimIndex)) {
+                userList.addAll(userListLookup.getUsers());
+            }
+            return userList;
+        }
+
+        private long getEarliestDeadline() {
+
+            long earliestDeadline = System.nanoTime();
+            for (int i = 0; i < pendingLookups.size(); i++) {
+                long deadline = pendingLookups.get(i).getDeadline(timeoutInNanos);
+                if (i == 0 || deadline - earliestDeadline < 0) {
+                    earliestDeadline = deadline;
+                }
+            }
+            return earliestDeadline;
+        }
+
+        /**
+         * Cancel the lookups which have not completed. The running lookups are not interrupted, as interrupting a
+         * thread blocked on a user store may leave its connection unusable, while the queued lookups are not started.
+         */
+        private void cancel() {
+
+            for (Future<UserListLookup> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * A user list lookup of a claim in a user store.
+     */
+    private static final class UserListLookup implements Callable<UserListLookup> {
+
+        private final int claimIndex;
+        private final Callable<List<User>> lookup;
+        // Submission and start times of the lookup as per System.nanoTime().
+        private final long submittedTime = System.nanoTime();
+        private long startedTime;
+        private volatile boolean started;
+        private List<User> users;
+        // Only accessed by the thread waiting for the lookups.
+        private boolean completed;
+
+        private UserListLookup(int claimIndex, Callable<List<User>> lookup) {
+
+            this.claimIndex = claimIndex;
+            this.lookup = lookup;
+        }
+
+        @Override
+        public UserListLookup call() throws Exception {
+
+            startedTime = System.nanoTime();
+            started = true;
+            users = lookup.call();
+            return this;
+        }
+
+        private long getDeadline(long timeoutInNanos) {
+
+            return (started ? startedTime : submittedTime) + timeoutInNanos;
+        }
+
+        private boolean isOfMatchedClaim(List<String> matchedClaimURIs) {
+
+            return claimIndex < matchedClaimURIs.size();
+        }
+
+        private List<User> getUsers() {
+
+            return users == null ? Collections.emptyList() : users;
+        }
+    }
+
+    /**
+     * Creates daemon threads for the user list lookups.
+     */
+    private static final class LookupThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable, "RegexResolver-Lookup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -24,11 +24,14 @@ import org.osgi.framework.BundleContext;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
+import org.wso2.carbon.identity.claim.metadata.mgt.listener.ClaimMetadataMgtListener;
 import org.wso2.carbon.identity.multi.attribute.login.mgt.MultiAttributeLoginResolver;
 import org.wso2.carbon.identity.multi.attribute.login.resolver.regex.RegexResolver;
+import org.wso2.carbon.identity.multi.attribute.login.resolver.regex.listener.RegexClaimMetadataMgtListener;
 import org.wso2.carbon.user.core.service.RealmService;
 
 /**
@@ -41,16 +44,17 @@ import org.wso2.carbon.user.core.service.RealmService;
 public class RegexResolverServiceComponent {
 
     private static final Log log = LogFactory.getLog(RegexResolverServiceComponent.class);
+    private RegexResolver regexResolver;
 
     @Activate
     protected void activate(ComponentContext context) {
 
         BundleContext bundleContext = context.getBundleContext();
         try {
-            MultiAttributeLoginResolver multiAttributeLoginResolver =
-                    new RegexResolver();
-            bundleContext.registerService(MultiAttributeLoginResolver.class.getName(), multiAttributeLoginResolver,
-                    null);
+            regexResolver = new RegexResolver();
+            bundleContext.registerService(MultiAttributeLoginResolver.class.getName(), regexResolver, null);
+            bundleContext.registerService(ClaimMetadataMgtListener.class.getName(),
+                    new RegexClaimMetadataMgtListener(), null);
             if (log.isDebugEnabled()) {
                 log.debug("MultiAttributeLoginResolver activated successfully.");
             }
@@ -59,6 +63,17 @@ public class RegexResolverServiceComponent {
         }
     }
 
+    @Deactivate
+    protected void deactivate(ComponentContext context) {
+
+        if (regexResolver != null) {
+            regexResolver.shutdown();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("MultiAttributeLoginResolver deactivated.");
+        }
+    }
+
     @Reference(
             name = "RealmService",
             service = org.wso2.carbon.user.core.service.RealmService.class,
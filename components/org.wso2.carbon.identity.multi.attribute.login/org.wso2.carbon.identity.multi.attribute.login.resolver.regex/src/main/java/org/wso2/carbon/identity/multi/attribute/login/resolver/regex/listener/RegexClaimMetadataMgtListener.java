@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.multi.attribute.login.resolver.regex.listener;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.claim.metadata.mgt.exception.ClaimMetadataException;
+import org.wso2.carbon.identity.claim.metadata.mgt.listener.AbstractClaimMetadataMgtListener;
+import org.wso2.carbon.identity.claim.metadata.mgt.model.LocalClaim;
+import org.wso2.carbon.identity.claim.metadata.mgt.util.ClaimConstants;
+import org.wso2.carbon.identity.governance.RegexPatternCache;
+
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Rejects the local claims whose regex is invalid or may cause catastrophic backtracking, when the claims are added
+ * or updated. Such a regex would otherwise only be rejected when it is matched against a login identifier, where the
+ * claim is silently skipped. The accepted patterns are compiled into the regex pattern cache.
+ */
+public class RegexClaimMetadataMgtListener extends AbstractClaimMetadataMgtListener {
+
+    private static final int DEFAULT_ORDER_ID = 10;
+
+    @Override
+    public int getDefaultOrderId() {
+
+        return DEFAULT_ORDER_ID;
+    }
+
+    @Override
+    public boolean doPreAddLocalClaim(LocalClaim localClaim, String tenantDomain) throws ClaimMetadataException {
+
+        validateRegex(localClaim, tenantDomain);
+        return true;
+    }
+
+    @Override
+    public boolean doPreUpdateLocalClaim(LocalClaim localClaim, String tenantDomain) throws ClaimMetadataException {
+
+        validateRegex(localClaim, tenantDomain);
+        return true;
+    }
+
+    private void validateRegex(LocalClaim localClaim, String tenantDomain) throws ClaimMetadataException {
+
+        if (localClaim == null || localClaim.getClaimProperties() == null) {
+            return;
+        }
+        String regex = localClaim.getClaimProperty(ClaimConstants.REGULAR_EXPRESSION_PROPERTY);
+        if (StringUtils.isBlank(regex)) {
+            return;
+        }
+        try {
+            RegexPatternCache.getInstance().getPattern(tenantDomain, localClaim.getClaimURI(), regex);
+        } catch (PatternSyntaxException e) {
+            throw new ClaimMetadataException("The regex of claim: " + localClaim.getClaimURI() + " is invalid or " +
+                    "may cause catastrophic backtracking. " + e.getDescription(), e);
+        }
+    }
+}
@@ -26,24 +26,49 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.multi.attribute.login.mgt.ResolvedUserResult;
 import org.wso2.carbon.identity.multi.attribute.login.resolver.regex.internal.RegexResolverServiceDataHolder;
 import org.wso2.carbon.identity.multi.attribute.login.resolver.regex.utils.UserResolverUtil;
 import org.wso2.carbon.user.api.Claim;
+import org.wso2.carbon.user.api.RealmConfiguration;
 import org.wso2.carbon.user.core.UniqueIDUserStoreManager;
+import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.UserRealm;
 import org.wso2.carbon.user.core.claim.ClaimManager;
+import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
 import org.wso2.carbon.user.core.common.User;
+import org.wso2.carbon.user.core.model.UserMgtContext;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.user.core.tenant.TenantManager;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 public class RegexResolverTest {
@@ -56,6 +81,15 @@ public class RegexResolverTest {
     private static final String TEST_LOGIN_IDENTIFIER1 = "+99777521771";
     private static final String TEST_LOGIN_IDENTIFIER2 = "chathuranga";
     private static final String TEST_TENANT_DOMAIN = "testTenantDomain";
+    private static final String EMAIL_CLAIM_URI = "http://wso2.org/claims/emailaddress";
+    private static final String NICKNAME_CLAIM_URI = "http://wso2.org/claims/nickname";
+    private static final String TEST_EMAIL = "john@wso2.com";
+    private static final String PRIMARY_DOMAIN = "PRIMARY";
+    private static final String SECONDARY_DOMAIN = "SECONDARY";
+    private static final String PARALLEL_RESOLUTION_ENABLE = "MultiAttributeLogin.ParallelResolution.Enable";
+    private static final String PARALLEL_RESOLUTION_LOOKUP_TIMEOUT =
+            "MultiAttributeLogin.ParallelResolution.LookupTimeout";
+    private static final String PARALLEL_RESOLUTION_POOL_SIZE = "MultiAttributeLogin.ParallelResolution.PoolSize";
     private MockedStatic<RegexResolverServiceDataHolder> mockedRegexResolverServiceDataHolder;
     private MockedStatic<ResolvedUserResult> mockedResolvedUserResult;
 
@@ -158,4 +192,381 @@ public class RegexResolverTest {
                 {USERNAME_CLAIM_URI, "", allowedAttributes2, TEST_LOGIN_IDENTIFIER2, userList2}
         };
     }
+
+    @Test(dataProvider = "parallelResolutionData")
+    public void testParallelResolutionResolvesSameUserAsSequentialResolution(
+            Map<String, List<User>> primaryUsers, Map<String, List<User>> secondaryUsers,
+            boolean userStorePreferenceOrderEnabled, String expectedUserId, String expectedErrorMessage)
+            throws Exception {
+
+        List<String> allowedAttributes = Arrays.asList(EMAIL_CLAIM_URI, NICKNAME_CLAIM_URI, USERNAME_CLAIM_URI);
+        AbstractUserStoreManager primaryUserStoreManager = mockUserStoreManager(PRIMARY_DOMAIN, primaryUsers);
+        AbstractUserStoreManager secondaryUserStoreManager = mockUserStoreManager(SECONDARY_DOMAIN, secondaryUsers);
+        when(primaryUserStoreManager.getSecondaryUserStoreManager(PRIMARY_DOMAIN))
+                .thenReturn(primaryUserStoreManager);
+        when(primaryUserStoreManager.getSecondaryUserStoreManager(SECONDARY_DOMAIN))
+                .thenReturn(secondaryUserStoreManager);
+        mockUserRealm(primaryUserStoreManager);
+
+        RegexResolver sequentialRegexResolver = createRegexResolver(false, null);
+        RegexResolver parallelRegexResolver = createRegexResolver(true, null);
+        startTenantFlow();
+        try {
+            if (userStorePreferenceOrderEnabled) {
+                UserMgtContext userMgtContext = new UserMgtContext();
+                userMgtContext.setUserStorePreferenceOrderSupplier(
+                        () -> Arrays.asList(PRIMARY_DOMAIN, SECONDARY_DOMAIN));
+                UserCoreUtil.setUserMgtContextInThreadLocal(userMgtContext);
+            }
+            ResolvedUserResult sequentialResult = sequentialRegexResolver.resolveUser(TEST_EMAIL, allowedAttributes,
+                    MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+            ResolvedUserResult parallelResult = parallelRegexResolver.resolveUser(TEST_EMAIL, allowedAttributes,
+                    MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+
+            for (ResolvedUserResult result : Arrays.asList(sequentialResult, parallelResult)) {
+                if (expectedUserId != null) {
+                    assertEquals(result.getResolvedStatus(), ResolvedUserResult.UserResolvedStatus.SUCCESS);
+                    assertEquals(result.getUser().getUserID(), expectedUserId);
+                } else {
+                    assertEquals(result.getResolvedStatus(), ResolvedUserResult.UserResolvedStatus.FAIL);
+                    assertEquals(result.getErrorMessage(), expectedErrorMessage);
+                }
+            }
+        } finally {
+            UserCoreUtil.removeUserMgtContextInThreadLocal();
+            PrivilegedCarbonContext.endTenantFlow();
+            parallelRegexResolver.shutdown();
+        }
+    }
+
+    @DataProvider(name = "parallelResolutionData")
+    private Object[][] parallelResolutionData() {
+
+        User user1 = createUser("1234", "john");
+        User user2 = createUser("5678", "johnny");
+        String allowedAttributesError = "Found multiple users for " +
+                Arrays.asList(EMAIL_CLAIM_URI, NICKNAME_CLAIM_URI, USERNAME_CLAIM_URI) + " to value " + TEST_EMAIL;
+        String emailClaimError = "Found multiple users for Email to value " + TEST_EMAIL;
+
+        return new Object[][]{
+                // Resolved from a single claim.
+                {usersOf(EMAIL_CLAIM_URI, user1), usersOf(), false, "1234", null},
+                // Same user resolved from multiple claims.
+                {usersOf(EMAIL_CLAIM_URI, user1, USERNAME_CLAIM_URI, user1), usersOf(), false, "1234", null},
+                // Different users resolved from the claims with a regex.
+                {usersOf(EMAIL_CLAIM_URI, user1, NICKNAME_CLAIM_URI, user2), usersOf(), false, null,
+                        allowedAttributesError},
+                // Different users resolved from a claim with a regex and the username.
+                {usersOf(NICKNAME_CLAIM_URI, user2, USERNAME_CLAIM_URI, user1), usersOf(), false, null,
+                        allowedAttributesError},
+                // Multiple users resolved from the same claim.
+                {usersOf(EMAIL_CLAIM_URI, Arrays.asList(user1, user2)), usersOf(), false, null, emailClaimError},
+                // No user resolved.
+                {usersOf(), usersOf(), false, null, allowedAttributesError},
+                // Resolved from the second user store in the preference order.
+                {usersOf(), usersOf(EMAIL_CLAIM_URI, user2), true, "5678", null},
+                // Multiple users resolved from the same claim in different user stores.
+                {usersOf(EMAIL_CLAIM_URI, user1), usersOf(EMAIL_CLAIM_URI, user2), true, null, emailClaimError},
+                // Same user resolved from multiple claims in different user stores.
+                {usersOf(EMAIL_CLAIM_URI, user1), usersOf(USERNAME_CLAIM_URI, user1), true, "1234", null}
+        };
+    }
+
+    @Test
+    public void testParallelResolutionTimeout() throws Exception {
+
+        CountDownLatch lookupReleased = new CountDownLatch(1);
+        AtomicBoolean lookupInterrupted = new AtomicBoolean();
+        AbstractUserStoreManager userStoreManager = mockUserStoreManager(PRIMARY_DOMAIN, usersOf());
+        when(userStoreManager.getUserListWithID(eq(EMAIL_CLAIM_URI), anyString(), isNull())).thenAnswer(
+                invocation -> awaitRelease(lookupReleased, lookupInterrupted));
+        mockUserRealm(userStoreManager);
+
+        RegexResolver parallelRegexResolver = createRegexResolver(true, "1000");
+        startTenantFlow();
+        try {
+            long startTime = System.currentTimeMillis();
+            // The timed out lookup fails the resolution with a UserStoreException, which is logged.
+            ResolvedUserResult result = parallelRegexResolver.resolveUser(TEST_EMAIL,
+                    Collections.singletonList(EMAIL_CLAIM_URI), MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+
+            assertEquals(result.getResolvedStatus(), ResolvedUserResult.UserResolvedStatus.FAIL);
+            assertNull(result.getUser());
+            assertTrue(System.currentTimeMillis() - startTime < 5000, "Waited for the timed out lookup.");
+        } finally {
+            lookupReleased.countDown();
+            PrivilegedCarbonContext.endTenantFlow();
+            parallelRegexResolver.shutdown();
+        }
+        assertFalse(lookupInterrupted.get(), "The timed out lookup was interrupted.");
+    }
+
+    @Test
+    public void testParallelResolutionCancelsLookupsOnceOutcomeIsDecided() throws Exception {
+
+        CountDownLatch nicknameLookupStarted = new CountDownLatch(1);
+        CountDownLatch nicknameLookupReleased = new CountDownLatch(1);
+        AtomicBoolean nicknameLookupInterrupted = new AtomicBoolean();
+        AbstractUserStoreManager userStoreManager = mockUserStoreManager(PRIMARY_DOMAIN, usersOf());
+        when(userStoreManager.getUserListWithID(eq(EMAIL_CLAIM_URI), anyString(), isNull())).thenAnswer(
+                invocation -> {
+                    // Decide the outcome only after the lookup of the next claim is running.
+                    nicknameLookupStarted.await(5, TimeUnit.SECONDS);
+                    return Arrays.asList(createUser("1234", "john"), createUser("5678", "johnny"));
+                });
+        when(userStoreManager.getUserListWithID(eq(NICKNAME_CLAIM_URI), anyString(), isNull())).thenAnswer(
+                invocation -> {
+                    nicknameLookupStarted.countDown();
+                    return awaitRelease(nicknameLookupReleased, nicknameLookupInterrupted);
+                });
+        mockUserRealm(userStoreManager);
+
+        RegexResolver parallelRegexResolver = createRegexResolver(true, "10000");
+        startTenantFlow();
+        try {
+            long startTime = System.currentTimeMillis();
+            ResolvedUserResult result = parallelRegexResolver.resolveUser(TEST_EMAIL,
+                    Arrays.asList(EMAIL_CLAIM_URI, NICKNAME_CLAIM_URI), MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+
+            assertEquals(result.getErrorMessage(), "Found multiple users for Email to value " + TEST_EMAIL);
+            assertTrue(System.currentTimeMillis() - startTime < 5000, "Waited for the undecided lookups.");
+        } finally {
+            nicknameLookupReleased.countDown();
+            PrivilegedCarbonContext.endTenantFlow();
+            parallelRegexResolver.shutdown();
+        }
+        // The running lookup is left to complete, as interrupting it may break the user store connection.
+        assertFalse(nicknameLookupInterrupted.get(), "The running lookup of the next claim was interrupted.");
+    }
+
+    @Test
+    public void testParallelResolutionFailsOnMultipleUsersOfLaterClaim() throws Exception {
+
+        CountDownLatch emailLookupReleased = new CountDownLatch(1);
+        AbstractUserStoreManager userStoreManager = mockUserStoreManager(PRIMARY_DOMAIN,
+                usersOf(NICKNAME_CLAIM_URI, Arrays.asList(createUser("1234", "john"), createUser("5678", "johnny"))));
+        when(userStoreManager.getUserListWithID(eq(EMAIL_CLAIM_URI), anyString(), isNull())).thenAnswer(
+                invocation -> awaitRelease(emailLookupReleased, new AtomicBoolean()));
+        mockUserRealm(userStoreManager);
+
+        RegexResolver parallelRegexResolver = createRegexResolver(true, "10000");
+        startTenantFlow();
+        try {
+            long startTime = System.currentTimeMillis();
+            List<String> allowedAttributes = Arrays.asList(EMAIL_CLAIM_URI, NICKNAME_CLAIM_URI);
+            ResolvedUserResult result = parallelRegexResolver.resolveUser(TEST_EMAIL, allowedAttributes,
+                    MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+
+            // The outcome is decided without waiting for the lookup of the preceding claim.
+            assertEquals(result.getResolvedStatus(), ResolvedUserResult.UserResolvedStatus.FAIL);
+            assertEquals(result.getErrorMessage(), "Found multiple users for " + allowedAttributes + " to value " +
+                    TEST_EMAIL);
+            assertTrue(System.currentTimeMillis() - startTime < 5000, "Waited for the lookup of the first claim.");
+        } finally {
+            emailLookupReleased.countDown();
+            PrivilegedCarbonContext.endTenantFlow();
+            parallelRegexResolver.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelResolutionRejectsLookupsOfSaturatedPool() throws Exception {
+
+        CountDownLatch lookupReleased = new CountDownLatch(1);
+        AtomicInteger startedLookups = new AtomicInteger();
+        AbstractUserStoreManager userStoreManager = mockUserStoreManager(PRIMARY_DOMAIN, usersOf());
+        when(userStoreManager.getSecondaryUserStoreManager(anyString())).thenReturn(userStoreManager);
+        when(userStoreManager.getUserListWithID(eq(EMAIL_CLAIM_URI), anyString(), isNull())).thenAnswer(
+                invocation -> {
+                    startedLookups.incrementAndGet();
+                    return awaitRelease(lookupReleased, new AtomicBoolean());
+                });
+        mockUserRealm(userStoreManager);
+
+        // A single lookup thread with a queue of 10 lookups, while a lookup is started for each of the 12 domains.
+        List<String> userStorePreferenceOrder = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            userStorePreferenceOrder.add("DOMAIN" + i);
+        }
+        RegexResolver parallelRegexResolver = createRegexResolver(true, "10000", "1");
+        startTenantFlow();
+        try {
+            UserMgtContext userMgtContext = new UserMgtContext();
+            userMgtContext.setUserStorePreferenceOrderSupplier(() -> userStorePreferenceOrder);
+            UserCoreUtil.setUserMgtContextInThreadLocal(userMgtContext);
+            long startTime = System.currentTimeMillis();
+            ResolvedUserResult result = parallelRegexResolver.resolveUser(TEST_EMAIL,
+                    Collections.singletonList(EMAIL_CLAIM_URI), MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+
+            // The rejected lookup is not run in the calling thread.
+            assertEquals(result.getResolvedStatus(), ResolvedUserResult.UserResolvedStatus.FAIL);
+            assertTrue(System.currentTimeMillis() - startTime < 5000, "Waited for the lookups.");
+        } finally {
+            lookupReleased.countDown();
+            UserCoreUtil.removeUserMgtContextInThreadLocal();
+            PrivilegedCarbonContext.endTenantFlow();
+            parallelRegexResolver.shutdown();
+        }
+        // The queued lookups were cancelled before they started.
+        assertEquals(startedLookups.get(), 1);
+    }
+
+    @Test
+    public void testParallelResolutionPropagatesCallerContext() throws Exception {
+
+        AtomicReference<String> lookupUsername = new AtomicReference<>();
+        AtomicReference<String> lookupTenantDomain = new AtomicReference<>();
+        AtomicReference<UserMgtContext> lookupUserMgtContext = new AtomicReference<>();
+        AtomicReference<Thread> lookupThread = new AtomicReference<>();
+        AbstractUserStoreManager userStoreManager = mockUserStoreManager(PRIMARY_DOMAIN, usersOf());
+        when(userStoreManager.getUserListWithID(eq(EMAIL_CLAIM_URI), anyString(), isNull())).thenAnswer(
+                invocation -> {
+                    PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                    lookupUsername.set(carbonContext.getUsername());
+                    lookupTenantDomain.set(carbonContext.getTenantDomain());
+                    lookupUserMgtContext.set(UserCoreUtil.getUserMgtContextFromThreadLocal());
+                    lookupThread.set(Thread.currentThread());
+                    return Collections.singletonList(createUser("1234", "john"));
+                });
+        mockUserRealm(userStoreManager);
+
+        RegexResolver parallelRegexResolver = createRegexResolver(true, null);
+        UserMgtContext userMgtContext = new UserMgtContext();
+        startTenantFlow();
+        try {
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setUsername("admin");
+            UserCoreUtil.setUserMgtContextInThreadLocal(userMgtContext);
+            ResolvedUserResult result = parallelRegexResolver.resolveUser(TEST_EMAIL,
+                    Collections.singletonList(EMAIL_CLAIM_URI), MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+
+            assertEquals(result.getResolvedStatus(), ResolvedUserResult.UserResolvedStatus.SUCCESS);
+            assertNotNull(lookupThread.get());
+            assertNotEquals(lookupThread.get(), Thread.currentThread());
+            assertEquals(lookupUsername.get(), "admin");
+            assertEquals(lookupTenantDomain.get(), MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+            assertSame(lookupUserMgtContext.get(), userMgtContext);
+        } finally {
+            UserCoreUtil.removeUserMgtContextInThreadLocal();
+            PrivilegedCarbonContext.endTenantFlow();
+            parallelRegexResolver.shutdown();
+        }
+    }
+
+    private RegexResolver createRegexResolver(boolean parallelResolutionEnabled, String lookupTimeout) {
+
+        return createRegexResolver(parallelResolutionEnabled, lookupTimeout, null);
+    }
+
+    private RegexResolver createRegexResolver(boolean parallelResolutionEnabled, String lookupTimeout,
+                                              String poolSize) {
+
+        try (MockedStatic<IdentityUtil> mockedIdentityUtil = Mockito.mockStatic(IdentityUtil.class)) {
+            mockedIdentityUtil.when(() -> IdentityUtil.getProperty(PARALLEL_RESOLUTION_ENABLE))
+                    .thenReturn(String.valueOf(parallelResolutionEnabled));
+            mockedIdentityUtil.when(() -> IdentityUtil.getProperty(PARALLEL_RESOLUTION_LOOKUP_TIMEOUT))
+                    .thenReturn(lookupTimeout);
+            mockedIdentityUtil.when(() -> IdentityUtil.getProperty(PARALLEL_RESOLUTION_POOL_SIZE))
+                    .thenReturn(poolSize);
+            return new RegexResolver();
+        }
+    }
+
+    private void startTenantFlow() {
+
+        String carbonHome = Paths.get(System.getProperty("user.dir"), "src", "test", "resources").toString();
+        System.setProperty("carbon.home", carbonHome);
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                .setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+    }
+
+    private void mockUserRealm(AbstractUserStoreManager userStoreManager) throws Exception {
+
+        RegexResolverServiceDataHolder regexResolverServiceDataHolder =
+                Mockito.mock(RegexResolverServiceDataHolder.class);
+        RealmService realmService = Mockito.mock(RealmService.class);
+        TenantManager tenantManager = Mockito.mock(TenantManager.class);
+        UserRealm userRealm = Mockito.mock(UserRealm.class);
+        ClaimManager claimManager = Mockito.mock(ClaimManager.class);
+        mockedRegexResolverServiceDataHolder.when(RegexResolverServiceDataHolder::getInstance)
+                .thenReturn(regexResolverServiceDataHolder);
+        when(regexResolverServiceDataHolder.getRealmService()).thenReturn(realmService);
+        when(realmService.getTenantManager()).thenReturn(tenantManager);
+        when(tenantManager.getTenantId(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME))
+                .thenReturn(MultitenantConstants.SUPER_TENANT_ID);
+        when(realmService.getTenantUserRealm(MultitenantConstants.SUPER_TENANT_ID)).thenReturn(userRealm);
+        when(userRealm.getClaimManager()).thenReturn(claimManager);
+        when(userRealm.getUserStoreManager()).thenReturn(userStoreManager);
+        when(claimManager.getClaim(EMAIL_CLAIM_URI)).thenReturn(createClaim(EMAIL_CLAIM_URI, "Email", "^.+@.+$"));
+        when(claimManager.getClaim(NICKNAME_CLAIM_URI))
+                .thenReturn(createClaim(NICKNAME_CLAIM_URI, "Nick Name", "^.+$"));
+        when(claimManager.getClaim(USERNAME_CLAIM_URI)).thenReturn(createClaim(USERNAME_CLAIM_URI, "Username", ""));
+    }
+
+    private AbstractUserStoreManager mockUserStoreManager(String domainName, Map<String, List<User>> users)
+            throws Exception {
+
+        AbstractUserStoreManager userStoreManager = Mockito.mock(AbstractUserStoreManager.class);
+        RealmConfiguration realmConfiguration = Mockito.mock(RealmConfiguration.class);
+        when(realmConfiguration.getUserStoreProperty(UserCoreConstants.RealmConfig.PROPERTY_DOMAIN_NAME))
+                .thenReturn(domainName);
+        when(userStoreManager.getRealmConfiguration()).thenReturn(realmConfiguration);
+        for (Map.Entry<String, List<User>> entry : users.entrySet()) {
+            when(userStoreManager.getUserListWithID(eq(entry.getKey()), anyString(), isNull()))
+                    .thenReturn(entry.getValue());
+        }
+        return userStoreManager;
+    }
+
+    private static List<User> awaitRelease(CountDownLatch released, AtomicBoolean interrupted) {
+
+        try {
+            released.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            interrupted.set(true);
+        }
+        return Collections.emptyList();
+    }
+
+    private static Claim createClaim(String claimURI, String displayTag, String regex) {
+
+        Claim claim = new Claim();
+        claim.setClaimUri(claimURI);
+        claim.setDisplayTag(displayTag);
+        claim.setRegEx(regex);
+        return claim;
+    }
+
+    private static User createUser(String userId, String username) {
+
+        User user = new User();
+        user.setUserID(userId);
+        user.setUsername(username);
+        return user;
+    }
+
+    private static Map<String, List<User>> usersOf() {
+
+        return new HashMap<>();
+    }
+
+    private static Map<String, List<User>> usersOf(String claimURI, User user) {
+
+        return usersOf(claimURI, Collections.singletonList(user));
+    }
+
+    private static Map<String, List<User>> usersOf(String claimURI, List<User> users) {
+
+        Map<String, List<User>> claimUsers = new HashMap<>();
+        claimUsers.put(claimURI, users);
+        return claimUsers;
+    }
+
+    private static Map<String, List<User>> usersOf(String claimURI1, User user1, String claimURI2, User user2) {
+
+        Map<String, List<User>> claimUsers = usersOf(claimURI1, user1);
+        claimUsers.put(claimURI2, Collections.singletonList(user2));
+        return claimUsers;
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.multi.attribute.login.resolver.regex.listener;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.claim.metadata.mgt.exception.ClaimMetadataException;
+import org.wso2.carbon.identity.claim.metadata.mgt.model.LocalClaim;
+import org.wso2.carbon.identity.claim.metadata.mgt.util.ClaimConstants;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for RegexClaimMetadataMgtListener.
+ */
+public class RegexClaimMetadataMgtListenerTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String EMAIL_CLAIM_URI = "http://wso2.org/claims/emailaddress";
+
+    private final RegexClaimMetadataMgtListener listener = new RegexClaimMetadataMgtListener();
+
+    @DataProvider(name = "acceptedRegexData")
+    public Object[][] acceptedRegexData() {
+
+        return new Object[][]{
+                {"^.+@.+$"},
+                {""},
+                {null}
+        };
+    }
+
+    @Test(dataProvider = "acceptedRegexData")
+    public void testClaimWithAcceptedRegexIsAdded(String regex) throws Exception {
+
+        assertTrue(listener.doPreAddLocalClaim(createLocalClaim(regex), TENANT_DOMAIN));
+        assertTrue(listener.doPreUpdateLocalClaim(createLocalClaim(regex), TENANT_DOMAIN));
+    }
+
+    @Test(expectedExceptions = ClaimMetadataException.class)
+    public void testClaimWithBacktrackingRegexIsNotAdded() throws Exception {
+
+        listener.doPreAddLocalClaim(createLocalClaim("^(\\w+\\s?)*$"), TENANT_DOMAIN);
+    }
+
+    @Test(expectedExceptions = ClaimMetadataException.class)
+    public void testClaimWithInvalidRegexIsNotUpdated() throws Exception {
+
+        listener.doPreUpdateLocalClaim(createLocalClaim("^[a-z+$"), TENANT_DOMAIN);
+    }
+
+    private static LocalClaim createLocalClaim(String regex) {
+
+        Map<String, String> claimProperties = new HashMap<>();
+        if (regex != null) {
+            claimProperties.put(ClaimConstants.REGULAR_EXPRESSION_PROPERTY, regex);
+        }
+        return new LocalClaim(EMAIL_CLAIM_URI, Collections.emptyList(), claimProperties);
+    }
+}
@@ -70,6 +70,14 @@ public class PasswordPolicyConstants {
     public static final String PASSWORD_EXPIRED_MSG_QUERY_PARAM = "&passwordExpiredMsg=";
     public static final String PASSWORD_EXPIRY_RULES_PREFIX = "passwordExpiry.rule";
     public static final Integer MAX_PASSWORD_EXPIRY_RULE_VALUES = 5;
+    // Number of users retrieved per page when streaming password expired users.
+    public static final int STREAMING_PAGE_SIZE = 500;
+    // Configurations of the cache of the user memberships resolved for the password expiry rules.
+    public static final String MEMBERSHIP_CACHE_ENABLE = "PasswordExpiry.MembershipCache.Enable";
+    public static final String MEMBERSHIP_CACHE_TIMEOUT = "PasswordExpiry.MembershipCache.Timeout";
+    public static final int MEMBERSHIP_CACHE_DEFAULT_TIMEOUT = 60;
+    public static final String MEMBERSHIP_CACHE_MAX_ENTRIES = "PasswordExpiry.MembershipCache.MaxEntries";
+    public static final int MEMBERSHIP_CACHE_DEFAULT_MAX_ENTRIES = 10000;
 
     // Time conversion constants.
     public static final long WINDOWS_EPOCH_DIFF = 11644473600000L;
@@ -93,7 +101,8 @@ public class PasswordPolicyConstants {
                 "Error while retrieving password expired users from database."),
         ERROR_RETRIEVE_USER_STORE_MANAGER("80013", "Error while retrieving user store manager."),
         ERROR_WHILE_RETRIEVING_USER_ROLES("80014", "Error while retrieving user roles."),
-        ERROR_WHILE_RETRIEVING_USER_GROUPS("80015", "Error while retrieving user groups.");
+        ERROR_WHILE_RETRIEVING_USER_GROUPS("80015", "Error while retrieving user groups."),
+        ERROR_INVALID_PAGE_SIZE("80016", "Invalid page size: %s.");
 
         private final String code;
         private final String message;
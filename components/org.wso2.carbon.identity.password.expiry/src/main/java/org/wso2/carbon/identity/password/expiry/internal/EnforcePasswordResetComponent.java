@@ -36,11 +36,13 @@ import org.wso2.carbon.identity.event.handler.AbstractEventHandler;
 import org.wso2.carbon.identity.governance.IdentityGovernanceService;
 import org.wso2.carbon.identity.governance.common.IdentityConnectorConfig;
 import org.wso2.carbon.identity.password.expiry.listener.PasswordExpiryEventListener;
+import org.wso2.carbon.identity.password.expiry.listener.PasswordExpiryRoleManagementListener;
 import org.wso2.carbon.identity.password.expiry.services.ExpiredPasswordIdentificationService;
 import org.wso2.carbon.identity.password.expiry.services.impl.ExpiredPasswordIdentificationServiceImpl;
 import org.wso2.carbon.user.core.listener.UserOperationEventListener;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.identity.role.v2.mgt.core.RoleManagementService;
+import org.wso2.carbon.identity.role.v2.mgt.core.listener.RoleManagementListener;
 
 /**
  * OSGi declarative services component which handles registration and un-registration of password enforce reset handler
@@ -61,6 +63,9 @@ public class EnforcePasswordResetComponent {
             // Register the listener to capture user operations.
             PasswordExpiryEventListener listener = new PasswordExpiryEventListener();
             context.getBundleContext().registerService(UserOperationEventListener.class, listener, null);
+            // Register the listener to capture the role assignments updated through the role management service.
+            context.getBundleContext().registerService(RoleManagementListener.class,
+                    new PasswordExpiryRoleManagementListener(), null);
 
             EnforcePasswordResetAuthenticationHandler enforcePasswordResetAuthenticationHandler =
                     new EnforcePasswordResetAuthenticationHandler();
@@ -23,13 +23,13 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
-import org.wso2.carbon.identity.application.authentication.framework.exception.PostAuthenticationFailedException;
 import org.wso2.carbon.identity.core.AbstractIdentityUserOperationEventListener;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.password.expiry.constants.PasswordPolicyConstants;
 import org.wso2.carbon.identity.password.expiry.exceptions.ExpiredPasswordIdentificationException;
-import org.wso2.carbon.identity.password.expiry.models.PasswordExpiryRule;
 import org.wso2.carbon.identity.password.expiry.util.PasswordPolicyUtils;
+import org.wso2.carbon.identity.password.expiry.util.UserMembershipCache;
 import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
 import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
@@ -37,7 +37,6 @@ import org.wso2.carbon.user.core.model.UserClaimSearchEntry;
 
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -105,28 +104,96 @@ public class PasswordExpiryEventListener extends AbstractIdentityUserOperationEv
 
         try {
             String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
-            if (!PasswordPolicyUtils.isPasswordExpiryEnabled(tenantDomain)) return true;
-
-            boolean isSkipIfNoApplicableRulesEnabled =
-                    PasswordPolicyUtils.isSkipIfNoApplicableRulesEnabled(tenantDomain);
-            int defaultPasswordExpiryInDays = PasswordPolicyUtils.getPasswordExpiryInDays(tenantDomain);
-            List<PasswordExpiryRule> passwordExpiryRules = PasswordPolicyUtils.getPasswordExpiryRules(tenantDomain);
+            // Compute the expiry times of all the users at once, reading the configurations and the rules only once.
+            Map<String, Long> passwordExpiryTimes =
+                    PasswordPolicyUtils.getUserPasswordExpiryTimes(tenantDomain, userClaimSearchEntries);
 
             for (UserClaimSearchEntry userClaimSearchEntry : userClaimSearchEntries) {
-                String username = userClaimSearchEntry.getUserName();
-
+                Long passwordExpiryTime = passwordExpiryTimes.get(userClaimSearchEntry.getUserName());
+                if (passwordExpiryTime == null) {
+                    continue;
+                }
                 if (userClaimSearchEntry.getClaims() == null) {
                     userClaimSearchEntry.setClaims(new HashMap<String, String>());
                 }
-                Optional<Long> passwordExpiryTime = PasswordPolicyUtils.getUserPasswordExpiryTime(
-                        tenantDomain, username, true, isSkipIfNoApplicableRulesEnabled,
-                        passwordExpiryRules, defaultPasswordExpiryInDays);
-                passwordExpiryTime.ifPresent(expiryTime -> userClaimSearchEntry.getClaims()
-                        .put(PasswordPolicyConstants.PASSWORD_EXPIRY_TIME_CLAIM, String.valueOf(expiryTime)));
+                userClaimSearchEntry.getClaims().put(PasswordPolicyConstants.PASSWORD_EXPIRY_TIME_CLAIM,
+                        String.valueOf(passwordExpiryTime));
             }
-        } catch (PostAuthenticationFailedException | ExpiredPasswordIdentificationException e) {
+        } catch (ExpiredPasswordIdentificationException e) {
             throw new UserStoreException("Error while retrieving password expiry time.", e);
         }
         return true;
     }
+
+    @Override
+    public boolean doPostUpdateRoleListOfUserWithID(String userID, String[] deletedRoles, String[] newRoles,
+                                                    UserStoreManager userStoreManager) throws UserStoreException {
+
+        if (isMembershipCacheEnabled()) {
+            UserMembershipCache.getInstance().clearMemberships(getTenantDomain(userStoreManager), userID);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean doPostUpdateUserListOfRoleWithID(String roleName, String[] deletedUserIDs, String[] newUserIDs,
+                                                    UserStoreManager userStoreManager) throws UserStoreException {
+
+        if (isMembershipCacheEnabled()) {
+            String tenantDomain = getTenantDomain(userStoreManager);
+            UserMembershipCache.getInstance().clearMemberships(tenantDomain, deletedUserIDs);
+            UserMembershipCache.getInstance().clearMemberships(tenantDomain, newUserIDs);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean doPostUpdateRoleListOfUser(String userName, String[] deletedRoles, String[] newRoles,
+                                              UserStoreManager userStoreManager) throws UserStoreException {
+
+        // The memberships are cached against the user IDs, hence clear the memberships of the tenant.
+        if (isMembershipCacheEnabled()) {
+            UserMembershipCache.getInstance().clearTenantMemberships(getTenantDomain(userStoreManager));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean doPostUpdateUserListOfRole(String roleName, String[] deletedUsers, String[] newUsers,
+                                              UserStoreManager userStoreManager) throws UserStoreException {
+
+        if (isMembershipCacheEnabled()) {
+            UserMembershipCache.getInstance().clearTenantMemberships(getTenantDomain(userStoreManager));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean doPostDeleteUserWithID(String userID, UserStoreManager userStoreManager)
+            throws UserStoreException {
+
+        if (isMembershipCacheEnabled()) {
+            UserMembershipCache.getInstance().clearMemberships(getTenantDomain(userStoreManager), userID);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean doPostDeleteRole(String roleName, UserStoreManager userStoreManager) throws UserStoreException {
+
+        if (isMembershipCacheEnabled()) {
+            UserMembershipCache.getInstance().clearTenantMemberships(getTenantDomain(userStoreManager));
+        }
+        return true;
+    }
+
+    private boolean isMembershipCacheEnabled() {
+
+        return isEnable() && UserMembershipCache.getInstance().isEnabled();
+    }
+
+    private String getTenantDomain(UserStoreManager userStoreManager) throws UserStoreException {
+
+        return IdentityTenantUtil.getTenantDomain(userStoreManager.getTenantId());
+    }
 }
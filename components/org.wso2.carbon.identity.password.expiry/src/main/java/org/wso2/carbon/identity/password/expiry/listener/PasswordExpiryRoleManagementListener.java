@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.password.expiry.listener;
+
+import org.wso2.carbon.identity.password.expiry.util.UserMembershipCache;
+import org.wso2.carbon.identity.role.v2.mgt.core.exception.IdentityRoleManagementException;
+import org.wso2.carbon.identity.role.v2.mgt.core.listener.AbstractRoleManagementListener;
+
+import java.util.List;
+
+/**
+ * Role management listener which invalidates the cached memberships of the users evaluated against the password
+ * expiry rules, when the role assignments are updated through the role management service.
+ */
+public class PasswordExpiryRoleManagementListener extends AbstractRoleManagementListener {
+
+    @Override
+    public int getDefaultOrderId() {
+
+        return 102;
+    }
+
+    @Override
+    public void postUpdateUserListOfRole(String roleId, List<String> newUserIDList, List<String> deletedUserIDList,
+                                         String tenantDomain) throws IdentityRoleManagementException {
+
+        if (UserMembershipCache.getInstance().isEnabled()) {
+            clearMemberships(tenantDomain, newUserIDList);
+            clearMemberships(tenantDomain, deletedUserIDList);
+        }
+    }
+
+    @Override
+    public void postUpdateGroupListOfRole(String roleId, List<String> newGroupIDList, List<String> deletedGroupIDList,
+                                          String tenantDomain) throws IdentityRoleManagementException {
+
+        // The roles are cached against the users, not the groups, hence clear the memberships of the tenant.
+        if (UserMembershipCache.getInstance().isEnabled()) {
+            UserMembershipCache.getInstance().clearTenantMemberships(tenantDomain);
+        }
+    }
+
+    @Override
+    public void postDeleteRole(String roleId, String tenantDomain) throws IdentityRoleManagementException {
+
+        if (UserMembershipCache.getInstance().isEnabled()) {
+            UserMembershipCache.getInstance().clearTenantMemberships(tenantDomain);
+        }
+    }
+
+    private void clearMemberships(String tenantDomain, List<String> userIds) {
+
+        if (userIds != null && !userIds.isEmpty()) {
+            UserMembershipCache.getInstance().clearMemberships(tenantDomain, userIds.toArray(new String[0]));
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package org.wso2.carbon.identity.password.expiry.services;
 
 
+import org.wso2.carbon.identity.password.expiry.constants.PasswordPolicyConstants;
 import org.wso2.carbon.identity.password.expiry.exceptions.ExpiredPasswordIdentificationException;
+import org.wso2.carbon.identity.governance.model.UsersPage;
 import org.wso2.carbon.identity.password.expiry.models.PasswordExpiredUserModel;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Service interface for expired password identification.
@@ -39,4 +43,48 @@ public interface ExpiredPasswordIdentificationService {
      */
     List<PasswordExpiredUserModel> getPasswordExpiredUsersBetweenSpecificDates(LocalDateTime expiredAfter,
             LocalDateTime excludeBefore, String tenantDomain) throws ExpiredPasswordIdentificationException;
+
+    /**
+     * Get a page of password expired users. The users are ordered by the last password update time, and each page
+     * continues after the last user of the previous page, hence the cost of retrieving a page does not depend on its
+     * position.
+     *
+     * @param expiredAfter  The date after which passwords will expire.
+     * @param excludeAfter  The date after which the user should be excluded, or null to include all users.
+     * @param tenantDomain  Tenant domain.
+     * @param cursor        Cursor returned with the previous page, or null to retrieve the first page.
+     * @param limit         Maximum number of users in the page.
+     * @return Page of password expired users.
+     * @throws ExpiredPasswordIdentificationException Exception when retrieving password expired users from database.
+     */
+    default UsersPage<PasswordExpiredUserModel> getPasswordExpiredUsers(LocalDateTime expiredAfter,
+                                                                        LocalDateTime excludeAfter,
+                                                                        String tenantDomain, String cursor, int limit)
+            throws ExpiredPasswordIdentificationException {
+
+        return new UsersPage<>(Collections.emptyList(), null);
+    }
+
+    /**
+     * Pass each password expired user to the given consumer. The users are retrieved page by page, hence only a
+     * single page of users is held in memory regardless of the number of users in the tenant.
+     *
+     * @param expiredAfter  The date after which passwords will expire.
+     * @param excludeAfter  The date after which the user should be excluded, or null to include all users.
+     * @param tenantDomain  Tenant domain.
+     * @param consumer      Consumer of the password expired users.
+     * @throws ExpiredPasswordIdentificationException Exception when retrieving password expired users from database.
+     */
+    default void streamPasswordExpiredUsers(LocalDateTime expiredAfter, LocalDateTime excludeAfter,
+                                            String tenantDomain, Consumer<PasswordExpiredUserModel> consumer)
+            throws ExpiredPasswordIdentificationException {
+
+        String cursor = null;
+        do {
+            UsersPage<PasswordExpiredUserModel> page = getPasswordExpiredUsers(expiredAfter, excludeAfter,
+                    tenantDomain, cursor, PasswordPolicyConstants.STREAMING_PAGE_SIZE);
+            page.getUsers().forEach(consumer);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
 }
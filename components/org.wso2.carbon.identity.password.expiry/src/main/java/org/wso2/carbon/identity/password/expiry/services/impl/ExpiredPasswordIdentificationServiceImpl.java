@@ -22,6 +22,10 @@ import org.apache.commons.lang.StringUtils;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
+import org.wso2.carbon.identity.governance.model.UserNamesPage;
+import org.wso2.carbon.identity.governance.model.UsersPage;
+import org.wso2.carbon.identity.password.expiry.exceptions.ExpiredPasswordIdentificationClientException;
 import org.wso2.carbon.identity.password.expiry.exceptions.ExpiredPasswordIdentificationException;
 import org.wso2.carbon.identity.password.expiry.exceptions.ExpiredPasswordIdentificationServerException;
 import org.wso2.carbon.identity.password.expiry.internal.EnforcePasswordResetComponentDataHolder;
@@ -33,7 +37,6 @@ import org.wso2.carbon.identity.recovery.internal.IdentityRecoveryServiceDataHol
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.UserRealm;
 import org.wso2.carbon.user.core.UserStoreManager;
-import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 
@@ -41,6 +44,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.wso2.carbon.identity.password.expiry.util.PasswordPolicyUtils.getPasswordExpiryInDays;
 
@@ -102,6 +106,42 @@ public class ExpiredPasswordIdentificationServiceImpl implements ExpiredPassword
         return passwordExpiredUsers;
     }
 
+    @Override
+    public UsersPage<PasswordExpiredUserModel> getPasswordExpiredUsers(LocalDateTime expiredAfter,
+                                                                       LocalDateTime excludeAfter,
+                                                                       String tenantDomain, String cursor, int limit)
+            throws ExpiredPasswordIdentificationException {
+
+        if (limit <= 0) {
+            PasswordPolicyConstants.ErrorMessages errorEnum =
+                    PasswordPolicyConstants.ErrorMessages.ERROR_INVALID_PAGE_SIZE;
+            throw new ExpiredPasswordIdentificationClientException(errorEnum.getCode(),
+                    String.format(errorEnum.getMessage(), limit));
+        }
+        int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+        try {
+            int passwordExpiryInDays = getPasswordExpiryInDays(tenantDomain);
+            LocalDateTime expiredDate = expiredAfter.minusDays(passwordExpiryInDays);
+            String expiredDateEpoch = Long.toString(expiredDate.toEpochSecond(ZoneOffset.UTC));
+            String excludeDateEpoch = null;
+            if (excludeAfter != null) {
+                LocalDateTime excludeDate = excludeAfter.minusDays(passwordExpiryInDays - 1);
+                excludeDateEpoch = Long.toString(excludeDate.toEpochSecond(ZoneOffset.UTC));
+            }
+
+            UserNamesPage userNamesPage = EnforcePasswordResetComponentDataHolder.getInstance()
+                    .getIdentityDataStoreService().listUsersByClaimValueRange(
+                            PasswordPolicyConstants.LAST_CREDENTIAL_UPDATE_TIMESTAMP_CLAIM, expiredDateEpoch,
+                            excludeDateEpoch, tenantId, cursor, limit);
+            return new UsersPage<>(buildPasswordExpiredUsers(userNamesPage.getUserNames(), tenantDomain),
+                    userNamesPage.getNextPageToken());
+        } catch (IdentityException e) {
+            PasswordPolicyConstants.ErrorMessages errorEnum =
+                    PasswordPolicyConstants.ErrorMessages.ERROR_RETRIEVE_PASSWORD_EXPIRED_USERS_FROM_DB;
+            throw new ExpiredPasswordIdentificationServerException(errorEnum.getCode(), errorEnum.getMessage());
+        }
+    }
+
     /**
      * Build a list of password expired users.
      *
@@ -112,8 +152,9 @@ public class ExpiredPasswordIdentificationServiceImpl implements ExpiredPassword
             throws ExpiredPasswordIdentificationServerException {
 
         List<PasswordExpiredUserModel> passwordExpiredUsers = new ArrayList<>();
+        Map<String, String> userIds = fetchUserIds(usernames, tenantDomain);
         for (String username : usernames) {
-            String userId = fetchUserId(username, tenantDomain);
+            String userId = userIds.get(username);
             if (StringUtils.isNotBlank(userId)) {
                 PasswordExpiredUserModel passwordExpiredUser = new PasswordExpiredUserModel();
                 passwordExpiredUser.setUsername(username);
@@ -126,26 +167,22 @@ public class ExpiredPasswordIdentificationServiceImpl implements ExpiredPassword
     }
 
     /**
-     * Fetch UUID of the user.
+     * Fetch UUIDs of the users of any user store.
      *
-     * @param username          username of the user.
-     * @return                  UUID of the user
+     * @param usernames         usernames of the users.
+     * @return                  map of the usernames to the UUIDs of the users.
      */
-    private String fetchUserId(String username, String tenantDomain)
+    private Map<String, String> fetchUserIds(List<String> usernames, String tenantDomain)
             throws ExpiredPasswordIdentificationServerException {
-        
-        UserStoreManager userStoreManager = getUserStoreManager(
-                UserCoreUtil.extractDomainFromName(username), tenantDomain);
+
+        UserStoreManager userStoreManager = getUserStoreManager(IdentityUtil.getPrimaryDomainName(), tenantDomain);
         try {
-            if (userStoreManager instanceof AbstractUserStoreManager) {
-                return ((AbstractUserStoreManager) userStoreManager).getUserIDFromUserName(username);
-            }
+            return IdentityGovernanceUtil.getUserIdsFromDomainQualifiedUserNames(userStoreManager, usernames);
         } catch (UserStoreException e) {
             PasswordPolicyConstants.ErrorMessages errorEnum =
                     PasswordPolicyConstants.ErrorMessages.ERROR_WHILE_GETTING_USERID_FOR_USERNAME;
             throw new ExpiredPasswordIdentificationServerException(errorEnum.getCode(), errorEnum.getMessage());
         }
-        return null;
     }
 
     /**
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.password.expiry.util;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.password.expiry.constants.PasswordPolicyConstants;
+import org.wso2.carbon.identity.password.expiry.models.PasswordExpiryRule;
+import org.wso2.carbon.identity.password.expiry.models.PasswordExpiryRuleAttributeEnum;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable set of the password expiry rules of a tenant, sorted by the rule priority. The rule set is built from
+ * the password expiry connector configurations of the tenant and is built again only when the rule definitions of
+ * the tenant change.
+ */
+public final class PasswordExpiryRuleSet {
+
+    private static final Log log = LogFactory.getLog(PasswordExpiryRuleSet.class);
+
+    // Rule sets of inactive tenants are only dropped when the limit is reached, hence keep the number bounded.
+    private static final int MAX_RULE_SETS = 1000;
+    private static final Map<String, PasswordExpiryRuleSet> ruleSets = new ConcurrentHashMap<>();
+
+    private final String[] ruleDefinitions;
+    private final List<PasswordExpiryRule> rules;
+    private final Set<PasswordExpiryRuleAttributeEnum> ruleAttributes =
+            EnumSet.noneOf(PasswordExpiryRuleAttributeEnum.class);
+
+    private PasswordExpiryRuleSet(String[] ruleDefinitions) {
+
+        this.ruleDefinitions = ruleDefinitions;
+        List<PasswordExpiryRule> passwordExpiryRules = new ArrayList<>();
+        for (String ruleDefinition : ruleDefinitions) {
+            PasswordExpiryRule passwordExpiryRule = parseRule(ruleDefinition);
+            if (passwordExpiryRule != null) {
+                passwordExpiryRules.add(passwordExpiryRule);
+                ruleAttributes.add(passwordExpiryRule.getAttribute());
+            }
+        }
+        // The sort is stable, hence the rules with the same priority keep the order of the configurations.
+        passwordExpiryRules.sort(Comparator.comparingInt(PasswordExpiryRule::getPriority));
+        this.rules = Collections.unmodifiableList(passwordExpiryRules);
+    }
+
+    /**
+     * Get the rule set built from the given password expiry connector configurations of a tenant. The rule set
+     * built earlier for the tenant is returned if the rule definitions have not changed since.
+     *
+     * @param tenantDomain Tenant domain.
+     * @param properties   Password expiry connector configurations of the tenant.
+     * @return Rule set of the tenant.
+     */
+    public static PasswordExpiryRuleSet getRuleSet(String tenantDomain, Property[] properties) {
+
+        List<String> definitions = new ArrayList<>();
+        if (properties != null) {
+            for (Property property : properties) {
+                if (property != null &&
+                        StringUtils.startsWith(property.getName(), PasswordPolicyConstants.PASSWORD_EXPIRY_RULES_PREFIX)
+                        && StringUtils.isNotEmpty(property.getValue())) {
+                    definitions.add(property.getValue());
+                }
+            }
+        }
+        String[] ruleDefinitions = definitions.toArray(new String[0]);
+
+        PasswordExpiryRuleSet ruleSet = ruleSets.get(tenantDomain);
+        if (ruleSet != null && Arrays.equals(ruleSet.ruleDefinitions, ruleDefinitions)) {
+            return ruleSet;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Building the password expiry rule set of tenant: " + tenantDomain);
+        }
+        ruleSet = new PasswordExpiryRuleSet(ruleDefinitions);
+        if (ruleSets.size() >= MAX_RULE_SETS) {
+            ruleSets.clear();
+        }
+        ruleSets.put(tenantDomain, ruleSet);
+        return ruleSet;
+    }
+
+    /**
+     * Get the valid rules of the rule set, in the ascending order of the priority. The rules are shared, hence they
+     * must not be modified.
+     *
+     * @return Unmodifiable list of the rules.
+     */
+    public List<PasswordExpiryRule> getRules() {
+
+        return rules;
+    }
+
+    /**
+     * Check whether the rule set has no valid rules.
+     *
+     * @return True if there are no valid rules.
+     */
+    public boolean isEmpty() {
+
+        return rules.isEmpty();
+    }
+
+    /**
+     * Check whether any rule of the rule set is evaluated against the given user attribute.
+     *
+     * @param attribute User attribute.
+     * @return True if a rule refers to the attribute.
+     */
+    public boolean refersTo(PasswordExpiryRuleAttributeEnum attribute) {
+
+        return ruleAttributes.contains(attribute);
+    }
+
+    @SuppressFBWarnings("CRLF_INJECTION_LOGS")
+    private static PasswordExpiryRule parseRule(String ruleDefinition) {
+
+        try {
+            return new PasswordExpiryRule(ruleDefinition);
+        } catch (Exception e) {
+            // Log and skip the rule if an error occurred while parsing the rule, without failing the
+            // authentication flow.
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Error parsing password expiry rule: %s. Rule will be skipped.",
+                        ruleDefinition));
+            }
+            log.error("Error parsing password expiry rule.", e);
+            return null;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.commons.collections.CollectionUtils;
 import org.wso2.carbon.identity.governance.bean.ConnectorConfig;
 import org.wso2.carbon.identity.password.expiry.constants.PasswordPolicyConstants;
 import org.wso2.carbon.identity.password.expiry.internal.EnforcePasswordResetComponentDataHolder;
+import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -33,6 +34,7 @@ import org.wso2.carbon.identity.core.URLBuilderException;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.governance.IdentityGovernanceException;
 import org.wso2.carbon.identity.governance.IdentityGovernanceService;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
 import org.wso2.carbon.identity.password.expiry.models.PasswordExpiryRuleAttributeEnum;
 import org.wso2.carbon.identity.password.expiry.models.PasswordExpiryRuleOperatorEnum;
 import org.wso2.carbon.identity.password.expiry.models.PasswordExpiryRule;
@@ -44,6 +46,7 @@ import org.wso2.carbon.user.api.UserRealm;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
 import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
+import org.wso2.carbon.user.core.model.UserClaimSearchEntry;
 import org.wso2.carbon.user.core.jdbc.UniqueIDJDBCUserStoreManager;
 import org.wso2.carbon.user.core.ldap.UniqueIDActiveDirectoryUserStoreManager;
 import org.wso2.carbon.user.core.service.RealmService;
@@ -53,7 +56,10 @@ import org.wso2.carbon.user.core.common.Group;
 import org.wso2.carbon.identity.password.expiry.exceptions.ExpiredPasswordIdentificationException;
 
 import java.util.ArrayList;
-import java.util.EnumMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -108,50 +114,38 @@ public class PasswordPolicyUtils {
      * Get password expiry rules.
      *
      * @param tenantDomain Tenant domain.
-     * @return List of password expiry rules.
+     * @return List of password expiry rules, in the ascending order of the priority.
      * @throws PostAuthenticationFailedException If an error occurred while getting the password expiry rules.
      */
-    @SuppressFBWarnings("CRLF_INJECTION_LOGS")
     public static List<PasswordExpiryRule> getPasswordExpiryRules(String tenantDomain)
             throws PostAuthenticationFailedException {
 
-        List<PasswordExpiryRule> passwordExpiryRules = new ArrayList<>();
+        return getPasswordExpiryRuleSet(tenantDomain).getRules();
+    }
+
+    /**
+     * Get the password expiry rule set of the tenant. The rules are parsed only when the rule configurations of the
+     * tenant change.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Password expiry rule set.
+     * @throws PostAuthenticationFailedException If an error occurred while getting the password expiry rules.
+     */
+    public static PasswordExpiryRuleSet getPasswordExpiryRuleSet(String tenantDomain)
+            throws PostAuthenticationFailedException {
+
         try {
             IdentityGovernanceService governanceService =
                     EnforcePasswordResetComponentDataHolder.getInstance().getIdentityGovernanceService();
             ConnectorConfig connectorConfig =
                     governanceService.getConnectorWithConfigs(tenantDomain, CONNECTOR_CONFIG_NAME);
-            if (connectorConfig == null) {
-                return passwordExpiryRules;
-            }
-            Property[] properties = connectorConfig.getProperties();
-            if (properties == null) {
-                return passwordExpiryRules;
-            }
-
-            for (Property property : properties) {
-                if (StringUtils.startsWith(property.getName(), PasswordPolicyConstants.PASSWORD_EXPIRY_RULES_PREFIX) &&
-                        StringUtils.isNotEmpty(property.getValue())) {
-                    try {
-                        PasswordExpiryRule passwordExpiryRule = new PasswordExpiryRule(property.getValue());
-                        passwordExpiryRules.add(passwordExpiryRule);
-                    } catch (Exception e) {
-                        // Log and skip the rule if an error occurred while parsing the rule, without failing the
-                        // authentication flow.
-                        if (log.isDebugEnabled()) {
-                            log.debug(String.format("Error parsing password expiry rule: %s. Rule will be skipped.",
-                                    property.getValue()));
-                        }
-                        log.error("Error parsing password expiry rule.", e);
-                    }
-                }
-            }
+            Property[] properties = connectorConfig != null ? connectorConfig.getProperties() : null;
+            return PasswordExpiryRuleSet.getRuleSet(tenantDomain, properties);
         } catch (IdentityGovernanceException e) {
             throw new PostAuthenticationFailedException(PasswordPolicyConstants.ErrorMessages.
                     ERROR_WHILE_READING_SYSTEM_CONFIGURATIONS.getCode(),
                     PasswordPolicyConstants.ErrorMessages.ERROR_WHILE_READING_SYSTEM_CONFIGURATIONS.getMessage());
         }
-        return passwordExpiryRules;
     }
 
     /**
@@ -170,34 +164,41 @@ public class PasswordPolicyUtils {
 
             UserRealm userRealm = getUserRealm(tenantDomain);
             UserStoreManager userStoreManager = getUserStoreManager(userRealm);
-            String userId = ((AbstractUserStoreManager) userStoreManager).getUserIDFromUserName(tenantAwareUsername);
             String lastPasswordUpdatedTime =
                     getLastPasswordUpdatedTime(tenantAwareUsername, userStoreManager, userRealm);
             long lastPasswordUpdatedTimeInMillis = getLastPasswordUpdatedTimeInMillis(lastPasswordUpdatedTime);
             int daysDifference = getDaysDifference(lastPasswordUpdatedTimeInMillis);
 
-            List<PasswordExpiryRule> passwordExpiryRules = getPasswordExpiryRules(tenantDomain);
+            PasswordExpiryRuleSet passwordExpiryRuleSet = getPasswordExpiryRuleSet(tenantDomain);
             boolean skipIfNoApplicableRules = isSkipIfNoApplicableRulesEnabled(tenantDomain);
 
             // Apply default password expiry policy if no rules given.
-            if (CollectionUtils.isEmpty(passwordExpiryRules)) {
+            if (passwordExpiryRuleSet.isEmpty()) {
                 return isPasswordExpiredUnderDefaultPolicy(tenantDomain, daysDifference, lastPasswordUpdatedTime,
                         skipIfNoApplicableRules);
             }
 
-            Map<PasswordExpiryRuleAttributeEnum, Set<String>> fetchedUserAttributes =
-                    new EnumMap<>(PasswordExpiryRuleAttributeEnum.class);
+            // The password cannot be expired under any rule, hence skip resolving the roles and groups of the user.
+            if (StringUtils.isNotBlank(lastPasswordUpdatedTime) && daysDifference <
+                    getMinimumPasswordExpiryInDays(tenantDomain, passwordExpiryRuleSet, skipIfNoApplicableRules)) {
+                return false;
+            }
 
-            for (PasswordExpiryRule rule : passwordExpiryRules) {
-                if (isRuleApplicable(rule, fetchedUserAttributes, tenantDomain, userId, userStoreManager)) {
-                    // Skip the rule if the operator is not equals.
-                    if (PasswordExpiryRuleOperatorEnum.NE.equals(rule.getOperator())) {
-                        return false;
-                    }
-                    int expiryDays =
-                            rule.getExpiryDays() > 0 ? rule.getExpiryDays() : getPasswordExpiryInDays(tenantDomain);
-                    return daysDifference >= expiryDays || StringUtils.isBlank(lastPasswordUpdatedTime);
+            PasswordExpiryRule rule = null;
+            if (isMembershipResolutionRequired(passwordExpiryRuleSet)) {
+                String userId =
+                        ((AbstractUserStoreManager) userStoreManager).getUserIDFromUserName(tenantAwareUsername);
+                rule = getApplicableRule(passwordExpiryRuleSet.getRules(), tenantDomain, userId, userStoreManager,
+                        null);
+            }
+            if (rule != null) {
+                // Skip the rule if the operator is not equals.
+                if (PasswordExpiryRuleOperatorEnum.NE.equals(rule.getOperator())) {
+                    return false;
                 }
+                int expiryDays =
+                        rule.getExpiryDays() > 0 ? rule.getExpiryDays() : getPasswordExpiryInDays(tenantDomain);
+                return daysDifference >= expiryDays || StringUtils.isBlank(lastPasswordUpdatedTime);
             }
             // Apply default password expiry policy if no specific rule applies.
             return isPasswordExpiredUnderDefaultPolicy(tenantDomain, daysDifference, lastPasswordUpdatedTime,
@@ -209,6 +210,92 @@ public class PasswordPolicyUtils {
         }
     }
 
+    /**
+     * Get the minimum number of days after which the password of a user can expire under the given rules and the
+     * default password expiry policy.
+     *
+     * @param tenantDomain            Tenant domain.
+     * @param passwordExpiryRuleSet   Password expiry rule set.
+     * @param skipIfNoApplicableRules Whether the password expiry is skipped if no rules are applicable.
+     * @return Minimum number of days, or {@link Integer#MAX_VALUE} if the password can never expire.
+     * @throws PostAuthenticationFailedException If an error occurred while getting the default expiry days.
+     */
+    private static int getMinimumPasswordExpiryInDays(String tenantDomain, PasswordExpiryRuleSet passwordExpiryRuleSet,
+                                                      boolean skipIfNoApplicableRules)
+            throws PostAuthenticationFailedException {
+
+        Integer defaultExpiryInDays = null;
+        int minimumExpiryInDays = Integer.MAX_VALUE;
+        if (!skipIfNoApplicableRules) {
+            defaultExpiryInDays = getPasswordExpiryInDays(tenantDomain);
+            minimumExpiryInDays = defaultExpiryInDays;
+        }
+        for (PasswordExpiryRule rule : passwordExpiryRuleSet.getRules()) {
+            if (PasswordExpiryRuleOperatorEnum.NE.equals(rule.getOperator())) {
+                continue;
+            }
+            int expiryDays = rule.getExpiryDays();
+            if (expiryDays <= 0) {
+                if (defaultExpiryInDays == null) {
+                    defaultExpiryInDays = getPasswordExpiryInDays(tenantDomain);
+                }
+                expiryDays = defaultExpiryInDays;
+            }
+            minimumExpiryInDays = Math.min(minimumExpiryInDays, expiryDays);
+        }
+        return minimumExpiryInDays;
+    }
+
+    /**
+     * Check whether the roles or groups of a user need to be resolved to find the rule applicable for the user. They
+     * are not resolved, nor looked up in the membership cache, when no rule refers to them.
+     *
+     * @param passwordExpiryRuleSet Password expiry rule set.
+     * @return True if a rule refers to the roles or the groups of the user.
+     */
+    private static boolean isMembershipResolutionRequired(PasswordExpiryRuleSet passwordExpiryRuleSet) {
+
+        return passwordExpiryRuleSet.refersTo(PasswordExpiryRuleAttributeEnum.ROLES) ||
+                passwordExpiryRuleSet.refersTo(PasswordExpiryRuleAttributeEnum.GROUPS);
+    }
+
+    /**
+     * Get the first rule applicable for the user. The roles and groups of the user are resolved only once, and are
+     * taken from the membership cache when the cache is enabled.
+     *
+     * @param passwordExpiryRules Password expiry rules, in the ascending order of the priority.
+     * @param tenantDomain        Tenant domain.
+     * @param userId              User ID.
+     * @param userStoreManager    User store manager.
+     * @param roleIdsOfGroups     Role IDs resolved for sets of groups, shared across users. Can be null.
+     * @return The first applicable rule, or null if no rules are applicable.
+     * @throws PostAuthenticationFailedException If an error occurred while checking the rule applicability.
+     */
+    private static PasswordExpiryRule getApplicableRule(List<PasswordExpiryRule> passwordExpiryRules,
+                                                        String tenantDomain, String userId,
+                                                        UserStoreManager userStoreManager,
+                                                        Map<Set<String>, List<String>> roleIdsOfGroups)
+            throws PostAuthenticationFailedException {
+
+        UserMembershipCache membershipCache = UserMembershipCache.getInstance();
+        long invalidationCount = membershipCache.getInvalidationCount();
+        Map<PasswordExpiryRuleAttributeEnum, Set<String>> userAttributes =
+                membershipCache.getMemberships(tenantDomain, userId);
+        int cachedAttributeCount = userAttributes.size();
+
+        PasswordExpiryRule applicableRule = null;
+        for (PasswordExpiryRule rule : passwordExpiryRules) {
+            if (isRuleApplicable(rule, userAttributes, tenantDomain, userId, userStoreManager, roleIdsOfGroups)) {
+                applicableRule = rule;
+                break;
+            }
+        }
+        if (userAttributes.size() > cachedAttributeCount) {
+            membershipCache.putMemberships(tenantDomain, userId, userAttributes, invalidationCount);
+        }
+        return applicableRule;
+    }
+
     /**
      * Check if the given rule is applicable for the user.
      *
@@ -217,18 +304,20 @@ public class PasswordPolicyUtils {
      * @param tenantDomain           Tenant domain.
      * @param userId                 User ID.
      * @param userStoreManager       User store manager.
+     * @param roleIdsOfGroups        Role IDs resolved for sets of groups, shared across users. Can be null.
      * @return true if the rule is applicable, false otherwise.
      * @throws PostAuthenticationFailedException If an error occurred while checking the rule applicability.
      */
     private static boolean isRuleApplicable(PasswordExpiryRule rule,
                                             Map<PasswordExpiryRuleAttributeEnum, Set<String>> fetchedUserAttributes,
                                             String tenantDomain, String userId,
-                                            UserStoreManager userStoreManager)
+                                            UserStoreManager userStoreManager,
+                                            Map<Set<String>, List<String>> roleIdsOfGroups)
             throws PostAuthenticationFailedException {
 
         PasswordExpiryRuleAttributeEnum ruleAttribute = rule.getAttribute();
-        Set<String> userAttributeValues =
-                getUserAttributes(ruleAttribute, fetchedUserAttributes, tenantDomain, userId, userStoreManager);
+        Set<String> userAttributeValues = getUserAttributes(ruleAttribute, fetchedUserAttributes, tenantDomain, userId,
+                userStoreManager, roleIdsOfGroups);
         if (CollectionUtils.isEmpty(userAttributeValues)) {
             return false;
         }
@@ -243,13 +332,15 @@ public class PasswordPolicyUtils {
      * @param tenantDomain           Tenant domain.
      * @param userId                 User ID.
      * @param userStoreManager       User store manager.
+     * @param roleIdsOfGroups        Role IDs resolved for sets of groups, shared across users. Can be null.
      * @return  The user attribute values.
      * @throws PostAuthenticationFailedException If an error occurred while getting the user attributes.
      */
     private static Set<String> getUserAttributes(PasswordExpiryRuleAttributeEnum attribute,
                                                  Map<PasswordExpiryRuleAttributeEnum, Set<String>> fetchedUserAttributes,
                                                  String tenantDomain, String userId,
-                                                 UserStoreManager userStoreManager)
+                                                 UserStoreManager userStoreManager,
+                                                 Map<Set<String>, List<String>> roleIdsOfGroups)
             throws PostAuthenticationFailedException {
 
         if (!fetchedUserAttributes.containsKey(attribute)) {
@@ -263,12 +354,21 @@ public class PasswordPolicyUtils {
                         userGroupIds = getUserGroupIds(userId, userStoreManager);
                         fetchedUserAttributes.put(PasswordExpiryRuleAttributeEnum.GROUPS, userGroupIds);
                     }
-                    List<String> roleIdsOfGroups = getRoleIdsOfGroups(new ArrayList<>(userGroupIds), tenantDomain);
+                    List<String> groupRoleIds;
+                    if (roleIdsOfGroups == null) {
+                        groupRoleIds = getRoleIdsOfGroups(new ArrayList<>(userGroupIds), tenantDomain);
+                    } else {
+                        groupRoleIds = roleIdsOfGroups.get(userGroupIds);
+                        if (groupRoleIds == null) {
+                            groupRoleIds = getRoleIdsOfGroups(new ArrayList<>(userGroupIds), tenantDomain);
+                            roleIdsOfGroups.put(new HashSet<>(userGroupIds), groupRoleIds);
+                        }
+                    }
 
                     List<RoleBasicInfo> userRoles = getUserRoles(tenantDomain, userId);
                     Set<String> userRoleIds = userRoles.stream().map(RoleBasicInfo::getId).filter(Objects::nonNull)
                                     .collect(Collectors.toSet());
-                    userRoleIds.addAll(roleIdsOfGroups);
+                    userRoleIds.addAll(groupRoleIds);
                     fetchedUserAttributes.put(PasswordExpiryRuleAttributeEnum.ROLES, userRoleIds);
                     break;
                 case GROUPS:
@@ -356,52 +456,193 @@ public class PasswordPolicyUtils {
             String lastPasswordUpdatedTime =
                     getLastPasswordUpdatedTime(tenantAwareUsername, userStoreManager, userRealm);
 
-            long lastPasswordUpdatedTimeInMillis = 0L;
-            boolean isLastPasswordUpdatedTimeBlank = StringUtils.isBlank(lastPasswordUpdatedTime);
-            if (!isLastPasswordUpdatedTimeBlank) {
-                lastPasswordUpdatedTimeInMillis = getLastPasswordUpdatedTimeInMillis(lastPasswordUpdatedTime);
+            PasswordExpiryRule rule = null;
+            if (CollectionUtils.isNotEmpty(passwordExpiryRules)) {
+                rule = getApplicableRule(passwordExpiryRules, tenantDomain, userId, userStoreManager, null);
             }
+            return getPasswordExpiryTime(rule, lastPasswordUpdatedTime, isSkipIfNoApplicableRulesEnabled,
+                    defaultPasswordExpiryInDays);
+        } catch (UserStoreException | PostAuthenticationFailedException e) {
+            throw new ExpiredPasswordIdentificationException(PasswordPolicyConstants.ErrorMessages.
+                    ERROR_WHILE_GETTING_USER_STORE_DOMAIN.getCode(),
+                    PasswordPolicyConstants.ErrorMessages.ERROR_WHILE_GETTING_USER_STORE_DOMAIN.getMessage());
+        }
+    }
+
+    /**
+     * This method returns the password expiry times of the given users. The configurations and the rules of the
+     * tenant are read once for all the users, and the last password updated times are taken from the claims of the
+     * users when already retrieved. The last password updated times and the IDs of the remaining users are retrieved
+     * in bulk, hence only the roles and groups of the users are resolved per user, when required by the rules.
+     *
+     * @param tenantDomain           The tenant domain.
+     * @param userClaimSearchEntries The users along with their retrieved claims.
+     * @return Map of the user names to the password expiry times in milliseconds. Users for whom the password
+     * expiry time is not applicable are not included.
+     * @throws ExpiredPasswordIdentificationException If an error occurred while getting the password expiry times.
+     */
+    public static Map<String, Long> getUserPasswordExpiryTimes(String tenantDomain,
+                                                               UserClaimSearchEntry[] userClaimSearchEntries)
+            throws ExpiredPasswordIdentificationException {
 
-            // If no rules are defined, use the default expiry time if "skipIfNoApplicableRules" is disabled.
-            if (CollectionUtils.isEmpty(passwordExpiryRules)) {
-                if (isSkipIfNoApplicableRulesEnabled) return Optional.empty();
-                // If lastPasswordUpdatedTime is blank, set expiry time to now.
-                if (isLastPasswordUpdatedTimeBlank) {
-                    return Optional.of(System.currentTimeMillis());
+        Map<String, Long> passwordExpiryTimes = new HashMap<>();
+        try {
+            if (ArrayUtils.isEmpty(userClaimSearchEntries) || !isPasswordExpiryEnabled(tenantDomain)) {
+                return passwordExpiryTimes;
+            }
+            boolean isSkipIfNoApplicableRulesEnabled = isSkipIfNoApplicableRulesEnabled(tenantDomain);
+            int defaultPasswordExpiryInDays = getPasswordExpiryInDays(tenantDomain);
+            PasswordExpiryRuleSet passwordExpiryRuleSet = getPasswordExpiryRuleSet(tenantDomain);
+
+            Set<String> userNameSet = new LinkedHashSet<>();
+            for (UserClaimSearchEntry userClaimSearchEntry : userClaimSearchEntries) {
+                if (userClaimSearchEntry != null && userClaimSearchEntry.getUserName() != null) {
+                    userNameSet.add(userClaimSearchEntry.getUserName());
                 }
-                return Optional.of(
-                        lastPasswordUpdatedTimeInMillis + getDaysTimeInMillis(defaultPasswordExpiryInDays));
             }
+            List<String> userNames = new ArrayList<>(userNameSet);
+            UserRealm userRealm = getUserRealm(tenantDomain);
+            UserStoreManager userStoreManager = getUserStoreManager(userRealm);
+            Map<String, String> lastPasswordUpdatedTimes =
+                    getLastPasswordUpdatedTimes(userClaimSearchEntries, userNames, userStoreManager, userRealm);
+
+            boolean resolveMemberships = isMembershipResolutionRequired(passwordExpiryRuleSet);
+            Map<String, String> userIds = Collections.emptyMap();
+            if (resolveMemberships) {
+                userIds = IdentityGovernanceUtil.getUserIdsFromUserNames(
+                        (AbstractUserStoreManager) userStoreManager, userNames);
+            }
+            // Users commonly share the same groups, hence resolve the roles of each distinct set of groups once.
+            Map<Set<String>, List<String>> roleIdsOfGroups = null;
+            if (passwordExpiryRuleSet.refersTo(PasswordExpiryRuleAttributeEnum.ROLES)) {
+                roleIdsOfGroups = new HashMap<>();
+            }
+            for (String userName : userNames) {
+                PasswordExpiryRule rule = null;
+                String userId = userIds.get(userName);
+                if (resolveMemberships && userId != null) {
+                    rule = getApplicableRule(passwordExpiryRuleSet.getRules(), tenantDomain, userId,
+                            userStoreManager, roleIdsOfGroups);
+                }
+                getPasswordExpiryTime(rule, lastPasswordUpdatedTimes.get(userName), isSkipIfNoApplicableRulesEnabled,
+                        defaultPasswordExpiryInDays).ifPresent(expiryTime -> passwordExpiryTimes.put(userName,
+                        expiryTime));
+            }
+            return passwordExpiryTimes;
+        } catch (UserStoreException | PostAuthenticationFailedException e) {
+            throw new ExpiredPasswordIdentificationException(PasswordPolicyConstants.ErrorMessages.
+                    ERROR_WHILE_GETTING_USER_STORE_DOMAIN.getCode(),
+                    PasswordPolicyConstants.ErrorMessages.ERROR_WHILE_GETTING_USER_STORE_DOMAIN.getMessage());
+        }
+    }
+
+    /**
+     * Get the password expiry time of a user from the rule applicable for the user.
+     *
+     * @param applicableRule                   The rule applicable for the user, or null if no rules are applicable.
+     * @param lastPasswordUpdatedTime          The last password updated time of the user.
+     * @param isSkipIfNoApplicableRulesEnabled Whether skip if no applicable rules config is enabled.
+     * @param defaultPasswordExpiryInDays      Default password expiry in days.
+     * @return Optional containing the password expiry time in milliseconds, or empty if not applicable.
+     */
+    private static Optional<Long> getPasswordExpiryTime(PasswordExpiryRule applicableRule,
+                                                        String lastPasswordUpdatedTime,
+                                                        boolean isSkipIfNoApplicableRulesEnabled,
+                                                        int defaultPasswordExpiryInDays) {
+
+        if (applicableRule == null && isSkipIfNoApplicableRulesEnabled) {
+            return Optional.empty();
+        }
+        // Skip the rule if the operator is not equals.
+        if (applicableRule != null && PasswordExpiryRuleOperatorEnum.NE.equals(applicableRule.getOperator())) {
+            return Optional.empty();
+        }
+        // If lastPasswordUpdatedTime is blank, set expiry time to now.
+        if (StringUtils.isBlank(lastPasswordUpdatedTime)) {
+            return Optional.of(System.currentTimeMillis());
+        }
+        int expiryDays = applicableRule != null && applicableRule.getExpiryDays() > 0 ?
+                applicableRule.getExpiryDays() : defaultPasswordExpiryInDays;
+        return Optional.of(getLastPasswordUpdatedTimeInMillis(lastPasswordUpdatedTime) +
+                getDaysTimeInMillis(expiryDays));
+    }
 
-            Map<PasswordExpiryRuleAttributeEnum, Set<String>> userAttributes =
-                    new EnumMap<>(PasswordExpiryRuleAttributeEnum.class);
+    /**
+     * Get the last password updated times of the given users. The times are taken from the retrieved claims of the
+     * users when available, and are retrieved for the remaining users with a single user store call.
+     *
+     * @param userClaimSearchEntries The users along with their retrieved claims.
+     * @param userNames              The user names.
+     * @param userStoreManager       The user store manager.
+     * @param userRealm              The user realm.
+     * @return Map of the user names to the last password updated times. The time is empty if not available.
+     * @throws UserStoreException If an error occurred while retrieving the claims of the users.
+     */
+    private static Map<String, String> getLastPasswordUpdatedTimes(UserClaimSearchEntry[] userClaimSearchEntries,
+                                                                   List<String> userNames,
+                                                                   UserStoreManager userStoreManager,
+                                                                   UserRealm userRealm) throws UserStoreException {
+
+        Map<String, String> lastPasswordUpdatedTimes = new HashMap<>();
+        for (UserClaimSearchEntry userClaimSearchEntry : userClaimSearchEntries) {
+            if (userClaimSearchEntry == null || userClaimSearchEntry.getUserName() == null) {
+                continue;
+            }
+            String lastPasswordUpdatedTime = getLastPasswordUpdatedTime(userClaimSearchEntry.getClaims());
+            if (StringUtils.isNotEmpty(lastPasswordUpdatedTime)) {
+                lastPasswordUpdatedTimes.put(userClaimSearchEntry.getUserName(), lastPasswordUpdatedTime);
+            }
+        }
 
-            for (PasswordExpiryRule rule : passwordExpiryRules) {
-                if (isRuleApplicable(rule, userAttributes, tenantDomain, userId, userStoreManager)) {
-                    // Skip the rule if the operator is not equals.
-                    if (PasswordExpiryRuleOperatorEnum.NE.equals(rule.getOperator())) {
-                        return Optional.empty();
+        List<String> remainingUserNames = userNames.stream()
+                .filter(userName -> !lastPasswordUpdatedTimes.containsKey(userName)).collect(Collectors.toList());
+        if (!remainingUserNames.isEmpty()) {
+            List<String> claimURIs = new ArrayList<>();
+            claimURIs.add(PasswordPolicyConstants.LAST_CREDENTIAL_UPDATE_TIMESTAMP_CLAIM);
+            if (userRealm.getClaimManager()
+                    .getClaim(PasswordPolicyConstants.LAST_CREDENTIAL_UPDATE_TIMESTAMP_CLAIM_NON_IDENTITY) != null) {
+                claimURIs.add(PasswordPolicyConstants.LAST_CREDENTIAL_UPDATE_TIMESTAMP_CLAIM_NON_IDENTITY);
+            }
+            UserClaimSearchEntry[] retrievedEntries = ((AbstractUserStoreManager) userStoreManager)
+                    .getUsersClaimValues(remainingUserNames.toArray(new String[0]),
+                            claimURIs.toArray(new String[0]), null);
+            Map<String, String> retrievedTimes = new HashMap<>();
+            if (retrievedEntries != null) {
+                for (UserClaimSearchEntry retrievedEntry : retrievedEntries) {
+                    if (retrievedEntry == null || retrievedEntry.getUserName() == null) {
+                        continue;
                     }
-                    if (isLastPasswordUpdatedTimeBlank) {
-                        return Optional.of(System.currentTimeMillis());
+                    String lastPasswordUpdatedTime = getLastPasswordUpdatedTime(retrievedEntry.getClaims());
+                    if (StringUtils.isNotEmpty(lastPasswordUpdatedTime)) {
+                        retrievedTimes.put(retrievedEntry.getUserName(), lastPasswordUpdatedTime);
                     }
-                    int expiryDays =
-                            rule.getExpiryDays() > 0 ? rule.getExpiryDays() : getPasswordExpiryInDays(tenantDomain);
-                    return Optional.of(lastPasswordUpdatedTimeInMillis + getDaysTimeInMillis(expiryDays));
                 }
             }
-
-            if (isSkipIfNoApplicableRulesEnabled) return Optional.empty();
-            if (isLastPasswordUpdatedTimeBlank) {
-                return Optional.of(System.currentTimeMillis());
+            for (String userName : remainingUserNames) {
+                lastPasswordUpdatedTimes.put(userName, StringUtils.defaultString(retrievedTimes.get(userName)));
             }
-            return Optional.of(
-                    lastPasswordUpdatedTimeInMillis + getDaysTimeInMillis(defaultPasswordExpiryInDays));
-        } catch (UserStoreException | PostAuthenticationFailedException e) {
-            throw new ExpiredPasswordIdentificationException(PasswordPolicyConstants.ErrorMessages.
-                    ERROR_WHILE_GETTING_USER_STORE_DOMAIN.getCode(),
-                    PasswordPolicyConstants.ErrorMessages.ERROR_WHILE_GETTING_USER_STORE_DOMAIN.getMessage());
         }
+
+        // Check if the Identity datastore is set to Active Directory and do the conversion accordingly.
+        if (isUserStoreBasedIdentityDataStore() && isActiveDirectoryUserStore(userStoreManager)) {
+            lastPasswordUpdatedTimes.replaceAll((userName, lastPasswordUpdatedTime) ->
+                    lastPasswordUpdatedTime.isEmpty() ? lastPasswordUpdatedTime :
+                            convertWindowsFileTimeToUnixTime(lastPasswordUpdatedTime));
+        }
+        return lastPasswordUpdatedTimes;
+    }
+
+    private static String getLastPasswordUpdatedTime(Map<String, String> claims) {
+
+        if (claims == null) {
+            return null;
+        }
+        String lastPasswordUpdatedTime = claims.get(PasswordPolicyConstants.LAST_CREDENTIAL_UPDATE_TIMESTAMP_CLAIM);
+        if (StringUtils.isEmpty(lastPasswordUpdatedTime)) {
+            lastPasswordUpdatedTime =
+                    claims.get(PasswordPolicyConstants.LAST_CREDENTIAL_UPDATE_TIMESTAMP_CLAIM_NON_IDENTITY);
+        }
+        return lastPasswordUpdatedTime;
     }
 
     /**
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.password.expiry.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
+import org.wso2.carbon.identity.password.expiry.constants.PasswordPolicyConstants;
+import org.wso2.carbon.identity.password.expiry.models.PasswordExpiryRuleAttributeEnum;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived cache of the group and role memberships of the users, resolved while evaluating the password expiry
+ * rules. The cache is disabled by default. The memberships of a user are invalidated when the roles of the user, the
+ * users of a role or the groups of a role are updated, and expire after the configured timeout otherwise, as the
+ * memberships updated outside the user store manager and the role management service are not tracked.
+ */
+public final class UserMembershipCache {
+
+    private static final UserMembershipCache instance = new UserMembershipCache();
+
+    private final Map<SimpleImmutableEntry<String, String>, CachedMemberships> memberships =
+            new ConcurrentHashMap<>();
+    // Incremented on each invalidation, so that the memberships resolved before an invalidation are not cached.
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    private UserMembershipCache() {
+
+    }
+
+    public static UserMembershipCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Check whether the membership cache is enabled.
+     *
+     * @return True if the cache is enabled.
+     */
+    public boolean isEnabled() {
+
+        return Boolean.parseBoolean(IdentityUtil.getProperty(PasswordPolicyConstants.MEMBERSHIP_CACHE_ENABLE));
+    }
+
+    /**
+     * Get the invalidation count to be passed to {@link #putMemberships} once the memberships are resolved.
+     *
+     * @return Current invalidation count.
+     */
+    public long getInvalidationCount() {
+
+        return invalidationCount.get();
+    }
+
+    /**
+     * Get the cached memberships of a user.
+     *
+     * @param tenantDomain Tenant domain of the user.
+     * @param userId       User ID.
+     * @return A new map with the cached memberships, which is empty if there are no cached memberships.
+     */
+    public Map<PasswordExpiryRuleAttributeEnum, Set<String>> getMemberships(String tenantDomain, String userId) {
+
+        Map<PasswordExpiryRuleAttributeEnum, Set<String>> userMemberships =
+                new EnumMap<>(PasswordExpiryRuleAttributeEnum.class);
+        if (!isEnabled() || userId == null) {
+            return userMemberships;
+        }
+        SimpleImmutableEntry<String, String> key = new SimpleImmutableEntry<>(tenantDomain, userId);
+        CachedMemberships cachedMemberships = memberships.get(key);
+        if (cachedMemberships == null) {
+            return userMemberships;
+        }
+        if (cachedMemberships.isExpired()) {
+            memberships.remove(key, cachedMemberships);
+            return userMemberships;
+        }
+        userMemberships.putAll(cachedMemberships.memberships);
+        return userMemberships;
+    }
+
+    /**
+     * Cache the resolved memberships of a user, unless the memberships were invalidated while being resolved.
+     *
+     * @param tenantDomain      Tenant domain of the user.
+     * @param userId            User ID.
+     * @param userMemberships   Resolved memberships.
+     * @param invalidationCount Invalidation count taken before the memberships were resolved.
+     */
+    public void putMemberships(String tenantDomain, String userId,
+                               Map<PasswordExpiryRuleAttributeEnum, Set<String>> userMemberships,
+                               long invalidationCount) {
+
+        if (!isEnabled() || userId == null || userMemberships.isEmpty()) {
+            return;
+        }
+        int maxEntries = IdentityGovernanceUtil.getPositiveIntProperty(
+                PasswordPolicyConstants.MEMBERSHIP_CACHE_MAX_ENTRIES,
+                PasswordPolicyConstants.MEMBERSHIP_CACHE_DEFAULT_MAX_ENTRIES);
+        if (memberships.size() >= maxEntries) {
+            memberships.values().removeIf(CachedMemberships::isExpired);
+            if (memberships.size() >= maxEntries) {
+                memberships.clear();
+            }
+        }
+        long timeout = IdentityGovernanceUtil.getPositiveIntProperty(PasswordPolicyConstants.MEMBERSHIP_CACHE_TIMEOUT,
+                PasswordPolicyConstants.MEMBERSHIP_CACHE_DEFAULT_TIMEOUT);
+        SimpleImmutableEntry<String, String> key = new SimpleImmutableEntry<>(tenantDomain, userId);
+        memberships.put(key, new CachedMemberships(userMemberships,
+                System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout)));
+        if (this.invalidationCount.get() != invalidationCount) {
+            // Memberships were invalidated while being resolved, hence they may be stale.
+            memberships.remove(key);
+        }
+    }
+
+    /**
+     * Remove the cached memberships of the given users.
+     *
+     * @param tenantDomain Tenant domain of the users.
+     * @param userIds      User IDs.
+     */
+    public void clearMemberships(String tenantDomain, String... userIds) {
+
+        invalidationCount.incrementAndGet();
+        if (userIds == null) {
+            return;
+        }
+        for (String userId : userIds) {
+            if (userId != null) {
+                memberships.remove(new SimpleImmutableEntry<>(tenantDomain, userId));
+            }
+        }
+    }
+
+    /**
+     * Remove the cached memberships of all the users of a tenant.
+     *
+     * @param tenantDomain Tenant domain.
+     */
+    public void clearTenantMemberships(String tenantDomain) {
+
+        invalidationCount.incrementAndGet();
+        memberships.keySet().removeIf(key -> StringUtils.equals(key.getKey(), tenantDomain));
+    }
+
+    private static final class CachedMemberships {
+
+        private final Map<PasswordExpiryRuleAttributeEnum, Set<String>> memberships;
+        private final long expiryTime;
+
+        private CachedMemberships(Map<PasswordExpiryRuleAttributeEnum, Set<String>> memberships, long expiryTime) {
+
+            Map<PasswordExpiryRuleAttributeEnum, Set<String>> copy =
+                    new EnumMap<>(PasswordExpiryRuleAttributeEnum.class);
+            for (Map.Entry<PasswordExpiryRuleAttributeEnum, Set<String>> entry : memberships.entrySet()) {
+                copy.put(entry.getKey(), Collections.unmodifiableSet(new HashSet<>(entry.getValue())));
+            }
+            this.memberships = copy;
+            this.expiryTime = expiryTime;
+        }
+
+        private boolean isExpired() {
+
+            return System.nanoTime() - expiryTime > 0;
+        }
+    }
+}
@@ -31,7 +31,9 @@ import org.wso2.carbon.identity.password.expiry.models.PasswordExpiryRuleAttribu
 import org.wso2.carbon.identity.governance.bean.ConnectorConfig;
 import org.wso2.carbon.identity.password.expiry.models.PasswordExpiryRuleOperatorEnum;
 import org.wso2.carbon.identity.password.expiry.models.PasswordExpiryRule;
+import org.wso2.carbon.identity.password.expiry.util.PasswordExpiryRuleSet;
 import org.wso2.carbon.identity.password.expiry.util.PasswordPolicyUtils;
+import org.wso2.carbon.identity.password.expiry.util.UserMembershipCache;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.MockitoAnnotations;
@@ -43,6 +45,7 @@ import org.testng.annotations.Test;
 import org.wso2.carbon.identity.application.authentication.framework.exception.PostAuthenticationFailedException;
 import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.governance.IdentityGovernanceException;
 import org.wso2.carbon.identity.governance.IdentityGovernanceService;
 import org.wso2.carbon.identity.role.v2.mgt.core.RoleManagementService;
@@ -52,6 +55,7 @@ import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
 import org.wso2.carbon.user.core.claim.ClaimManager;
 import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
+import org.wso2.carbon.user.core.model.UserClaimSearchEntry;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.user.core.common.Group;
@@ -71,6 +75,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 import static org.wso2.carbon.identity.password.expiry.constants.PasswordPolicyConstants.PASSWORD_RESET_PAGE;
@@ -240,6 +245,80 @@ public class PasswordPolicyUtilsTest {
         Assert.assertEquals(rules.size(), 1);
     }
 
+    @Test
+    public void testGetPasswordExpiryRuleSet() throws PostAuthenticationFailedException, IdentityGovernanceException {
+
+        Property[] properties = getPasswordExpiryRulesProperties();
+        // Reverse the order of the rule configurations, the rules are expected to be sorted by the priority.
+        Collections.reverse(Arrays.asList(properties));
+        ConnectorConfig connectorConfig = new ConnectorConfig();
+        connectorConfig.setProperties(properties);
+        when(identityGovernanceService.getConnectorWithConfigs(tenantDomain,
+                PasswordPolicyConstants.CONNECTOR_CONFIG_NAME)).thenReturn(connectorConfig);
+
+        PasswordExpiryRuleSet ruleSet = PasswordPolicyUtils.getPasswordExpiryRuleSet(tenantDomain);
+        List<Integer> priorities =
+                ruleSet.getRules().stream().map(PasswordExpiryRule::getPriority).collect(Collectors.toList());
+        Assert.assertEquals(priorities, Arrays.asList(1, 2, 3));
+        Assert.assertTrue(ruleSet.refersTo(PasswordExpiryRuleAttributeEnum.GROUPS));
+        Assert.assertTrue(ruleSet.refersTo(PasswordExpiryRuleAttributeEnum.ROLES));
+
+        // The rule set is reused while the rule configurations remain the same.
+        Assert.assertSame(PasswordPolicyUtils.getPasswordExpiryRuleSet(tenantDomain), ruleSet);
+
+        properties[0].setValue(String.format("3,90,roles,eq,%s", ROLE_MAP.get("manager")));
+        PasswordExpiryRuleSet rebuiltRuleSet = PasswordPolicyUtils.getPasswordExpiryRuleSet(tenantDomain);
+        Assert.assertNotSame(rebuiltRuleSet, ruleSet);
+        Assert.assertEquals(rebuiltRuleSet.getRules().get(2).getExpiryDays(), 90);
+
+        PasswordExpiryRuleSet groupRuleSet = PasswordExpiryRuleSet.getRuleSet("groups.com", new Property[]{
+                getPasswordExpiryRulesProperties()[0]});
+        Assert.assertTrue(groupRuleSet.refersTo(PasswordExpiryRuleAttributeEnum.GROUPS));
+        Assert.assertFalse(groupRuleSet.refersTo(PasswordExpiryRuleAttributeEnum.ROLES));
+    }
+
+    @Test
+    public void testUserMembershipCache() throws Exception {
+
+        when(IdentityTenantUtil.getTenantId(anyString())).thenReturn(3);
+        when(realmService.getTenantUserRealm(anyInt())).thenReturn(userRealm);
+        when(userRealm.getUserStoreManager()).thenReturn(abstractUserStoreManager);
+        when(userRealm.getClaimManager()).thenReturn(claimManager);
+        when(abstractUserStoreManager.getUserIDFromUserName(tenantAwareUsername)).thenReturn(userId);
+        when(UserCoreUtil.addDomainToName(any(), any())).thenReturn(tenantAwareUsername);
+        when(identityDataStoreService.isUserStoreBasedIdentityDataStore()).thenReturn(false);
+        mockLastPasswordUpdateTime(System.currentTimeMillis() - getDaysTimeInMillis(50), abstractUserStoreManager);
+        when(roleManagementService.getRoleListOfUser(userId, tenantDomain))
+                .thenReturn(getRoles(new String[]{"employee", "contractor"}));
+        when(abstractUserStoreManager.getGroupListOfUser(userId, null, null)).thenReturn(getGroups(new String[]{}));
+
+        ConnectorConfig connectorConfig = new ConnectorConfig();
+        connectorConfig.setProperties(getPasswordExpiryRulesProperties());
+        when(identityGovernanceService.getConnectorWithConfigs(tenantDomain,
+                PasswordPolicyConstants.CONNECTOR_CONFIG_NAME)).thenReturn(connectorConfig);
+        List<PasswordExpiryRule> rules = PasswordPolicyUtils.getPasswordExpiryRules(tenantDomain);
+
+        try (MockedStatic<IdentityUtil> mockedIdentityUtil = mockStatic(IdentityUtil.class)) {
+            mockedIdentityUtil.when(() -> IdentityUtil.getProperty(PasswordPolicyConstants.MEMBERSHIP_CACHE_ENABLE))
+                    .thenReturn(PasswordPolicyConstants.TRUE);
+            UserMembershipCache.getInstance().clearTenantMemberships(tenantDomain);
+
+            Assert.assertTrue(PasswordPolicyUtils.getUserPasswordExpiryTime(tenantDomain, tenantAwareUsername, true,
+                    false, rules, DEFAULT_EXPIRY_DAYS).isPresent());
+            Assert.assertTrue(PasswordPolicyUtils.getUserPasswordExpiryTime(tenantDomain, tenantAwareUsername, true,
+                    false, rules, DEFAULT_EXPIRY_DAYS).isPresent());
+            // The memberships resolved for the first evaluation are reused for the second evaluation.
+            verify(abstractUserStoreManager, times(1)).getGroupListOfUser(userId, null, null);
+            verify(roleManagementService, times(1)).getRoleListOfUser(userId, tenantDomain);
+
+            UserMembershipCache.getInstance().clearMemberships(tenantDomain, userId);
+            PasswordPolicyUtils.getUserPasswordExpiryTime(tenantDomain, tenantAwareUsername, true, false, rules,
+                    DEFAULT_EXPIRY_DAYS);
+            verify(abstractUserStoreManager, times(2)).getGroupListOfUser(userId, null, null);
+            UserMembershipCache.getInstance().clearTenantMemberships(tenantDomain);
+        }
+    }
+
     @Test
     public void testGetUserRoles() throws PostAuthenticationFailedException, IdentityRoleManagementException {
 
@@ -473,6 +552,63 @@ public class PasswordPolicyUtilsTest {
         }
     }
 
+    @Test
+    public void testGetUserPasswordExpiryTimes() throws Exception {
+
+        when(IdentityTenantUtil.getTenantId(anyString())).thenReturn(3);
+        when(realmService.getTenantUserRealm(anyInt())).thenReturn(userRealm);
+        when(userRealm.getUserStoreManager()).thenReturn(abstractUserStoreManager);
+        when(userRealm.getClaimManager()).thenReturn(claimManager);
+        when(identityDataStoreService.isUserStoreBasedIdentityDataStore()).thenReturn(false);
+        when(abstractUserStoreManager.getUserIDFromUserName("user1")).thenReturn("userId1");
+        when(abstractUserStoreManager.getUserIDFromUserName("user2")).thenReturn("userId2");
+        when(roleManagementService.getRoleListOfUser("userId1", tenantDomain))
+                .thenReturn(getRoles(new String[]{"employee", "contractor"}));
+        when(roleManagementService.getRoleListOfUser("userId2", tenantDomain))
+                .thenReturn(getRoles(new String[]{"employee"}));
+
+        mockPasswordExpiryEnabled(identityGovernanceService, PasswordPolicyConstants.TRUE);
+        ConnectorConfig connectorConfig = new ConnectorConfig();
+        connectorConfig.setProperties(getPasswordExpiryRulesProperties());
+        when(identityGovernanceService.getConnectorWithConfigs(tenantDomain,
+                PasswordPolicyConstants.CONNECTOR_CONFIG_NAME)).thenReturn(connectorConfig);
+        when(identityGovernanceService.getConfiguration(
+                new String[]{PasswordPolicyConstants.CONNECTOR_CONFIG_PASSWORD_EXPIRY_IN_DAYS},
+                tenantDomain)).thenReturn(getPasswordExpiryInDaysProperty());
+        when(identityGovernanceService.getConfiguration(
+                new String[]{PasswordPolicyConstants.CONNECTOR_CONFIG_SKIP_IF_NO_APPLICABLE_RULES},
+                tenantDomain)).thenReturn(getSkipIfNoRulesApplicableProperty(PasswordPolicyConstants.FALSE));
+
+        // The last password updated time of the first user is already retrieved with the claims of the user.
+        Long updateTime1 = getUpdateTime(50);
+        UserClaimSearchEntry userClaimSearchEntry1 = new UserClaimSearchEntry();
+        userClaimSearchEntry1.setUserName("user1");
+        userClaimSearchEntry1.setClaims(Collections.singletonMap(
+                PasswordPolicyConstants.LAST_CREDENTIAL_UPDATE_TIMESTAMP_CLAIM, String.valueOf(updateTime1)));
+        UserClaimSearchEntry userClaimSearchEntry2 = new UserClaimSearchEntry();
+        userClaimSearchEntry2.setUserName("user2");
+
+        Long updateTime2 = getUpdateTime(10);
+        UserClaimSearchEntry retrievedEntry = new UserClaimSearchEntry();
+        retrievedEntry.setUserName("user2");
+        retrievedEntry.setClaims(Collections.singletonMap(
+                PasswordPolicyConstants.LAST_CREDENTIAL_UPDATE_TIMESTAMP_CLAIM, String.valueOf(updateTime2)));
+        when(abstractUserStoreManager.getUsersClaimValues(eq(new String[]{"user2"}), any(String[].class), isNull()))
+                .thenReturn(new UserClaimSearchEntry[]{retrievedEntry});
+
+        Map<String, Long> expiryTimes = PasswordPolicyUtils.getUserPasswordExpiryTimes(tenantDomain,
+                new UserClaimSearchEntry[]{userClaimSearchEntry1, userClaimSearchEntry2});
+
+        // The 2nd rule (40) applies for the first user and the default expiry policy applies for the second user.
+        Assert.assertEquals(expiryTimes.get("user1").longValue(), updateTime1 + getDaysTimeInMillis(40));
+        Assert.assertEquals(expiryTimes.get("user2").longValue(),
+                updateTime2 + getDaysTimeInMillis(DEFAULT_EXPIRY_DAYS));
+        verify(abstractUserStoreManager, times(1)).getUsersClaimValues(any(String[].class), any(String[].class),
+                isNull());
+        // Both users have the same groups, hence the roles of the groups are resolved once.
+        verify(roleManagementService, times(1)).getRoleIdListOfGroups(any(), eq(tenantDomain));
+    }
+
     @Test
     public void testGetPasswordResetPageUrl() throws Exception {
 
@@ -195,17 +195,8 @@ public class PasswordExpiryEventListenerTest {
         userClaimSearchEntries[1] = new UserClaimSearchEntry();
         userClaimSearchEntries[1].setUserName("testUser1");
 
-        mockedPasswordPolicyUtils.when(() ->
-                        PasswordPolicyUtils.isPasswordExpiryEnabled(TENANT_DOMAIN)).thenReturn(true);
-        mockedPasswordPolicyUtils.when(() ->
-                        PasswordPolicyUtils.isSkipIfNoApplicableRulesEnabled(TENANT_DOMAIN)).thenReturn(false);
-        mockedPasswordPolicyUtils.when(() ->
-                PasswordPolicyUtils.getPasswordExpiryInDays(TENANT_DOMAIN)).thenReturn(30);
-        mockedPasswordPolicyUtils.when(() ->
-                PasswordPolicyUtils.getPasswordExpiryRules(TENANT_DOMAIN)).thenReturn(Collections.emptyList());
-        mockedPasswordPolicyUtils.when(() -> PasswordPolicyUtils.getUserPasswordExpiryTime(
-                eq(TENANT_DOMAIN), anyString(), eq(true), eq(false), any(), eq(30)))
-                .thenReturn(Optional.of(1000L));
+        mockedPasswordPolicyUtils.when(() -> PasswordPolicyUtils.getUserPasswordExpiryTimes(
+                eq(TENANT_DOMAIN), any())).thenReturn(Collections.singletonMap("testUser1", 1000L));
 
         passwordExpiryEventListener.doPostGetUsersClaimValues(userNames, claims, profileName, userClaimSearchEntries);
         Assert.assertNotNull(
@@ -214,8 +205,8 @@ public class PasswordExpiryEventListenerTest {
                 userClaimSearchEntries[1].getClaims().get(PasswordPolicyConstants.PASSWORD_EXPIRY_TIME_CLAIM));
 
         // Case 2: PostAuthenticationFailedException is thrown.
-        mockedPasswordPolicyUtils.when(() -> PasswordPolicyUtils.getUserPasswordExpiryTime(
-                eq(TENANT_DOMAIN), anyString(), eq(true), eq(false), any(), eq(30)))
+        mockedPasswordPolicyUtils.when(() -> PasswordPolicyUtils.getUserPasswordExpiryTimes(
+                eq(TENANT_DOMAIN), any()))
                 .thenThrow(new ExpiredPasswordIdentificationException("test-error", "test-error"));
         try {
             passwordExpiryEventListener.doPostGetUsersClaimValues(userNames, claims,
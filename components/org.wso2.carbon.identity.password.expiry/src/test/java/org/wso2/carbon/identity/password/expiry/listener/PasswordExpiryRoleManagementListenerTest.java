@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.password.expiry.listener;
+
+import org.mockito.MockedStatic;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.password.expiry.constants.PasswordPolicyConstants;
+import org.wso2.carbon.identity.password.expiry.models.PasswordExpiryRuleAttributeEnum;
+import org.wso2.carbon.identity.password.expiry.util.UserMembershipCache;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.Mockito.mockStatic;
+
+/**
+ * Unit test cases for PasswordExpiryRoleManagementListener.
+ */
+public class PasswordExpiryRoleManagementListenerTest {
+
+    private static final String TENANT_DOMAIN = "test.com";
+    private static final String USER_ID_1 = "userId1";
+    private static final String USER_ID_2 = "userId2";
+    private static final String ROLE_ID = "roleId";
+
+    private PasswordExpiryRoleManagementListener roleManagementListener;
+    private MockedStatic<IdentityUtil> mockedIdentityUtil;
+
+    @BeforeMethod
+    public void setUp() {
+
+        roleManagementListener = new PasswordExpiryRoleManagementListener();
+        mockedIdentityUtil = mockStatic(IdentityUtil.class);
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty(PasswordPolicyConstants.MEMBERSHIP_CACHE_ENABLE))
+                .thenReturn(PasswordPolicyConstants.TRUE);
+        cacheMemberships(USER_ID_1);
+        cacheMemberships(USER_ID_2);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        UserMembershipCache.getInstance().clearTenantMemberships(TENANT_DOMAIN);
+        mockedIdentityUtil.close();
+    }
+
+    @Test
+    public void testPostUpdateUserListOfRole() throws Exception {
+
+        roleManagementListener.postUpdateUserListOfRole(ROLE_ID, Collections.singletonList(USER_ID_1),
+                Collections.emptyList(), TENANT_DOMAIN);
+        Assert.assertTrue(getCachedMemberships(USER_ID_1).isEmpty());
+        Assert.assertFalse(getCachedMemberships(USER_ID_2).isEmpty());
+
+        roleManagementListener.postUpdateUserListOfRole(ROLE_ID, null, Collections.singletonList(USER_ID_2),
+                TENANT_DOMAIN);
+        Assert.assertTrue(getCachedMemberships(USER_ID_2).isEmpty());
+    }
+
+    @Test
+    public void testPostUpdateGroupListOfRole() throws Exception {
+
+        roleManagementListener.postUpdateGroupListOfRole(ROLE_ID, Collections.singletonList("groupId"),
+                Collections.emptyList(), TENANT_DOMAIN);
+        Assert.assertTrue(getCachedMemberships(USER_ID_1).isEmpty());
+        Assert.assertTrue(getCachedMemberships(USER_ID_2).isEmpty());
+    }
+
+    @Test
+    public void testPostDeleteRole() throws Exception {
+
+        roleManagementListener.postDeleteRole(ROLE_ID, TENANT_DOMAIN);
+        Assert.assertTrue(getCachedMemberships(USER_ID_1).isEmpty());
+        Assert.assertTrue(getCachedMemberships(USER_ID_2).isEmpty());
+    }
+
+    private void cacheMemberships(String userId) {
+
+        Map<PasswordExpiryRuleAttributeEnum, Set<String>> memberships =
+                new EnumMap<>(PasswordExpiryRuleAttributeEnum.class);
+        memberships.put(PasswordExpiryRuleAttributeEnum.ROLES, Collections.singleton(ROLE_ID));
+        UserMembershipCache membershipCache = UserMembershipCache.getInstance();
+        membershipCache.putMemberships(TENANT_DOMAIN, userId, memberships, membershipCache.getInvalidationCount());
+    }
+
+    private Map<PasswordExpiryRuleAttributeEnum, Set<String>> getCachedMemberships(String userId) {
+
+        return UserMembershipCache.getInstance().getMemberships(TENANT_DOMAIN, userId);
+    }
+}
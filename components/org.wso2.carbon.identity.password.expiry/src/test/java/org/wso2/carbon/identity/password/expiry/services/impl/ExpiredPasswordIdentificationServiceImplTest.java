@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.password.expiry.services.impl;
+
+import org.mockito.MockedStatic;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
+import org.wso2.carbon.identity.governance.model.UserNamesPage;
+import org.wso2.carbon.identity.governance.model.UsersPage;
+import org.wso2.carbon.identity.governance.service.IdentityDataStoreService;
+import org.wso2.carbon.identity.password.expiry.constants.PasswordPolicyConstants;
+import org.wso2.carbon.identity.password.expiry.exceptions.ExpiredPasswordIdentificationClientException;
+import org.wso2.carbon.identity.password.expiry.internal.EnforcePasswordResetComponentDataHolder;
+import org.wso2.carbon.identity.password.expiry.models.PasswordExpiredUserModel;
+import org.wso2.carbon.identity.password.expiry.util.PasswordPolicyUtils;
+import org.wso2.carbon.identity.recovery.internal.IdentityRecoveryServiceDataHolder;
+import org.wso2.carbon.user.core.UserRealm;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.service.RealmService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests for ExpiredPasswordIdentificationServiceImpl.
+ */
+public class ExpiredPasswordIdentificationServiceImplTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final int TENANT_ID = -1234;
+
+    private MockedStatic<IdentityTenantUtil> mockedIdentityTenantUtil;
+    private MockedStatic<IdentityUtil> mockedIdentityUtil;
+    private MockedStatic<PasswordPolicyUtils> mockedPasswordPolicyUtils;
+    private MockedStatic<IdentityGovernanceUtil> mockedIdentityGovernanceUtil;
+    private RealmService originalRealmService;
+    private IdentityDataStoreService originalIdentityDataStoreService;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockedIdentityTenantUtil = mockStatic(IdentityTenantUtil.class);
+        mockedIdentityTenantUtil.when(() -> IdentityTenantUtil.getTenantId(TENANT_DOMAIN)).thenReturn(TENANT_ID);
+        mockedIdentityUtil = mockStatic(IdentityUtil.class);
+        mockedIdentityUtil.when(IdentityUtil::getPrimaryDomainName).thenReturn("PRIMARY");
+        mockedPasswordPolicyUtils = mockStatic(PasswordPolicyUtils.class);
+        mockedPasswordPolicyUtils.when(() -> PasswordPolicyUtils.getPasswordExpiryInDays(TENANT_DOMAIN))
+                .thenReturn(30);
+        mockedIdentityGovernanceUtil = mockStatic(IdentityGovernanceUtil.class);
+        mockedIdentityGovernanceUtil.when(() -> IdentityGovernanceUtil.getUserIdsFromDomainQualifiedUserNames(
+                any(), anyList())).thenAnswer(invocation -> {
+                    Map<String, String> userIds = new HashMap<>();
+                    for (String username : invocation.<List<String>>getArgument(1)) {
+                        userIds.put(username, username + "-id");
+                    }
+                    return userIds;
+                });
+
+        UserRealm userRealm = mock(UserRealm.class);
+        when(userRealm.getUserStoreManager()).thenReturn(mock(UserStoreManager.class));
+        RealmService realmService = mock(RealmService.class);
+        when(realmService.getTenantUserRealm(TENANT_ID)).thenReturn(userRealm);
+        originalRealmService = IdentityRecoveryServiceDataHolder.getInstance().getRealmService();
+        IdentityRecoveryServiceDataHolder.getInstance().setRealmService(realmService);
+
+        IdentityDataStoreService identityDataStoreService = mock(IdentityDataStoreService.class);
+        when(identityDataStoreService.listUsersByClaimValueRange(
+                eq(PasswordPolicyConstants.LAST_CREDENTIAL_UPDATE_TIMESTAMP_CLAIM), anyString(), any(), anyInt(),
+                isNull(), anyInt())).thenReturn(new UserNamesPage(Arrays.asList("user1", "user2"), "user2"));
+        when(identityDataStoreService.listUsersByClaimValueRange(
+                eq(PasswordPolicyConstants.LAST_CREDENTIAL_UPDATE_TIMESTAMP_CLAIM), anyString(), any(), anyInt(),
+                eq("user2"), anyInt())).thenReturn(new UserNamesPage(Collections.singletonList("user3"), null));
+        originalIdentityDataStoreService =
+                EnforcePasswordResetComponentDataHolder.getInstance().getIdentityDataStoreService();
+        EnforcePasswordResetComponentDataHolder.getInstance().setIdentityDataStoreService(identityDataStoreService);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        mockedIdentityTenantUtil.close();
+        mockedIdentityUtil.close();
+        mockedPasswordPolicyUtils.close();
+        mockedIdentityGovernanceUtil.close();
+        IdentityRecoveryServiceDataHolder.getInstance().setRealmService(originalRealmService);
+        EnforcePasswordResetComponentDataHolder.getInstance()
+                .setIdentityDataStoreService(originalIdentityDataStoreService);
+    }
+
+    @Test
+    public void testGetPasswordExpiredUsersPageByPage() throws Exception {
+
+        ExpiredPasswordIdentificationServiceImpl expiredPasswordIdentificationService =
+                new ExpiredPasswordIdentificationServiceImpl();
+        LocalDateTime expiredAfter = LocalDate.parse("2023-01-31").atStartOfDay();
+
+        List<String> userIds = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            UsersPage<PasswordExpiredUserModel> page = expiredPasswordIdentificationService.getPasswordExpiredUsers(
+                    expiredAfter, null, TENANT_DOMAIN, cursor, 2);
+            page.getUsers().forEach(passwordExpiredUser -> userIds.add(passwordExpiredUser.getUserId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(pages, 2);
+        assertEquals(userIds, Arrays.asList("user1-id", "user2-id", "user3-id"));
+    }
+
+    @Test
+    public void testStreamPasswordExpiredUsers() throws Exception {
+
+        List<PasswordExpiredUserModel> streamedUsers = new ArrayList<>();
+        new ExpiredPasswordIdentificationServiceImpl().streamPasswordExpiredUsers(
+                LocalDate.parse("2023-01-31").atStartOfDay(), LocalDate.parse("2023-01-15").atStartOfDay(),
+                TENANT_DOMAIN, streamedUsers::add);
+
+        assertEquals(streamedUsers.size(), 3);
+        assertEquals(streamedUsers.get(2).getUsername(), "user3");
+        assertEquals(streamedUsers.get(2).getUserStoreDomain(), "PRIMARY");
+    }
+
+    @Test(expectedExceptions = ExpiredPasswordIdentificationClientException.class)
+    public void testGetPasswordExpiredUsersWithInvalidLimit() throws Exception {
+
+        new ExpiredPasswordIdentificationServiceImpl().getPasswordExpiredUsers(
+                LocalDate.parse("2023-01-31").atStartOfDay(), null, TENANT_DOMAIN, null, 0);
+    }
+}
@@ -32,8 +32,23 @@ public class PasswordHistoryConstants {
         public static final String LOAD_HISTORY_DATA = "SELECT * FROM IDN_PASSWORD_HISTORY_DATA WHERE USER_NAME= ? AND " +
                 "USER_DOMAIN = ? AND TENANT_ID = ? ORDER BY TIME_CREATED DESC  ";
 
+        public static final String LOAD_RECENT_HISTORY_HASHES = "SELECT SALT_VALUE, HASH FROM " +
+                "IDN_PASSWORD_HISTORY_DATA WHERE USER_NAME = ? AND USER_DOMAIN = ? AND TENANT_ID = ? " +
+                "ORDER BY TIME_CREATED DESC";
+
+        public static final String LOAD_RECENT_HISTORY_TIMES = "SELECT TIME_CREATED FROM " +
+                "IDN_PASSWORD_HISTORY_DATA WHERE USER_NAME = ? AND USER_DOMAIN = ? AND TENANT_ID = ? " +
+                "ORDER BY TIME_CREATED DESC";
+
+        // Row limits appended to the recent history queries, based on the database type.
+        public static final String LIMIT_ROWS = " LIMIT ?";
+        public static final String FETCH_ROWS = " OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+
         public static final String DELETE_HISTORY_RECORD = "DELETE FROM IDN_PASSWORD_HISTORY_DATA WHERE ID=?";
 
+        public static final String DELETE_OLDER_HISTORY_DATA = "DELETE FROM IDN_PASSWORD_HISTORY_DATA WHERE " +
+                "USER_NAME = ? AND USER_DOMAIN = ? AND TENANT_ID = ? AND TIME_CREATED < ?";
+
         public static final String DELETE_USER_HISTORY = "DELETE FROM IDN_PASSWORD_HISTORY_DATA WHERE USER_NAME = ? " +
                 "AND USER_DOMAIN =? AND TENANT_ID =?";
 
@@ -27,6 +27,7 @@ import org.wso2.carbon.identity.password.history.exeption.IdentityPasswordHistor
 import org.wso2.carbon.identity.password.history.store.PasswordHistoryDataStore;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.UserStoreException;
+import org.wso2.carbon.utils.dbcreator.DatabaseCreator;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -37,9 +38,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * This interface provides to plug module for preferred persistence store.
@@ -47,6 +48,15 @@ import java.util.Locale;
 public class DefaultPasswordHistoryDataStore implements PasswordHistoryDataStore {
     private static final String RANDOM_ALG_DRBG = "DRBG";
     private static final Log log = LogFactory.getLog(DefaultPasswordHistoryDataStore.class);
+    private static final String MYSQL = "mysql";
+    private static final String MARIADB = "mariadb";
+    private static final String H2 = "h2";
+    private static final String POSTGRE_SQL = "postgresql";
+    private static final String MSSQL = "mssql";
+    private static final String ORACLE = "oracle";
+    private static final ThreadLocal<Map<String, MessageDigest>> MESSAGE_DIGESTS =
+            ThreadLocal.withInitial(HashMap::new);
+    private static volatile String databaseType;
     private String digestFunction;
     private int maxHistoryCount;
 
@@ -68,60 +78,142 @@ public class DefaultPasswordHistoryDataStore implements PasswordHistoryDataStore
             return;
         }
         String saltValue = generateSaltValue();
+        int tenantId = IdentityTenantUtil.getTenantId(user.getTenantDomain());
 
         Connection connection = IdentityDatabaseUtil.getDBConnection();
-        List<Integer> recordsToDelete = new ArrayList<>();
-        int storedHistoryCount = 0;
-        PreparedStatement prepStmt1 = null;
-        PreparedStatement prepStmt2 = null;
-        PreparedStatement prepStmt3 = null;
-
-        ResultSet resultSet = null;
         try {
-            prepStmt1 = connection.prepareStatement(PasswordHistoryConstants.SQLQueries.LOAD_HISTORY_DATA);
-            prepStmt1.setString(1, user.getUserName());
-            prepStmt1.setString(2, user.getUserStoreDomain());
-            prepStmt1.setInt(3, IdentityTenantUtil.getTenantId(user.getTenantDomain()));
-
-            resultSet = prepStmt1.executeQuery();
+            pruneHistory(connection, user, tenantId);
 
-            while (resultSet.next()) {
-                storedHistoryCount++;
-                if (storedHistoryCount >= maxHistoryCount) {
-                    recordsToDelete.add(resultSet.getInt("ID"));
-                }
-            }
-
-            if (recordsToDelete.size() > 0) {
-                for (int i = 0; i < recordsToDelete.size(); i++) {
-                    prepStmt2 = connection.prepareStatement(
-                            PasswordHistoryConstants.SQLQueries.DELETE_HISTORY_RECORD);
-                    prepStmt2.setInt(1, recordsToDelete.get(i));
-                    prepStmt2.execute();
-                }
+            try (PreparedStatement prepStmt = connection.prepareStatement(
+                    PasswordHistoryConstants.SQLQueries.STORE_HISTORY_DATA)) {
+                prepStmt.setString(1, user.getUserName());
+                prepStmt.setString(2, user.getUserStoreDomain().toUpperCase(Locale.ENGLISH));
+                prepStmt.setInt(3, tenantId);
+                prepStmt.setString(4, saltValue);
+                prepStmt.setString(5, preparePassword(credential.toString(), saltValue));
+                prepStmt.setTimestamp(6, new Timestamp(new java.util.Date().getTime()));
+                prepStmt.execute();
             }
-
-            prepStmt3 = connection.prepareStatement(PasswordHistoryConstants.SQLQueries.STORE_HISTORY_DATA);
-            prepStmt3.setString(1, user.getUserName());
-            prepStmt3.setString(2, user.getUserStoreDomain().toUpperCase(Locale.ENGLISH));
-            prepStmt3.setInt(3, IdentityTenantUtil.getTenantId(user.getTenantDomain()));
-            prepStmt3.setString(4, saltValue);
-            prepStmt3.setString(5, preparePassword(credential.toString(), saltValue));
-            prepStmt3.setTimestamp(6, new Timestamp(new java.util.Date().getTime()));
-            prepStmt3.execute();
             IdentityDatabaseUtil.commitTransaction(connection);
         } catch (SQLException e) {
             IdentityDatabaseUtil.rollbackTransaction(connection);
             throw new IdentityPasswordHistoryException("Error while storing password history", e);
         } finally {
-            IdentityDatabaseUtil.closeStatement(prepStmt1);
-            IdentityDatabaseUtil.closeStatement(prepStmt2);
-            IdentityDatabaseUtil.closeStatement(prepStmt3);
-            IdentityDatabaseUtil.closeResultSet(resultSet);
             IdentityDatabaseUtil.closeConnection(connection);
         }
     }
 
+    /**
+     * Remove the history records which fall beyond the history count once a new password is stored. Only the
+     * records to be retained are read, and the older records are removed with a single statement.
+     *
+     * @param connection Database connection.
+     * @param user       User whose history is pruned.
+     * @param tenantId   Tenant id of the user.
+     * @throws SQLException If an error occurs while pruning the history.
+     */
+    private void pruneHistory(Connection connection, User user, int tenantId) throws SQLException {
+
+        int retainedHistoryCount = maxHistoryCount - 1;
+        if (retainedHistoryCount <= 0) {
+            try (PreparedStatement prepStmt = connection.prepareStatement(
+                    PasswordHistoryConstants.SQLQueries.DELETE_USER_HISTORY)) {
+                prepStmt.setString(1, user.getUserName());
+                prepStmt.setString(2, user.getUserStoreDomain());
+                prepStmt.setInt(3, tenantId);
+                prepStmt.executeUpdate();
+            }
+            return;
+        }
+
+        int retainedCount = 0;
+        Timestamp oldestRetainedTime = null;
+        try (PreparedStatement prepStmt = prepareRecentHistoryQuery(connection,
+                PasswordHistoryConstants.SQLQueries.LOAD_RECENT_HISTORY_TIMES, user, tenantId,
+                retainedHistoryCount);
+             ResultSet resultSet = prepStmt.executeQuery()) {
+            while (resultSet.next() && retainedCount < retainedHistoryCount) {
+                retainedCount++;
+                oldestRetainedTime = resultSet.getTimestamp(1);
+            }
+        }
+        if (retainedCount < retainedHistoryCount || oldestRetainedTime == null) {
+            return;
+        }
+
+        try (PreparedStatement prepStmt = connection.prepareStatement(
+                PasswordHistoryConstants.SQLQueries.DELETE_OLDER_HISTORY_DATA)) {
+            prepStmt.setString(1, user.getUserName());
+            prepStmt.setString(2, user.getUserStoreDomain());
+            prepStmt.setInt(3, tenantId);
+            prepStmt.setTimestamp(4, oldestRetainedTime);
+            int deletedCount = prepStmt.executeUpdate();
+            if (log.isDebugEnabled()) {
+                log.debug("Removed " + deletedCount + " password history records of user: " + user.getUserName());
+            }
+        }
+    }
+
+    /**
+     * Prepare a query for the newest history records of a user, limited to the given number of rows.
+     *
+     * @param connection Database connection.
+     * @param query      Query for the history records of the user, ordered from the newest.
+     * @param user       User whose history is queried.
+     * @param tenantId   Tenant id of the user.
+     * @param limit      Maximum number of records to return.
+     * @return Prepared statement.
+     * @throws SQLException If an error occurs while preparing the statement.
+     */
+    private PreparedStatement prepareRecentHistoryQuery(Connection connection, String query, User user,
+                                                        int tenantId, int limit) throws SQLException {
+
+        String limitClause = getLimitClause(connection);
+        PreparedStatement prepStmt = connection.prepareStatement(limitClause == null ? query : query + limitClause);
+        try {
+            prepStmt.setString(1, user.getUserName());
+            prepStmt.setString(2, user.getUserStoreDomain());
+            prepStmt.setInt(3, tenantId);
+            if (limitClause != null) {
+                prepStmt.setInt(4, limit);
+            }
+            // Bounds the rows read for the databases without a limit clause.
+            prepStmt.setMaxRows(limit);
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.closeStatement(prepStmt);
+            throw e;
+        }
+        return prepStmt;
+    }
+
+    private String getLimitClause(Connection connection) {
+
+        String databaseType = getDatabaseType(connection);
+        if (MYSQL.equals(databaseType) || MARIADB.equals(databaseType) || H2.equals(databaseType) ||
+                POSTGRE_SQL.equals(databaseType)) {
+            return PasswordHistoryConstants.SQLQueries.LIMIT_ROWS;
+        } else if (MSSQL.equals(databaseType) || ORACLE.equals(databaseType)) {
+            return PasswordHistoryConstants.SQLQueries.FETCH_ROWS;
+        }
+        return null;
+    }
+
+    private static String getDatabaseType(Connection connection) {
+
+        if (databaseType == null) {
+            try {
+                databaseType = DatabaseCreator.getDatabaseType(connection);
+            } catch (Exception e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Error while detecting the identity database type. History queries will not use a " +
+                            "limit clause.", e);
+                }
+                return null;
+            }
+        }
+        return databaseType;
+    }
+
     @Override
     public void remove(User user) throws IdentityPasswordHistoryException {
         Connection connection = IdentityDatabaseUtil.getDBConnection();
@@ -174,36 +266,25 @@ public class DefaultPasswordHistoryDataStore implements PasswordHistoryDataStore
     @Override
     public boolean validate(User user, Object credential) throws IdentityPasswordHistoryException {
         //History not validate if password is empty
-        if (credential == null) {
+        if (credential == null || maxHistoryCount <= 0) {
             return true;
         }
 
         Connection connection = IdentityDatabaseUtil.getDBConnection(false);
-        int storedHistoryCount = 0;
-        PreparedStatement prepStmt = null;
-        ResultSet resultSet = null;
-        try {
-            prepStmt = connection.prepareStatement(PasswordHistoryConstants.SQLQueries
-                    .LOAD_HISTORY_DATA);
-            prepStmt.setString(1, user.getUserName());
-            prepStmt.setString(2, user.getUserStoreDomain());
-            prepStmt.setInt(3, IdentityTenantUtil.getTenantId(user.getTenantDomain()));
-
-            resultSet = prepStmt.executeQuery();
-
-            while (resultSet.next()) {
+        try (PreparedStatement prepStmt = prepareRecentHistoryQuery(connection,
+                PasswordHistoryConstants.SQLQueries.LOAD_RECENT_HISTORY_HASHES, user,
+                IdentityTenantUtil.getTenantId(user.getTenantDomain()), maxHistoryCount);
+             ResultSet resultSet = prepStmt.executeQuery()) {
+            int storedHistoryCount = 0;
+            while (resultSet.next() && storedHistoryCount < maxHistoryCount) {
                 storedHistoryCount++;
-                if (storedHistoryCount <= maxHistoryCount) {
-                    if (isHistoryExists(resultSet.getString("SALT_VALUE"), resultSet.getString("HASH"), credential)) {
-                        return false;
-                    }
+                if (isHistoryExists(resultSet.getString("SALT_VALUE"), resultSet.getString("HASH"), credential)) {
+                    return false;
                 }
             }
         } catch (SQLException e) {
             throw new IdentityPasswordHistoryException("Error while validating password history", e);
         } finally {
-            IdentityDatabaseUtil.closeStatement(prepStmt);
-            IdentityDatabaseUtil.closeResultSet(resultSet);
             IdentityDatabaseUtil.closeConnection(connection);
         }
         return true;
@@ -259,7 +340,7 @@ public class DefaultPasswordHistoryDataStore implements PasswordHistoryDataStore
                     return password;
                 }
 
-                MessageDigest dgst = MessageDigest.getInstance(digestFunction);
+                MessageDigest dgst = getMessageDigest(digestFunction);
                 byte[] byteValue = dgst.digest(digestInput.getBytes(StandardCharsets.UTF_8));
                 password = Base64.encode(byteValue);
             }
@@ -272,4 +353,23 @@ public class DefaultPasswordHistoryDataStore implements PasswordHistoryDataStore
             throw new IdentityPasswordHistoryException(msg, e);
         }
     }
+
+    /**
+     * Get a message digest of the given algorithm, reused by the current thread. The digest is reset after each
+     * digest computation, so it can be reused as long as it is not shared across threads.
+     *
+     * @param algorithm Digest algorithm.
+     * @return Message digest.
+     * @throws NoSuchAlgorithmException If the algorithm is not supported.
+     */
+    private static MessageDigest getMessageDigest(String algorithm) throws NoSuchAlgorithmException {
+
+        Map<String, MessageDigest> messageDigests = MESSAGE_DIGESTS.get();
+        MessageDigest messageDigest = messageDigests.get(algorithm);
+        if (messageDigest == null) {
+            messageDigest = MessageDigest.getInstance(algorithm);
+            messageDigests.put(algorithm, messageDigest);
+        }
+        return messageDigest;
+    }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.password.history.store.Impl;
+
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.User;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.utils.dbcreator.DatabaseCreator;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for DefaultPasswordHistoryDataStore against an H2 database.
+ */
+public class DefaultPasswordHistoryDataStoreTest {
+
+    private static final String DB_URL = "jdbc:h2:mem:password_history_db;DB_CLOSE_DELAY=-1";
+    private static final String DIGEST_FUNCTION = "SHA-256";
+    private static final String USER_STORE_DOMAIN = "PRIMARY";
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final int TENANT_ID = -1234;
+    private static final long HISTORY_START_TIME = 1700000000000L;
+
+    private Connection keepAliveConnection;
+    private MockedStatic<IdentityDatabaseUtil> mockedIdentityDatabaseUtil;
+    private MockedStatic<IdentityTenantUtil> mockedIdentityTenantUtil;
+    private MockedStatic<DatabaseCreator> mockedDatabaseCreator;
+    private User user;
+
+    @BeforeClass
+    public void setUpClass() throws Exception {
+
+        keepAliveConnection = DriverManager.getConnection(DB_URL);
+        String scriptPath = Paths.get(System.getProperty("user.dir"), "src", "test", "resources", "dbscripts",
+                "h2.sql").toString();
+        keepAliveConnection.createStatement().executeUpdate("RUNSCRIPT FROM '" + scriptPath + "'");
+    }
+
+    @AfterClass
+    public void tearDownClass() throws Exception {
+
+        keepAliveConnection.close();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockedIdentityDatabaseUtil = Mockito.mockStatic(IdentityDatabaseUtil.class);
+        mockedIdentityDatabaseUtil.when(IdentityDatabaseUtil::getDBConnection)
+                .thenAnswer(invocation -> DriverManager.getConnection(DB_URL));
+        mockedIdentityDatabaseUtil.when(() -> IdentityDatabaseUtil.getDBConnection(anyBoolean()))
+                .thenAnswer(invocation -> DriverManager.getConnection(DB_URL));
+        mockedIdentityDatabaseUtil.when(() -> IdentityDatabaseUtil.closeConnection(any(Connection.class)))
+                .thenAnswer(invocation -> {
+                    ((Connection) invocation.getArgument(0)).close();
+                    return null;
+                });
+        mockedIdentityTenantUtil = Mockito.mockStatic(IdentityTenantUtil.class);
+        mockedIdentityTenantUtil.when(() -> IdentityTenantUtil.getTenantId(anyString())).thenReturn(TENANT_ID);
+        mockedDatabaseCreator = Mockito.mockStatic(DatabaseCreator.class);
+        mockedDatabaseCreator.when(() -> DatabaseCreator.getDatabaseType(any(Connection.class))).thenReturn("h2");
+
+        user = new User();
+        user.setUserName("historyUser");
+        user.setUserStoreDomain(USER_STORE_DOMAIN);
+        user.setTenantDomain(TENANT_DOMAIN);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        mockedIdentityDatabaseUtil.close();
+        mockedIdentityTenantUtil.close();
+        mockedDatabaseCreator.close();
+        try (PreparedStatement prepStmt = keepAliveConnection.prepareStatement(
+                "DELETE FROM IDN_PASSWORD_HISTORY_DATA")) {
+            prepStmt.executeUpdate();
+        }
+    }
+
+    @Test
+    public void testValidateChecksOnlyTheHistoryCount() throws Exception {
+
+        addHistory("password1", 1);
+        addHistory("password2", 2);
+        addHistory("password3", 3);
+        DefaultPasswordHistoryDataStore passwordHistoryDataStore =
+                new DefaultPasswordHistoryDataStore(DIGEST_FUNCTION, 2);
+
+        // Only the two newest passwords are in the history.
+        assertTrue(passwordHistoryDataStore.validate(user, "password1"));
+        assertFalse(passwordHistoryDataStore.validate(user, "password2"));
+        assertFalse(passwordHistoryDataStore.validate(user, "password3"));
+        assertTrue(passwordHistoryDataStore.validate(user, "password4"));
+    }
+
+    @Test
+    public void testStorePrunesTheHistoryBeyondTheHistoryCount() throws Exception {
+
+        for (int i = 1; i <= 5; i++) {
+            addHistory("password" + i, i);
+        }
+        DefaultPasswordHistoryDataStore passwordHistoryDataStore =
+                new DefaultPasswordHistoryDataStore(DIGEST_FUNCTION, 3);
+
+        passwordHistoryDataStore.store(user, "password6");
+
+        assertEquals(getHistoryTimes().size(), 3);
+        assertFalse(passwordHistoryDataStore.validate(user, "password6"));
+        assertFalse(passwordHistoryDataStore.validate(user, "password5"));
+        assertFalse(passwordHistoryDataStore.validate(user, "password4"));
+        assertTrue(new DefaultPasswordHistoryDataStore(DIGEST_FUNCTION, 5).validate(user, "password3"));
+    }
+
+    @Test
+    public void testStoreRetainsTheHistoryOfTheOldestRetainedTime() throws Exception {
+
+        addHistory("password1", 1);
+        addHistory("password2", 2);
+        addHistory("password3", 2);
+        DefaultPasswordHistoryDataStore passwordHistoryDataStore =
+                new DefaultPasswordHistoryDataStore(DIGEST_FUNCTION, 2);
+
+        passwordHistoryDataStore.store(user, "password4");
+
+        // Only the history created before the oldest retained time is removed.
+        List<Timestamp> historyTimes = getHistoryTimes();
+        assertEquals(historyTimes.size(), 3);
+        assertEquals(historyTimes.subList(1, 3), Arrays.asList(getHistoryTime(2), getHistoryTime(2)));
+    }
+
+    @Test
+    public void testStoreWithHistoryCountOfOne() throws Exception {
+
+        addHistory("password1", 1);
+        addHistory("password2", 2);
+        DefaultPasswordHistoryDataStore passwordHistoryDataStore =
+                new DefaultPasswordHistoryDataStore(DIGEST_FUNCTION, 1);
+
+        passwordHistoryDataStore.store(user, "password3");
+
+        assertEquals(getHistoryTimes().size(), 1);
+        assertTrue(passwordHistoryDataStore.validate(user, "password2"));
+        assertFalse(passwordHistoryDataStore.validate(user, "password3"));
+    }
+
+    private void addHistory(String password, int timeOffset) throws Exception {
+
+        String saltValue = "salt-" + password;
+        byte[] hash = MessageDigest.getInstance(DIGEST_FUNCTION)
+                .digest((password + saltValue).getBytes(StandardCharsets.UTF_8));
+        try (PreparedStatement prepStmt = keepAliveConnection.prepareStatement("INSERT INTO " +
+                "IDN_PASSWORD_HISTORY_DATA (USER_NAME, USER_DOMAIN, TENANT_ID, SALT_VALUE, HASH, TIME_CREATED) " +
+                "VALUES (?,?,?,?,?,?)")) {
+            prepStmt.setString(1, user.getUserName());
+            prepStmt.setString(2, USER_STORE_DOMAIN);
+            prepStmt.setInt(3, TENANT_ID);
+            prepStmt.setString(4, saltValue);
+            prepStmt.setString(5, Base64.getEncoder().encodeToString(hash));
+            prepStmt.setTimestamp(6, getHistoryTime(timeOffset));
+            prepStmt.executeUpdate();
+        }
+    }
+
+    private Timestamp getHistoryTime(int timeOffset) {
+
+        return new Timestamp(HISTORY_START_TIME + timeOffset * 1000L);
+    }
+
+    private List<Timestamp> getHistoryTimes() throws SQLException {
+
+        List<Timestamp> historyTimes = new ArrayList<>();
+        try (PreparedStatement prepStmt = keepAliveConnection.prepareStatement("SELECT TIME_CREATED FROM " +
+                "IDN_PASSWORD_HISTORY_DATA WHERE USER_NAME = ? ORDER BY TIME_CREATED DESC")) {
+            prepStmt.setString(1, user.getUserName());
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                while (resultSet.next()) {
+                    historyTimes.add(resultSet.getTimestamp(1));
+                }
+            }
+        }
+        return historyTimes;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016-2024, WSO2 LLC. (http://www.wso2.com).
+ * Copyright (c) 2016-2025, WSO2 LLC. (http://www.wso2.com).
  *
  * WSO2 LLC. licenses this file to you under the Apache License,
  * Version 2.0 (the "License"); you may not use this file except
@@ -44,15 +44,19 @@ import org.wso2.carbon.identity.password.policy.util.Utils;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PasswordPolicyValidationHandler extends AbstractEventHandler implements IdentityConnectorConfig {
 
     private static final Log log = LogFactory.getLog(PasswordPolicyValidationHandler.class);
 
+    private final Map<String, CompiledPasswordPolicy> compiledPasswordPolicies = new ConcurrentHashMap<>();
+
     @Override
     public void handleEvent(Event event) throws IdentityEventException {
 
@@ -75,31 +79,86 @@ public class PasswordPolicyValidationHandler extends AbstractEventHandler implem
             throw new IdentityEventException("Error while retrieving password policy properties.", e);
         }
 
+        CompiledPasswordPolicy passwordPolicy = getCompiledPasswordPolicy(tenantDomain, identityProperties);
+        if (!passwordPolicy.isEnabled()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Password Policy validation is disabled");
+            }
+            return;
+        }
+
+        try {
+            passwordPolicy.enforce(credentials.toString(), userName);
+        } catch (PolicyViolationException e) {
+            if (PasswordPolicyStatusCodes.ERROR_CODE_PASSWORD_POLICY_VIOLATION
+                    .equals(e.getErrorCode())) {
+                throw IdentityException.error(IdentityEventException.class, e.getErrorCode(), e.getMessage(), e);
+            }
+            throw Utils.handleEventException(
+                    PasswordPolicyConstants.ErrorMessages.ERROR_CODE_VALIDATING_PASSWORD_POLICY, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get the compiled password policy of a tenant. The policy is compiled again only if the password policy
+     * properties of the tenant have changed since it was compiled.
+     *
+     * @param tenantDomain       Tenant domain.
+     * @param identityProperties Password policy properties of the tenant.
+     * @return Compiled password policy.
+     * @throws IdentityEventException If an error occurred while loading the password policy classes.
+     */
+    private CompiledPasswordPolicy getCompiledPasswordPolicy(String tenantDomain, Property[] identityProperties)
+            throws IdentityEventException {
+
+        String[] propertyNames = getPropertyNames();
+        String[] propertyValues = new String[propertyNames.length];
+        boolean[] configured = new boolean[propertyNames.length];
+        for (Property identityProperty : identityProperties) {
+            if (identityProperty == null) {
+                continue;
+            }
+            for (int i = 0; i < propertyNames.length; i++) {
+                if (propertyNames[i].equals(identityProperty.getName())) {
+                    propertyValues[i] = identityProperty.getValue();
+                    configured[i] = true;
+                    break;
+                }
+            }
+        }
+
+        CompiledPasswordPolicy passwordPolicy = compiledPasswordPolicies.get(tenantDomain);
+        if (passwordPolicy != null && passwordPolicy.isCompiledFrom(propertyValues, configured)) {
+            return passwordPolicy;
+        }
+        passwordPolicy = compilePasswordPolicy(propertyValues, configured);
+        compiledPasswordPolicies.put(tenantDomain, passwordPolicy);
+        return passwordPolicy;
+    }
+
+    private CompiledPasswordPolicy compilePasswordPolicy(String[] propertyValues, boolean[] configured)
+            throws IdentityEventException {
+
         // initialize to default values
-        boolean passwordPolicyValidation;
+        boolean passwordPolicyValidation = true;
         String pwMinLength = "6";
         String pwMaxLength = "12";
         String pwPattern = "^((?=.*\\\\d)(?=.*[a-z])(?=.*[A-Z])(?=.*[!@#$%&*])).{0,100}$";
         String errorMsg = "Password pattern policy violated. Password should contain a digit[0-9], a lower case " +
                 "letter[a-z], an upper case letter[A-Z], one of !@#$%&* characters";
 
-        for (Property identityProperty : identityProperties) {
+        String[] propertyNames = getPropertyNames();
+        for (int i = 0; i < propertyNames.length; i++) {
 
-            if (identityProperty == null) {
+            if (!configured[i]) {
                 continue;
             }
 
-            String propertyName = identityProperty.getName();
-            String propertyValue = identityProperty.getValue();
+            String propertyName = propertyNames[i];
+            String propertyValue = propertyValues[i];
 
             if (PasswordPolicyConstants.PW_POLICY_ENABLE.equals(propertyName)) {
                 passwordPolicyValidation = BooleanUtils.toBoolean(propertyValue);
-                if (!passwordPolicyValidation) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Password Policy validation is disabled");
-                    }
-                    return;
-                }
             } else if (PasswordPolicyConstants.PW_POLICY_MIN_LENGTH.equals(propertyName)) {
                 if (NumberUtils.isNumber(propertyValue) && Integer.parseInt(propertyValue) > 0) {
                     pwMinLength = propertyValue;
@@ -127,55 +186,11 @@ public class PasswordPolicyValidationHandler extends AbstractEventHandler implem
             }
         }
 
-        PolicyRegistry policyRegistry = new PolicyRegistry();
-
-        String pwLengthPolicyCls = configs.getModuleProperties().
-                getProperty(PasswordPolicyConstants.PW_POLICY_LENGTH_CLASS);
-        String pwNamePolicyCls = configs.getModuleProperties().
-                getProperty(PasswordPolicyConstants.PW_POLICY_NAME_CLASS);
-        String pwPatternPolicyCls = configs.getModuleProperties().
-                getProperty(PasswordPolicyConstants.PW_POLICY_PATTERN_CLASS);
-        try {
-            if (StringUtils.isNotBlank(pwLengthPolicyCls)) {
-                DefaultPasswordLengthPolicy defaultPasswordLengthPolicy = (DefaultPasswordLengthPolicy) Class.
-                        forName(pwLengthPolicyCls).newInstance();
-                HashMap pwPolicyLengthParams = new HashMap<String, String>();
-                pwPolicyLengthParams.put("min.length", pwMinLength);
-                pwPolicyLengthParams.put("max.length", pwMaxLength);
-                defaultPasswordLengthPolicy.init(pwPolicyLengthParams);
-                policyRegistry.addPolicy(defaultPasswordLengthPolicy);
-            }
-
-            if (StringUtils.isNotBlank(pwNamePolicyCls)) {
-                DefaultPasswordNamePolicy defaultPasswordNamePolicy = (DefaultPasswordNamePolicy) Class.
-                        forName(pwNamePolicyCls).newInstance();
-                policyRegistry.addPolicy(defaultPasswordNamePolicy);
-            }
-
-            if (StringUtils.isNotBlank(pwPatternPolicyCls)) {
-                DefaultPasswordPatternPolicy defaultPasswordPatternPolicy = (DefaultPasswordPatternPolicy) Class.
-                        forName(pwPatternPolicyCls).newInstance();
-                HashMap pwPolicyPatternParams = new HashMap<String, String>();
-                pwPolicyPatternParams.put("pattern", pwPattern);
-                pwPolicyPatternParams.put("errorMsg", errorMsg);
-                defaultPasswordPatternPolicy.init(pwPolicyPatternParams);
-                policyRegistry.addPolicy(defaultPasswordPatternPolicy);
-            }
-        } catch (Exception e) {
-            throw Utils.handleEventException(
-                    PasswordPolicyConstants.ErrorMessages.ERROR_CODE_LOADING_PASSWORD_POLICY_CLASSES, null, e);
-        }
-
-        try {
-            policyRegistry.enforcePasswordPolicies(credentials.toString(), userName);
-        } catch (PolicyViolationException e) {
-            if (PasswordPolicyStatusCodes.ERROR_CODE_PASSWORD_POLICY_VIOLATION
-                    .equals(e.getErrorCode())) {
-                throw IdentityException.error(IdentityEventException.class, e.getErrorCode(), e.getMessage(), e);
-            }
-            throw Utils.handleEventException(
-                    PasswordPolicyConstants.ErrorMessages.ERROR_CODE_VALIDATING_PASSWORD_POLICY, e.getMessage(), e);
+        if (!passwordPolicyValidation) {
+            return new CompiledPasswordPolicy(propertyValues, configured);
         }
+        return new CompiledPasswordPolicy(propertyValues, configured, configs.getModuleProperties(),
+                Integer.parseInt(pwMinLength), Integer.parseInt(pwMaxLength), pwPattern, errorMsg);
     }
 
     @Override
@@ -277,4 +292,117 @@ public class PasswordPolicyValidationHandler extends AbstractEventHandler implem
 
         return null;
     }
+
+    /**
+     * Password policies of a tenant, loaded and initialized once for a set of password policy property values.
+     */
+    private static final class CompiledPasswordPolicy {
+
+        private final String[] propertyValues;
+        private final boolean[] configured;
+        private final boolean enabled;
+        private final Properties moduleProperties;
+        private final int minLength;
+        private final int maxLength;
+        private final String pattern;
+        private final String errorMsg;
+        private final boolean lengthPolicyEnabled;
+        private final PolicyRegistry policyRegistry;
+
+        private CompiledPasswordPolicy(String[] propertyValues, boolean[] configured) {
+
+            this.propertyValues = propertyValues;
+            this.configured = configured;
+            this.enabled = false;
+            this.moduleProperties = null;
+            this.minLength = 0;
+            this.maxLength = 0;
+            this.pattern = null;
+            this.errorMsg = null;
+            this.lengthPolicyEnabled = false;
+            this.policyRegistry = null;
+        }
+
+        private CompiledPasswordPolicy(String[] propertyValues, boolean[] configured, Properties moduleProperties,
+                                       int minLength, int maxLength, String pattern, String errorMsg)
+                throws IdentityEventException {
+
+            this.propertyValues = propertyValues;
+            this.configured = configured;
+            this.enabled = true;
+            this.moduleProperties = moduleProperties;
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+            this.pattern = pattern;
+            this.errorMsg = errorMsg;
+            this.lengthPolicyEnabled = StringUtils.isNotBlank(
+                    moduleProperties.getProperty(PasswordPolicyConstants.PW_POLICY_LENGTH_CLASS));
+            this.policyRegistry = createPolicyRegistry();
+        }
+
+        private boolean isCompiledFrom(String[] propertyValues, boolean[] configured) {
+
+            return Arrays.equals(this.propertyValues, propertyValues) && Arrays.equals(this.configured, configured);
+        }
+
+        private boolean isEnabled() {
+
+            return enabled;
+        }
+
+        private void enforce(String password, String userName) throws PolicyViolationException,
+                IdentityEventException {
+
+            /*
+            The length policy records the violated bound on the policy instance while enforcing. The length is
+            checked upfront without touching the shared policies, and a violation is enforced on a new registry so
+            that the messages of concurrent validations are not mixed up.
+             */
+            if (lengthPolicyEnabled && (password.length() < minLength || password.length() > maxLength)) {
+                createPolicyRegistry().enforcePasswordPolicies(password, userName);
+            }
+            policyRegistry.enforcePasswordPolicies(password, userName);
+        }
+
+        private PolicyRegistry createPolicyRegistry() throws IdentityEventException {
+
+            PolicyRegistry policyRegistry = new PolicyRegistry();
+
+            String pwLengthPolicyCls = moduleProperties.getProperty(PasswordPolicyConstants.PW_POLICY_LENGTH_CLASS);
+            String pwNamePolicyCls = moduleProperties.getProperty(PasswordPolicyConstants.PW_POLICY_NAME_CLASS);
+            String pwPatternPolicyCls = moduleProperties.getProperty(PasswordPolicyConstants.PW_POLICY_PATTERN_CLASS);
+            try {
+                if (StringUtils.isNotBlank(pwLengthPolicyCls)) {
+                    DefaultPasswordLengthPolicy defaultPasswordLengthPolicy = (DefaultPasswordLengthPolicy) Class.
+                            forName(pwLengthPolicyCls).newInstance();
+                    HashMap pwPolicyLengthParams = new HashMap<String, String>();
+                    pwPolicyLengthParams.put("min.length", String.valueOf(minLength));
+                    pwPolicyLengthParams.put("max.length", String.valueOf(maxLength));
+                    defaultPasswordLengthPolicy.init(pwPolicyLengthParams);
+                    policyRegistry.addPolicy(defaultPasswordLengthPolicy);
+                }
+
+                if (StringUtils.isNotBlank(pwNamePolicyCls)) {
+                    DefaultPasswordNamePolicy defaultPasswordNamePolicy = (DefaultPasswordNamePolicy) Class.
+                            forName(pwNamePolicyCls).newInstance();
+                    policyRegistry.addPolicy(defaultPasswordNamePolicy);
+                }
+
+                if (StringUtils.isNotBlank(pwPatternPolicyCls)) {
+                    // The pattern is compiled once here, when the policy is initialized.
+                    DefaultPasswordPatternPolicy defaultPasswordPatternPolicy = (DefaultPasswordPatternPolicy) Class.
+                            forName(pwPatternPolicyCls).newInstance();
+                    HashMap pwPolicyPatternParams = new HashMap<String, String>();
+                    pwPolicyPatternParams.put("pattern", pattern);
+                    pwPolicyPatternParams.put("errorMsg", errorMsg);
+                    defaultPasswordPatternPolicy.init(pwPolicyPatternParams);
+                    policyRegistry.addPolicy(defaultPasswordPatternPolicy);
+                }
+            } catch (Exception e) {
+                throw Utils.handleEventException(
+                        PasswordPolicyConstants.ErrorMessages.ERROR_CODE_LOADING_PASSWORD_POLICY_CLASSES, null, e);
+            }
+            return policyRegistry;
+        }
+    }
 }
@@ -15,28 +15,70 @@
  */
 package org.wso2.carbon.identity.password.policy.handler;
 
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.event.IdentityEventConstants;
+import org.wso2.carbon.identity.event.IdentityEventException;
+import org.wso2.carbon.identity.event.bean.ModuleConfiguration;
+import org.wso2.carbon.identity.event.event.Event;
+import org.wso2.carbon.identity.governance.IdentityGovernanceService;
+import org.wso2.carbon.identity.mgt.policy.password.DefaultPasswordPatternPolicy;
 import org.wso2.carbon.identity.password.policy.constants.PasswordPolicyConstants;
+import org.wso2.carbon.identity.password.policy.internal.IdentityPasswordPolicyServiceDataHolder;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.fail;
 
 public class PasswordPolicyValidationHandlerTest {
 
     private static final String PW_POLICY_DISABLE = "passwordPolicy.disable";
+    private static final String TENANT_DOMAIN_1 = "tenant1.com";
+    private static final String TENANT_DOMAIN_2 = "tenant2.com";
     PasswordPolicyValidationHandler passwordPolicyValidationHandler;
+    private IdentityGovernanceService identityGovernanceService;
+    private MockedStatic<UserCoreUtil> mockedUserCoreUtil;
 
     @BeforeMethod
     public void setUp() throws Exception {
 
         passwordPolicyValidationHandler = new PasswordPolicyValidationHandler();
+        Properties moduleProperties = new Properties();
+        moduleProperties.setProperty(PasswordPolicyConstants.PW_POLICY_PATTERN_CLASS,
+                CountingPasswordPatternPolicy.class.getName());
+        ModuleConfiguration moduleConfiguration = mock(ModuleConfiguration.class);
+        when(moduleConfiguration.getModuleProperties()).thenReturn(moduleProperties);
+        passwordPolicyValidationHandler.init(moduleConfiguration);
+
+        identityGovernanceService = mock(IdentityGovernanceService.class);
+        IdentityPasswordPolicyServiceDataHolder.getInstance().setIdentityGovernanceService(identityGovernanceService);
+        mockedUserCoreUtil = Mockito.mockStatic(UserCoreUtil.class);
+        mockedUserCoreUtil.when(UserCoreUtil::getSkipPasswordPatternValidationThreadLocal).thenReturn(false);
+        CountingPasswordPatternPolicy.initCount.set(0);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        mockedUserCoreUtil.close();
+        IdentityPasswordPolicyServiceDataHolder.getInstance().setIdentityGovernanceService(null);
     }
 
 
@@ -123,4 +165,94 @@ public class PasswordPolicyValidationHandlerTest {
 
         assertEquals(passwordPolicyValidationHandler.getOrder(), 0, "getOrder() has been changed.");
     }
+
+    @Test
+    public void testPasswordPolicyIsCompiledOnce() throws Exception {
+
+        mockPasswordPattern(TENANT_DOMAIN_1, "^[a-z]+$");
+
+        passwordPolicyValidationHandler.handleEvent(createEvent(TENANT_DOMAIN_1, "password"));
+        passwordPolicyValidationHandler.handleEvent(createEvent(TENANT_DOMAIN_1, "secret"));
+
+        assertEquals(CountingPasswordPatternPolicy.initCount.get(), 1);
+    }
+
+    @Test
+    public void testPasswordPolicyIsCompiledAgainWhenConfigurationChanges() throws Exception {
+
+        mockPasswordPattern(TENANT_DOMAIN_1, "^[a-z]+$");
+        passwordPolicyValidationHandler.handleEvent(createEvent(TENANT_DOMAIN_1, "password"));
+
+        mockPasswordPattern(TENANT_DOMAIN_1, "^[0-9]+$");
+        assertPasswordPolicyViolated(TENANT_DOMAIN_1, "password");
+        passwordPolicyValidationHandler.handleEvent(createEvent(TENANT_DOMAIN_1, "123456"));
+
+        assertEquals(CountingPasswordPatternPolicy.initCount.get(), 2);
+    }
+
+    @Test
+    public void testPasswordPoliciesAreCompiledPerTenant() throws Exception {
+
+        mockPasswordPattern(TENANT_DOMAIN_1, "^[a-z]+$");
+        mockPasswordPattern(TENANT_DOMAIN_2, "^[0-9]+$");
+
+        for (int i = 0; i < 2; i++) {
+            passwordPolicyValidationHandler.handleEvent(createEvent(TENANT_DOMAIN_1, "password"));
+            assertPasswordPolicyViolated(TENANT_DOMAIN_1, "123456");
+            passwordPolicyValidationHandler.handleEvent(createEvent(TENANT_DOMAIN_2, "123456"));
+            assertPasswordPolicyViolated(TENANT_DOMAIN_2, "password");
+        }
+
+        assertEquals(CountingPasswordPatternPolicy.initCount.get(), 2);
+    }
+
+    private void mockPasswordPattern(String tenantDomain, String pattern) throws Exception {
+
+        Property[] properties = new Property[]{createProperty(PasswordPolicyConstants.PW_POLICY_ENABLE, "true"),
+                createProperty(PasswordPolicyConstants.PW_POLICY_PATTERN, pattern)};
+        when(identityGovernanceService.getConfiguration(any(String[].class), eq(tenantDomain)))
+                .thenReturn(properties);
+    }
+
+    private Property createProperty(String name, String value) {
+
+        Property property = new Property();
+        property.setName(name);
+        property.setValue(value);
+        return property;
+    }
+
+    private Event createEvent(String tenantDomain, String password) {
+
+        Map<String, Object> eventProperties = new HashMap<>();
+        eventProperties.put(IdentityEventConstants.EventProperty.USER_NAME, "testUser");
+        eventProperties.put(IdentityEventConstants.EventProperty.TENANT_DOMAIN, tenantDomain);
+        eventProperties.put(IdentityEventConstants.EventProperty.CREDENTIAL, password);
+        return new Event(IdentityEventConstants.Event.PRE_UPDATE_CREDENTIAL, eventProperties);
+    }
+
+    private void assertPasswordPolicyViolated(String tenantDomain, String password) {
+
+        try {
+            passwordPolicyValidationHandler.handleEvent(createEvent(tenantDomain, password));
+            fail("Password policy violation is not detected for the password of tenant: " + tenantDomain);
+        } catch (IdentityEventException e) {
+            // Expected, as the password does not match the pattern of the tenant.
+        }
+    }
+
+    /**
+     * Password pattern policy which counts the number of times it is initialized.
+     */
+    public static class CountingPasswordPatternPolicy extends DefaultPasswordPatternPolicy {
+
+        private static final AtomicInteger initCount = new AtomicInteger();
+
+        @Override
+        public void init(Map<String, String> params) {
+
+            initCount.incrementAndGet();
+            super.init(params);
+        }
+    }
 }
@@ -198,6 +198,44 @@ public class IdentityRecoveryConstants {
             "Recovery.Question.Password.SkipOnInsufficientAnswers";
     public static final String RECOVERY_CONFIRMATION_CODE_TOLERANCE_PERIOD =
             "Recovery.Notification.Password.Email.ConfirmationCodeTolerancePeriod";
+
+    // Keyed hashing of the persisted recovery codes.
+    public static final String RECOVERY_CODE_HASHING_ENABLE = "Recovery.CodeHashing.Enable";
+    public static final String RECOVERY_CODE_HASHING_KEY = "Recovery.CodeHashing.Key";
+
+    // Purging of the expired recovery data.
+    public static final String RECOVERY_DATA_PURGE_ENABLE = "Recovery.DataPurge.Enable";
+    public static final String RECOVERY_DATA_PURGE_INTERVAL = "Recovery.DataPurge.Interval";
+    public static final String RECOVERY_DATA_PURGE_CHUNK_SIZE = "Recovery.DataPurge.ChunkSize";
+    public static final String RECOVERY_DATA_PURGE_MAX_ROWS_PER_SECOND = "Recovery.DataPurge.MaxRowsPerSecond";
+    public static final String RECOVERY_DATA_PURGE_ORPHANED_FLOW_DATA_RETENTION_TIME =
+            "Recovery.DataPurge.OrphanedFlowDataRetentionTime";
+    public static final String RECOVERY_DATA_PURGE_RETENTION_TIME = "Recovery.DataPurge.RetentionTime";
+    public static final String RECOVERY_DATA_PURGE_WITHOUT_CLUSTERING = "Recovery.DataPurge.RunWithoutClustering";
+    public static final int RECOVERY_DATA_PURGE_DEFAULT_INTERVAL = 60;
+    public static final int RECOVERY_DATA_PURGE_DEFAULT_CHUNK_SIZE = 500;
+    public static final int RECOVERY_DATA_PURGE_DEFAULT_MAX_ROWS_PER_SECOND = 1000;
+    public static final int RECOVERY_DATA_PURGE_DEFAULT_ORPHANED_FLOW_DATA_RETENTION_TIME = 60;
+    public static final int RECOVERY_DATA_PURGE_DEFAULT_RETENTION_TIME = 1440;
+
+    // Publishing of the recovery data events.
+    public static final String RECOVERY_DATA_EVENTS_SKIP_UNSUBSCRIBED = "Recovery.DataEvents.SkipUnsubscribed";
+    public static final String RECOVERY_DATA_EVENTS_ASYNC_ENABLE = "Recovery.DataEvents.Async.Enable";
+    public static final String RECOVERY_DATA_EVENTS_ASYNC_QUEUE_SIZE = "Recovery.DataEvents.Async.QueueSize";
+    public static final String RECOVERY_DATA_EVENTS_ASYNC_BATCH_SIZE = "Recovery.DataEvents.Async.BatchSize";
+    public static final String RECOVERY_DATA_EVENTS_ASYNC_QUEUE_FULL_POLICY =
+            "Recovery.DataEvents.Async.QueueFullPolicy";
+    public static final int RECOVERY_DATA_EVENTS_ASYNC_DEFAULT_QUEUE_SIZE = 1000;
+    public static final int RECOVERY_DATA_EVENTS_ASYNC_DEFAULT_BATCH_SIZE = 50;
+
+    // Concurrent lookup of the users matching the recovery claims in the user store domains.
+    public static final String USER_LOOKUP_CONCURRENT_ENABLE = "Recovery.UserLookup.Concurrent.Enable";
+    public static final String USER_LOOKUP_CONCURRENT_POOL_SIZE = "Recovery.UserLookup.Concurrent.PoolSize";
+    public static final String USER_LOOKUP_CONCURRENT_TIMEOUT = "Recovery.UserLookup.Concurrent.Timeout";
+    public static final int USER_LOOKUP_CONCURRENT_DEFAULT_POOL_SIZE = 10;
+    public static final int USER_LOOKUP_CONCURRENT_DEFAULT_TIMEOUT = 5000;
+    public static final String USER_LOOKUP_SLOW_THRESHOLD = "Recovery.UserLookup.SlowLookupThreshold";
+    public static final int USER_LOOKUP_DEFAULT_SLOW_THRESHOLD = 1000;
     public static final String ASK_PASSWORD_CONFIRMATION_CODE_TOLERANCE_PERIOD =
             "EmailVerification.AskPassword.Notification.ConfirmationCodeTolerancePeriod";
     public static final String SELF_SIGN_UP_EMAIL_CONFIRMATION_CODE_TOLERANCE_PERIOD =
@@ -341,6 +379,7 @@ public class IdentityRecoveryConstants {
         ERROR_CODE_MULTIPLE_CLAIMS_WITH_MULTI_ATTRIBUTE_URI("20066", "Multiple claims not allowed " +
                 "when user identifier claim is used."),
         ERROR_CODE_PRE_UPDATE_PASSWORD_ACTION_FAILURE("20067", "%s"),
+        ERROR_CODE_ERROR_PURGING_RECOVERY_DATA("20068", "Error while purging the expired user recovery data."),
 
         ERROR_CODE_ERROR_RETRIVING_CLAIM("18004", "Error when retrieving the locale claim of user '%s' of '%s' domain."),
         ERROR_CODE_RECOVERY_DATA_NOT_FOUND_FOR_USER("18005", "Recovery data not found."),
@@ -767,6 +806,8 @@ public class IdentityRecoveryConstants {
         public static final String FAILED_ATTEMPTS = "FAILED_ATTEMPTS";
         public static final String RESEND_COUNT = "RESEND_COUNT";
         public static final String TIME_CREATED = "TIME_CREATED";
+        public static final String STEP = "STEP";
+        public static final String FLOW_TIME_CREATED = "FLOW_TIME_CREATED";
     }
 
     public static class SQLQueries {
@@ -780,19 +821,20 @@ public class IdentityRecoveryConstants {
                 "RECOVERY_FLOW_ID) VALUES (?,?,?,?,?,?,?,?,?)";
 
         public static final String LOAD_RECOVERY_DATA = "SELECT "
-                + "* FROM IDN_RECOVERY_DATA WHERE USER_NAME = ? AND USER_DOMAIN = ? AND TENANT_ID = ? AND CODE = ? AND " +
-                "SCENARIO = ? AND STEP = ?";
+                + "* FROM IDN_RECOVERY_DATA WHERE USER_NAME = ? AND USER_DOMAIN = ? AND TENANT_ID = ? " +
+                "AND CODE IN (?, ?) AND SCENARIO = ? AND STEP = ?";
 
         public static final String LOAD_RECOVERY_DATA_CASE_INSENSITIVE = "SELECT * FROM IDN_RECOVERY_DATA WHERE" +
-                " LOWER(USER_NAME)=LOWER(?) AND USER_DOMAIN = ? AND TENANT_ID = ? AND CODE= ? AND SCENARIO = ? AND " +
-                "STEP = ?";
+                " LOWER(USER_NAME)=LOWER(?) AND USER_DOMAIN = ? AND TENANT_ID = ? AND CODE IN (?, ?) AND " +
+                "SCENARIO = ? AND STEP = ?";
 
-        public static final String LOAD_RECOVERY_DATA_FROM_CODE = "SELECT * FROM IDN_RECOVERY_DATA WHERE CODE = ?";
+        public static final String LOAD_RECOVERY_DATA_FROM_CODE = "SELECT * FROM IDN_RECOVERY_DATA " +
+                "WHERE CODE IN (?, ?)";
 
         public static final String LOAD_RECOVERY_DATA_FROM_RECOVERY_FLOW_ID = "SELECT * FROM IDN_RECOVERY_DATA WHERE" +
                 " RECOVERY_FLOW_ID = ? AND STEP = ?";
 
-        public static final String INVALIDATE_CODE = "DELETE FROM IDN_RECOVERY_DATA WHERE CODE = ?";
+        public static final String INVALIDATE_CODE = "DELETE FROM IDN_RECOVERY_DATA WHERE CODE IN (?, ?)";
 
         public static final String INVALIDATE_USER_CODES =
                 "DELETE FROM IDN_RECOVERY_DATA WHERE USER_NAME = ? AND USER_DOMAIN = ? AND TENANT_ID =? " +
@@ -806,7 +848,7 @@ public class IdentityRecoveryConstants {
                 "USER_NAME = ? AND SCENARIO = ? AND STEP = ? AND USER_DOMAIN = ? AND TENANT_ID =?";
 
         public static final String UPDATE_CODE = "UPDATE IDN_RECOVERY_DATA SET CODE = ?, STEP = ?, REMAINING_SETS = ? " +
-                "WHERE CODE = ?";
+                "WHERE CODE IN (?, ?)";
 
         public static final String INVALIDATE_USER_CODE_BY_SCENARIO_CASE_INSENSITIVE = "DELETE FROM " +
                 "IDN_RECOVERY_DATA WHERE LOWER(USER_NAME)=LOWER(?) AND SCENARIO = ? AND STEP = ? AND " +
@@ -855,6 +897,21 @@ public class IdentityRecoveryConstants {
 
         public static final String INVALIDATE_BY_RECOVERY_FLOW_ID = "DELETE FROM IDN_RECOVERY_FLOW_DATA WHERE " +
                 "RECOVERY_FLOW_ID = ?";
+
+        public static final String LOAD_RECOVERY_DATA_FOR_PURGE = "SELECT D.CODE, D.TENANT_ID, D.SCENARIO, D.STEP, " +
+                "D.TIME_CREATED, D.REMAINING_SETS, D.RECOVERY_FLOW_ID, F.TIME_CREATED AS FLOW_TIME_CREATED " +
+                "FROM IDN_RECOVERY_DATA D LEFT OUTER JOIN IDN_RECOVERY_FLOW_DATA F " +
+                "ON D.RECOVERY_FLOW_ID = F.RECOVERY_FLOW_ID " +
+                "WHERE D.TIME_CREATED >= ? AND D.TIME_CREATED < ? AND (D.TIME_CREATED > ? OR D.CODE > ?) " +
+                "ORDER BY D.TIME_CREATED, D.CODE";
+
+        public static final String LOAD_ORPHANED_RECOVERY_FLOW_IDS = "SELECT F.RECOVERY_FLOW_ID " +
+                "FROM IDN_RECOVERY_FLOW_DATA F WHERE F.TIME_CREATED < ? AND NOT EXISTS " +
+                "(SELECT 1 FROM IDN_RECOVERY_DATA D WHERE D.RECOVERY_FLOW_ID = F.RECOVERY_FLOW_ID)";
+
+        public static final String DELETE_ORPHANED_RECOVERY_FLOW_DATA = "DELETE FROM IDN_RECOVERY_FLOW_DATA " +
+                "WHERE RECOVERY_FLOW_ID = ? AND NOT EXISTS " +
+                "(SELECT 1 FROM IDN_RECOVERY_DATA WHERE RECOVERY_FLOW_ID = ?)";
     }
 
     public static class Questions {
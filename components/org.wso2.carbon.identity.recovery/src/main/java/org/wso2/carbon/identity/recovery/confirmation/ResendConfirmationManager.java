@@ -46,6 +46,7 @@ import org.wso2.carbon.identity.recovery.model.UserRecoveryData;
 import org.wso2.carbon.identity.recovery.model.UserRecoveryFlowData;
 import org.wso2.carbon.identity.recovery.store.JDBCRecoveryDataStore;
 import org.wso2.carbon.identity.recovery.store.UserRecoveryDataStore;
+import org.wso2.carbon.identity.recovery.util.RecoveryCodeHasher;
 import org.wso2.carbon.identity.recovery.util.Utils;
 
 import java.io.UnsupportedEncodingException;
@@ -375,7 +376,7 @@ public class ResendConfirmationManager {
 
         UserRecoveryDataStore userRecoveryDataStore = JDBCRecoveryDataStore.getInstance();
         try {
-            userRecoveryDataStore.invalidateWithoutChangeTimeCreated(userRecoveryData.getSecret(), resendCode,
+            userRecoveryDataStore.invalidateStoredCodeWithoutChangeTimeCreated(userRecoveryData.getSecret(), resendCode,
                     RecoverySteps.RESEND_CONFIRMATION_CODE, notificationChannel);
         } catch (IdentityRecoveryException e) {
             throw Utils.handleServerException(
@@ -533,7 +534,7 @@ public class ResendConfirmationManager {
         } else {
             // Invalid previous confirmation code.
             if (userRecoveryData != null) {
-                userRecoveryDataStore.invalidate(userRecoveryData.getSecret());
+                userRecoveryDataStore.invalidateStoredCode(userRecoveryData.getSecret());
             }
             secretKey = getSecretKey(preferredChannel, recoveryScenario, user.getTenantDomain());
             UserRecoveryData recoveryDataDO = new UserRecoveryData(user, secretKey, RecoveryScenarios
@@ -723,10 +724,11 @@ public class ResendConfirmationManager {
      * @param userRecoveryData UserRecoveryData which holds recovery information.
      * @throws IdentityRecoveryClientException If code or recovery scenario or recovery step not matched with the
      *                                         data in UserRecoveryData object.
+     * @throws IdentityRecoveryServerException If the code cannot be matched with the previously issued code.
      */
     private void validateWithOldConfirmationCode(String code, String recoveryScenario, String recoveryStep,
                                                  UserRecoveryData userRecoveryData)
-            throws IdentityRecoveryClientException {
+            throws IdentityRecoveryClientException, IdentityRecoveryServerException {
 
         if (userRecoveryData == null || StringUtils.isBlank(userRecoveryData.getSecret()) ||
                 !recoveryScenario.equals(userRecoveryData.getRecoveryScenario().toString()) ||
@@ -735,7 +737,7 @@ public class ResendConfirmationManager {
                     null);
         }
         // Validate the provided confirmation code with previously issued code.
-        if (code != null && !userRecoveryData.getSecret().equals(code)) {
+        if (code != null && !RecoveryCodeHasher.matches(code, userRecoveryData.getSecret())) {
             throw Utils.handleClientException(
                     IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_PROVIDED_CONFIRMATION_CODE_NOT_VALID, code);
         }
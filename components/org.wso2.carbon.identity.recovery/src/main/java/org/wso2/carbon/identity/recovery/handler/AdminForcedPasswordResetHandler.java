@@ -38,6 +38,7 @@ import org.wso2.carbon.identity.recovery.RecoveryScenarios;
 import org.wso2.carbon.identity.recovery.RecoverySteps;
 import org.wso2.carbon.identity.recovery.internal.IdentityRecoveryServiceDataHolder;
 import org.wso2.carbon.identity.recovery.model.UserRecoveryData;
+import org.wso2.carbon.identity.recovery.util.RecoveryCodeHasher;
 import org.wso2.carbon.identity.recovery.util.Utils;
 import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.carbon.user.core.UserStoreManager;
@@ -331,7 +332,7 @@ public class AdminForcedPasswordResetHandler extends UserEmailVerificationHandle
                 String credential = (String) eventProperties.get(IdentityEventConstants.EventProperty.CREDENTIAL);
                 isForcedPasswordReset = true;
 
-                if (userRecoveryData.getSecret().equals(credential)) {
+                if (isValidOTP(credential, userRecoveryData)) {
                     errorCode = IdentityCoreConstants.ADMIN_FORCED_USER_PASSWORD_RESET_VIA_OTP_ERROR_CODE;
                     errorMsg = errorMsg + " has given correct OTP";
                 } else {
@@ -353,6 +354,15 @@ public class AdminForcedPasswordResetHandler extends UserEmailVerificationHandle
         }
     }
 
+    private boolean isValidOTP(String credential, UserRecoveryData userRecoveryData) throws IdentityEventException {
+
+        try {
+            return RecoveryCodeHasher.matches(credential, userRecoveryData.getSecret());
+        } catch (IdentityRecoveryServerException e) {
+            throw new IdentityEventException("Error while validating the one time password.", e);
+        }
+    }
+
     private void lockAccountOnAdminPasswordReset(User user, Map<String, String> claims) {
 
         if (log.isDebugEnabled()) {
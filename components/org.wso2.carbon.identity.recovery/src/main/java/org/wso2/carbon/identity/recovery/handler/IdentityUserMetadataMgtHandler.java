@@ -26,11 +26,11 @@ import org.wso2.carbon.identity.application.authentication.framework.model.Authe
 import org.wso2.carbon.identity.base.IdentityRuntimeException;
 import org.wso2.carbon.identity.core.bean.context.MessageContext;
 import org.wso2.carbon.identity.core.handler.InitConfig;
-import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.event.IdentityEventConstants;
 import org.wso2.carbon.identity.event.IdentityEventException;
 import org.wso2.carbon.identity.event.event.Event;
 import org.wso2.carbon.identity.event.handler.AbstractEventHandler;
+import org.wso2.carbon.identity.governance.TenantResolutionCache;
 import org.wso2.carbon.identity.mgt.constants.IdentityMgtConstants;
 import org.wso2.carbon.identity.recovery.IdentityRecoveryConstants;
 import org.wso2.carbon.identity.recovery.internal.IdentityRecoveryServiceDataHolder;
@@ -171,7 +171,7 @@ public class IdentityUserMetadataMgtHandler extends AbstractEventHandler {
             }
             return null;
         }
-        int tenantId = IdentityTenantUtil.getTenantId(authenticatedUser.getTenantDomain());
+        int tenantId = TenantResolutionCache.getInstance().getTenantId(authenticatedUser.getTenantDomain());
         UserRealm userRealm;
         if (UserStoreConfigConstants.PRIMARY.equals(userStoreDomainName)) {
             userRealm = (UserRealm) realmService.getTenantUserRealm(tenantId);
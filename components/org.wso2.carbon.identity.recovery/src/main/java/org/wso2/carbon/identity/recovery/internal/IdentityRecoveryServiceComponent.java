@@ -65,6 +65,7 @@ import org.wso2.carbon.identity.recovery.handler.MobileNumberVerificationHandler
 import org.wso2.carbon.identity.recovery.handler.TenantRegistrationVerificationHandler;
 import org.wso2.carbon.identity.recovery.handler.UserEmailVerificationHandler;
 import org.wso2.carbon.identity.recovery.handler.UserSelfRegistrationHandler;
+import org.wso2.carbon.identity.recovery.internal.service.impl.UserAccountRecoveryManager;
 import org.wso2.carbon.identity.recovery.internal.service.impl.password.PasswordRecoveryManagerImpl;
 import org.wso2.carbon.identity.recovery.internal.service.impl.username.UsernameRecoveryManagerImpl;
 import org.wso2.carbon.identity.recovery.listener.SelfRegistrationCompletionListener;
@@ -73,11 +74,13 @@ import org.wso2.carbon.identity.recovery.password.NotificationPasswordRecoveryMa
 import org.wso2.carbon.identity.recovery.services.password.PasswordRecoveryManager;
 import org.wso2.carbon.identity.recovery.services.username.UsernameRecoveryManager;
 import org.wso2.carbon.identity.recovery.signup.UserSelfRegistrationManager;
+import org.wso2.carbon.identity.recovery.store.RecoveryDataEventPublisher;
 import org.wso2.carbon.identity.recovery.username.NotificationUsernameRecoveryManager;
 import org.wso2.carbon.identity.user.functionality.mgt.UserFunctionalityManager;
 import org.wso2.carbon.identity.user.profile.mgt.association.federation.FederatedAssociationManager;
 import org.wso2.carbon.stratos.common.listeners.TenantMgtListener;
 import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.utils.ConfigurationContextService;
 
 @Component(
         name = "org.wso2.carbon.identity.recovery.internal.IdentityRecoveryServiceComponent",
@@ -87,6 +90,7 @@ public class IdentityRecoveryServiceComponent {
     private static final Log log = LogFactory.getLog(IdentityRecoveryServiceComponent.class);
 
     private IdentityRecoveryServiceDataHolder dataHolder = IdentityRecoveryServiceDataHolder.getInstance();
+    private RecoveryDataPurgeScheduler recoveryDataPurgeScheduler;
 
     @Activate
     protected void activate(ComponentContext context) {
@@ -150,11 +154,19 @@ public class IdentityRecoveryServiceComponent {
         // register the tenant management listener
         TenantMgtListener tenantMgtListener = new TenantManagementListener();
         context.getBundleContext().registerService(TenantMgtListener.class.getName(), tenantMgtListener, null);
+
+        recoveryDataPurgeScheduler = new RecoveryDataPurgeScheduler();
+        recoveryDataPurgeScheduler.start();
     }
 
     @Deactivate
     protected void deactivate(ComponentContext context) {
 
+        if (recoveryDataPurgeScheduler != null) {
+            recoveryDataPurgeScheduler.stop();
+        }
+        RecoveryDataEventPublisher.getInstance().shutdown();
+        UserAccountRecoveryManager.getInstance().shutdown();
         if (log.isDebugEnabled()) {
             log.debug("Identity Management bundle is de-activated");
         }
@@ -511,4 +523,21 @@ public class IdentityRecoveryServiceComponent {
 
         IdentityRecoveryServiceDataHolder.getInstance().setApplicationManagementService(null);
     }
+
+    @Reference(
+            name = "config.context.service",
+            service = ConfigurationContextService.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetClusteringAgent")
+    protected void setClusteringAgent(ConfigurationContextService configurationContextService) {
+
+        IdentityRecoveryServiceDataHolder.getInstance().setClusteringAgent(
+                configurationContextService.getServerConfigContext().getAxisConfiguration().getClusteringAgent());
+    }
+
+    protected void unsetClusteringAgent(ConfigurationContextService configurationContextService) {
+
+        IdentityRecoveryServiceDataHolder.getInstance().setClusteringAgent(null);
+    }
 }
@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.identity.recovery.internal;
 
+import org.apache.axis2.clustering.ClusteringAgent;
 import org.wso2.carbon.consent.mgt.core.ConsentManager;
 import org.wso2.carbon.identity.application.mgt.ApplicationManagementService;
 import org.wso2.carbon.identity.auth.attribute.handler.AuthAttributeHandlerManager;
@@ -62,6 +63,7 @@ public class IdentityRecoveryServiceDataHolder {
     private FederatedAssociationManager federatedAssociationManager;
     private IdentityDataStoreService identityDataStoreService;
     private ApplicationManagementService applicationManagementService;
+    private ClusteringAgent clusteringAgent;
     private static Map<Integer, UserOperationEventListener> userOperationEventListeners = new TreeMap<>();
     public static IdentityRecoveryServiceDataHolder getInstance() {
 
@@ -344,4 +346,14 @@ public class IdentityRecoveryServiceDataHolder {
 
         this.applicationManagementService = applicationManagementService;
     }
+
+    public ClusteringAgent getClusteringAgent() {
+
+        return clusteringAgent;
+    }
+
+    public void setClusteringAgent(ClusteringAgent clusteringAgent) {
+
+        this.clusteringAgent = clusteringAgent;
+    }
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.recovery.internal;
+
+import org.apache.axis2.clustering.ClusteringAgent;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
+import org.wso2.carbon.identity.recovery.IdentityRecoveryConstants;
+import org.wso2.carbon.identity.recovery.IdentityRecoveryException;
+import org.wso2.carbon.identity.recovery.model.RecoveryDataPurgeResult;
+import org.wso2.carbon.identity.recovery.store.JDBCRecoveryDataStore;
+import org.wso2.carbon.identity.recovery.store.UserRecoveryDataStore;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically purges the expired recovery data and the recovery flow data which are no longer referred. The data
+ * is purged in small chunks, each in its own transaction, and the scan rate is throttled so that the purge does not
+ * compete with the recovery flows for the database. Only the recovery data older than the retention time are
+ * scanned. In a cluster the purge runs only in the coordinator node, and without clustering only in the nodes
+ * configured to run it, as the nodes sharing the database cannot be told apart.
+ */
+public class RecoveryDataPurgeScheduler {
+
+    private static final Log log = LogFactory.getLog(RecoveryDataPurgeScheduler.class);
+    private static final String PURGE_THREAD_NAME = "RecoveryDataPurgeThread";
+
+    private final UserRecoveryDataStore userRecoveryDataStore;
+    private ScheduledExecutorService scheduledExecutorService;
+
+    private final AtomicLong totalScannedCount = new AtomicLong();
+    private final AtomicLong totalDeletedCount = new AtomicLong();
+    private volatile long lastRunScannedCount;
+    private volatile long lastRunDeletedCount;
+    private volatile long lastRunDuration;
+
+    public RecoveryDataPurgeScheduler() {
+
+        this(JDBCRecoveryDataStore.getInstance());
+    }
+
+    RecoveryDataPurgeScheduler(UserRecoveryDataStore userRecoveryDataStore) {
+
+        this.userRecoveryDataStore = userRecoveryDataStore;
+    }
+
+    /**
+     * Start purging the expired recovery data periodically, if the purge is enabled.
+     */
+    public synchronized void start() {
+
+        if (!Boolean.parseBoolean(IdentityUtil.getProperty(IdentityRecoveryConstants.RECOVERY_DATA_PURGE_ENABLE))) {
+            if (log.isDebugEnabled()) {
+                log.debug("Purging of the expired recovery data is disabled.");
+            }
+            return;
+        }
+        if (scheduledExecutorService != null) {
+            return;
+        }
+        int interval = IdentityGovernanceUtil.getPositiveIntProperty(
+                IdentityRecoveryConstants.RECOVERY_DATA_PURGE_INTERVAL,
+                IdentityRecoveryConstants.RECOVERY_DATA_PURGE_DEFAULT_INTERVAL);
+        scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, PURGE_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduledExecutorService.scheduleWithFixedDelay(this::purge, interval, interval, TimeUnit.MINUTES);
+        log.info("Scheduled the purge of the expired recovery data in every " + interval + " minutes.");
+    }
+
+    /**
+     * Stop purging the expired recovery data. A purge in progress is interrupted after its current chunk.
+     */
+    public synchronized void stop() {
+
+        if (scheduledExecutorService != null) {
+            scheduledExecutorService.shutdownNow();
+            scheduledExecutorService = null;
+        }
+    }
+
+    /**
+     * Purge the expired recovery data and the recovery flow data which are no longer referred.
+     */
+    void purge() {
+
+        if (!isPurgingNode()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Skipping the purge of the expired recovery data as this is not the purging node.");
+            }
+            return;
+        }
+
+        int chunkSize = IdentityGovernanceUtil.getPositiveIntProperty(
+                IdentityRecoveryConstants.RECOVERY_DATA_PURGE_CHUNK_SIZE,
+                IdentityRecoveryConstants.RECOVERY_DATA_PURGE_DEFAULT_CHUNK_SIZE);
+        int maxRowsPerSecond = IdentityGovernanceUtil.getPositiveIntProperty(
+                IdentityRecoveryConstants.RECOVERY_DATA_PURGE_MAX_ROWS_PER_SECOND,
+                IdentityRecoveryConstants.RECOVERY_DATA_PURGE_DEFAULT_MAX_ROWS_PER_SECOND);
+        int orphanedFlowDataRetentionTime = IdentityGovernanceUtil.getPositiveIntProperty(
+                IdentityRecoveryConstants.RECOVERY_DATA_PURGE_ORPHANED_FLOW_DATA_RETENTION_TIME,
+                IdentityRecoveryConstants.RECOVERY_DATA_PURGE_DEFAULT_ORPHANED_FLOW_DATA_RETENTION_TIME);
+        int retentionTime = IdentityGovernanceUtil.getPositiveIntProperty(
+                IdentityRecoveryConstants.RECOVERY_DATA_PURGE_RETENTION_TIME,
+                IdentityRecoveryConstants.RECOVERY_DATA_PURGE_DEFAULT_RETENTION_TIME);
+
+        long startTime = System.currentTimeMillis();
+        long scannedCount = 0;
+        long deletedCount = 0;
+        try {
+            long createdBefore = startTime - TimeUnit.MINUTES.toMillis(retentionTime);
+            RecoveryDataPurgeResult chunk = null;
+            do {
+                long chunkStartTime = System.currentTimeMillis();
+                chunk = userRecoveryDataStore.purgeExpiredRecoveryData(chunk, createdBefore, chunkSize);
+                scannedCount += chunk.getScannedCount();
+                deletedCount += chunk.getDeletedCount();
+                throttle(chunkStartTime, chunk.getScannedCount(), maxRowsPerSecond);
+            } while (!chunk.isLastChunk());
+
+            long flowCreatedBefore = startTime - TimeUnit.MINUTES.toMillis(orphanedFlowDataRetentionTime);
+            int orphanedCount;
+            do {
+                long chunkStartTime = System.currentTimeMillis();
+                orphanedCount = userRecoveryDataStore.purgeOrphanedRecoveryFlowData(flowCreatedBefore, chunkSize);
+                deletedCount += orphanedCount;
+                throttle(chunkStartTime, orphanedCount, maxRowsPerSecond);
+            } while (orphanedCount == chunkSize);
+        } catch (IdentityRecoveryException e) {
+            log.error("Error while purging the expired recovery data.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Purging of the expired recovery data was interrupted.");
+        } finally {
+            recordRun(scannedCount, deletedCount, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * Get the number of recovery data entries scanned in the last purge.
+     *
+     * @return Number of scanned entries.
+     */
+    long getLastRunScannedCount() {
+
+        return lastRunScannedCount;
+    }
+
+    /**
+     * Get the number of entries deleted in the last purge.
+     *
+     * @return Number of deleted entries.
+     */
+    long getLastRunDeletedCount() {
+
+        return lastRunDeletedCount;
+    }
+
+    /**
+     * Get the duration of the last purge.
+     *
+     * @return Duration of the last purge in milliseconds.
+     */
+    long getLastRunDuration() {
+
+        return lastRunDuration;
+    }
+
+    /**
+     * Get the number of recovery data entries scanned since the server start.
+     *
+     * @return Number of scanned entries.
+     */
+    long getTotalScannedCount() {
+
+        return totalScannedCount.get();
+    }
+
+    /**
+     * Get the number of entries deleted since the server start.
+     *
+     * @return Number of deleted entries.
+     */
+    long getTotalDeletedCount() {
+
+        return totalDeletedCount.get();
+    }
+
+    private void recordRun(long scannedCount, long deletedCount, long duration) {
+
+        lastRunScannedCount = scannedCount;
+        lastRunDeletedCount = deletedCount;
+        lastRunDuration = duration;
+        totalScannedCount.addAndGet(scannedCount);
+        totalDeletedCount.addAndGet(deletedCount);
+        log.info("Purged the expired recovery data. Scanned: " + scannedCount + ", deleted: " + deletedCount +
+                ", duration: " + duration + " ms, total scanned: " + totalScannedCount.get() + ", total deleted: " +
+                totalDeletedCount.get() + ".");
+    }
+
+    /**
+     * Check whether the recovery data are purged in this node. In a cluster only the coordinator node purges them,
+     * while without clustering the purge has to be enabled explicitly for the node.
+     *
+     * @return True if this node purges the recovery data.
+     */
+    private boolean isPurgingNode() {
+
+        ClusteringAgent clusteringAgent = IdentityRecoveryServiceDataHolder.getInstance().getClusteringAgent();
+        if (clusteringAgent != null) {
+            return clusteringAgent.isCoordinator();
+        }
+        return Boolean.parseBoolean(
+                IdentityUtil.getProperty(IdentityRecoveryConstants.RECOVERY_DATA_PURGE_WITHOUT_CLUSTERING));
+    }
+
+    /**
+     * Wait until the processed rows fall within the allowed rate before the next chunk is processed.
+     */
+    private void throttle(long chunkStartTime, int rowCount, int maxRowsPerSecond) throws InterruptedException {
+
+        long minimumDuration = TimeUnit.SECONDS.toMillis(rowCount) / maxRowsPerSecond;
+        long remainingDuration = minimumDuration - (System.currentTimeMillis() - chunkStartTime);
+        if (remainingDuration > 0) {
+            Thread.sleep(remainingDuration);
+        } else if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+    }
+}
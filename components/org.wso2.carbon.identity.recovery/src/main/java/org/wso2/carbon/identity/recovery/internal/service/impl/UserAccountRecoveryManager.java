@@ -30,6 +30,7 @@ import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.event.IdentityEventConstants;
 import org.wso2.carbon.identity.event.IdentityEventException;
 import org.wso2.carbon.identity.event.event.Event;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
 import org.wso2.carbon.identity.governance.service.notification.NotificationChannels;
 import org.wso2.carbon.identity.multi.attribute.login.constants.MultiAttributeLoginConstants;
 import org.wso2.carbon.identity.multi.attribute.login.mgt.MultiAttributeLoginService;
@@ -69,10 +70,25 @@ import org.wso2.carbon.user.core.util.UserCoreUtil;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import static java.lang.Integer.MAX_VALUE;
 import static org.wso2.carbon.identity.recovery.RecoveryScenarios.NOTIFICATION_BASED_PW_RECOVERY;
@@ -90,6 +106,10 @@ public class UserAccountRecoveryManager {
             NotificationChannels.EMAIL_CHANNEL, NotificationChannels.SMS_CHANNEL};
     private static final boolean PER_USER_FUNCTIONALITY_LOCKING_ENABLED = Utils.isPerUserFunctionalityLockingEnabled();
     private static final String FUNCTIONALITY_PREFIX = "FUNCTIONALITY_";
+    private static final int USER_LOOKUP_QUEUE_FACTOR = 10;
+
+    private volatile ExecutorService userLookupExecutor;
+    private final Map<String, DomainLookupMetrics> domainLookupMetrics = new ConcurrentHashMap<>();
 
     /**
      * Constructor.
@@ -186,8 +206,8 @@ public class UserAccountRecoveryManager {
                     NotificationChannels.EMAIL_CHANNEL.getChannelType())) {
             /* Update the existing RESEND_CONFIRMATION_CODE details with new code details without changing the
                time created of the RESEND_CONFIRMATION_CODE. */
-                userRecoveryDataStore.invalidateWithoutChangeTimeCreated(recoveryDataDO.getSecret(), recoveryCode,
-                        RecoverySteps.SEND_RECOVERY_INFORMATION, notificationChannelList);
+                userRecoveryDataStore.invalidateStoredCodeWithoutChangeTimeCreated(recoveryDataDO.getSecret(),
+                        recoveryCode, RecoverySteps.SEND_RECOVERY_INFORMATION, notificationChannelList);
             } else {
                 if (usernameCombined.length() > 0) {
                     usernameCombined.append(",");
@@ -257,8 +277,8 @@ public class UserAccountRecoveryManager {
                     NotificationChannels.EMAIL_CHANNEL.getChannelType())) {
                 /* Update the existing RESEND_CONFIRMATION_CODE details with new code details without changing the
                    time created of the RESEND_CONFIRMATION_CODE. */
-                userRecoveryDataStore.invalidateWithoutChangeTimeCreated(recoveryDataDO.getSecret(), recoveryCode,
-                        RecoverySteps.SEND_RECOVERY_INFORMATION, notificationChannelList);
+                userRecoveryDataStore.invalidateStoredCodeWithoutChangeTimeCreated(recoveryDataDO.getSecret(),
+                        recoveryCode, RecoverySteps.SEND_RECOVERY_INFORMATION, notificationChannelList);
             } else {
                 addRecoveryDataObject(username, tenantDomain, recoveryFlowId, recoveryCode, recoveryScenario,
                         notificationChannelList);
@@ -435,11 +455,8 @@ public class UserAccountRecoveryManager {
                         abstractUserStoreManager);
             } else {
                 // If a userstore domain is not specified in the request, consider all userstores.
-                List<String> userStoreDomainNames = getDomainNames(tenantId);
-                for (String domain : userStoreDomainNames) {
-                    populateUserListFromClaimsForDomain(tenantId, claims, domain, resultedUserList,
-                            abstractUserStoreManager);
-                }
+                populateUserListFromClaimsForDomains(tenantId, tenantDomain, claims, getDomainNames(tenantId),
+                        resultedUserList, abstractUserStoreManager);
             }
             // Return empty when no users are found.
             if (resultedUserList.isEmpty()) {
@@ -517,11 +534,8 @@ public class UserAccountRecoveryManager {
                         abstractUserStoreManager);
             } else {
                 // If a userstore domain is not specified in the request, consider all userstores.
-                List<String> userStoreDomainNames = getDomainNames(tenantId);
-                for (String domain : userStoreDomainNames) {
-                    populateUserListFromClaimsForDomain(tenantId, claims, domain, resultedUserList,
-                            abstractUserStoreManager);
-                }
+                populateUserListFromClaimsForDomains(tenantId, tenantDomain, claims, getDomainNames(tenantId),
+                        resultedUserList, abstractUserStoreManager);
             }
             return resultedUserList;
         } catch (org.wso2.carbon.user.core.UserStoreException e) {
@@ -572,6 +586,193 @@ public class UserAccountRecoveryManager {
         return domain;
     }
 
+    /**
+     * Get the users for the given claim set from each of the given userstore domains and populate the user list in
+     * the order of the domains. When the concurrent user lookup is enabled, the domains are looked up in parallel and
+     * the lookups still running are cancelled as soon as multiple users are matched, unless non-unique usernames are
+     * allowed.
+     *
+     * @param tenantId                 Tenant ID.
+     * @param tenantDomain             Tenant domain.
+     * @param claims                   List of UserClaims.
+     * @param userstoreDomains         Userstore domains to look up.
+     * @param userList                 List of users.
+     * @param abstractUserStoreManager Abstract user store manager.
+     * @throws IdentityRecoveryClientException Error if multiple users exist for the given claims set.
+     * @throws UserStoreException Error while getting the users or if a domain is not looked up within the timeout.
+     */
+    private void populateUserListFromClaimsForDomains(int tenantId, String tenantDomain, Map<String, String> claims,
+                                                      List<String> userstoreDomains,
+                                                      ArrayList<org.wso2.carbon.user.core.common.User> userList,
+                                                      AbstractUserStoreManager abstractUserStoreManager)
+            throws UserStoreException, IdentityRecoveryClientException {
+
+        if (userstoreDomains.size() < 2 || !Boolean.parseBoolean(IdentityUtil.getProperty(
+                IdentityRecoveryConstants.USER_LOOKUP_CONCURRENT_ENABLE))) {
+            for (String domain : userstoreDomains) {
+                populateUserListFromClaimsForDomain(tenantId, claims, domain, userList, abstractUserStoreManager);
+            }
+            return;
+        }
+
+        RealmService realmService = IdentityRecoveryServiceDataHolder.getInstance().getRealmService();
+        ClaimManager claimManager = (ClaimManager) realmService.getTenantUserRealm(tenantId).getClaimManager();
+        boolean nonUniqueUsernameEnabled = Boolean.parseBoolean(IdentityUtil.getProperty(
+                IdentityRecoveryConstants.ConnectorConfig.USERNAME_RECOVERY_NON_UNIQUE_USERNAME));
+        int limit = nonUniqueUsernameEnabled ? MAX_VALUE : 2;
+        long timeout = IdentityGovernanceUtil.getPositiveIntProperty(
+                IdentityRecoveryConstants.USER_LOOKUP_CONCURRENT_TIMEOUT,
+                IdentityRecoveryConstants.USER_LOOKUP_CONCURRENT_DEFAULT_TIMEOUT);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        long slowLookupThreshold = getSlowLookupThreshold();
+
+        // Only the userstore lookups run on the executor, while the conditions are built in the calling thread.
+        List<String> lookupDomains = new ArrayList<>();
+        List<Condition> lookupConditions = new ArrayList<>();
+        for (String domain : userstoreDomains) {
+            List<ExpressionCondition> expressionConditionList =
+                    getExpressionConditionList(claims, domain, claimManager);
+            if (!expressionConditionList.isEmpty()) {
+                lookupDomains.add(domain);
+                lookupConditions.add(getOperationalCondition(expressionConditionList));
+            }
+        }
+
+        CompletionService<List<org.wso2.carbon.user.core.common.User>> completionService =
+                new ExecutorCompletionService<>(getUserLookupExecutor());
+        List<Future<List<org.wso2.carbon.user.core.common.User>>> futures = new ArrayList<>();
+        List<List<org.wso2.carbon.user.core.common.User>> domainUserLists =
+                new ArrayList<>(Collections.nCopies(lookupDomains.size(), Collections.emptyList()));
+        try {
+            for (int i = 0; i < lookupDomains.size(); i++) {
+                String domain = lookupDomains.get(i);
+                Condition operationalCondition = lookupConditions.get(i);
+                futures.add(completionService.submit(IdentityGovernanceUtil.withCallerContext(tenantDomain,
+                        () -> getUserListForDomain(operationalCondition, domain, limit, slowLookupThreshold,
+                                abstractUserStoreManager))));
+            }
+
+            int matchedUserCount = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                Future<List<org.wso2.carbon.user.core.common.User>> future =
+                        completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    throw new org.wso2.carbon.user.core.UserStoreException("Timed out after " + timeout +
+                            " ms while retrieving users from the userstores: " +
+                            getPendingDomains(lookupDomains, futures));
+                }
+                List<org.wso2.carbon.user.core.common.User> domainUserList = future.get();
+                domainUserLists.set(futures.indexOf(future), domainUserList);
+                matchedUserCount += domainUserList.size();
+                // Multiple matches are enough to reject the request without waiting for the remaining domains.
+                if (matchedUserCount > 1 && !nonUniqueUsernameEnabled) {
+                    log.warn("Multiple users matched for given claims set: " + claims.keySet());
+                    throw Utils.handleClientException(
+                            IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_MULTIPLE_MATCHING_USERS, null);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new org.wso2.carbon.user.core.UserStoreException(
+                    "Interrupted while retrieving users from the userstores.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UserStoreException) {
+                throw (UserStoreException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new org.wso2.carbon.user.core.UserStoreException(
+                    "Error while retrieving users from the userstores.", cause);
+        } finally {
+            // The running lookups are not interrupted, as interrupting the userstore I/O can break its connections.
+            for (Future<List<org.wso2.carbon.user.core.common.User>> future : futures) {
+                future.cancel(false);
+            }
+        }
+        // Merge the users in the order of the domains, as done in the sequential lookup.
+        for (List<org.wso2.carbon.user.core.common.User> domainUserList : domainUserLists) {
+            userList.addAll(domainUserList);
+        }
+    }
+
+    private List<String> getPendingDomains(List<String> userstoreDomains, List<? extends Future<?>> futures) {
+
+        List<String> pendingDomains = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            if (!futures.get(i).isDone()) {
+                pendingDomains.add(userstoreDomains.get(i));
+            }
+        }
+        return pendingDomains;
+    }
+
+    private ExecutorService getUserLookupExecutor() {
+
+        ExecutorService executor = userLookupExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = userLookupExecutor;
+                if (executor == null) {
+                    int poolSize = IdentityGovernanceUtil.getPositiveIntProperty(
+                            IdentityRecoveryConstants.USER_LOOKUP_CONCURRENT_POOL_SIZE,
+                            IdentityRecoveryConstants.USER_LOOKUP_CONCURRENT_DEFAULT_POOL_SIZE);
+                    // Lookups run on the caller thread when the pool and its queue are full.
+                    ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60L,
+                            TimeUnit.SECONDS, new LinkedBlockingQueue<>(poolSize * USER_LOOKUP_QUEUE_FACTOR),
+                            new UserLookupThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+                    threadPoolExecutor.allowCoreThreadTimeOut(true);
+                    executor = threadPoolExecutor;
+                    userLookupExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Shut down the executor of the concurrent user lookup, if it was started.
+     */
+    public synchronized void shutdown() {
+
+        if (userLookupExecutor != null) {
+            userLookupExecutor.shutdownNow();
+            userLookupExecutor = null;
+        }
+    }
+
+    /**
+     * Get the lookup time metrics of the userstore domains, keyed by the domain name.
+     *
+     * @return Lookup time metrics of the userstore domains.
+     */
+    public Map<String, DomainLookupMetrics> getDomainLookupMetrics() {
+
+        return Collections.unmodifiableMap(domainLookupMetrics);
+    }
+
+    private long getSlowLookupThreshold() {
+
+        return IdentityGovernanceUtil.getPositiveIntProperty(IdentityRecoveryConstants.USER_LOOKUP_SLOW_THRESHOLD,
+                IdentityRecoveryConstants.USER_LOOKUP_DEFAULT_SLOW_THRESHOLD);
+    }
+
+    private void recordDomainLookupTime(String userstoreDomain, long lookupTime, long slowLookupThreshold) {
+
+        String domain = userstoreDomain.toUpperCase(Locale.ENGLISH);
+        DomainLookupMetrics metrics = domainLookupMetrics.computeIfAbsent(domain, key -> new DomainLookupMetrics());
+        metrics.record(lookupTime);
+        long lookupTimeInMillis = TimeUnit.NANOSECONDS.toMillis(lookupTime);
+        if (lookupTimeInMillis >= slowLookupThreshold) {
+            log.warn("Retrieving users from the userstore: " + domain + " took " + lookupTimeInMillis + " ms. " +
+                    "Lookups of the userstore: " + metrics.getLookupCount() + ", average lookup time: " +
+                    metrics.getTotalLookupTime() / metrics.getLookupCount() + " ms, maximum lookup time: " +
+                    metrics.getMaxLookupTime() + " ms.");
+        } else if (log.isDebugEnabled()) {
+            log.debug("Retrieved users from the userstore: " + domain + " in " + lookupTimeInMillis + " ms.");
+        }
+    }
+
     /**
      * Get the users for the given claim set and userstore domain and populate the user list.
      *
@@ -600,8 +801,8 @@ public class UserAccountRecoveryManager {
                     IdentityRecoveryConstants.ConnectorConfig.USERNAME_RECOVERY_NON_UNIQUE_USERNAME));
             int limit = nonUniqueUsernameEnabled ? MAX_VALUE : 2;
             // Get the user list that matches the condition limit : MAX_VALUE or 2, offset : 1, sortBy : null, sortOrder : null
-            userList.addAll(abstractUserStoreManager.getUserListWithID(operationalCondition, userstoreDomain,
-                    UserCoreConstants.DEFAULT_PROFILE, limit, 1, null, null));
+            userList.addAll(getUserListForDomain(operationalCondition, userstoreDomain, limit,
+                    getSlowLookupThreshold(), abstractUserStoreManager));
 
             //If multiple users are found for the given claim set and the config is not enabled, throw an exception.
             if (userList.size() > 1 && !nonUniqueUsernameEnabled) {
@@ -612,6 +813,33 @@ public class UserAccountRecoveryManager {
         }
     }
 
+    /**
+     * Get the users matching the condition in the userstore domain and record the lookup time of the domain.
+     *
+     * @param condition                Condition to match the users.
+     * @param userstoreDomain          Userstore domain.
+     * @param limit                    Maximum number of users to retrieve.
+     * @param slowLookupThreshold      Lookup time in milliseconds above which the lookup is logged as slow.
+     * @param abstractUserStoreManager Abstract user store manager.
+     * @return Users matching the condition.
+     * @throws UserStoreException Error while getting the users.
+     */
+    private List<org.wso2.carbon.user.core.common.User> getUserListForDomain(Condition condition,
+                                                                            String userstoreDomain, int limit,
+                                                                            long slowLookupThreshold,
+                                                                            AbstractUserStoreManager
+                                                                                    abstractUserStoreManager)
+            throws UserStoreException {
+
+        long lookupStartTime = System.nanoTime();
+        try {
+            return abstractUserStoreManager.getUserListWithID(condition, userstoreDomain,
+                    UserCoreConstants.DEFAULT_PROFILE, limit, 1, null, null);
+        } finally {
+            recordDomainLookupTime(userstoreDomain, System.nanoTime() - lookupStartTime, slowLookupThreshold);
+        }
+    }
+
     /**
      * Get the expression conditions for the claim set.
      *
@@ -1276,4 +1504,64 @@ public class UserAccountRecoveryManager {
                     "Error Storing Recovery Data", e);
         }
     }
+
+    /**
+     * Lookup time metrics of a userstore domain.
+     */
+    public static class DomainLookupMetrics {
+
+        private final LongAdder lookupCount = new LongAdder();
+        private final LongAdder totalLookupTime = new LongAdder();
+        private final AtomicLong maxLookupTime = new AtomicLong();
+
+        private void record(long lookupTime) {
+
+            lookupCount.increment();
+            totalLookupTime.add(lookupTime);
+            maxLookupTime.accumulateAndGet(lookupTime, Math::max);
+        }
+
+        /**
+         * Get the number of user lookups done in the domain.
+         *
+         * @return Number of lookups.
+         */
+        public long getLookupCount() {
+
+            return lookupCount.sum();
+        }
+
+        /**
+         * Get the total time spent on the user lookups of the domain.
+         *
+         * @return Total lookup time in milliseconds.
+         */
+        public long getTotalLookupTime() {
+
+            return TimeUnit.NANOSECONDS.toMillis(totalLookupTime.sum());
+        }
+
+        /**
+         * Get the longest time taken by a user lookup of the domain.
+         *
+         * @return Maximum lookup time in milliseconds.
+         */
+        public long getMaxLookupTime() {
+
+            return TimeUnit.NANOSECONDS.toMillis(maxLookupTime.get());
+        }
+    }
+
+    private static final class UserLookupThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable, "UserAccountRecovery-UserLookup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -51,6 +51,7 @@ import org.wso2.carbon.identity.recovery.password.NotificationPasswordRecoveryMa
 import org.wso2.carbon.identity.recovery.services.password.PasswordRecoveryManager;
 import org.wso2.carbon.identity.recovery.store.JDBCRecoveryDataStore;
 import org.wso2.carbon.identity.recovery.store.UserRecoveryDataStore;
+import org.wso2.carbon.identity.recovery.util.RecoveryCodeHasher;
 import org.wso2.carbon.identity.recovery.util.Utils;
 import org.wso2.carbon.identity.user.functionality.mgt.UserFunctionalityManager;
 import org.wso2.carbon.identity.user.functionality.mgt.exception.UserFunctionalityManagementException;
@@ -260,8 +261,8 @@ public class PasswordRecoveryManagerImpl implements PasswordRecoveryManager {
                 throw Utils.handleServerException(
                         IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_NO_HASHING_ALGO_FOR_CODE, null);
             }
-            if (StringUtils.equals(hashedCode, userRecoveryData.getSecret()) || StringUtils.equals(code,
-                    userRecoveryData.getSecret())) {
+            if (RecoveryCodeHasher.matches(hashedCode, userRecoveryData.getSecret()) ||
+                    RecoveryCodeHasher.matches(code, userRecoveryData.getSecret())) {
                 if (log.isDebugEnabled()) {
                     log.debug("Valid confirmation code for user: " + domainQualifiedName);
                 }
@@ -826,7 +827,7 @@ public class PasswordRecoveryManagerImpl implements PasswordRecoveryManager {
 
         UserRecoveryDataStore userRecoveryDataStore = JDBCRecoveryDataStore.getInstance();
         try {
-            userRecoveryDataStore.invalidateWithoutChangeTimeCreated(userRecoveryData.getSecret(), resendCode,
+            userRecoveryDataStore.invalidateStoredCodeWithoutChangeTimeCreated(userRecoveryData.getSecret(), resendCode,
                     RecoverySteps.RESEND_CONFIRMATION_CODE, notificationChannel);
         } catch (IdentityRecoveryException e) {
             throw Utils.handleServerException(
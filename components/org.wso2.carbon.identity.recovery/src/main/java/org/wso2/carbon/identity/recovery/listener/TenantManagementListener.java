@@ -19,9 +19,13 @@ package org.wso2.carbon.identity.recovery.listener;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.governance.RegexPatternCache;
+import org.wso2.carbon.identity.governance.TenantResolutionCache;
 import org.wso2.carbon.identity.recovery.IdentityRecoveryException;
 import org.wso2.carbon.identity.recovery.store.JDBCRecoveryDataStore;
 import org.wso2.carbon.identity.recovery.store.UserRecoveryDataStore;
+import org.wso2.carbon.identity.recovery.util.RecoveryCodeExpiryTable;
 import org.wso2.carbon.stratos.common.beans.TenantInfoBean;
 import org.wso2.carbon.stratos.common.exception.StratosException;
 import org.wso2.carbon.stratos.common.listeners.TenantMgtListener;
@@ -52,11 +56,13 @@ public class TenantManagementListener implements TenantMgtListener {
     @Override
     public void onTenantDelete(int i) {
 
+        TenantResolutionCache.getInstance().clear(i);
     }
 
     @Override
     public void onTenantRename(int i, String s, String s1) throws StratosException {
 
+        TenantResolutionCache.getInstance().clear(i);
     }
 
     @Override
@@ -67,11 +73,13 @@ public class TenantManagementListener implements TenantMgtListener {
     @Override
     public void onTenantActivation(int i) throws StratosException {
 
+        TenantResolutionCache.getInstance().clear(i);
     }
 
     @Override
     public void onTenantDeactivation(int i) throws StratosException {
 
+        TenantResolutionCache.getInstance().clear(i);
     }
 
     @Override
@@ -90,6 +98,10 @@ public class TenantManagementListener implements TenantMgtListener {
         try {
             UserRecoveryDataStore userRecoveryDataStore = JDBCRecoveryDataStore.getInstance();
             userRecoveryDataStore.deleteRecoveryDataByTenantId(tenantId);
+            String tenantDomain = IdentityTenantUtil.getTenantDomain(tenantId);
+            RecoveryCodeExpiryTable.clearExpiryTable(tenantDomain);
+            RegexPatternCache.getInstance().clear(tenantDomain);
+            TenantResolutionCache.getInstance().clear(tenantId);
         } catch (IdentityRecoveryException e) {
             throw new StratosException("Error in deleting recovery data of the tenant:" + tenantId, e);
         }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.recovery.model;
+
+import java.sql.Timestamp;
+
+/**
+ * Outcome of purging a chunk of the expired recovery data. The creation time and the code of the last scanned
+ * entry mark the position from which the next chunk is scanned.
+ */
+public class RecoveryDataPurgeResult {
+
+    private final int scannedCount;
+    private final int deletedCount;
+    private final Timestamp lastTimeCreated;
+    private final String lastCode;
+    private final boolean lastChunk;
+
+    public RecoveryDataPurgeResult(int scannedCount, int deletedCount, Timestamp lastTimeCreated, String lastCode,
+                                   boolean lastChunk) {
+
+        this.scannedCount = scannedCount;
+        this.deletedCount = deletedCount;
+        this.lastTimeCreated = lastTimeCreated;
+        this.lastCode = lastCode;
+        this.lastChunk = lastChunk;
+    }
+
+    /**
+     * Get the number of recovery data entries scanned in the chunk.
+     *
+     * @return Number of scanned entries.
+     */
+    public int getScannedCount() {
+
+        return scannedCount;
+    }
+
+    /**
+     * Get the number of recovery data and recovery flow data entries deleted in the chunk.
+     *
+     * @return Number of deleted entries.
+     */
+    public int getDeletedCount() {
+
+        return deletedCount;
+    }
+
+    /**
+     * Get the creation time of the last scanned entry.
+     *
+     * @return Creation time of the last scanned entry.
+     */
+    public Timestamp getLastTimeCreated() {
+
+        return lastTimeCreated;
+    }
+
+    /**
+     * Get the code of the last scanned entry.
+     *
+     * @return Code of the last scanned entry.
+     */
+    public String getLastCode() {
+
+        return lastCode;
+    }
+
+    /**
+     * Check whether there are no more entries to be scanned after this chunk.
+     *
+     * @return True if this is the last chunk.
+     */
+    public boolean isLastChunk() {
+
+        return lastChunk;
+    }
+}
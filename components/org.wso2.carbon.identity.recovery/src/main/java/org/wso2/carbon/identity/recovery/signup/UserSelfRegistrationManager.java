@@ -53,6 +53,7 @@ import org.wso2.carbon.identity.event.IdentityEventServerException;
 import org.wso2.carbon.identity.event.event.Event;
 import org.wso2.carbon.identity.governance.IdentityGovernanceException;
 import org.wso2.carbon.identity.governance.IdentityMgtConstants;
+import org.wso2.carbon.identity.governance.RegexPatternCache;
 import org.wso2.carbon.identity.governance.exceptions.notiification.NotificationChannelManagerClientException;
 import org.wso2.carbon.identity.governance.exceptions.notiification.NotificationChannelManagerException;
 import org.wso2.carbon.identity.governance.service.notification.NotificationChannelManager;
@@ -109,8 +110,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 
 import static org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants.AUDIT_FAILED;
@@ -1707,7 +1707,7 @@ public class UserSelfRegistrationManager {
             regularExpression = regularExpression.trim();
         }
 
-        return StringUtils.isEmpty(regularExpression) || isFormatCorrect(regularExpression, userName);
+        return StringUtils.isEmpty(regularExpression) || isFormatCorrect(regularExpression, userName, realmConfig);
     }
 
     /** This method is to validate username format against the username validation configured with Input Validation.
@@ -1742,15 +1742,26 @@ public class UserSelfRegistrationManager {
     }
 
     /**
-     * Validate with regex
-     * @param regularExpression
-     * @param attribute
-     * @return
+     * Validate with regex. The compiled pattern is reused across sign-ups of the tenant.
+     *
+     * @param regularExpression Username regex of the user store.
+     * @param attribute         Value to be validated.
+     * @param realmConfig       Realm configuration of the user store.
+     * @return whether the value matches the regex. False if the regex is invalid or rejected.
      */
-    private boolean isFormatCorrect(String regularExpression, String attribute) {
-        Pattern p2 = Pattern.compile(regularExpression);
-        Matcher m2 = p2.matcher(attribute);
-        return m2.matches();
+    private boolean isFormatCorrect(String regularExpression, String attribute, RealmConfiguration realmConfig) {
+
+        String tenantDomain = IdentityTenantUtil.getTenantDomain(realmConfig.getTenantId());
+        try {
+            return RegexPatternCache.getInstance().getPattern(tenantDomain,
+                    UserCoreUtil.getDomainName(realmConfig), regularExpression).matcher(attribute).matches();
+        } catch (PatternSyntaxException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Username regex of the user store: " + UserCoreUtil.getDomainName(realmConfig) +
+                        " can not be used for validation.", e);
+            }
+            return false;
+        }
     }
 
     /**
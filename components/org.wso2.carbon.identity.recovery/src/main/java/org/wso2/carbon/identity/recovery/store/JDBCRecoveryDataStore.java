@@ -23,33 +23,37 @@ import org.apache.commons.logging.LogFactory;
 
 import org.wso2.carbon.identity.application.common.model.User;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
-import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.event.IdentityEventConstants;
 import org.wso2.carbon.identity.event.IdentityEventException;
-import org.wso2.carbon.identity.event.event.Event;
-import org.wso2.carbon.identity.governance.service.notification.NotificationChannels;
+import org.wso2.carbon.identity.governance.TenantResolutionCache;
 import org.wso2.carbon.identity.recovery.IdentityRecoveryConstants;
 import org.wso2.carbon.identity.recovery.IdentityRecoveryException;
 import org.wso2.carbon.identity.recovery.IdentityRecoveryServerException;
 import org.wso2.carbon.identity.recovery.RecoveryScenarios;
 import org.wso2.carbon.identity.recovery.RecoverySteps;
-import org.wso2.carbon.identity.recovery.internal.IdentityRecoveryServiceDataHolder;
+import org.wso2.carbon.identity.recovery.model.RecoveryDataPurgeResult;
 import org.wso2.carbon.identity.recovery.model.UserRecoveryData;
 import org.wso2.carbon.identity.recovery.model.UserRecoveryFlowData;
+import org.wso2.carbon.identity.recovery.util.RecoveryCodeExpiryTable;
+import org.wso2.carbon.identity.recovery.util.RecoveryCodeHasher;
 import org.wso2.carbon.identity.recovery.util.Utils;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 import static org.wso2.carbon.identity.event.IdentityEventConstants.Event.POST_GET_USER_RECOVERY_DATA;
 import static org.wso2.carbon.identity.event.IdentityEventConstants.Event.PRE_GET_USER_RECOVERY_DATA;
@@ -90,8 +94,9 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
                     STORE_RECOVERY_DATA_WITH_FLOW_ID);
             prepStmt.setString(1, recoveryDataDO.getUser().getUserName());
             prepStmt.setString(2, recoveryDataDO.getUser().getUserStoreDomain().toUpperCase());
-            prepStmt.setInt(3, IdentityTenantUtil.getTenantId(recoveryDataDO.getUser().getTenantDomain()));
-            prepStmt.setString(4, recoveryDataDO.getSecret());
+            prepStmt.setInt(3, TenantResolutionCache.getInstance().getTenantId(
+                    recoveryDataDO.getUser().getTenantDomain()));
+            prepStmt.setString(4, RecoveryCodeHasher.toStoredCode(recoveryDataDO.getSecret()));
             prepStmt.setString(5, String.valueOf(recoveryDataDO.getRecoveryScenario()));
             prepStmt.setString(6, String.valueOf(recoveryDataDO.getRecoveryStep()));
             prepStmt.setTimestamp(7, new Timestamp(new Date().getTime()),
@@ -120,8 +125,9 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
             prepStmt1 = connection.prepareStatement(IdentityRecoveryConstants.SQLQueries.STORE_RECOVERY_DATA_WITH_FLOW_ID);
             prepStmt1.setString(1, recoveryDataDO.getUser().getUserName());
             prepStmt1.setString(2, recoveryDataDO.getUser().getUserStoreDomain().toUpperCase());
-            prepStmt1.setInt(3, IdentityTenantUtil.getTenantId(recoveryDataDO.getUser().getTenantDomain()));
-            prepStmt1.setString(4, recoveryDataDO.getSecret());
+            prepStmt1.setInt(3, TenantResolutionCache.getInstance().getTenantId(
+                    recoveryDataDO.getUser().getTenantDomain()));
+            prepStmt1.setString(4, RecoveryCodeHasher.toStoredCode(recoveryDataDO.getSecret()));
             prepStmt1.setString(5, String.valueOf(recoveryDataDO.getRecoveryScenario()));
             prepStmt1.setString(6, String.valueOf(recoveryDataDO.getRecoveryStep()));
             prepStmt1.setTimestamp(7, new Timestamp(new Date().getTime()),
@@ -162,8 +168,9 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
             prepStmt1 = connection.prepareStatement(IdentityRecoveryConstants.SQLQueries.STORE_RECOVERY_DATA_WITH_FLOW_ID);
             prepStmt1.setString(1, recoveryDataDO.getUser().getUserName());
             prepStmt1.setString(2, recoveryDataDO.getUser().getUserStoreDomain().toUpperCase());
-            prepStmt1.setInt(3, IdentityTenantUtil.getTenantId(recoveryDataDO.getUser().getTenantDomain()));
-            prepStmt1.setString(4, recoveryDataDO.getSecret());
+            prepStmt1.setInt(3, TenantResolutionCache.getInstance().getTenantId(
+                    recoveryDataDO.getUser().getTenantDomain()));
+            prepStmt1.setString(4, RecoveryCodeHasher.toStoredCode(recoveryDataDO.getSecret()));
             prepStmt1.setString(5, String.valueOf(recoveryDataDO.getRecoveryScenario()));
             prepStmt1.setString(6, String.valueOf(recoveryDataDO.getRecoveryStep()));
             prepStmt1.setTimestamp(7, new Timestamp(new Date().getTime()),
@@ -172,7 +179,7 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
             prepStmt1.setString(9, recoveryDataDO.getRecoveryFlowId());
 
             prepStmt2 = connection.prepareStatement(IdentityRecoveryConstants.SQLQueries.UPDATE_RECOVERY_FLOW_DATA);
-            prepStmt2.setString(1, recoveryDataDO.getSecret());
+            prepStmt2.setString(1, RecoveryCodeHasher.toStoredCode(recoveryDataDO.getSecret()));
             prepStmt2.setString(2, recoveryDataDO.getRecoveryFlowId());
 
             prepStmt1.execute();
@@ -248,7 +255,7 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
         Enum description = ERROR_CODE_INVALID_CODE;
         try {
             if (IdentityUtil.isUserStoreCaseSensitive(user.getUserStoreDomain(),
-                    IdentityTenantUtil.getTenantId(user.getTenantDomain()))) {
+                    TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()))) {
                 sql = IdentityRecoveryConstants.SQLQueries.LOAD_RECOVERY_DATA;
             } else {
                 sql = IdentityRecoveryConstants.SQLQueries.LOAD_RECOVERY_DATA_CASE_INSENSITIVE;
@@ -257,10 +264,12 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
             prepStmt = connection.prepareStatement(sql);
             prepStmt.setString(1, user.getUserName());
             prepStmt.setString(2, user.getUserStoreDomain().toUpperCase());
-            prepStmt.setInt(3, IdentityTenantUtil.getTenantId(user.getTenantDomain()));
-            prepStmt.setString(4, code);
-            prepStmt.setString(5, String.valueOf(recoveryScenario));
-            prepStmt.setString(6, String.valueOf(recoveryStep));
+            prepStmt.setInt(3, TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()));
+            String[] lookupCodes = RecoveryCodeHasher.getLookupCodes(code);
+            prepStmt.setString(4, lookupCodes[0]);
+            prepStmt.setString(5, lookupCodes[1]);
+            prepStmt.setString(6, String.valueOf(recoveryScenario));
+            prepStmt.setString(7, String.valueOf(recoveryStep));
 
             resultSet = prepStmt.executeQuery();
 
@@ -321,14 +330,17 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
             String sql = IdentityRecoveryConstants.SQLQueries.LOAD_RECOVERY_DATA_FROM_CODE;
 
             prepStmt = connection.prepareStatement(sql);
-            prepStmt.setString(1, code);
+            String[] lookupCodes = RecoveryCodeHasher.getLookupCodes(code);
+            prepStmt.setString(1, lookupCodes[0]);
+            prepStmt.setString(2, lookupCodes[1]);
 
             resultSet = prepStmt.executeQuery();
 
             if (resultSet.next()) {
                 user = new User();
                 user.setUserName(resultSet.getString("USER_NAME"));
-                user.setTenantDomain(IdentityTenantUtil.getTenantDomain(resultSet.getInt("TENANT_ID")));
+                user.setTenantDomain(TenantResolutionCache.getInstance().getTenantDomain(
+                        resultSet.getInt("TENANT_ID")));
                 user.setUserStoreDomain(resultSet.getString("USER_DOMAIN"));
 
                 Enum recoveryScenario = RecoveryScenarios.valueOf(resultSet.getString("SCENARIO"));
@@ -418,7 +430,7 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
             if (resultSet2.next()) {
                 user = new User();
                 user.setUserName(resultSet2.getString(IdentityRecoveryConstants.DBConstants.USER_NAME));
-                user.setTenantDomain(IdentityTenantUtil.getTenantDomain(resultSet2.getInt(
+                user.setTenantDomain(TenantResolutionCache.getInstance().getTenantDomain(resultSet2.getInt(
                         IdentityRecoveryConstants.DBConstants.TENANT_ID)));
                 user.setUserStoreDomain(resultSet2.getString(IdentityRecoveryConstants.DBConstants.USER_DOMAIN));
 
@@ -507,13 +519,25 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
     @Override
     public void invalidate(String code) throws IdentityRecoveryException {
 
+        invalidateByLookupCodes(RecoveryCodeHasher.getLookupCodes(code));
+    }
+
+    @Override
+    public void invalidateStoredCode(String storedCode) throws IdentityRecoveryException {
+
+        invalidateByLookupCodes(RecoveryCodeHasher.getStoredLookupCodes(storedCode));
+    }
+
+    private void invalidateByLookupCodes(String[] lookupCodes) throws IdentityRecoveryException {
+
         PreparedStatement prepStmt = null;
         Connection connection = IdentityDatabaseUtil.getDBConnection(true);
         try {
             String sql = IdentityRecoveryConstants.SQLQueries.INVALIDATE_CODE;
 
             prepStmt = connection.prepareStatement(sql);
-            prepStmt.setString(1, code);
+            prepStmt.setString(1, lookupCodes[0]);
+            prepStmt.setString(2, lookupCodes[1]);
             prepStmt.execute();
             IdentityDatabaseUtil.commitTransaction(connection);
         } catch (SQLException e) {
@@ -543,7 +567,7 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
         try {
             String sql;
             if (IdentityUtil.isUserStoreCaseSensitive(user.getUserStoreDomain(),
-                    IdentityTenantUtil.getTenantId(user.getTenantDomain()))) {
+                    TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()))) {
                 sql = IdentityRecoveryConstants.SQLQueries.LOAD_RECOVERY_DATA_OF_USER;
             } else {
                 sql = IdentityRecoveryConstants.SQLQueries.LOAD_RECOVERY_DATA_OF_USER_CASE_INSENSITIVE;
@@ -552,7 +576,7 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
             prepStmt = connection.prepareStatement(sql);
             prepStmt.setString(1, user.getUserName());
             prepStmt.setString(2, user.getUserStoreDomain().toUpperCase());
-            prepStmt.setInt(3, IdentityTenantUtil.getTenantId(user.getTenantDomain()));
+            prepStmt.setInt(3, TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()));
 
             resultSet = prepStmt.executeQuery();
 
@@ -611,7 +635,7 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
         try {
             String sql;
             if (IdentityUtil.isUserStoreCaseSensitive(user.getUserStoreDomain(),
-                    IdentityTenantUtil.getTenantId(user.getTenantDomain()))) {
+                    TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()))) {
                 sql = IdentityRecoveryConstants.SQLQueries.LOAD_RECOVERY_DATA_OF_USER;
             } else {
                 sql = IdentityRecoveryConstants.SQLQueries.LOAD_RECOVERY_DATA_OF_USER_CASE_INSENSITIVE;
@@ -620,7 +644,7 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
             prepStmt = connection.prepareStatement(sql);
             prepStmt.setString(1, user.getUserName());
             prepStmt.setString(2, user.getUserStoreDomain().toUpperCase());
-            prepStmt.setInt(3, IdentityTenantUtil.getTenantId(user.getTenantDomain()));
+            prepStmt.setInt(3, TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()));
 
             resultSet = prepStmt.executeQuery();
 
@@ -674,7 +698,7 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
         try {
             String sql;
             if (IdentityUtil.isUserStoreCaseSensitive(user.getUserStoreDomain(),
-                    IdentityTenantUtil.getTenantId(user.getTenantDomain()))) {
+                    TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()))) {
                 sql = IdentityRecoveryConstants.SQLQueries.LOAD_RECOVERY_DATA_OF_USER_BY_SCENARIO;
             } else {
                 sql = IdentityRecoveryConstants.SQLQueries.LOAD_RECOVERY_DATA_OF_USER_BY_SCENARIO_CASE_INSENSITIVE;
@@ -684,7 +708,7 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
             prepStmt.setString(1, user.getUserName());
             prepStmt.setString(2, String.valueOf(recoveryScenario));
             prepStmt.setString(3, user.getUserStoreDomain().toUpperCase());
-            prepStmt.setInt(4, IdentityTenantUtil.getTenantId(user.getTenantDomain()));
+            prepStmt.setInt(4, TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()));
 
             resultSet = prepStmt.executeQuery();
 
@@ -725,7 +749,7 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
         try {
             String sql;
             if (IdentityUtil.isUserStoreCaseSensitive(user.getUserStoreDomain(),
-                    IdentityTenantUtil.getTenantId(user.getTenantDomain()))) {
+                    TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()))) {
                 sql = IdentityRecoveryConstants.SQLQueries.LOAD_RECOVERY_DATA_OF_USER_BY_STEP;
             } else {
                 sql = IdentityRecoveryConstants.SQLQueries.LOAD_RECOVERY_DATA_OF_USER_BY_STEP_CASE_INSENSITIVE;
@@ -735,7 +759,7 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
             prepStmt.setString(1, user.getUserName());
             prepStmt.setString(2, String.valueOf(recoveryScenario));
             prepStmt.setString(3, user.getUserStoreDomain().toUpperCase());
-            prepStmt.setInt(4, IdentityTenantUtil.getTenantId(user.getTenantDomain()));
+            prepStmt.setInt(4, TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()));
             prepStmt.setString(5, String.valueOf(recoveryStep));
 
             resultSet = prepStmt.executeQuery();
@@ -777,7 +801,8 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
         Connection connection = IdentityDatabaseUtil.getDBConnection();
         try {
             String sql;
-            if (IdentityUtil.isUserStoreCaseSensitive(user.getUserStoreDomain(), IdentityTenantUtil.getTenantId(user.getTenantDomain()))) {
+            if (IdentityUtil.isUserStoreCaseSensitive(user.getUserStoreDomain(),
+                    TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()))) {
                 sql = IdentityRecoveryConstants.SQLQueries.INVALIDATE_USER_CODES;
             } else {
                 sql = IdentityRecoveryConstants.SQLQueries.INVALIDATE_USER_CODES_CASE_INSENSITIVE;
@@ -786,7 +811,7 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
             prepStmt = connection.prepareStatement(sql);
             prepStmt.setString(1, user.getUserName());
             prepStmt.setString(2, user.getUserStoreDomain());
-            prepStmt.setInt(3, IdentityTenantUtil.getTenantId(user.getTenantDomain()));
+            prepStmt.setInt(3, TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()));
             prepStmt.execute();
             IdentityDatabaseUtil.commitTransaction(connection);
         } catch (SQLException e) {
@@ -805,7 +830,8 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
         Connection connection = IdentityDatabaseUtil.getDBConnection();
         try {
             String sql;
-            if (IdentityUtil.isUserStoreCaseSensitive(user.getUserStoreDomain(), IdentityTenantUtil.getTenantId(user.getTenantDomain()))) {
+            if (IdentityUtil.isUserStoreCaseSensitive(user.getUserStoreDomain(),
+                    TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()))) {
                 sql = IdentityRecoveryConstants.SQLQueries.INVALIDATE_USER_CODE_BY_SCENARIO;
             } else {
                 sql = IdentityRecoveryConstants.SQLQueries.INVALIDATE_USER_CODE_BY_SCENARIO_CASE_INSENSITIVE;
@@ -816,7 +842,7 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
             prepStmt.setString(2, String.valueOf(recoveryScenario));
             prepStmt.setString(3, String.valueOf(recoveryStep));
             prepStmt.setString(4, user.getUserStoreDomain());
-            prepStmt.setInt(5, IdentityTenantUtil.getTenantId(user.getTenantDomain()));
+            prepStmt.setInt(5, TenantResolutionCache.getInstance().getTenantId(user.getTenantDomain()));
             prepStmt.execute();
             IdentityDatabaseUtil.commitTransaction(connection);
         } catch (SQLException e) {
@@ -855,16 +881,32 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
     public void invalidateWithoutChangeTimeCreated(String oldCode, String code, Enum recoveryStep, String channelList)
             throws IdentityRecoveryException {
 
+        updateCodeWithoutChangeTimeCreated(RecoveryCodeHasher.getLookupCodes(oldCode), code, recoveryStep,
+                channelList);
+    }
+
+    @Override
+    public void invalidateStoredCodeWithoutChangeTimeCreated(String oldStoredCode, String code, Enum recoveryStep,
+                                                            String channelList) throws IdentityRecoveryException {
+
+        updateCodeWithoutChangeTimeCreated(RecoveryCodeHasher.getStoredLookupCodes(oldStoredCode), code,
+                recoveryStep, channelList);
+    }
+
+    private void updateCodeWithoutChangeTimeCreated(String[] lookupCodes, String code, Enum recoveryStep,
+                                                    String channelList) throws IdentityRecoveryException {
+
         PreparedStatement prepStmt = null;
         Connection connection = IdentityDatabaseUtil.getDBConnection(false);
         try {
             String sql = IdentityRecoveryConstants.SQLQueries.UPDATE_CODE;
 
             prepStmt = connection.prepareStatement(sql);
-            prepStmt.setString(1, code);
+            prepStmt.setString(1, RecoveryCodeHasher.toStoredCode(code));
             prepStmt.setString(2, String.valueOf(recoveryStep));
             prepStmt.setString(3, channelList);
-            prepStmt.setString(4, oldCode);
+            prepStmt.setString(4, lookupCodes[0]);
+            prepStmt.setString(5, lookupCodes[1]);
             prepStmt.execute();
             IdentityDatabaseUtil.commitTransaction(connection);
         } catch (SQLException e) {
@@ -908,232 +950,227 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
         }
     }
 
-    /**
-     * Checks whether the code has expired or not.
-     *
-     * @param tenantDomain     Tenant domain
-     * @param recoveryScenario Recovery scenario
-     * @param recoveryStep     Recovery step
-     * @param createdTimestamp Time stamp
-     * @param recoveryData     Additional data for validate the code
-     * @return Whether the code has expired or not
-     * @throws IdentityRecoveryServerException Error while reading the configs
-     */
-    private boolean isCodeExpired(String tenantDomain, Enum recoveryScenario, Enum recoveryStep, long createdTimestamp,
-            String recoveryData) throws IdentityRecoveryServerException {
+    @Override
+    public RecoveryDataPurgeResult purgeExpiredRecoveryData(RecoveryDataPurgeResult previousChunk, long createdBefore,
+                                                            int chunkSize) throws IdentityRecoveryException {
+
+        Calendar utcCalendar = Calendar.getInstance(TimeZone.getTimeZone(UTC));
+        Timestamp lastTimeCreated = previousChunk != null ? previousChunk.getLastTimeCreated() : new Timestamp(0);
+        String lastCode = previousChunk != null ? previousChunk.getLastCode() : StringUtils.EMPTY;
+        int scannedCount = 0;
+        List<String> expiredCodes = new ArrayList<>();
+        Set<String> expiredRecoveryFlowIds = new HashSet<>();
+        // The expiry configs are resolved once per tenant in a chunk.
+        Map<Integer, RecoveryCodeExpiryTable> expiryTables = new HashMap<>();
 
-        int notificationExpiryTimeInMinutes = 0;
-        // Self sign up scenario has two sub scenarios as verification via email or verification via SMS.
-        if (RecoveryScenarios.SELF_SIGN_UP.equals(recoveryScenario) && RecoverySteps.CONFIRM_SIGN_UP
-                .equals(recoveryStep)) {
-            // If the verification channel is email, use verification link timeout configs to validate.
-            if (NotificationChannels.EMAIL_CHANNEL.getChannelType().equalsIgnoreCase(recoveryData)) {
-                if (log.isDebugEnabled()) {
-                    String message = String.format("Verification channel: %s was detected for recovery scenario: %s "
-                            + "and recovery step: %s", recoveryData, recoveryScenario, recoveryStep);
-                    log.debug(message);
-                }
-                notificationExpiryTimeInMinutes = Integer.parseInt(Utils.getRecoveryConfigs(
-                        IdentityRecoveryConstants.ConnectorConfig.SELF_REGISTRATION_VERIFICATION_CODE_EXPIRY_TIME,
-                        tenantDomain));
-            } else if (NotificationChannels.SMS_CHANNEL.getChannelType().equals(recoveryData)) {
-                // If the verification channel is SMS, use SMS OTP timeout configs to validate.
-                if (log.isDebugEnabled()) {
-                    String message = String.format("Verification channel: %s was detected for recovery scenario: %s "
-                            + "and recovery step: %s", recoveryData, recoveryScenario, recoveryStep);
-                    log.debug(message);
-                }
-                notificationExpiryTimeInMinutes = Integer
-                        .parseInt(Utils.getRecoveryConfigs(IdentityRecoveryConstants.ConnectorConfig.
-                                SELF_REGISTRATION_SMSOTP_VERIFICATION_CODE_EXPIRY_TIME, tenantDomain));
-            } else {
-                // If the verification channel is not specified, verification will takes place according to default
-                // verification link timeout configs.
-                if (log.isDebugEnabled()) {
-                    String message = String.format("No verification channel for recovery scenario: %s and recovery " +
-                                    "step: %s .Therefore, using verification link default timeout configs",
-                            recoveryScenario, recoveryStep);
-                    log.debug(message);
+        Connection connection = IdentityDatabaseUtil.getDBConnection(false);
+        PreparedStatement prepStmt = null;
+        ResultSet resultSet = null;
+        PreparedStatement deleteCodeStmt = null;
+        PreparedStatement deleteFlowStmt = null;
+        try {
+            prepStmt = connection.prepareStatement(IdentityRecoveryConstants.SQLQueries.LOAD_RECOVERY_DATA_FOR_PURGE);
+            prepStmt.setMaxRows(chunkSize);
+            prepStmt.setFetchSize(chunkSize);
+            prepStmt.setTimestamp(1, lastTimeCreated, utcCalendar);
+            prepStmt.setTimestamp(2, new Timestamp(createdBefore), utcCalendar);
+            prepStmt.setTimestamp(3, lastTimeCreated, utcCalendar);
+            prepStmt.setString(4, lastCode);
+            resultSet = prepStmt.executeQuery();
+            while (resultSet.next()) {
+                scannedCount++;
+                lastCode = resultSet.getString(IdentityRecoveryConstants.DBConstants.CODE);
+                lastTimeCreated = resultSet.getTimestamp(IdentityRecoveryConstants.DBConstants.TIME_CREATED,
+                        utcCalendar);
+                String recoveryFlowId = resultSet.getString(IdentityRecoveryConstants.DBConstants.RECOVERY_FLOW_ID);
+                if (isPurgeable(resultSet, lastTimeCreated, recoveryFlowId, expiryTables, utcCalendar)) {
+                    expiredCodes.add(lastCode);
+                    if (recoveryFlowId != null) {
+                        expiredRecoveryFlowIds.add(recoveryFlowId);
+                    }
                 }
-                notificationExpiryTimeInMinutes = Integer.parseInt(Utils.getRecoveryConfigs(
-                        IdentityRecoveryConstants.ConnectorConfig.SELF_REGISTRATION_VERIFICATION_CODE_EXPIRY_TIME,
-                        tenantDomain));
             }
-        } else if (RecoveryScenarios.ASK_PASSWORD.equals(recoveryScenario)) {
-            notificationExpiryTimeInMinutes = Integer.parseInt(Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                    .ConnectorConfig.ASK_PASSWORD_EXPIRY_TIME, tenantDomain));
-        } else if (RecoveryScenarios.USERNAME_RECOVERY.equals(recoveryScenario)) {
-
-            // Validate the recovery code given at username recovery.
-            notificationExpiryTimeInMinutes = getRecoveryCodeExpiryTime();
-        } else if (RecoveryScenarios.NOTIFICATION_BASED_PW_RECOVERY.equals(recoveryScenario)) {
-
-            if (RecoverySteps.RESEND_CONFIRMATION_CODE.toString().equals(recoveryStep.toString())) {
-                notificationExpiryTimeInMinutes = getResendCodeExpiryTime();
-            } else if (RecoverySteps.SEND_RECOVERY_INFORMATION.toString().equals(recoveryStep.toString())) {
-
-                // Validate the recovery code password recovery.
-                notificationExpiryTimeInMinutes = getRecoveryCodeExpiryTime();
-            } else if (NotificationChannels.SMS_CHANNEL.getChannelType().equals(recoveryData)) {
-
-                // Validate the SMS OTP confirmation code.
-                notificationExpiryTimeInMinutes = Integer.parseInt(Utils.getRecoveryConfigs(
-                        IdentityRecoveryConstants.ConnectorConfig.PASSWORD_RECOVERY_SMS_OTP_EXPIRY_TIME, tenantDomain));
-            } else {
-                notificationExpiryTimeInMinutes = Integer.parseInt(
-                        Utils.getRecoveryConfigs(IdentityRecoveryConstants.ConnectorConfig.EXPIRY_TIME, tenantDomain));
-            }
-        } else if (RecoveryScenarios.EMAIL_VERIFICATION_ON_UPDATE.equals(recoveryScenario) ||
-                RecoveryScenarios.EMAIL_VERIFICATION_ON_VERIFIED_LIST_UPDATE.equals(recoveryScenario)) {
-            notificationExpiryTimeInMinutes = Integer.parseInt(Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                    .ConnectorConfig.EMAIL_VERIFICATION_ON_UPDATE_EXPIRY_TIME, tenantDomain));
-        } else if (RecoveryScenarios.TENANT_ADMIN_ASK_PASSWORD.equals(recoveryScenario)) {
-            notificationExpiryTimeInMinutes = Integer.parseInt(IdentityUtil.getProperty(IdentityRecoveryConstants
-                    .ConnectorConfig.TENANT_ADMIN_ASK_PASSWORD_EXPIRY_TIME));
-        } else if (RecoveryScenarios.LITE_SIGN_UP.equals(recoveryScenario) &&
-                RecoverySteps.CONFIRM_LITE_SIGN_UP.equals(recoveryStep)) {
-            // If the verification channel is email, use verification link timeout configs to validate.
-            if (NotificationChannels.EMAIL_CHANNEL.getChannelType().equalsIgnoreCase(recoveryData)) {
-                if (log.isDebugEnabled()) {
-                    String message = String.format("Verification channel: %s was detected for recovery scenario: %s "
-                            + "and recovery step: %s", recoveryData, recoveryScenario, recoveryStep);
-                    log.debug(message);
-                }
-                notificationExpiryTimeInMinutes = Integer.parseInt(Utils.getRecoveryConfigs(
-                        IdentityRecoveryConstants.ConnectorConfig.LITE_REGISTRATION_VERIFICATION_CODE_EXPIRY_TIME,
-                        tenantDomain));
-            } else if (NotificationChannels.SMS_CHANNEL.getChannelType().equals(recoveryData)) {
-                // If the verification channel is SMS, use SMS OTP timeout configs to validate.
-                if (log.isDebugEnabled()) {
-                    String message = String.format("Verification channel: %s was detected for recovery scenario: %s "
-                            + "and recovery step: %s", recoveryData, recoveryScenario, recoveryStep);
-                    log.debug(message);
+
+            int deletedCount = 0;
+            if (!expiredCodes.isEmpty()) {
+                deleteCodeStmt = connection.prepareStatement(IdentityRecoveryConstants.SQLQueries.INVALIDATE_CODE);
+                for (String code : expiredCodes) {
+                    // The persisted codes are matched as they are.
+                    deleteCodeStmt.setString(1, code);
+                    deleteCodeStmt.setString(2, code);
+                    deleteCodeStmt.addBatch();
                 }
-                notificationExpiryTimeInMinutes = Integer
-                        .parseInt(Utils.getRecoveryConfigs(IdentityRecoveryConstants.ConnectorConfig.
-                                LITE_REGISTRATION_SMSOTP_VERIFICATION_CODE_EXPIRY_TIME, tenantDomain));
-            } else {
-                // If the verification channel is not specified, verification will takes place according to default
-                // verification link timeout configs.
-                if (log.isDebugEnabled()) {
-                    String message = String.format("No verification channel for recovery scenario: %s and recovery " +
-                                    "step: %s .Therefore, using verification link default timeout configs",
-                            recoveryScenario, recoveryStep);
-                    log.debug(message);
+                deletedCount += getDeletedCount(deleteCodeStmt.executeBatch());
+            }
+            if (!expiredRecoveryFlowIds.isEmpty()) {
+                deleteFlowStmt = connection.prepareStatement(
+                        IdentityRecoveryConstants.SQLQueries.DELETE_ORPHANED_RECOVERY_FLOW_DATA);
+                for (String recoveryFlowId : expiredRecoveryFlowIds) {
+                    deleteFlowStmt.setString(1, recoveryFlowId);
+                    deleteFlowStmt.setString(2, recoveryFlowId);
+                    deleteFlowStmt.addBatch();
                 }
-                notificationExpiryTimeInMinutes = Integer.parseInt(Utils.getRecoveryConfigs(
-                        IdentityRecoveryConstants.ConnectorConfig.LITE_REGISTRATION_VERIFICATION_CODE_EXPIRY_TIME,
-                        tenantDomain));
+                deletedCount += getDeletedCount(deleteFlowStmt.executeBatch());
             }
-        } else if (RecoveryScenarios.MOBILE_VERIFICATION_ON_UPDATE.equals(recoveryScenario) ||
-                RecoveryScenarios.MOBILE_VERIFICATION_ON_VERIFIED_LIST_UPDATE.equals(recoveryScenario)) {
-            notificationExpiryTimeInMinutes = Integer.parseInt(Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                    .ConnectorConfig.MOBILE_NUM_VERIFICATION_ON_UPDATE_EXPIRY_TIME, tenantDomain));
-        } else if (RecoveryScenarios.ADMIN_FORCED_PASSWORD_RESET_VIA_EMAIL_LINK.equals(recoveryScenario) ||
-                RecoveryScenarios.ADMIN_FORCED_PASSWORD_RESET_VIA_OTP.equals(recoveryScenario) ||
-                RecoveryScenarios.ADMIN_FORCED_PASSWORD_RESET_VIA_SMS_OTP.equals(recoveryScenario)) {
-            notificationExpiryTimeInMinutes = Integer.parseInt(Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                    .ConnectorConfig.ADMIN_PASSWORD_RESET_EXPIRY_TIME, tenantDomain));
-        } else {
-            notificationExpiryTimeInMinutes = Integer.parseInt(Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                    .ConnectorConfig.EXPIRY_TIME, tenantDomain));
+            IdentityDatabaseUtil.commitTransaction(connection);
+            return new RecoveryDataPurgeResult(scannedCount, deletedCount, lastTimeCreated, lastCode,
+                    scannedCount < chunkSize);
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw Utils.handleServerException(
+                    IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_ERROR_PURGING_RECOVERY_DATA, null, e);
+        } finally {
+            IdentityDatabaseUtil.closeStatement(deleteCodeStmt);
+            IdentityDatabaseUtil.closeStatement(deleteFlowStmt);
+            IdentityDatabaseUtil.closeAllConnections(connection, resultSet, prepStmt);
         }
-        if (notificationExpiryTimeInMinutes < 0) {
-            // Make the code valid infinitely in case of negative value.
-            notificationExpiryTimeInMinutes = Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int purgeOrphanedRecoveryFlowData(long createdBefore, int chunkSize) throws IdentityRecoveryException {
+
+        List<String> recoveryFlowIds = new ArrayList<>();
+        Connection connection = IdentityDatabaseUtil.getDBConnection(false);
+        PreparedStatement prepStmt = null;
+        ResultSet resultSet = null;
+        PreparedStatement deleteStmt = null;
+        try {
+            prepStmt = connection.prepareStatement(
+                    IdentityRecoveryConstants.SQLQueries.LOAD_ORPHANED_RECOVERY_FLOW_IDS);
+            prepStmt.setMaxRows(chunkSize);
+            prepStmt.setFetchSize(chunkSize);
+            prepStmt.setTimestamp(1, new Timestamp(createdBefore), Calendar.getInstance(TimeZone.getTimeZone(UTC)));
+            resultSet = prepStmt.executeQuery();
+            while (resultSet.next()) {
+                recoveryFlowIds.add(resultSet.getString(IdentityRecoveryConstants.DBConstants.RECOVERY_FLOW_ID));
+            }
+            if (recoveryFlowIds.isEmpty()) {
+                return 0;
+            }
+
+            // The recovery flow data is deleted only if a recovery data entry has not referred it since the scan.
+            deleteStmt = connection.prepareStatement(
+                    IdentityRecoveryConstants.SQLQueries.DELETE_ORPHANED_RECOVERY_FLOW_DATA);
+            for (String recoveryFlowId : recoveryFlowIds) {
+                deleteStmt.setString(1, recoveryFlowId);
+                deleteStmt.setString(2, recoveryFlowId);
+                deleteStmt.addBatch();
+            }
+            int deletedCount = getDeletedCount(deleteStmt.executeBatch());
+            IdentityDatabaseUtil.commitTransaction(connection);
+            return deletedCount;
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw Utils.handleServerException(
+                    IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_ERROR_PURGING_RECOVERY_DATA, null, e);
+        } finally {
+            IdentityDatabaseUtil.closeStatement(deleteStmt);
+            IdentityDatabaseUtil.closeAllConnections(connection, resultSet, prepStmt);
         }
-        long expiryTime = createdTimestamp + TimeUnit.MINUTES.toMillis(notificationExpiryTimeInMinutes);
-        return System.currentTimeMillis() > expiryTime;
     }
 
     /**
-     * Checks whether the recovery flow id has expired or not.
+     * Check whether the scanned recovery data entry can be purged. An entry is purged once its code has expired,
+     * and if the entry belongs to a recovery flow, once the recovery flow has also expired.
      *
-     * @param tenantDomain     Tenant domain.
-     * @param createdTimestamp Time stamp.
-     * @param recoveryData     Additional data for validate the code.
-     * @return Whether the recovery flow id has expired or not.
-     * @throws IdentityRecoveryServerException Error while reading the configs.
+     * @param resultSet      Result set positioned at the scanned entry.
+     * @param timeCreated    Creation time of the code.
+     * @param recoveryFlowId Recovery flow id of the entry.
+     * @param expiryTables   Expiry tables of the tenants resolved in the chunk.
+     * @param utcCalendar    Calendar to read the timestamps.
+     * @return Whether the entry can be purged.
+     * @throws SQLException Error while reading the entry.
      */
-    private boolean isRecoveryFlowIdExpired(String tenantDomain, long createdTimestamp, String recoveryData)
-            throws IdentityRecoveryServerException {
+    private boolean isPurgeable(ResultSet resultSet, Timestamp timeCreated, String recoveryFlowId,
+                                Map<Integer, RecoveryCodeExpiryTable> expiryTables, Calendar utcCalendar)
+            throws SQLException {
 
-        int codeExpiryTime;
-        int allowedResendAttempts;
-        int recoveryFlowIdExpiryTime;
-        if (NotificationChannels.SMS_CHANNEL.getChannelType().equals(recoveryData)) {
-            codeExpiryTime = Integer.parseInt(Utils.getRecoveryConfigs(
-                    IdentityRecoveryConstants.ConnectorConfig.PASSWORD_RECOVERY_SMS_OTP_EXPIRY_TIME, tenantDomain));
-            allowedResendAttempts = Integer.parseInt(Utils.getRecoveryConfigs(
-                    IdentityRecoveryConstants.ConnectorConfig.RECOVERY_NOTIFICATION_PASSWORD_MAX_RESEND_ATTEMPTS,
-                    tenantDomain));
-            recoveryFlowIdExpiryTime = codeExpiryTime * allowedResendAttempts;
-        } else {
-            recoveryFlowIdExpiryTime = Integer.parseInt(
-                    Utils.getRecoveryConfigs(IdentityRecoveryConstants.ConnectorConfig.EXPIRY_TIME, tenantDomain));
-        }
-        if (recoveryFlowIdExpiryTime < 1) {
-            recoveryFlowIdExpiryTime = IdentityRecoveryConstants.RECOVERY_FLOW_ID_DEFAULT_EXPIRY_TIME;
+        String scenario = resultSet.getString(IdentityRecoveryConstants.DBConstants.SCENARIO);
+        String step = resultSet.getString(IdentityRecoveryConstants.DBConstants.STEP);
+        String remainingSets = resultSet.getString(IdentityRecoveryConstants.DBConstants.REMAINING_SETS);
+        try {
+            int tenantId = resultSet.getInt(IdentityRecoveryConstants.DBConstants.TENANT_ID);
+            RecoveryCodeExpiryTable expiryTable = expiryTables.get(tenantId);
+            if (expiryTable == null) {
+                expiryTable = RecoveryCodeExpiryTable.getExpiryTable(
+                        TenantResolutionCache.getInstance().getTenantDomain(tenantId));
+                expiryTables.put(tenantId, expiryTable);
+            }
+            if (!expiryTable.isExpired(RecoveryScenarios.valueOf(scenario), RecoverySteps.valueOf(step),
+                    remainingSets, timeCreated.getTime())) {
+                return false;
+            }
+            if (recoveryFlowId == null) {
+                return true;
+            }
+            Timestamp flowTimeCreated = resultSet.getTimestamp(
+                    IdentityRecoveryConstants.DBConstants.FLOW_TIME_CREATED, utcCalendar);
+            return flowTimeCreated == null ||
+                    expiryTable.isRecoveryFlowIdExpired(remainingSets, flowTimeCreated.getTime());
+        } catch (IdentityRecoveryServerException | IllegalArgumentException e) {
+            // Entries of unknown scenarios or with unreadable expiry configs are retained.
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Skipping the purge of the recovery data of scenario: %s and step: %s",
+                        scenario, step), e);
+            }
+            return false;
         }
+    }
+
+    private int getDeletedCount(int[] updateCounts) {
 
-        long expiryTime = createdTimestamp + TimeUnit.MINUTES.toMillis(recoveryFlowIdExpiryTime);
-        return System.currentTimeMillis() > expiryTime;
+        int deletedCount = 0;
+        for (int updateCount : updateCounts) {
+            if (updateCount > 0) {
+                deletedCount += updateCount;
+            } else if (updateCount == Statement.SUCCESS_NO_INFO) {
+                deletedCount++;
+            }
+        }
+        return deletedCount;
     }
 
     /**
-     * Get the expiry time of the recovery code given at username recovery and password recovery init.
+     * Checks whether the code has expired or not.
      *
-     * @return Expiry time of the recovery code (In minutes)
+     * @param tenantDomain     Tenant domain
+     * @param recoveryScenario Recovery scenario
+     * @param recoveryStep     Recovery step
+     * @param createdTimestamp Time stamp
+     * @param recoveryData     Additional data for validate the code
+     * @return Whether the code has expired or not
+     * @throws IdentityRecoveryServerException Error while reading the configs
      */
-    private int getRecoveryCodeExpiryTime() {
+    private boolean isCodeExpired(String tenantDomain, Enum recoveryScenario, Enum recoveryStep, long createdTimestamp,
+            String recoveryData) throws IdentityRecoveryServerException {
 
-        String expiryTime = IdentityUtil
-                .getProperty(IdentityRecoveryConstants.ConnectorConfig.RECOVERY_CODE_EXPIRY_TIME);
-        if (StringUtils.isEmpty(expiryTime)) {
-            return IdentityRecoveryConstants.RECOVERY_CODE_DEFAULT_EXPIRY_TIME;
-        }
-        try {
-            return Integer.parseInt(expiryTime);
-        } catch (NumberFormatException e) {
-            if (log.isDebugEnabled()) {
-                String message = String
-                        .format("User recovery code expired. Therefore setting DEFAULT expiry time : %s minutes",
-                                IdentityRecoveryConstants.RECOVERY_CODE_DEFAULT_EXPIRY_TIME);
-                log.debug(message);
-            }
-            return IdentityRecoveryConstants.RECOVERY_CODE_DEFAULT_EXPIRY_TIME;
-        }
+        return RecoveryCodeExpiryTable.getExpiryTable(tenantDomain).isExpired(recoveryScenario, recoveryStep,
+                recoveryData, createdTimestamp);
     }
 
     /**
-     * Get the expiry time of the recovery code given at username recovery and password recovery init.
+     * Checks whether the recovery flow id has expired or not.
      *
-     * @return Expiry time of the recovery code (In minutes)
+     * @param tenantDomain     Tenant domain.
+     * @param createdTimestamp Time stamp.
+     * @param recoveryData     Additional data for validate the code.
+     * @return Whether the recovery flow id has expired or not.
+     * @throws IdentityRecoveryServerException Error while reading the configs.
      */
-    private int getResendCodeExpiryTime() {
+    private boolean isRecoveryFlowIdExpired(String tenantDomain, long createdTimestamp, String recoveryData)
+            throws IdentityRecoveryServerException {
 
-        String expiryTime = IdentityUtil
-                .getProperty(IdentityRecoveryConstants.ConnectorConfig.RESEND_CODE_EXPIRY_TIME);
-        if (StringUtils.isEmpty(expiryTime)) {
-            return IdentityRecoveryConstants.RESEND_CODE_DEFAULT_EXPIRY_TIME;
-        }
-        try {
-            return Integer.parseInt(expiryTime);
-        } catch (NumberFormatException e) {
-            if (log.isDebugEnabled()) {
-                String message = String
-                        .format("User recovery code expired. Therefore setting DEFAULT expiry time : %s minutes",
-                                IdentityRecoveryConstants.RESEND_CODE_DEFAULT_EXPIRY_TIME);
-                log.debug(message);
-            }
-            return IdentityRecoveryConstants.RESEND_CODE_DEFAULT_EXPIRY_TIME;
-        }
+        return RecoveryCodeExpiryTable.getExpiryTable(tenantDomain).isRecoveryFlowIdExpired(recoveryData,
+                createdTimestamp);
     }
 
     private void handleRecoveryDataEventPublishing(String eventName, String scenario, Boolean status, Enum description,
                                                    String code, User user, UserRecoveryData userRecoveryData)
             throws IdentityRecoveryException {
 
+        if (!RecoveryDataEventPublisher.getInstance().isSubscribed(eventName)) {
+            return;
+        }
         Map<String, Object> eventProperties = new HashMap<>();
         eventProperties.put(OPERATION_STATUS, status);
         eventProperties.put(OPERATION_DESCRIPTION, description);
@@ -1141,10 +1178,9 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
         publishEvent(user, code, eventProperties, eventName, userRecoveryData);
     }
 
-    private void publishEvent(User user, String code, Map<String, Object> additionalProperties, String eventName,
+    private void publishEvent(User user, String code, Map<String, Object> properties, String eventName,
                               UserRecoveryData userRecoveryData) throws IdentityRecoveryException {
 
-        HashMap<String, Object> properties = new HashMap<>();
         if (user != null) {
             properties.put(IdentityEventConstants.EventProperty.USER_NAME, user.getUserName());
             properties.put(IdentityEventConstants.EventProperty.TENANT_DOMAIN, user.getTenantDomain());
@@ -1157,13 +1193,8 @@ public class JDBCRecoveryDataStore implements UserRecoveryDataStore {
             properties.put(IdentityRecoveryConstants.CONFIRMATION_CODE, code);
         }
 
-        if (additionalProperties != null) {
-            properties.putAll(additionalProperties);
-        }
-
-        Event identityMgtEvent = new Event(eventName, properties);
         try {
-            IdentityRecoveryServiceDataHolder.getInstance().getIdentityEventService().handleEvent(identityMgtEvent);
+            RecoveryDataEventPublisher.getInstance().publish(eventName, properties);
         } catch (IdentityEventException e) {
             log.error("Error occurred while publishing event " + eventName + " for user " + user);
             throw Utils.handleServerException(IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_PUBLISH_EVENT,
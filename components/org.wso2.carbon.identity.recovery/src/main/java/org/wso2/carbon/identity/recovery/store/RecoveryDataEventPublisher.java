@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.recovery.store;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.event.IdentityEventConfigBuilder;
+import org.wso2.carbon.identity.event.IdentityEventConstants;
+import org.wso2.carbon.identity.event.IdentityEventException;
+import org.wso2.carbon.identity.event.bean.ModuleConfiguration;
+import org.wso2.carbon.identity.event.bean.Subscription;
+import org.wso2.carbon.identity.event.event.Event;
+import org.wso2.carbon.identity.governance.IdentityGovernanceUtil;
+import org.wso2.carbon.identity.recovery.IdentityRecoveryConstants;
+import org.wso2.carbon.identity.recovery.internal.IdentityRecoveryServiceDataHolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes the events of the recovery data store. An event is published only if an event handler subscribes to
+ * it, unless skipping the unsubscribed events is disabled. When asynchronous publishing is enabled, the POST_ events
+ * are queued in a bounded queue and published in batches by a worker thread, while the PRE_ events are still
+ * published in the calling thread so that the handlers can interrupt the operation.
+ */
+public class RecoveryDataEventPublisher {
+
+    private static final Log log = LogFactory.getLog(RecoveryDataEventPublisher.class);
+    private static final RecoveryDataEventPublisher instance = new RecoveryDataEventPublisher();
+
+    private static final String POST_EVENT_PREFIX = "POST_";
+    private static final String WORKER_THREAD_NAME = "RecoveryDataEventPublisherThread";
+    private static final String QUEUE_FULL_POLICY_BLOCK = "BLOCK";
+    private static final long WORKER_POLL_TIMEOUT = 1000;
+
+    private final boolean skipUnsubscribedEvents;
+    private final boolean asyncPublishingEnabled;
+    private final boolean blockWhenQueueFull;
+    private final int batchSize;
+    private final BlockingQueue<Event> eventQueue;
+    private Thread worker;
+    private volatile boolean running;
+    private volatile boolean shutdown;
+
+    private volatile IdentityEventConfigBuilder subscriptionSource;
+    private volatile Set<String> subscribedEvents = Collections.emptySet();
+
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    private RecoveryDataEventPublisher() {
+
+        this(isSkipUnsubscribedEventsEnabled(),
+                Boolean.parseBoolean(IdentityUtil.getProperty(
+                        IdentityRecoveryConstants.RECOVERY_DATA_EVENTS_ASYNC_ENABLE)),
+                QUEUE_FULL_POLICY_BLOCK.equalsIgnoreCase(IdentityUtil.getProperty(
+                        IdentityRecoveryConstants.RECOVERY_DATA_EVENTS_ASYNC_QUEUE_FULL_POLICY)),
+                IdentityGovernanceUtil.getPositiveIntProperty(
+                        IdentityRecoveryConstants.RECOVERY_DATA_EVENTS_ASYNC_BATCH_SIZE,
+                        IdentityRecoveryConstants.RECOVERY_DATA_EVENTS_ASYNC_DEFAULT_BATCH_SIZE),
+                IdentityGovernanceUtil.getPositiveIntProperty(
+                        IdentityRecoveryConstants.RECOVERY_DATA_EVENTS_ASYNC_QUEUE_SIZE,
+                        IdentityRecoveryConstants.RECOVERY_DATA_EVENTS_ASYNC_DEFAULT_QUEUE_SIZE));
+    }
+
+    RecoveryDataEventPublisher(boolean skipUnsubscribedEvents, boolean asyncPublishingEnabled,
+                               boolean blockWhenQueueFull, int batchSize, int queueSize) {
+
+        this.skipUnsubscribedEvents = skipUnsubscribedEvents;
+        this.asyncPublishingEnabled = asyncPublishingEnabled;
+        this.blockWhenQueueFull = blockWhenQueueFull;
+        this.batchSize = batchSize;
+        this.eventQueue = asyncPublishingEnabled ? new ArrayBlockingQueue<>(queueSize) : null;
+    }
+
+    public static RecoveryDataEventPublisher getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Check whether an event handler subscribes to the given event.
+     *
+     * @param eventName Name of the event.
+     * @return True if the event needs to be published.
+     */
+    public boolean isSubscribed(String eventName) {
+
+        if (!skipUnsubscribedEvents) {
+            return true;
+        }
+        IdentityEventConfigBuilder configBuilder;
+        try {
+            configBuilder = IdentityEventConfigBuilder.getInstance();
+        } catch (IdentityEventException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Error while reading the event handler subscriptions. Publishing event: " + eventName, e);
+            }
+            return true;
+        }
+        if (configBuilder != subscriptionSource) {
+            // Subscriptions are loaded once from the event configuration.
+            subscribedEvents = getSubscribedEvents(configBuilder);
+            subscriptionSource = configBuilder;
+        }
+        return subscribedEvents.contains(eventName);
+    }
+
+    /**
+     * Publish the given event. The POST_ events are queued when asynchronous publishing is enabled.
+     *
+     * @param eventName  Name of the event.
+     * @param properties Properties of the event.
+     * @throws IdentityEventException If an event handler fails while handling a synchronously published event.
+     */
+    public void publish(String eventName, Map<String, Object> properties) throws IdentityEventException {
+
+        Event event = new Event(eventName, properties);
+        if (asyncPublishingEnabled && eventName.startsWith(POST_EVENT_PREFIX) && enqueue(event)) {
+            return;
+        }
+        IdentityRecoveryServiceDataHolder.getInstance().getIdentityEventService().handleEvent(event);
+        publishedCount.increment();
+    }
+
+    /**
+     * Stop the asynchronous publishing. The queued events are published before the worker thread stops, and the
+     * events published afterwards are published in the calling thread.
+     */
+    public synchronized void shutdown() {
+
+        shutdown = true;
+        running = false;
+        if (worker != null) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+    }
+
+    /**
+     * Get the number of events waiting to be published.
+     *
+     * @return Number of queued events.
+     */
+    public int getQueueDepth() {
+
+        return eventQueue != null ? eventQueue.size() : 0;
+    }
+
+    /**
+     * Get the highest number of events queued at a time.
+     *
+     * @return Highest number of queued events.
+     */
+    public int getMaxQueueDepth() {
+
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * Get the number of events published.
+     *
+     * @return Number of published events.
+     */
+    public long getPublishedCount() {
+
+        return publishedCount.sum();
+    }
+
+    /**
+     * Get the number of events dropped as the queue was full.
+     *
+     * @return Number of dropped events.
+     */
+    public long getDroppedCount() {
+
+        return droppedCount.sum();
+    }
+
+    /**
+     * Get the number of asynchronously published events which failed in an event handler.
+     *
+     * @return Number of failed events.
+     */
+    public long getFailedCount() {
+
+        return failedCount.sum();
+    }
+
+    private boolean enqueue(Event event) {
+
+        if (!startWorker()) {
+            return false;
+        }
+        boolean queued;
+        if (blockWhenQueueFull) {
+            try {
+                eventQueue.put(event);
+                queued = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+        } else {
+            queued = eventQueue.offer(event);
+        }
+        if (!queued) {
+            droppedCount.increment();
+            if (log.isDebugEnabled()) {
+                log.debug("Recovery data event queue is full. Dropped event: " + event.getEventName());
+            }
+            return true;
+        }
+        if (shutdown && eventQueue.remove(event)) {
+            // The worker thread may have stopped before the event was queued.
+            return false;
+        }
+        maxQueueDepth.accumulateAndGet(eventQueue.size(), Math::max);
+        return true;
+    }
+
+    private synchronized boolean startWorker() {
+
+        if (shutdown) {
+            return false;
+        }
+        if (worker != null) {
+            return true;
+        }
+        running = true;
+        worker = new Thread(this::publishQueuedEvents, WORKER_THREAD_NAME);
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    private void publishQueuedEvents() {
+
+        List<Event> batch = new ArrayList<>(batchSize);
+        while (running || !eventQueue.isEmpty()) {
+            Event event;
+            try {
+                event = eventQueue.poll(WORKER_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (event == null) {
+                continue;
+            }
+            batch.add(event);
+            eventQueue.drainTo(batch, batchSize - 1);
+            for (Event queuedEvent : batch) {
+                publishInTenantFlow(queuedEvent);
+            }
+            batch.clear();
+        }
+    }
+
+    private void publishInTenantFlow(Event event) {
+
+        String tenantDomain = (String) event.getEventProperties().get(
+                IdentityEventConstants.EventProperty.TENANT_DOMAIN);
+        try {
+            if (StringUtils.isNotBlank(tenantDomain)) {
+                PrivilegedCarbonContext.startTenantFlow();
+                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+            }
+            IdentityRecoveryServiceDataHolder.getInstance().getIdentityEventService().handleEvent(event);
+            publishedCount.increment();
+        } catch (IdentityEventException | RuntimeException e) {
+            failedCount.increment();
+            log.error("Error occurred while publishing event " + event.getEventName(), e);
+        } finally {
+            if (StringUtils.isNotBlank(tenantDomain)) {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+        }
+    }
+
+    private static boolean isSkipUnsubscribedEventsEnabled() {
+
+        String skipUnsubscribed = IdentityUtil.getProperty(
+                IdentityRecoveryConstants.RECOVERY_DATA_EVENTS_SKIP_UNSUBSCRIBED);
+        return StringUtils.isBlank(skipUnsubscribed) || Boolean.parseBoolean(skipUnsubscribed);
+    }
+
+    private Set<String> getSubscribedEvents(IdentityEventConfigBuilder configBuilder) {
+
+        Set<String> events = new HashSet<>();
+        Map<String, ModuleConfiguration> moduleConfigurations = configBuilder.getModuleConfiguration();
+        if (moduleConfigurations == null) {
+            return events;
+        }
+        for (Map.Entry<String, ModuleConfiguration> entry : moduleConfigurations.entrySet()) {
+            ModuleConfiguration moduleConfiguration = entry.getValue();
+            if (moduleConfiguration == null || moduleConfiguration.getSubscriptions() == null ||
+                    moduleConfiguration.getSubscriptions().isEmpty()) {
+                log.warn("Event handler: " + entry.getKey() + " has no subscriptions, hence it will not receive " +
+                        "the recovery data events, as " +
+                        IdentityRecoveryConstants.RECOVERY_DATA_EVENTS_SKIP_UNSUBSCRIBED + " is enabled.");
+                continue;
+            }
+            for (Subscription subscription : moduleConfiguration.getSubscriptions()) {
+                events.add(subscription.getSubscriptionName());
+            }
+        }
+        return events;
+    }
+}
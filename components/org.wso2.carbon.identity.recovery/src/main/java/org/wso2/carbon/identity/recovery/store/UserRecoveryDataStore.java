@@ -21,6 +21,7 @@ package org.wso2.carbon.identity.recovery.store;
 import org.apache.commons.lang.NotImplementedException;
 import org.wso2.carbon.identity.application.common.model.User;
 import org.wso2.carbon.identity.recovery.IdentityRecoveryException;
+import org.wso2.carbon.identity.recovery.model.RecoveryDataPurgeResult;
 import org.wso2.carbon.identity.recovery.model.UserRecoveryData;
 import org.wso2.carbon.identity.recovery.model.UserRecoveryFlowData;
 
@@ -78,6 +79,19 @@ public interface UserRecoveryDataStore {
     void invalidate(String code) throws
             IdentityRecoveryException;
 
+    /**
+     * Invalidate the recovery entry with the given persisted code, such as the secret of a previously loaded recovery
+     * entry. Unlike {@link #invalidate(String)}, the code is matched as it is persisted, hence this must not be used
+     * with a code sent by a client.
+     *
+     * @param storedCode Persisted code.
+     * @throws IdentityRecoveryException If an error occurred while invalidating the code.
+     */
+    default void invalidateStoredCode(String storedCode) throws IdentityRecoveryException {
+
+        invalidate(storedCode);
+    }
+
     void invalidate(User user) throws
             IdentityRecoveryException;
 
@@ -96,6 +110,40 @@ public interface UserRecoveryDataStore {
 
     }
 
+    /**
+     * Scan a chunk of the recovery data created before the given time in the order of the creation time and delete
+     * the entries which have passed the expiry time of their recovery scenario, together with their recovery flow
+     * data once the recovery flow has also expired.
+     *
+     * @param previousChunk Result of the previously purged chunk, or null to start from the oldest entry.
+     * @param createdBefore Only the recovery data created before this time (in milliseconds) are scanned.
+     * @param chunkSize     Maximum number of entries to be scanned.
+     * @return Result of the purged chunk.
+     * @throws IdentityRecoveryException If an error occurred while purging the recovery data.
+     * @throws NotImplementedException   If the functionality is not implemented.
+     */
+    default RecoveryDataPurgeResult purgeExpiredRecoveryData(RecoveryDataPurgeResult previousChunk, long createdBefore,
+                                                             int chunkSize)
+            throws IdentityRecoveryException, NotImplementedException {
+
+        throw new NotImplementedException("This functionality is not implemented");
+    }
+
+    /**
+     * Delete a chunk of the recovery flow data which are not referred by any recovery data.
+     *
+     * @param createdBefore Only the recovery flow data created before this time (in milliseconds) are deleted.
+     * @param chunkSize     Maximum number of entries to be deleted.
+     * @return Number of deleted entries.
+     * @throws IdentityRecoveryException If an error occurred while purging the recovery flow data.
+     * @throws NotImplementedException   If the functionality is not implemented.
+     */
+    default int purgeOrphanedRecoveryFlowData(long createdBefore, int chunkSize)
+            throws IdentityRecoveryException, NotImplementedException {
+
+        throw new NotImplementedException("This functionality is not implemented");
+    }
+
     /**
      * Update the existing recovery entry of the existing code and replace with a new code, recovery step and channel list
      * by not changing the existing code creation time.
@@ -108,4 +156,21 @@ public interface UserRecoveryDataStore {
      */
     void invalidateWithoutChangeTimeCreated(String oldCode, String code, Enum recoveryStep, String channelList)
             throws IdentityRecoveryException;
+
+    /**
+     * Replace the persisted code of an existing recovery entry with a new code, recovery step and channel list by not
+     * changing the existing code creation time. Unlike {@link #invalidateWithoutChangeTimeCreated}, the existing code
+     * is matched as it is persisted, hence this must not be used with a code sent by a client.
+     *
+     * @param oldStoredCode Persisted code of the existing entry.
+     * @param code          Newly created code which replaces the existing code.
+     * @param recoveryStep  Recovery step that needs to be updated in the database.
+     * @param channelList   String which contains the list of channels to be updated.
+     * @throws IdentityRecoveryException If an error occurred during the update operation.
+     */
+    default void invalidateStoredCodeWithoutChangeTimeCreated(String oldStoredCode, String code, Enum recoveryStep,
+                                                             String channelList) throws IdentityRecoveryException {
+
+        invalidateWithoutChangeTimeCreated(oldStoredCode, code, recoveryStep, channelList);
+    }
 }
@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.recovery.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.governance.IdentityGovernanceException;
+import org.wso2.carbon.identity.governance.model.GovernanceConfigSnapshot;
+import org.wso2.carbon.identity.governance.service.notification.NotificationChannels;
+import org.wso2.carbon.identity.recovery.IdentityRecoveryConstants;
+import org.wso2.carbon.identity.recovery.IdentityRecoveryConstants.ConnectorConfig;
+import org.wso2.carbon.identity.recovery.IdentityRecoveryServerException;
+import org.wso2.carbon.identity.recovery.RecoveryScenarios;
+import org.wso2.carbon.identity.recovery.RecoverySteps;
+import org.wso2.carbon.identity.recovery.internal.IdentityRecoveryServiceDataHolder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable table of the expiry times of the recovery codes of a tenant, indexed by the recovery scenario and the
+ * recovery step. The table is built from the governance configurations of the tenant and is built again only when
+ * the expiry related configurations of the tenant change.
+ */
+public final class RecoveryCodeExpiryTable {
+
+    private static final Log log = LogFactory.getLog(RecoveryCodeExpiryTable.class);
+
+    private static final String[] EXPIRY_CONFIGS = {
+            ConnectorConfig.EXPIRY_TIME,
+            ConnectorConfig.ASK_PASSWORD_EXPIRY_TIME,
+            ConnectorConfig.PASSWORD_RECOVERY_SMS_OTP_EXPIRY_TIME,
+            ConnectorConfig.RECOVERY_NOTIFICATION_PASSWORD_MAX_RESEND_ATTEMPTS,
+            ConnectorConfig.SELF_REGISTRATION_VERIFICATION_CODE_EXPIRY_TIME,
+            ConnectorConfig.SELF_REGISTRATION_SMSOTP_VERIFICATION_CODE_EXPIRY_TIME,
+            ConnectorConfig.LITE_REGISTRATION_VERIFICATION_CODE_EXPIRY_TIME,
+            ConnectorConfig.LITE_REGISTRATION_SMSOTP_VERIFICATION_CODE_EXPIRY_TIME,
+            ConnectorConfig.EMAIL_VERIFICATION_ON_UPDATE_EXPIRY_TIME,
+            ConnectorConfig.MOBILE_NUM_VERIFICATION_ON_UPDATE_EXPIRY_TIME,
+            ConnectorConfig.ADMIN_PASSWORD_RESET_EXPIRY_TIME
+    };
+
+    private static final Map<String, RecoveryCodeExpiryTable> expiryTables = new ConcurrentHashMap<>();
+
+    private volatile GovernanceConfigSnapshot configSnapshot;
+    private final String[] configValues;
+    private final EnumMap<RecoveryScenarios, EnumMap<RecoverySteps, Duration>> expiryTimes =
+            new EnumMap<>(RecoveryScenarios.class);
+    // Expiry times which differ when the code is sent through the SMS channel.
+    private final EnumMap<RecoveryScenarios, EnumMap<RecoverySteps, Duration>> smsExpiryTimes =
+            new EnumMap<>(RecoveryScenarios.class);
+    private final Duration defaultExpiryTime;
+    private final Duration recoveryFlowIdExpiryTime;
+    private final Duration smsRecoveryFlowIdExpiryTime;
+
+    private RecoveryCodeExpiryTable(GovernanceConfigSnapshot configSnapshot, String[] configValues) {
+
+        this.configSnapshot = configSnapshot;
+        this.configValues = configValues;
+
+        Duration recoveryCodeExpiryTime = toDuration(getServerConfig(ConnectorConfig.RECOVERY_CODE_EXPIRY_TIME,
+                IdentityRecoveryConstants.RECOVERY_CODE_DEFAULT_EXPIRY_TIME));
+        Duration resendCodeExpiryTime = toDuration(getServerConfig(ConnectorConfig.RESEND_CODE_EXPIRY_TIME,
+                IdentityRecoveryConstants.RESEND_CODE_DEFAULT_EXPIRY_TIME));
+        Duration tenantAdminAskPasswordExpiryTime =
+                toDuration(getServerConfig(ConnectorConfig.TENANT_ADMIN_ASK_PASSWORD_EXPIRY_TIME, null));
+        defaultExpiryTime = getExpiryTime(configSnapshot, ConnectorConfig.EXPIRY_TIME);
+
+        for (RecoveryScenarios scenario : RecoveryScenarios.values()) {
+            EnumMap<RecoverySteps, Duration> stepExpiryTimes = new EnumMap<>(RecoverySteps.class);
+            EnumMap<RecoverySteps, Duration> smsStepExpiryTimes = new EnumMap<>(RecoverySteps.class);
+            for (RecoverySteps step : RecoverySteps.values()) {
+                Duration expiryTime;
+                Duration smsExpiryTime = null;
+                if (RecoveryScenarios.SELF_SIGN_UP.equals(scenario) && RecoverySteps.CONFIRM_SIGN_UP.equals(step)) {
+                    expiryTime = getExpiryTime(configSnapshot,
+                            ConnectorConfig.SELF_REGISTRATION_VERIFICATION_CODE_EXPIRY_TIME);
+                    smsExpiryTime = getExpiryTime(configSnapshot,
+                            ConnectorConfig.SELF_REGISTRATION_SMSOTP_VERIFICATION_CODE_EXPIRY_TIME);
+                } else if (RecoveryScenarios.ASK_PASSWORD.equals(scenario)) {
+                    expiryTime = getExpiryTime(configSnapshot, ConnectorConfig.ASK_PASSWORD_EXPIRY_TIME);
+                } else if (RecoveryScenarios.USERNAME_RECOVERY.equals(scenario)) {
+                    expiryTime = recoveryCodeExpiryTime;
+                } else if (RecoveryScenarios.NOTIFICATION_BASED_PW_RECOVERY.equals(scenario)) {
+                    if (RecoverySteps.RESEND_CONFIRMATION_CODE.equals(step)) {
+                        expiryTime = resendCodeExpiryTime;
+                    } else if (RecoverySteps.SEND_RECOVERY_INFORMATION.equals(step)) {
+                        expiryTime = recoveryCodeExpiryTime;
+                    } else {
+                        expiryTime = defaultExpiryTime;
+                        smsExpiryTime = getExpiryTime(configSnapshot,
+                                ConnectorConfig.PASSWORD_RECOVERY_SMS_OTP_EXPIRY_TIME);
+                    }
+                } else if (RecoveryScenarios.EMAIL_VERIFICATION_ON_UPDATE.equals(scenario) ||
+                        RecoveryScenarios.EMAIL_VERIFICATION_ON_VERIFIED_LIST_UPDATE.equals(scenario)) {
+                    expiryTime = getExpiryTime(configSnapshot,
+                            ConnectorConfig.EMAIL_VERIFICATION_ON_UPDATE_EXPIRY_TIME);
+                } else if (RecoveryScenarios.TENANT_ADMIN_ASK_PASSWORD.equals(scenario)) {
+                    expiryTime = tenantAdminAskPasswordExpiryTime;
+                } else if (RecoveryScenarios.LITE_SIGN_UP.equals(scenario) &&
+                        RecoverySteps.CONFIRM_LITE_SIGN_UP.equals(step)) {
+                    expiryTime = getExpiryTime(configSnapshot,
+                            ConnectorConfig.LITE_REGISTRATION_VERIFICATION_CODE_EXPIRY_TIME);
+                    smsExpiryTime = getExpiryTime(configSnapshot,
+                            ConnectorConfig.LITE_REGISTRATION_SMSOTP_VERIFICATION_CODE_EXPIRY_TIME);
+                } else if (RecoveryScenarios.MOBILE_VERIFICATION_ON_UPDATE.equals(scenario) ||
+                        RecoveryScenarios.MOBILE_VERIFICATION_ON_VERIFIED_LIST_UPDATE.equals(scenario)) {
+                    expiryTime = getExpiryTime(configSnapshot,
+                            ConnectorConfig.MOBILE_NUM_VERIFICATION_ON_UPDATE_EXPIRY_TIME);
+                } else if (RecoveryScenarios.ADMIN_FORCED_PASSWORD_RESET_VIA_EMAIL_LINK.equals(scenario) ||
+                        RecoveryScenarios.ADMIN_FORCED_PASSWORD_RESET_VIA_OTP.equals(scenario) ||
+                        RecoveryScenarios.ADMIN_FORCED_PASSWORD_RESET_VIA_SMS_OTP.equals(scenario)) {
+                    expiryTime = getExpiryTime(configSnapshot, ConnectorConfig.ADMIN_PASSWORD_RESET_EXPIRY_TIME);
+                } else {
+                    expiryTime = defaultExpiryTime;
+                }
+                stepExpiryTimes.put(step, expiryTime);
+                if (smsExpiryTime != null) {
+                    smsStepExpiryTimes.put(step, smsExpiryTime);
+                }
+            }
+            expiryTimes.put(scenario, stepExpiryTimes);
+            if (!smsStepExpiryTimes.isEmpty()) {
+                smsExpiryTimes.put(scenario, smsStepExpiryTimes);
+            }
+        }
+
+        recoveryFlowIdExpiryTime = toRecoveryFlowIdExpiryTime(
+                configSnapshot.isInt(ConnectorConfig.EXPIRY_TIME) ?
+                        configSnapshot.getInt(ConnectorConfig.EXPIRY_TIME, 0) : null);
+        if (configSnapshot.isInt(ConnectorConfig.PASSWORD_RECOVERY_SMS_OTP_EXPIRY_TIME) &&
+                configSnapshot.isInt(ConnectorConfig.RECOVERY_NOTIFICATION_PASSWORD_MAX_RESEND_ATTEMPTS)) {
+            smsRecoveryFlowIdExpiryTime = toRecoveryFlowIdExpiryTime(
+                    configSnapshot.getInt(ConnectorConfig.PASSWORD_RECOVERY_SMS_OTP_EXPIRY_TIME, 0) *
+                            configSnapshot.getInt(ConnectorConfig.RECOVERY_NOTIFICATION_PASSWORD_MAX_RESEND_ATTEMPTS,
+                                    0));
+        } else {
+            smsRecoveryFlowIdExpiryTime = null;
+        }
+    }
+
+    /**
+     * Get the expiry table of a tenant. The table is built again if the expiry related governance configurations of
+     * the tenant have changed since it was built.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Expiry table of the tenant.
+     * @throws IdentityRecoveryServerException If the governance configurations cannot be loaded.
+     */
+    public static RecoveryCodeExpiryTable getExpiryTable(String tenantDomain) throws IdentityRecoveryServerException {
+
+        GovernanceConfigSnapshot configSnapshot;
+        try {
+            configSnapshot = IdentityRecoveryServiceDataHolder.getInstance().getIdentityGovernanceService()
+                    .getConfigurationSnapshot(tenantDomain);
+        } catch (IdentityGovernanceException e) {
+            throw Utils.handleServerException(
+                    IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_ISSUE_IN_LOADING_RECOVERY_CONFIGS, null, e);
+        }
+
+        RecoveryCodeExpiryTable expiryTable = expiryTables.get(tenantDomain);
+        if (expiryTable != null && expiryTable.configSnapshot == configSnapshot) {
+            return expiryTable;
+        }
+        String[] configValues = new String[EXPIRY_CONFIGS.length];
+        for (int i = 0; i < EXPIRY_CONFIGS.length; i++) {
+            configValues[i] = configSnapshot.getValue(EXPIRY_CONFIGS[i]);
+        }
+        if (expiryTable != null && Arrays.equals(expiryTable.configValues, configValues)) {
+            // The configurations were reloaded, but the expiry related configurations are not changed.
+            expiryTable.configSnapshot = configSnapshot;
+            return expiryTable;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Building the recovery code expiry table of tenant: " + tenantDomain);
+        }
+        expiryTable = new RecoveryCodeExpiryTable(configSnapshot, configValues);
+        expiryTables.put(tenantDomain, expiryTable);
+        return expiryTable;
+    }
+
+    /**
+     * Remove the expiry table of a tenant.
+     *
+     * @param tenantDomain Tenant domain.
+     */
+    public static void clearExpiryTable(String tenantDomain) {
+
+        expiryTables.remove(tenantDomain);
+    }
+
+    /**
+     * Get the expiry time of the codes issued for a recovery scenario and step.
+     *
+     * @param recoveryScenario Recovery scenario.
+     * @param recoveryStep     Recovery step.
+     * @param channel          Notification channel the code was sent through, if known.
+     * @return Expiry time of the code. Codes which do not expire have an expiry time of Integer.MAX_VALUE minutes.
+     * @throws IdentityRecoveryServerException If the expiry time is not configured or not a valid integer.
+     */
+    public Duration getExpiryTime(Enum recoveryScenario, Enum recoveryStep, String channel)
+            throws IdentityRecoveryServerException {
+
+        Duration expiryTime;
+        if (recoveryScenario instanceof RecoveryScenarios && recoveryStep instanceof RecoverySteps) {
+            expiryTime = null;
+            if (NotificationChannels.SMS_CHANNEL.getChannelType().equals(channel)) {
+                Map<RecoverySteps, Duration> smsStepExpiryTimes = smsExpiryTimes.get(recoveryScenario);
+                expiryTime = smsStepExpiryTimes != null ? smsStepExpiryTimes.get(recoveryStep) : null;
+            }
+            if (expiryTime == null) {
+                expiryTime = expiryTimes.get(recoveryScenario).get(recoveryStep);
+            }
+        } else {
+            expiryTime = defaultExpiryTime;
+        }
+        if (expiryTime == null) {
+            throw Utils.handleServerException(
+                    IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_ISSUE_IN_LOADING_RECOVERY_CONFIGS, null);
+        }
+        return expiryTime;
+    }
+
+    /**
+     * Get the time at which a code issued for a recovery scenario and step expires.
+     *
+     * @param recoveryScenario Recovery scenario.
+     * @param recoveryStep     Recovery step.
+     * @param channel          Notification channel the code was sent through, if known.
+     * @param createdTimestamp Time the code was issued, in milliseconds.
+     * @return Expiry deadline of the code, in milliseconds.
+     * @throws IdentityRecoveryServerException If the expiry time is not configured or not a valid integer.
+     */
+    public long getExpiryDeadline(Enum recoveryScenario, Enum recoveryStep, String channel, long createdTimestamp)
+            throws IdentityRecoveryServerException {
+
+        return createdTimestamp + getExpiryTime(recoveryScenario, recoveryStep, channel).toMillis();
+    }
+
+    /**
+     * Check whether a code issued for a recovery scenario and step has expired.
+     *
+     * @param recoveryScenario Recovery scenario.
+     * @param recoveryStep     Recovery step.
+     * @param channel          Notification channel the code was sent through, if known.
+     * @param createdTimestamp Time the code was issued, in milliseconds.
+     * @return True if the code has expired.
+     * @throws IdentityRecoveryServerException If the expiry time is not configured or not a valid integer.
+     */
+    public boolean isExpired(Enum recoveryScenario, Enum recoveryStep, String channel, long createdTimestamp)
+            throws IdentityRecoveryServerException {
+
+        return System.currentTimeMillis() > getExpiryDeadline(recoveryScenario, recoveryStep, channel,
+                createdTimestamp);
+    }
+
+    /**
+     * Get the expiry time of a recovery flow id.
+     *
+     * @param channel Notification channel the recovery code of the flow was sent through, if known.
+     * @return Expiry time of the recovery flow id.
+     * @throws IdentityRecoveryServerException If the expiry time is not configured or not a valid integer.
+     */
+    public Duration getRecoveryFlowIdExpiryTime(String channel) throws IdentityRecoveryServerException {
+
+        Duration expiryTime = NotificationChannels.SMS_CHANNEL.getChannelType().equals(channel) ?
+                smsRecoveryFlowIdExpiryTime : recoveryFlowIdExpiryTime;
+        if (expiryTime == null) {
+            throw Utils.handleServerException(
+                    IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_ISSUE_IN_LOADING_RECOVERY_CONFIGS, null);
+        }
+        return expiryTime;
+    }
+
+    /**
+     * Check whether a recovery flow id has expired.
+     *
+     * @param channel          Notification channel the recovery code of the flow was sent through, if known.
+     * @param createdTimestamp Time the recovery flow id was issued, in milliseconds.
+     * @return True if the recovery flow id has expired.
+     * @throws IdentityRecoveryServerException If the expiry time is not configured or not a valid integer.
+     */
+    public boolean isRecoveryFlowIdExpired(String channel, long createdTimestamp)
+            throws IdentityRecoveryServerException {
+
+        return System.currentTimeMillis() > createdTimestamp + getRecoveryFlowIdExpiryTime(channel).toMillis();
+    }
+
+    private static Duration getExpiryTime(GovernanceConfigSnapshot configSnapshot, String configName) {
+
+        return configSnapshot.isInt(configName) ? toDuration(configSnapshot.getInt(configName, 0)) : null;
+    }
+
+    private static Integer getServerConfig(String configName, Integer defaultValue) {
+
+        String value = IdentityUtil.getProperty(configName);
+        if (StringUtils.isEmpty(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Invalid value: " + value + " configured for: " + configName + ". Using the default " +
+                        "value: " + defaultValue);
+            }
+            return defaultValue;
+        }
+    }
+
+    private static Duration toDuration(Integer expiryTimeInMinutes) {
+
+        if (expiryTimeInMinutes == null) {
+            return null;
+        }
+        // Make the code valid infinitely in case of negative value.
+        return Duration.ofMinutes(expiryTimeInMinutes < 0 ? Integer.MAX_VALUE : expiryTimeInMinutes);
+    }
+
+    private static Duration toRecoveryFlowIdExpiryTime(Integer expiryTimeInMinutes) {
+
+        if (expiryTimeInMinutes == null) {
+            return null;
+        }
+        return Duration.ofMinutes(expiryTimeInMinutes < 1 ?
+                IdentityRecoveryConstants.RECOVERY_FLOW_ID_DEFAULT_EXPIRY_TIME : expiryTimeInMinutes);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.recovery.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.recovery.IdentityRecoveryClientException;
+import org.wso2.carbon.identity.recovery.IdentityRecoveryConstants;
+import org.wso2.carbon.identity.recovery.IdentityRecoveryServerException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Keyed hashing of the recovery codes persisted in the recovery data store. When hashing is enabled, the codes are
+ * persisted as a fixed length HMAC-SHA256 of the code, so that the codes are not kept in plain text and are looked
+ * up with an equality match on the indexed code column. The codes persisted in plain text before hashing was
+ * enabled are still matched until they expire.
+ */
+public final class RecoveryCodeHasher {
+
+    /**
+     * Prefix which distinguishes a hashed code from a plain text code.
+     */
+    public static final String HASHED_CODE_PREFIX = "{hmac-sha256}";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private RecoveryCodeHasher() {
+
+    }
+
+    /**
+     * Check whether the recovery codes are persisted as hashes. Hashing requires a hashing key to be configured.
+     *
+     * @return True if the recovery codes are hashed.
+     */
+    public static boolean isHashingEnabled() {
+
+        String hashingEnabled = IdentityUtil.getProperty(IdentityRecoveryConstants.RECOVERY_CODE_HASHING_ENABLE);
+        return Boolean.parseBoolean(hashingEnabled) &&
+                StringUtils.isNotBlank(IdentityUtil.getProperty(IdentityRecoveryConstants.RECOVERY_CODE_HASHING_KEY));
+    }
+
+    /**
+     * Get the value to be persisted for the given recovery code.
+     *
+     * @param code Recovery code.
+     * @return Hash of the code if hashing is enabled, otherwise the code.
+     * @throws IdentityRecoveryServerException If the code cannot be hashed.
+     */
+    public static String toStoredCode(String code) throws IdentityRecoveryServerException {
+
+        if (code == null || isHashed(code) || !isHashingEnabled()) {
+            return code;
+        }
+        return hash(code);
+    }
+
+    /**
+     * Get the keyed hash of the given recovery code.
+     *
+     * @param code Recovery code.
+     * @return Hash of the code, or null if a hashing key is not configured.
+     * @throws IdentityRecoveryServerException If the code cannot be hashed.
+     */
+    public static String hash(String code) throws IdentityRecoveryServerException {
+
+        String hashingKey = IdentityUtil.getProperty(IdentityRecoveryConstants.RECOVERY_CODE_HASHING_KEY);
+        if (code == null || StringUtils.isBlank(hashingKey)) {
+            return null;
+        }
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(hashingKey.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            return HASHED_CODE_PREFIX + Base64.getEncoder().encodeToString(
+                    mac.doFinal(code.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw Utils.handleServerException(
+                    IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_NO_HASHING_ALGO_FOR_CODE, null, e);
+        }
+    }
+
+    /**
+     * Get the values to be matched against the persisted codes to find the given recovery code sent by a client. The
+     * hash of the code is matched first, followed by the plain text code persisted before hashing was enabled. A code
+     * which carries the hash prefix is rejected, as it can only be a persisted hash sent back by the client.
+     *
+     * @param code Recovery code sent by the client.
+     * @return Hash of the code and the code.
+     * @throws IdentityRecoveryClientException If the code carries the hash prefix.
+     * @throws IdentityRecoveryServerException If the code cannot be hashed.
+     */
+    public static String[] getLookupCodes(String code) throws IdentityRecoveryClientException,
+            IdentityRecoveryServerException {
+
+        if (isHashed(code)) {
+            throw Utils.handleClientException(IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_INVALID_CODE, null);
+        }
+        String hashedCode = hash(code);
+        return new String[]{hashedCode != null ? hashedCode : code, code};
+    }
+
+    /**
+     * Get the values to be matched against the persisted codes to find an entry by its persisted code, such as the
+     * secret of a previously loaded recovery entry. This is for the internal callers only, and must not be used with
+     * a code sent by a client.
+     *
+     * @param storedCode Persisted code, which is either a hash or a plain text code.
+     * @return The persisted code, to be matched as it is.
+     */
+    public static String[] getStoredLookupCodes(String storedCode) {
+
+        return new String[]{storedCode, storedCode};
+    }
+
+    /**
+     * Check whether the given persisted code is a hash.
+     *
+     * @param storedCode Persisted code.
+     * @return True if the persisted code is a hash.
+     */
+    public static boolean isHashed(String storedCode) {
+
+        return storedCode != null && storedCode.startsWith(HASHED_CODE_PREFIX);
+    }
+
+    /**
+     * Check whether the given recovery code sent by a client matches the persisted code. A code which carries the
+     * hash prefix never matches, as it can only be a persisted hash sent back by the client.
+     *
+     * @param code       Recovery code sent by the client.
+     * @param storedCode Persisted code, which is either a hash or a plain text code.
+     * @return True if the code matches.
+     * @throws IdentityRecoveryServerException If the code cannot be hashed.
+     */
+    public static boolean matches(String code, String storedCode) throws IdentityRecoveryServerException {
+
+        if (code == null || storedCode == null || isHashed(code)) {
+            return false;
+        }
+        String expectedCode = isHashed(storedCode) ? hash(code) : code;
+        return expectedCode != null && MessageDigest.isEqual(expectedCode.getBytes(StandardCharsets.UTF_8),
+                storedCode.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1584,6 +1584,10 @@ public class Utils {
         if (recoveryDataDO == null) {
             return false;
         }
+        // A hashed code cannot be sent to the user again.
+        if (RecoveryCodeHasher.isHashed(recoveryDataDO.getSecret())) {
+            return false;
+        }
 
         int codeToleranceInMinutes = 0;
         long codeToleranceTimeInMillis = 0;
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.recovery.internal;
+
+import org.apache.axis2.clustering.ClusteringAgent;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.recovery.IdentityRecoveryConstants;
+import org.wso2.carbon.identity.recovery.model.RecoveryDataPurgeResult;
+import org.wso2.carbon.identity.recovery.store.UserRecoveryDataStore;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for RecoveryDataPurgeScheduler.
+ */
+public class RecoveryDataPurgeSchedulerTest {
+
+    private UserRecoveryDataStore userRecoveryDataStore;
+    private MockedStatic<IdentityUtil> mockedIdentityUtil;
+    private ClusteringAgent originalClusteringAgent;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        userRecoveryDataStore = mock(UserRecoveryDataStore.class);
+        when(userRecoveryDataStore.purgeExpiredRecoveryData(isNull(), anyLong(), anyInt()))
+                .thenReturn(new RecoveryDataPurgeResult(2, 1, new Timestamp(0), "code", true));
+        mockedIdentityUtil = mockStatic(IdentityUtil.class);
+        originalClusteringAgent = IdentityRecoveryServiceDataHolder.getInstance().getClusteringAgent();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        mockedIdentityUtil.close();
+        IdentityRecoveryServiceDataHolder.getInstance().setClusteringAgent(originalClusteringAgent);
+    }
+
+    @Test
+    public void testPurgeIsSkippedWithoutClustering() throws Exception {
+
+        IdentityRecoveryServiceDataHolder.getInstance().setClusteringAgent(null);
+        new RecoveryDataPurgeScheduler(userRecoveryDataStore).purge();
+        verify(userRecoveryDataStore, never()).purgeExpiredRecoveryData(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void testPurgeRunsInNodeConfiguredWithoutClustering() throws Exception {
+
+        IdentityRecoveryServiceDataHolder.getInstance().setClusteringAgent(null);
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty(
+                IdentityRecoveryConstants.RECOVERY_DATA_PURGE_WITHOUT_CLUSTERING)).thenReturn("true");
+        RecoveryDataPurgeScheduler scheduler = new RecoveryDataPurgeScheduler(userRecoveryDataStore);
+        scheduler.purge();
+
+        assertEquals(scheduler.getLastRunScannedCount(), 2);
+        assertEquals(scheduler.getLastRunDeletedCount(), 1);
+        assertEquals(scheduler.getTotalDeletedCount(), 1);
+    }
+
+    @Test
+    public void testPurgeIsSkippedInNonCoordinatorNode() throws Exception {
+
+        ClusteringAgent clusteringAgent = mock(ClusteringAgent.class);
+        when(clusteringAgent.isCoordinator()).thenReturn(false);
+        IdentityRecoveryServiceDataHolder.getInstance().setClusteringAgent(clusteringAgent);
+        // The coordinator decides in a cluster, irrespective of the configuration of the node.
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty(
+                IdentityRecoveryConstants.RECOVERY_DATA_PURGE_WITHOUT_CLUSTERING)).thenReturn("true");
+        new RecoveryDataPurgeScheduler(userRecoveryDataStore).purge();
+        verify(userRecoveryDataStore, never()).purgeExpiredRecoveryData(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void testPurgeScansDataOlderThanRetentionTime() throws Exception {
+
+        ClusteringAgent clusteringAgent = mock(ClusteringAgent.class);
+        when(clusteringAgent.isCoordinator()).thenReturn(true);
+        IdentityRecoveryServiceDataHolder.getInstance().setClusteringAgent(clusteringAgent);
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty(
+                IdentityRecoveryConstants.RECOVERY_DATA_PURGE_RETENTION_TIME)).thenReturn("30");
+        long startTime = System.currentTimeMillis();
+        new RecoveryDataPurgeScheduler(userRecoveryDataStore).purge();
+
+        ArgumentCaptor<Long> createdBefore = ArgumentCaptor.forClass(Long.class);
+        verify(userRecoveryDataStore).purgeExpiredRecoveryData(isNull(), createdBefore.capture(), anyInt());
+        long retentionTime = TimeUnit.MINUTES.toMillis(30);
+        assertTrue(createdBefore.getValue() >= startTime - retentionTime);
+        assertTrue(createdBefore.getValue() <= System.currentTimeMillis() - retentionTime);
+    }
+}
@@ -26,6 +26,7 @@ import org.testng.annotations.BeforeTest;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.application.common.model.User;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataManagementService;
@@ -57,13 +58,16 @@ import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.carbon.user.core.claim.ClaimManager;
 import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
 import org.wso2.carbon.user.core.model.Condition;
+import org.wso2.carbon.user.core.model.UserMgtContext;
 import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.mockito.ArgumentMatchers.eq;
@@ -86,6 +90,7 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * Class which contains the test cases for UserAccountRecoveryManager.
@@ -1225,6 +1230,106 @@ public class UserAccountRecoveryManagerTest {
         }
     }
 
+    /**
+     * Test retrieving the users of the claims when the userstore domains are looked up concurrently.
+     *
+     * @throws Exception Error while retrieving the users.
+     */
+    @Test
+    public void testGetUserListByClaimsWithConcurrentUserLookup() throws Exception {
+
+        mockUserstoreManager();
+        AbstractUserStoreManager primaryUserStoreManager = mock(AbstractUserStoreManager.class);
+        AbstractUserStoreManager secondaryUserStoreManager = mock(AbstractUserStoreManager.class);
+        RealmConfiguration realmConfiguration = mock(RealmConfiguration.class);
+        when(realmConfiguration.getUserStoreProperty("DomainName")).thenReturn("secondary");
+        when(secondaryUserStoreManager.getRealmConfiguration()).thenReturn(realmConfiguration);
+        when(primaryUserStoreManager.getSecondaryUserStoreManager()).thenReturn(secondaryUserStoreManager);
+        when(userRealm.getUserStoreManager()).thenReturn(primaryUserStoreManager);
+        when(claimManager.getAttributeName(anyString(), anyString()))
+                .thenReturn("http://wso2.org/claims/mockedClaim");
+        when(identityRecoveryServiceDataHolder.getMultiAttributeLoginService())
+                .thenReturn(multiAttributeLoginService);
+        when(multiAttributeLoginService.isEnabled(anyString())).thenReturn(false);
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty(
+                IdentityRecoveryConstants.USER_LOOKUP_CONCURRENT_ENABLE)).thenReturn("true");
+        mockedUtils.when(() -> Utils.handleClientException(
+                        IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_MULTIPLE_MATCHING_USERS, null))
+                .thenReturn(IdentityException.error(IdentityRecoveryClientException.class,
+                        IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_MULTIPLE_MATCHING_USERS.getCode(), ""));
+
+        // Only the secondary userstore has a matching user.
+        when(primaryUserStoreManager.getUserListWithID(any(Condition.class), eq("PRIMARY"), anyString(), anyInt(),
+                anyInt(), isNull(), isNull())).thenReturn(new ArrayList<>());
+        when(primaryUserStoreManager.getUserListWithID(any(Condition.class), eq("SECONDARY"), anyString(), anyInt(),
+                anyInt(), isNull(), isNull())).thenReturn(getOneFilteredUser());
+        List<org.wso2.carbon.user.core.common.User> users = userAccountRecoveryManager.getUserListByClaims(
+                buildUserClaimsMap(), MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        assertEquals(users.size(), 1);
+        assertEquals(users.get(0).getUsername(), "sominda1");
+        assertTrue(userAccountRecoveryManager.getDomainLookupMetrics().get("SECONDARY").getLookupCount() > 0);
+
+        // A match in each userstore makes the request ambiguous.
+        when(primaryUserStoreManager.getUserListWithID(any(Condition.class), eq("PRIMARY"), anyString(), anyInt(),
+                anyInt(), isNull(), isNull())).thenReturn(getOneFilteredUser());
+        try {
+            userAccountRecoveryManager.getUserListByClaims(buildUserClaimsMap(),
+                    MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+            fail("Multiple matching users should not be returned.");
+        } catch (IdentityRecoveryClientException e) {
+            assertEquals(e.getErrorCode(),
+                    IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_MULTIPLE_MATCHING_USERS.getCode());
+        }
+    }
+
+    /**
+     * Test whether the concurrent userstore lookups run in the context of the caller.
+     *
+     * @throws Exception Error while retrieving the users.
+     */
+    @Test
+    public void testConcurrentUserLookupPropagatesCallerContext() throws Exception {
+
+        mockUserstoreManager();
+        AbstractUserStoreManager primaryUserStoreManager = mock(AbstractUserStoreManager.class);
+        AbstractUserStoreManager secondaryUserStoreManager = mock(AbstractUserStoreManager.class);
+        RealmConfiguration realmConfiguration = mock(RealmConfiguration.class);
+        when(realmConfiguration.getUserStoreProperty("DomainName")).thenReturn("secondary");
+        when(secondaryUserStoreManager.getRealmConfiguration()).thenReturn(realmConfiguration);
+        when(primaryUserStoreManager.getSecondaryUserStoreManager()).thenReturn(secondaryUserStoreManager);
+        when(userRealm.getUserStoreManager()).thenReturn(primaryUserStoreManager);
+        when(claimManager.getAttributeName(anyString(), anyString()))
+                .thenReturn("http://wso2.org/claims/mockedClaim");
+        when(identityRecoveryServiceDataHolder.getMultiAttributeLoginService())
+                .thenReturn(multiAttributeLoginService);
+        when(multiAttributeLoginService.isEnabled(anyString())).thenReturn(false);
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty(
+                IdentityRecoveryConstants.USER_LOOKUP_CONCURRENT_ENABLE)).thenReturn("true");
+
+        List<String> lookupUsernames = new CopyOnWriteArrayList<>();
+        List<UserMgtContext> lookupUserMgtContexts = new CopyOnWriteArrayList<>();
+        when(primaryUserStoreManager.getUserListWithID(any(Condition.class), anyString(), anyString(), anyInt(),
+                anyInt(), isNull(), isNull())).thenAnswer(invocation -> {
+                    lookupUsernames.add(PrivilegedCarbonContext.getThreadLocalCarbonContext().getUsername());
+                    lookupUserMgtContexts.add(UserCoreUtil.getUserMgtContextFromThreadLocal());
+                    return new ArrayList<>();
+                });
+
+        UserMgtContext userMgtContext = new UserMgtContext();
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setUsername("admin");
+            UserCoreUtil.setUserMgtContextInThreadLocal(userMgtContext);
+            userAccountRecoveryManager.getUserListByClaims(buildUserClaimsMap(),
+                    MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        } finally {
+            UserCoreUtil.removeUserMgtContextInThreadLocal();
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+        assertEquals(lookupUsernames, Arrays.asList("admin", "admin"));
+        assertEquals(lookupUserMgtContexts, Arrays.asList(userMgtContext, userMgtContext));
+    }
+
     /**
      * Get UserstoreManager by mocking IdentityRecoveryServiceDataHolder.
      *
@@ -25,19 +25,29 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.model.User;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.event.IdentityEventConfigBuilder;
+import org.wso2.carbon.identity.event.IdentityEventConstants;
+import org.wso2.carbon.identity.event.bean.ModuleConfiguration;
+import org.wso2.carbon.identity.event.bean.Subscription;
 import org.wso2.carbon.identity.event.services.IdentityEventService;
+import org.wso2.carbon.identity.governance.IdentityGovernanceService;
+import org.wso2.carbon.identity.governance.TenantResolutionCache;
+import org.wso2.carbon.identity.governance.model.GovernanceConfigSnapshot;
 import org.wso2.carbon.identity.recovery.IdentityRecoveryClientException;
 import org.wso2.carbon.identity.recovery.IdentityRecoveryConstants;
 import org.wso2.carbon.identity.recovery.IdentityRecoveryServerException;
 import org.wso2.carbon.identity.recovery.RecoveryScenarios;
 import org.wso2.carbon.identity.recovery.RecoverySteps;
 import org.wso2.carbon.identity.recovery.internal.IdentityRecoveryServiceDataHolder;
+import org.wso2.carbon.identity.recovery.model.RecoveryDataPurgeResult;
 import org.wso2.carbon.identity.recovery.model.UserRecoveryData;
+import org.wso2.carbon.identity.recovery.util.RecoveryCodeHasher;
 import org.wso2.carbon.identity.recovery.util.Utils;
 
 import java.sql.Connection;
@@ -45,7 +55,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
@@ -54,12 +66,15 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
@@ -86,11 +101,21 @@ public class JDBCRecoveryDataStoreTest {
     @Mock
     private IdentityEventService identityEventService;
 
+    @Mock
+    private IdentityGovernanceService identityGovernanceService;
+
+    @Mock
+    private IdentityEventConfigBuilder identityEventConfigBuilder;
+
+    @Mock
+    private ModuleConfiguration moduleConfiguration;
+
     private MockedStatic<IdentityDatabaseUtil> mockedIdentityDatabaseUtil;
     private MockedStatic<IdentityTenantUtil> mockedIdentityTenantUtils;
     private MockedStatic<IdentityUtil> mockedIdentityUtil;
     private MockedStatic<Utils> mockedUtils;
     private MockedStatic<IdentityRecoveryServiceDataHolder> mockedIdentityRecoveryServiceDataHolder;
+    private MockedStatic<IdentityEventConfigBuilder> mockedIdentityEventConfigBuilder;
 
     private static final int TEST_TENANT_ID = 12;
     private static final String TEST_TENANT_DOMAIN = "test.com";
@@ -102,6 +127,7 @@ public class JDBCRecoveryDataStoreTest {
     public void setUp() throws Exception {
 
         MockitoAnnotations.openMocks(this);
+        TenantResolutionCache.getInstance().clear();
         userRecoveryDataStore = JDBCRecoveryDataStore.getInstance();
 
         mockedIdentityDatabaseUtil = mockStatic(IdentityDatabaseUtil.class);
@@ -109,7 +135,14 @@ public class JDBCRecoveryDataStoreTest {
         mockedIdentityUtil = mockStatic(IdentityUtil.class);
         mockedUtils = mockStatic(Utils.class);
         mockedIdentityRecoveryServiceDataHolder = mockStatic(IdentityRecoveryServiceDataHolder.class);
-
+        mockedIdentityEventConfigBuilder = mockStatic(IdentityEventConfigBuilder.class);
+
+        mockedIdentityEventConfigBuilder.when(IdentityEventConfigBuilder::getInstance)
+                .thenReturn(identityEventConfigBuilder);
+        when(identityEventConfigBuilder.getModuleConfiguration())
+                .thenReturn(Collections.singletonMap("testModule", moduleConfiguration));
+        mockSubscriptions(IdentityEventConstants.Event.PRE_GET_USER_RECOVERY_DATA,
+                IdentityEventConstants.Event.POST_GET_USER_RECOVERY_DATA);
         mockedIdentityRecoveryServiceDataHolder.when(IdentityRecoveryServiceDataHolder::getInstance)
                 .thenReturn(identityRecoveryServiceDataHolder);
         mockedIdentityDatabaseUtil.when(() -> IdentityDatabaseUtil.getDBConnection(anyBoolean()))
@@ -120,6 +153,7 @@ public class JDBCRecoveryDataStoreTest {
                 .thenReturn(true);
 
         when(identityRecoveryServiceDataHolder.getIdentityEventService()).thenReturn(identityEventService);
+        when(identityRecoveryServiceDataHolder.getIdentityGovernanceService()).thenReturn(identityGovernanceService);
         when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
     }
 
@@ -131,6 +165,7 @@ public class JDBCRecoveryDataStoreTest {
         mockedIdentityUtil.close();
         mockedUtils.close();
         mockedIdentityRecoveryServiceDataHolder.close();
+        mockedIdentityEventConfigBuilder.close();
 
         reset(mockConnection, mockPreparedStatement, mockResultSet);
     }
@@ -166,6 +201,70 @@ public class JDBCRecoveryDataStoreTest {
                 times(2));
     }
 
+    @Test
+    public void testStoreAndLoadWithHashedCode() throws Exception {
+
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty(
+                IdentityRecoveryConstants.RECOVERY_CODE_HASHING_ENABLE)).thenReturn("true");
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty(
+                IdentityRecoveryConstants.RECOVERY_CODE_HASHING_KEY)).thenReturn("test-key");
+        String hashedCode = RecoveryCodeHasher.hash(TEST_SECRET_CODE);
+        assertTrue(RecoveryCodeHasher.isHashed(hashedCode));
+        assertTrue(RecoveryCodeHasher.matches(TEST_SECRET_CODE, hashedCode));
+
+        UserRecoveryData recoveryData = createSampleUserRecoveryData();
+        userRecoveryDataStore.store(recoveryData);
+
+        verify(mockPreparedStatement).setString(4, hashedCode);
+        assertEquals(recoveryData.getSecret(), TEST_SECRET_CODE);
+
+        // The hash is matched first, followed by the legacy plain text code.
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false);
+        mockUtilsErrors();
+        try {
+            userRecoveryDataStore.load(TEST_SECRET_CODE);
+            fail("Expected IdentityRecoveryClientException was not thrown.");
+        } catch (IdentityRecoveryClientException e) {
+            verify(mockPreparedStatement).setString(1, hashedCode);
+            verify(mockPreparedStatement).setString(2, TEST_SECRET_CODE);
+        }
+    }
+
+    @Test
+    public void testStoredHashIsNotAcceptedAsCode() throws Exception {
+
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty(
+                IdentityRecoveryConstants.RECOVERY_CODE_HASHING_ENABLE)).thenReturn("true");
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty(
+                IdentityRecoveryConstants.RECOVERY_CODE_HASHING_KEY)).thenReturn("test-key");
+        mockedUtils.when(() -> Utils.handleClientException(
+                eq(IdentityRecoveryConstants.ErrorMessages.ERROR_CODE_INVALID_CODE), isNull()))
+                .thenReturn(IdentityException.error(IdentityRecoveryClientException.class, "err-code", ""));
+        String hashedCode = RecoveryCodeHasher.hash(TEST_SECRET_CODE);
+
+        // A persisted hash sent back by a client neither matches nor is used to look up the recovery data.
+        assertFalse(RecoveryCodeHasher.matches(hashedCode, hashedCode));
+        try {
+            userRecoveryDataStore.load(hashedCode);
+            fail("Expected IdentityRecoveryClientException was not thrown.");
+        } catch (IdentityRecoveryClientException e) {
+            verify(mockPreparedStatement, never()).setString(eq(1), anyString());
+        }
+        try {
+            userRecoveryDataStore.invalidate(hashedCode);
+            fail("Expected IdentityRecoveryClientException was not thrown.");
+        } catch (IdentityRecoveryClientException e) {
+            verify(mockPreparedStatement, never()).execute();
+        }
+
+        // Internal callers invalidate a loaded recovery entry by its persisted code.
+        userRecoveryDataStore.invalidateStoredCode(hashedCode);
+        verify(mockPreparedStatement).setString(1, hashedCode);
+        verify(mockPreparedStatement).setString(2, hashedCode);
+        verify(mockPreparedStatement).execute();
+    }
+
     @DataProvider(name = "loadData")
     private Object[][] loadData() {
 
@@ -213,6 +312,28 @@ public class JDBCRecoveryDataStoreTest {
                 .closeAllConnections(mockConnection, mockResultSet, mockPreparedStatement));
     }
 
+    @Test
+    public void testLoadWithoutEventSubscribers() throws Exception {
+
+        User user = createSampleUser();
+        IdentityEventConfigBuilder configBuilderWithoutSubscriptions = mock(IdentityEventConfigBuilder.class);
+        mockedIdentityEventConfigBuilder.when(IdentityEventConfigBuilder::getInstance)
+                .thenReturn(configBuilderWithoutSubscriptions);
+        when(configBuilderWithoutSubscriptions.getModuleConfiguration()).thenReturn(Collections.emptyMap());
+
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true);
+        when(mockResultSet.getTimestamp(eq("TIME_CREATED"), any(Calendar.class)))
+                .thenReturn(new Timestamp(System.currentTimeMillis() - 60000));
+
+        mockExpiryTimes();
+        UserRecoveryData result = userRecoveryDataStore.load(user, RecoveryScenarios.NOTIFICATION_BASED_PW_RECOVERY,
+                RecoverySteps.UPDATE_PASSWORD, TEST_SECRET_CODE);
+
+        assertNotNull(result);
+        verify(identityEventService, never()).handleEvent(any());
+    }
+
     @Test()
     public void testLoadExpiredCode() throws Exception {
 
@@ -237,40 +358,67 @@ public class JDBCRecoveryDataStoreTest {
         }
     }
 
-    private void mockExpiryTimes() {
+    @Test
+    public void testPurgeExpiredRecoveryData() throws Exception {
 
-        mockedUtils.when(() -> Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                        .ConnectorConfig.EMAIL_VERIFICATION_ON_UPDATE_EXPIRY_TIME, TEST_TENANT_DOMAIN))
-                .thenReturn("10");
-        mockedUtils.when(() -> Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                        .ConnectorConfig.MOBILE_NUM_VERIFICATION_ON_UPDATE_EXPIRY_TIME, TEST_TENANT_DOMAIN))
-                .thenReturn("10");
-        mockedUtils.when(() -> Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                        .ConnectorConfig.EXPIRY_TIME, TEST_TENANT_DOMAIN))
-                .thenReturn("10");
+        Timestamp expiredTimeCreated = new Timestamp(System.currentTimeMillis() - 600000);
+        Timestamp validTimeCreated = new Timestamp(System.currentTimeMillis() - 60000);
+
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockPreparedStatement.executeBatch()).thenReturn(new int[]{1});
+        when(mockResultSet.next()).thenReturn(true, true, false);
+        when(mockResultSet.getString("CODE")).thenReturn("expired-code", "valid-code");
+        when(mockResultSet.getTimestamp(eq("TIME_CREATED"), any(Calendar.class)))
+                .thenReturn(expiredTimeCreated, validTimeCreated);
+        when(mockResultSet.getString("SCENARIO"))
+                .thenReturn(String.valueOf(RecoveryScenarios.MOBILE_VERIFICATION_ON_UPDATE));
+        when(mockResultSet.getString("STEP")).thenReturn(String.valueOf(RecoverySteps.VERIFY_MOBILE_NUMBER));
+        when(mockResultSet.getInt("TENANT_ID")).thenReturn(TEST_TENANT_ID);
+        mockedIdentityTenantUtils.when(() -> IdentityTenantUtil.getTenantDomain(TEST_TENANT_ID))
+                .thenReturn(TEST_TENANT_DOMAIN);
+        mockExpiryTimes();
+
+        long createdBefore = System.currentTimeMillis() - 30000;
+        RecoveryDataPurgeResult result = userRecoveryDataStore.purgeExpiredRecoveryData(null, createdBefore, 10);
+
+        assertEquals(result.getScannedCount(), 2);
+        assertEquals(result.getDeletedCount(), 1);
+        assertEquals(result.getLastCode(), "valid-code");
+        assertEquals(result.getLastTimeCreated(), validTimeCreated);
+        assertTrue(result.isLastChunk());
+        verify(mockPreparedStatement).setMaxRows(10);
+        verify(mockPreparedStatement).setTimestamp(eq(2), eq(new Timestamp(createdBefore)), any(Calendar.class));
+        verify(mockPreparedStatement).setString(1, "expired-code");
+        verify(mockPreparedStatement, times(1)).addBatch();
+        mockedIdentityDatabaseUtil.verify(() -> IdentityDatabaseUtil.commitTransaction(mockConnection));
+    }
+
+    private void mockExpiryTimes() throws Exception {
+
+        String[] expiryConfigs = {
+                IdentityRecoveryConstants.ConnectorConfig.EMAIL_VERIFICATION_ON_UPDATE_EXPIRY_TIME,
+                IdentityRecoveryConstants.ConnectorConfig.MOBILE_NUM_VERIFICATION_ON_UPDATE_EXPIRY_TIME,
+                IdentityRecoveryConstants.ConnectorConfig.EXPIRY_TIME,
+                IdentityRecoveryConstants.ConnectorConfig.ASK_PASSWORD_EXPIRY_TIME,
+                IdentityRecoveryConstants.ConnectorConfig.ADMIN_PASSWORD_RESET_EXPIRY_TIME,
+                IdentityRecoveryConstants.ConnectorConfig.SELF_REGISTRATION_VERIFICATION_CODE_EXPIRY_TIME,
+                IdentityRecoveryConstants.ConnectorConfig.SELF_REGISTRATION_SMSOTP_VERIFICATION_CODE_EXPIRY_TIME,
+                IdentityRecoveryConstants.ConnectorConfig.LITE_REGISTRATION_VERIFICATION_CODE_EXPIRY_TIME,
+                IdentityRecoveryConstants.ConnectorConfig.LITE_REGISTRATION_SMSOTP_VERIFICATION_CODE_EXPIRY_TIME
+        };
+        Property[] properties = new Property[expiryConfigs.length];
+        for (int i = 0; i < expiryConfigs.length; i++) {
+            properties[i] = new Property();
+            properties[i].setName(expiryConfigs[i]);
+            properties[i].setValue("10");
+        }
+        when(identityGovernanceService.getConfigurationSnapshot(TEST_TENANT_DOMAIN))
+                .thenReturn(new GovernanceConfigSnapshot(properties));
         mockedIdentityUtil.when(() -> IdentityUtil.getProperty(IdentityRecoveryConstants
                         .ConnectorConfig.TENANT_ADMIN_ASK_PASSWORD_EXPIRY_TIME))
                 .thenReturn("10");
-        mockedUtils.when(() -> Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                        .ConnectorConfig.ASK_PASSWORD_EXPIRY_TIME, TEST_TENANT_DOMAIN))
-                .thenReturn("10");
-        mockedUtils.when(() -> Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                        .ConnectorConfig.ADMIN_PASSWORD_RESET_EXPIRY_TIME, TEST_TENANT_DOMAIN))
-                .thenReturn("10");
-        mockedUtils.when(() -> Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                        .ConnectorConfig.SELF_REGISTRATION_VERIFICATION_CODE_EXPIRY_TIME, TEST_TENANT_DOMAIN))
-                .thenReturn("10");
-        mockedUtils.when(() -> Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                        .ConnectorConfig.SELF_REGISTRATION_SMSOTP_VERIFICATION_CODE_EXPIRY_TIME, TEST_TENANT_DOMAIN))
-                .thenReturn("10");
-        mockedUtils.when(() -> Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                        .ConnectorConfig.RESEND_CODE_EXPIRY_TIME, TEST_TENANT_DOMAIN))
-                .thenReturn("10");
-        mockedUtils.when(() -> Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                        .ConnectorConfig.LITE_REGISTRATION_VERIFICATION_CODE_EXPIRY_TIME, TEST_TENANT_DOMAIN))
-                .thenReturn("10");
-        mockedUtils.when(() -> Utils.getRecoveryConfigs(IdentityRecoveryConstants
-                        .ConnectorConfig.LITE_REGISTRATION_SMSOTP_VERIFICATION_CODE_EXPIRY_TIME, TEST_TENANT_DOMAIN))
+        mockedIdentityUtil.when(() -> IdentityUtil.getProperty(IdentityRecoveryConstants
+                        .ConnectorConfig.RESEND_CODE_EXPIRY_TIME))
                 .thenReturn("10");
     }
 
@@ -304,6 +452,16 @@ public class JDBCRecoveryDataStoreTest {
                 RecoverySteps.VERIFY_MOBILE_NUMBER);
     }
 
+    private void mockSubscriptions(String... eventNames) {
+
+        Subscription[] subscriptions = new Subscription[eventNames.length];
+        for (int i = 0; i < eventNames.length; i++) {
+            subscriptions[i] = mock(Subscription.class);
+            when(subscriptions[i].getSubscriptionName()).thenReturn(eventNames[i]);
+        }
+        when(moduleConfiguration.getSubscriptions()).thenReturn(Arrays.asList(subscriptions));
+    }
+
     private User createSampleUser() {
 
         User user = new User();
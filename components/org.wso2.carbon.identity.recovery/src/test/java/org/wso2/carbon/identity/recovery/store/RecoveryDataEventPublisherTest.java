@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.recovery.store;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.event.IdentityEventConstants;
+import org.wso2.carbon.identity.event.event.Event;
+import org.wso2.carbon.identity.event.services.IdentityEventService;
+import org.wso2.carbon.identity.recovery.internal.IdentityRecoveryServiceDataHolder;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for the asynchronous publishing of RecoveryDataEventPublisher.
+ */
+public class RecoveryDataEventPublisherTest {
+
+    private static final String PRE_EVENT = "PRE_GET_USER_RECOVERY_DATA";
+    private static final String POST_EVENT = "POST_GET_USER_RECOVERY_DATA";
+    private static final String WORKER_THREAD_NAME = "RecoveryDataEventPublisherThread";
+    private static final String EVENT_INDEX = "index";
+
+    private IdentityEventService originalIdentityEventService;
+    private IdentityEventService identityEventService;
+    private RecoveryDataEventPublisher publisher;
+
+    private final List<String> handledEvents = new CopyOnWriteArrayList<>();
+    private final List<String> handlerThreads = new CopyOnWriteArrayList<>();
+    private final List<String> handlerTenantDomains = new CopyOnWriteArrayList<>();
+    private CountDownLatch handlerStarted;
+    private CountDownLatch handlerReleased;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        System.setProperty("carbon.home",
+                Paths.get(System.getProperty("user.dir"), "src", "test", "resources").toString());
+        handledEvents.clear();
+        handlerThreads.clear();
+        handlerTenantDomains.clear();
+        handlerStarted = new CountDownLatch(1);
+        handlerReleased = new CountDownLatch(0);
+
+        identityEventService = mock(IdentityEventService.class);
+        doAnswer(invocation -> {
+            Event event = invocation.getArgument(0);
+            handlerStarted.countDown();
+            handlerReleased.await(5, TimeUnit.SECONDS);
+            handledEvents.add(event.getEventName() + event.getEventProperties().get(EVENT_INDEX));
+            handlerThreads.add(Thread.currentThread().getName());
+            handlerTenantDomains.add(String.valueOf(
+                    PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain()));
+            return null;
+        }).when(identityEventService).handleEvent(any(Event.class));
+
+        // The worker thread reads the event service from the data holder.
+        originalIdentityEventService = IdentityRecoveryServiceDataHolder.getInstance().getIdentityEventService();
+        IdentityRecoveryServiceDataHolder.getInstance().setIdentityEventService(identityEventService);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        handlerReleased.countDown();
+        if (publisher != null) {
+            publisher.shutdown();
+            publisher = null;
+        }
+        IdentityRecoveryServiceDataHolder.getInstance().setIdentityEventService(originalIdentityEventService);
+    }
+
+    @Test
+    public void testPreEventsArePublishedInCallingThread() throws Exception {
+
+        publisher = new RecoveryDataEventPublisher(true, true, false, 10, 10);
+        publish(PRE_EVENT, 0, null);
+
+        assertEquals(handledEvents, Collections.singletonList(PRE_EVENT + 0));
+        assertEquals(handlerThreads, Collections.singletonList(Thread.currentThread().getName()));
+        assertEquals(publisher.getQueueDepth(), 0);
+    }
+
+    @Test
+    public void testQueuedEventsArePublishedInBatches() throws Exception {
+
+        publisher = new RecoveryDataEventPublisher(true, true, false, 2, 10);
+        handlerReleased = new CountDownLatch(1);
+        for (int i = 0; i < 5; i++) {
+            publish(POST_EVENT, i, null);
+        }
+        assertTrue(handlerStarted.await(5, TimeUnit.SECONDS));
+        handlerReleased.countDown();
+        publisher.shutdown();
+
+        assertEquals(handledEvents, Arrays.asList(POST_EVENT + 0, POST_EVENT + 1, POST_EVENT + 2, POST_EVENT + 3,
+                POST_EVENT + 4));
+        for (String handlerThread : handlerThreads) {
+            assertEquals(handlerThread, WORKER_THREAD_NAME);
+        }
+        assertEquals(publisher.getPublishedCount(), 5);
+        assertTrue(publisher.getMaxQueueDepth() >= 3);
+        assertEquals(publisher.getQueueDepth(), 0);
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenQueueIsFull() throws Exception {
+
+        publisher = new RecoveryDataEventPublisher(true, true, false, 10, 1);
+        handlerReleased = new CountDownLatch(1);
+        publish(POST_EVENT, 0, null);
+        // The worker thread holds the first event until the handler is released, hence the second event fills the
+        // queue and the third event is dropped.
+        assertTrue(handlerStarted.await(5, TimeUnit.SECONDS));
+        publish(POST_EVENT, 1, null);
+        publish(POST_EVENT, 2, null);
+        assertEquals(publisher.getDroppedCount(), 1);
+
+        handlerReleased.countDown();
+        publisher.shutdown();
+        assertEquals(handledEvents, Arrays.asList(POST_EVENT + 0, POST_EVENT + 1));
+        assertEquals(publisher.getPublishedCount(), 2);
+    }
+
+    @Test
+    public void testPublishingBlocksWhenQueueIsFull() throws Exception {
+
+        publisher = new RecoveryDataEventPublisher(true, true, true, 10, 1);
+        handlerReleased = new CountDownLatch(1);
+        publish(POST_EVENT, 0, null);
+        assertTrue(handlerStarted.await(5, TimeUnit.SECONDS));
+        publish(POST_EVENT, 1, null);
+
+        CountDownLatch published = new CountDownLatch(1);
+        Thread publishingThread = new Thread(() -> {
+            try {
+                publish(POST_EVENT, 2, null);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            published.countDown();
+        });
+        publishingThread.start();
+        assertFalse(published.await(200, TimeUnit.MILLISECONDS), "Event was published to a full queue.");
+
+        handlerReleased.countDown();
+        assertTrue(published.await(5, TimeUnit.SECONDS));
+        publisher.shutdown();
+        assertEquals(handledEvents, Arrays.asList(POST_EVENT + 0, POST_EVENT + 1, POST_EVENT + 2));
+        assertEquals(publisher.getDroppedCount(), 0);
+    }
+
+    @Test
+    public void testShutdownIsFinal() throws Exception {
+
+        publisher = new RecoveryDataEventPublisher(true, true, false, 10, 10);
+        handlerReleased = new CountDownLatch(1);
+        publish(POST_EVENT, 0, null);
+        publish(POST_EVENT, 1, null);
+        assertTrue(handlerStarted.await(5, TimeUnit.SECONDS));
+        handlerReleased.countDown();
+        publisher.shutdown();
+        assertEquals(handledEvents, Arrays.asList(POST_EVENT + 0, POST_EVENT + 1));
+
+        // Events published after the shutdown do not restart the worker thread.
+        publish(POST_EVENT, 2, null);
+        assertEquals(handledEvents, Arrays.asList(POST_EVENT + 0, POST_EVENT + 1, POST_EVENT + 2));
+        assertEquals(handlerThreads.get(2), Thread.currentThread().getName());
+        assertEquals(publisher.getQueueDepth(), 0);
+        assertEquals(publisher.getPublishedCount(), 3);
+    }
+
+    @Test
+    public void testQueuedEventsArePublishedInTenantFlow() throws Exception {
+
+        publisher = new RecoveryDataEventPublisher(true, true, false, 10, 10);
+        publish(POST_EVENT, 0, MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        publisher.shutdown();
+
+        assertEquals(handlerThreads, Collections.singletonList(WORKER_THREAD_NAME));
+        assertEquals(handlerTenantDomains, Collections.singletonList(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME));
+    }
+
+    @Test
+    public void testFailedEventsAreCounted() throws Exception {
+
+        publisher = new RecoveryDataEventPublisher(true, true, false, 10, 10);
+        doAnswer(invocation -> {
+            throw new RuntimeException("Handler failure.");
+        }).when(identityEventService).handleEvent(any(Event.class));
+        publish(POST_EVENT, 0, null);
+        publisher.shutdown();
+
+        assertEquals(publisher.getFailedCount(), 1);
+        assertEquals(publisher.getPublishedCount(), 0);
+    }
+
+    private void publish(String eventName, int index, String tenantDomain) throws Exception {
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(EVENT_INDEX, index);
+        if (tenantDomain != null) {
+            properties.put(IdentityEventConstants.EventProperty.TENANT_DOMAIN, tenantDomain);
+        }
+        publisher.publish(eventName, properties);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2025, WSO2 LLC. (http://www.wso2.com).
+ *
+ * WSO2 LLC. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.recovery.util;
+
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.governance.IdentityGovernanceService;
+import org.wso2.carbon.identity.governance.model.GovernanceConfigSnapshot;
+import org.wso2.carbon.identity.governance.service.notification.NotificationChannels;
+import org.wso2.carbon.identity.recovery.IdentityRecoveryConstants;
+import org.wso2.carbon.identity.recovery.RecoveryScenarios;
+import org.wso2.carbon.identity.recovery.RecoverySteps;
+import org.wso2.carbon.identity.recovery.internal.IdentityRecoveryServiceDataHolder;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for RecoveryCodeExpiryTable.
+ */
+public class RecoveryCodeExpiryTableTest {
+
+    private static final String TEST_TENANT_DOMAIN = "expiry.com";
+
+    @Mock
+    private IdentityRecoveryServiceDataHolder identityRecoveryServiceDataHolder;
+
+    @Mock
+    private IdentityGovernanceService identityGovernanceService;
+
+    private MockedStatic<IdentityRecoveryServiceDataHolder> mockedIdentityRecoveryServiceDataHolder;
+    private MockedStatic<IdentityUtil> mockedIdentityUtil;
+
+    @BeforeMethod
+    public void setUp() {
+
+        MockitoAnnotations.openMocks(this);
+        mockedIdentityRecoveryServiceDataHolder = mockStatic(IdentityRecoveryServiceDataHolder.class);
+        mockedIdentityUtil = mockStatic(IdentityUtil.class);
+        mockedIdentityRecoveryServiceDataHolder.when(IdentityRecoveryServiceDataHolder::getInstance)
+                .thenReturn(identityRecoveryServiceDataHolder);
+        when(identityRecoveryServiceDataHolder.getIdentityGovernanceService()).thenReturn(identityGovernanceService);
+        RecoveryCodeExpiryTable.clearExpiryTable(TEST_TENANT_DOMAIN);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        mockedIdentityRecoveryServiceDataHolder.close();
+        mockedIdentityUtil.close();
+    }
+
+    @Test
+    public void testGetExpiryTime() throws Exception {
+
+        mockConfigs("1440", "5", "-1");
+        RecoveryCodeExpiryTable expiryTable = RecoveryCodeExpiryTable.getExpiryTable(TEST_TENANT_DOMAIN);
+
+        assertEquals(expiryTable.getExpiryTime(RecoveryScenarios.SELF_SIGN_UP, RecoverySteps.CONFIRM_SIGN_UP,
+                NotificationChannels.EMAIL_CHANNEL.getChannelType()), Duration.ofMinutes(1440));
+        assertEquals(expiryTable.getExpiryTime(RecoveryScenarios.SELF_SIGN_UP, RecoverySteps.CONFIRM_SIGN_UP,
+                NotificationChannels.SMS_CHANNEL.getChannelType()), Duration.ofMinutes(5));
+        assertEquals(expiryTable.getExpiryTime(RecoveryScenarios.NOTIFICATION_BASED_PW_RECOVERY,
+                RecoverySteps.SEND_RECOVERY_INFORMATION, null),
+                Duration.ofMinutes(IdentityRecoveryConstants.RECOVERY_CODE_DEFAULT_EXPIRY_TIME));
+        // A negative expiry time makes the code valid infinitely.
+        assertEquals(expiryTable.getExpiryTime(RecoveryScenarios.ASK_PASSWORD, RecoverySteps.UPDATE_PASSWORD, null),
+                Duration.ofMinutes(Integer.MAX_VALUE));
+        assertEquals(expiryTable.getExpiryDeadline(RecoveryScenarios.SELF_SIGN_UP, RecoverySteps.CONFIRM_SIGN_UP,
+                null, 1000L), 1000L + Duration.ofMinutes(1440).toMillis());
+    }
+
+    @Test
+    public void testIsExpired() throws Exception {
+
+        mockConfigs("10", "5", "10");
+        RecoveryCodeExpiryTable expiryTable = RecoveryCodeExpiryTable.getExpiryTable(TEST_TENANT_DOMAIN);
+        long sevenMinutesAgo = System.currentTimeMillis() - Duration.ofMinutes(7).toMillis();
+
+        assertFalse(expiryTable.isExpired(RecoveryScenarios.SELF_SIGN_UP, RecoverySteps.CONFIRM_SIGN_UP, null,
+                sevenMinutesAgo));
+        assertTrue(expiryTable.isExpired(RecoveryScenarios.SELF_SIGN_UP, RecoverySteps.CONFIRM_SIGN_UP,
+                NotificationChannels.SMS_CHANNEL.getChannelType(), sevenMinutesAgo));
+    }
+
+    @Test
+    public void testExpiryTableIsRebuiltOnlyWhenConfigsChange() throws Exception {
+
+        mockConfigs("10", "5", "10");
+        RecoveryCodeExpiryTable expiryTable = RecoveryCodeExpiryTable.getExpiryTable(TEST_TENANT_DOMAIN);
+
+        mockConfigs("10", "5", "10");
+        assertSame(RecoveryCodeExpiryTable.getExpiryTable(TEST_TENANT_DOMAIN), expiryTable);
+
+        mockConfigs("20", "5", "10");
+        RecoveryCodeExpiryTable rebuiltExpiryTable = RecoveryCodeExpiryTable.getExpiryTable(TEST_TENANT_DOMAIN);
+        assertNotSame(rebuiltExpiryTable, expiryTable);
+        assertEquals(rebuiltExpiryTable.getExpiryTime(RecoveryScenarios.SELF_SIGN_UP, RecoverySteps.CONFIRM_SIGN_UP,
+                null), Duration.ofMinutes(20));
+    }
+
+    private void mockConfigs(String verificationExpiryTime, String smsOtpExpiryTime, String askPasswordExpiryTime)
+            throws Exception {
+
+        Property[] properties = {
+                createProperty(IdentityRecoveryConstants.ConnectorConfig.EXPIRY_TIME, "30"),
+                createProperty(IdentityRecoveryConstants.ConnectorConfig
+                        .SELF_REGISTRATION_VERIFICATION_CODE_EXPIRY_TIME, verificationExpiryTime),
+                createProperty(IdentityRecoveryConstants.ConnectorConfig
+                        .SELF_REGISTRATION_SMSOTP_VERIFICATION_CODE_EXPIRY_TIME, smsOtpExpiryTime),
+                createProperty(IdentityRecoveryConstants.ConnectorConfig.ASK_PASSWORD_EXPIRY_TIME,
+                        askPasswordExpiryTime)
+        };
+        when(identityGovernanceService.getConfigurationSnapshot(TEST_TENANT_DOMAIN))
+                .thenReturn(new GovernanceConfigSnapshot(properties));
+    }
+
+    private Property createProperty(String name, String value) {
+
+        Property property = new Property();
+        property.setName(name);
+        property.setValue(value);
+        return property;
+    }
+}
@@ -0,0 +1,3 @@
+-- Supports the keyset scan of the expired recovery data purge.
+CREATE INDEX IDX_RD_TIME_CREATED_CODE ON IDN_RECOVERY_DATA (TIME_CREATED, CODE)
+/